@@ -0,0 +1,43 @@
+package org.folio.edge.sip2.benchmarks;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import org.folio.edge.sip2.parser.DateTimeMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures mapping SIP dates in the SC's local time and with a time zone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class DateTimeMapperBenchmark {
+  @Param({"20210314    101500", "20210314   Z101500", "20210314   R101500"})
+  public String dateTime;
+
+  private DateTimeMapper mapper;
+
+  @Setup
+  public void setup() {
+    mapper = new DateTimeMapper(ZoneOffset.ofHours(-4));
+  }
+
+  @Benchmark
+  public OffsetDateTime mapDateTime() {
+    return mapper.mapDateTime(dateTime);
+  }
+}
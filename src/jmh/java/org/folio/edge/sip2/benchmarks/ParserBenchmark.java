@@ -0,0 +1,82 @@
+package org.folio.edge.sip2.benchmarks;
+
+import io.vertx.core.buffer.Buffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.parser.Message;
+import org.folio.edge.sip2.parser.Parser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing of each request received from an SC, with the checksum
+ * validated when error detection is enabled.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+  @Param({"PATRON_STATUS_REQUEST", "CHECKOUT", "CHECKIN", "BLOCK_PATRON", "SC_STATUS",
+      "REQUEST_ACS_RESEND", "LOGIN", "PATRON_INFORMATION", "END_PATRON_SESSION", "FEE_PAID",
+      "ITEM_INFORMATION", "ITEM_STATUS_UPDATE", "PATRON_ENABLE", "HOLD", "RENEW",
+      "RENEW_ALL"})
+  public Command command;
+
+  @Param({"IBM850", "UTF-8"})
+  public String charset;
+
+  @Param({"true", "false"})
+  public boolean errorDetection;
+
+  private Parser parser;
+  private Buffer request;
+
+  /**
+   * Set up the parser and the request for the parameters.
+   */
+  @Setup
+  public void setup() {
+    parser = newParser();
+    request = SipCorpus.request(command, charset, errorDetection);
+
+    final Message<Object> message = parser.parseMessage(request);
+    if (message.getCommand() != command || !message.isValid()) {
+      throw new IllegalStateException("Corpus request for " + command + " does not parse");
+    }
+  }
+
+  @Benchmark
+  public Message<Object> parseMessage() {
+    return parser.parseMessage(request);
+  }
+
+  /**
+   * Parse with a new parser, as is done for each request received on a connection.
+   */
+  @Benchmark
+  public Message<Object> parseMessageWithNewParser() {
+    return newParser().parseMessage(request);
+  }
+
+  private Parser newParser() {
+    return Parser.builder()
+        .delimiter('|')
+        .charset(Charset.forName(charset))
+        .errorDetectionEnaled(errorDetection)
+        .timezone("America/New_York")
+        .build();
+  }
+}
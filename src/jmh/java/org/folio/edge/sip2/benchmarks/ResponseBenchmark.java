@@ -0,0 +1,76 @@
+package org.folio.edge.sip2.benchmarks;
+
+import freemarker.template.Template;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerRepository;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.session.SessionData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures rendering each response with its Freemarker template and with
+ * the response encoder that replaces it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseBenchmark {
+  @Param({"CHECKOUT_RESPONSE", "CHECKIN_RESPONSE", "RENEW_RESPONSE", "RENEW_ALL_RESPONSE",
+      "FEE_PAID_RESPONSE", "ACS_STATUS", "REQUEST_SC_RESEND", "LOGIN_RESPONSE",
+      "PATRON_INFORMATION_RESPONSE", "PATRON_STATUS_RESPONSE", "ITEM_INFORMATION_RESPONSE",
+      "END_SESSION_RESPONSE"})
+  public Command command;
+
+  private SessionData sessionData;
+  private Object response;
+  private Map<String, Object> root;
+  private Template template;
+
+  /**
+   * Set up the response and its data model for the parameters.
+   */
+  @Setup
+  public void setup() {
+    sessionData = SipCorpus.session("IBM850", true);
+    response = SipCorpus.response(command);
+    root = SipCorpus.templateRoot(command, response, sessionData);
+    template = FreemarkerRepository.getInstance().getFreemarkerTemplate(command);
+
+    final String rendered = executeFreemarkerTemplate();
+    if (rendered.isEmpty() || !rendered.equals(encode())) {
+      throw new IllegalStateException("Corpus response for " + command + " does not render");
+    }
+  }
+
+  @Benchmark
+  public String executeFreemarkerTemplate() {
+    return FreemarkerUtils.executeFreemarkerTemplate(root, template);
+  }
+
+  /**
+   * Encode the response without falling back to the template.
+   */
+  @Benchmark
+  public String encode() {
+    return ResponseEncoders.getInstance().encode(command, response, sessionData,
+        () -> {
+          throw new IllegalStateException("Unable to encode " + command);
+        });
+  }
+}
@@ -0,0 +1,93 @@
+package org.folio.edge.sip2.benchmarks;
+
+import io.vertx.core.buffer.Buffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
+import org.folio.edge.sip2.handlers.encoders.ResponseFramer;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.session.SessionData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures framing a response for the wire, which is what
+ * {@code MainVerticle.formatResponse} does for every response. The
+ * {@code formatResponseWithStrings} benchmark is the String based framing
+ * it replaced, kept for comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResponseFramerBenchmark {
+  @Param({"LOGIN_RESPONSE", "CHECKOUT_RESPONSE", "PATRON_INFORMATION_RESPONSE"})
+  public Command command;
+
+  @Param({"IBM850", "UTF-8"})
+  public String charset;
+
+  @Param({"true", "false"})
+  public boolean errorDetection;
+
+  private String response;
+
+  /**
+   * Encode the response that will be framed.
+   */
+  @Setup
+  public void setup() {
+    final SessionData sessionData = SipCorpus.session(charset, errorDetection);
+    response = ResponseEncoders.getInstance().encode(command, SipCorpus.response(command),
+        sessionData, () -> {
+          throw new IllegalStateException("Unable to encode " + command);
+        });
+  }
+
+  /**
+   * Frame the response in a single encoding pass.
+   */
+  @Benchmark
+  public Buffer formatResponse() {
+    if (errorDetection) {
+      return ResponseFramer.frameWithErrorDetection(response, charset, "\r", false,
+          Integer.valueOf(4));
+    }
+    return ResponseFramer.frame(response, charset, "\r");
+  }
+
+  /**
+   * Frame the response the way it was framed before, encoding the response
+   * for the checksum and again for the socket.
+   */
+  @Benchmark
+  public Buffer formatResponseWithStrings() {
+    final String framed;
+    if (errorDetection) {
+      final StringBuilder sb = new StringBuilder(response.length() + 10)
+          .append(response)
+          .append("AY").append(4)
+          .append("AZ");
+      int checksum = 0;
+      for (final byte b : sb.toString().getBytes(Charset.forName(charset))) {
+        checksum += b & 0xff;
+      }
+      checksum = -checksum & 0xffff;
+      framed = sb.append(String.format("%04X", checksum)).append('\r').toString();
+    } else {
+      framed = response + '\r';
+    }
+    return Buffer.buffer(framed, charset);
+  }
+}
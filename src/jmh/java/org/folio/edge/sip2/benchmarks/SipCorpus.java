@@ -0,0 +1,386 @@
+package org.folio.edge.sip2.benchmarks;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+
+import io.vertx.core.buffer.Buffer;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.folio.edge.sip2.domain.messages.enumerations.CirculationStatus;
+import org.folio.edge.sip2.domain.messages.enumerations.CurrencyType;
+import org.folio.edge.sip2.domain.messages.enumerations.FeeType;
+import org.folio.edge.sip2.domain.messages.enumerations.Language;
+import org.folio.edge.sip2.domain.messages.enumerations.MediaType;
+import org.folio.edge.sip2.domain.messages.enumerations.Messages;
+import org.folio.edge.sip2.domain.messages.enumerations.PatronStatus;
+import org.folio.edge.sip2.domain.messages.enumerations.SecurityMarker;
+import org.folio.edge.sip2.domain.messages.responses.ACSStatus;
+import org.folio.edge.sip2.domain.messages.responses.CheckinResponse;
+import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
+import org.folio.edge.sip2.domain.messages.responses.EndSessionResponse;
+import org.folio.edge.sip2.domain.messages.responses.FeePaidResponse;
+import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse;
+import org.folio.edge.sip2.domain.messages.responses.LoginResponse;
+import org.folio.edge.sip2.domain.messages.responses.PatronInformationResponse;
+import org.folio.edge.sip2.domain.messages.responses.PatronStatusResponse;
+import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse;
+import org.folio.edge.sip2.domain.messages.responses.RenewResponse;
+import org.folio.edge.sip2.handlers.SCStatusHandler.PackagedSupportedMessages;
+import org.folio.edge.sip2.handlers.encoders.ResponseFramer;
+import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Requests and responses resembling the traffic of a self check kiosk. The
+ * patron and item data contains accented characters, so the corpus exercises
+ * the charset handling of both IBM850 and UTF-8 sessions.
+ */
+final class SipCorpus {
+  static final String TRANSACTION_DATE = "20210314    101500";
+  static final String DUE_DATE = "20210328    235959";
+  static final OffsetDateTime DATE =
+      OffsetDateTime.of(2021, 3, 14, 10, 15, 0, 0, ZoneOffset.UTC);
+
+  private static final String PATRON = "AA2087654321|AD4719|";
+  private static final String INSTITUTION = "AOfs00000001|";
+  private static final String ITEM = "AB31924012345678|";
+  private static final String TITLE = "Søren Kierkegaard : Enten-Eller, første del";
+  private static final String PERSONAL_NAME = "Müller, José";
+
+  private SipCorpus() {
+    super();
+  }
+
+  /**
+   * Get the request for a command, as it would be received from the socket
+   * with the message delimiter removed.
+   *
+   * @param command the request command
+   * @param charset the session charset
+   * @param errorDetection {@code true} to include the AY/AZ fields
+   * @return the request
+   */
+  static Buffer request(Command command, String charset, boolean errorDetection) {
+    final String request = requestBody(command);
+    if (!errorDetection) {
+      return Buffer.buffer(request, charset);
+    }
+    // the ACS resend request never includes a sequence number
+    return ResponseFramer.frameWithErrorDetection(request, charset, "",
+        command == Command.REQUEST_ACS_RESEND, Integer.valueOf(4));
+  }
+
+  /**
+   * The request commands handled by the parser.
+   */
+  static List<Command> requestCommands() {
+    return Arrays.asList(Command.PATRON_STATUS_REQUEST, Command.CHECKOUT, Command.CHECKIN,
+        Command.BLOCK_PATRON, Command.SC_STATUS, Command.REQUEST_ACS_RESEND, Command.LOGIN,
+        Command.PATRON_INFORMATION, Command.END_PATRON_SESSION, Command.FEE_PAID,
+        Command.ITEM_INFORMATION, Command.ITEM_STATUS_UPDATE, Command.PATRON_ENABLE,
+        Command.HOLD, Command.RENEW, Command.RENEW_ALL);
+  }
+
+  private static String requestBody(Command command) {
+    switch (command) {
+      case PATRON_STATUS_REQUEST:
+        return "23001" + TRANSACTION_DATE + INSTITUTION + PATRON + "AC|";
+      case CHECKOUT:
+        return "11YN" + TRANSACTION_DATE + DUE_DATE + INSTITUTION + PATRON + ITEM
+            + "AC|CHSpine label faded|BON|BIN|";
+      case CHECKIN:
+        return "09N" + TRANSACTION_DATE + TRANSACTION_DATE + "APFront desk, Bibliothèque|"
+            + INSTITUTION + ITEM + "AC|CHSpine label faded|BIN|";
+      case BLOCK_PATRON:
+        return "01N" + TRANSACTION_DATE + INSTITUTION
+            + "ALCard retained due to excessive fee violations|" + PATRON + "AC|";
+      case SC_STATUS:
+        return "9900802.00";
+      case REQUEST_ACS_RESEND:
+        return "97";
+      case LOGIN:
+        return "9300CNkiosk_north_wing|COs3cr3t-pässwörd|CPNorth Wing|";
+      case PATRON_INFORMATION:
+        return "63001" + TRANSACTION_DATE + "Y         " + INSTITUTION + PATRON
+            + "AC|BP1|BQ50|";
+      case END_PATRON_SESSION:
+        return "35" + TRANSACTION_DATE + INSTITUTION + PATRON + "AC|";
+      case FEE_PAID:
+        return "37" + TRANSACTION_DATE + "0100USDBV12.50|" + INSTITUTION + PATRON
+            + "AC|CGfine-7f3a|BKtx-20210314-0001|";
+      case ITEM_INFORMATION:
+        return "17" + TRANSACTION_DATE + INSTITUTION + ITEM + "AC|";
+      case ITEM_STATUS_UPDATE:
+        return "19" + TRANSACTION_DATE + INSTITUTION + ITEM
+            + "AC|CHCoffee stain on the first pages|";
+      case PATRON_ENABLE:
+        return "25" + TRANSACTION_DATE + INSTITUTION + PATRON + "AC|";
+      case HOLD:
+        return "15+" + TRANSACTION_DATE + "BW" + DUE_DATE + "|BSFront desk|BY2|"
+            + INSTITUTION + PATRON + "AC|" + ITEM + "AJ" + TITLE + "|BON|";
+      case RENEW:
+        return "29NN" + TRANSACTION_DATE + DUE_DATE + INSTITUTION + PATRON + "AC|" + ITEM
+            + "AJ" + TITLE + "|CHSpine label faded|BON|";
+      case RENEW_ALL:
+        return "65" + TRANSACTION_DATE + INSTITUTION + PATRON + "AC|BON|";
+      default:
+        throw new IllegalArgumentException("No request for " + command);
+    }
+  }
+
+  /**
+   * The response commands that have a Freemarker template.
+   */
+  static List<Command> responseCommands() {
+    return Arrays.asList(Command.CHECKOUT_RESPONSE, Command.CHECKIN_RESPONSE,
+        Command.RENEW_RESPONSE, Command.RENEW_ALL_RESPONSE, Command.FEE_PAID_RESPONSE,
+        Command.ACS_STATUS, Command.REQUEST_SC_RESEND, Command.LOGIN_RESPONSE,
+        Command.PATRON_INFORMATION_RESPONSE, Command.PATRON_STATUS_RESPONSE,
+        Command.ITEM_INFORMATION_RESPONSE, Command.END_SESSION_RESPONSE);
+  }
+
+  /**
+   * Get a populated response for a response command.
+   *
+   * @param command the response command
+   * @return the response POJO, {@code null} for the SC resend response
+   */
+  static Object response(Command command) {
+    switch (command) {
+      case CHECKOUT_RESPONSE:
+        return CheckoutResponse.builder()
+            .ok(TRUE)
+            .renewalOk(FALSE)
+            .magneticMedia(FALSE)
+            .desensitize(TRUE)
+            .transactionDate(DATE)
+            .institutionId("fs00000001")
+            .patronIdentifier("2087654321")
+            .itemIdentifier("31924012345678")
+            .titleIdentifier(TITLE)
+            .dueDate(DATE.plusDays(14))
+            .mediaType(MediaType.BOOK)
+            .screenMessage(Arrays.asList("Item checked out, due in two weeks"))
+            .build();
+      case CHECKIN_RESPONSE:
+        return CheckinResponse.builder()
+            .ok(TRUE)
+            .resensitize(TRUE)
+            .magneticMedia(FALSE)
+            .alert(FALSE)
+            .transactionDate(DATE)
+            .institutionId("fs00000001")
+            .itemIdentifier("31924012345678")
+            .permanentLocation("Main Library, Bibliothèque générale")
+            .titleIdentifier(TITLE)
+            .mediaType(MediaType.BOOK)
+            .build();
+      case RENEW_RESPONSE:
+        return RenewResponse.builder()
+            .ok(TRUE)
+            .renewalOk(TRUE)
+            .magneticMedia(FALSE)
+            .desensitize(TRUE)
+            .transactionDate(DATE)
+            .institutionId("fs00000001")
+            .patronIdentifier("2087654321")
+            .itemIdentifier("31924012345678")
+            .titleIdentifier(TITLE)
+            .dueDate(DATE.plusDays(28))
+            .feeType(FeeType.RENTAL)
+            .currencyType(CurrencyType.USD)
+            .feeAmount("0.50")
+            .build();
+      case RENEW_ALL_RESPONSE:
+        return RenewAllResponse.builder()
+            .ok(TRUE)
+            .renewedCount(Integer.valueOf(3))
+            .unrenewedCount(Integer.valueOf(1))
+            .transactionDate(DATE)
+            .institutionId("fs00000001")
+            .renewedItems(Arrays.asList("31924012345678", "31924012345679", "31924012345680"))
+            .unrenewedItems(Arrays.asList("31924012345681"))
+            .build();
+      case FEE_PAID_RESPONSE:
+        return FeePaidResponse.builder()
+            .paymentAccepted(TRUE)
+            .transactionDate(DATE)
+            .institutionId("fs00000001")
+            .patronIdentifier("2087654321")
+            .transactionId("tx-20210314-0001")
+            .build();
+      case ACS_STATUS:
+        return ACSStatus.builder()
+            .onLineStatus(TRUE)
+            .checkinOk(TRUE)
+            .checkoutOk(TRUE)
+            .acsRenewalPolicy(TRUE)
+            .statusUpdateOk(FALSE)
+            .offLineOk(FALSE)
+            .timeoutPeriod(Integer.valueOf(10))
+            .retriesAllowed(Integer.valueOf(3))
+            .dateTimeSync(DATE)
+            .protocolVersion("2.00")
+            .institutionId("fs00000001")
+            .libraryName("Bibliothèque municipale")
+            .supportedMessages(EnumSet.allOf(Messages.class))
+            .terminalLocation("North Wing")
+            .build();
+      case REQUEST_SC_RESEND:
+        return null;
+      case LOGIN_RESPONSE:
+        return LoginResponse.builder().ok(TRUE).build();
+      case PATRON_INFORMATION_RESPONSE:
+        return patronInformationResponse();
+      case PATRON_STATUS_RESPONSE:
+        return PatronStatusResponse.builder()
+            .patronStatus(EnumSet.noneOf(PatronStatus.class))
+            .language(Language.UNKNOWN)
+            .transactionDate(DATE)
+            .institutionId("fs00000001")
+            .patronIdentifier("2087654321")
+            .personalName(PERSONAL_NAME)
+            .validPatron(TRUE)
+            .validPatronPassword(TRUE)
+            .currencyType(CurrencyType.USD)
+            .feeAmount("12.50")
+            .build();
+      case ITEM_INFORMATION_RESPONSE:
+        return ItemInformationResponse.builder()
+            .circulationStatus(CirculationStatus.CHARGED)
+            .securityMarker(SecurityMarker.OTHER)
+            .transactionDate(DATE)
+            .dueDate(DATE.plusDays(14))
+            .itemIdentifier("31924012345678")
+            .titleIdentifier(TITLE)
+            .mediaType(MediaType.BOOK)
+            .permanentLocation("Main Library, Bibliothèque générale")
+            .currentLocation("Checked out")
+            .author("Kierkegaard, Søren")
+            .isbn(Arrays.asList("9780140445770"))
+            .build();
+      case END_SESSION_RESPONSE:
+        return EndSessionResponse.builder()
+            .endSession(TRUE)
+            .transactionDate(DATE)
+            .institutionId("fs00000001")
+            .patronIdentifier("2087654321")
+            .screenMessage(Arrays.asList("Goodbye, " + PERSONAL_NAME))
+            .build();
+      default:
+        throw new IllegalArgumentException("No response for " + command);
+    }
+  }
+
+  private static PatronInformationResponse patronInformationResponse() {
+    final List<String> chargedItems = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      chargedItems.add(TITLE + " (" + (i + 1) + ")");
+    }
+
+    return PatronInformationResponse.builder()
+        .patronStatus(EnumSet.of(PatronStatus.TOO_MANY_ITEMS_OVERDUE))
+        .language(Language.UNKNOWN)
+        .transactionDate(DATE)
+        .holdItemsCount(Integer.valueOf(2))
+        .overdueItemsCount(Integer.valueOf(1))
+        .chargedItemsCount(Integer.valueOf(chargedItems.size()))
+        .fineItemsCount(Integer.valueOf(1))
+        .recallItemsCount(Integer.valueOf(0))
+        .unavailableHoldsCount(Integer.valueOf(0))
+        .institutionId("fs00000001")
+        .patronIdentifier("2087654321")
+        .personalName(PERSONAL_NAME)
+        .validPatron(TRUE)
+        .validPatronPassword(TRUE)
+        .currencyType(CurrencyType.USD)
+        .feeAmount("12.50")
+        .holdItems(Arrays.asList(TITLE, "Ibsen, Henrik : Et dukkehjem"))
+        .overdueItems(Arrays.asList(TITLE))
+        .chargedItems(chargedItems)
+        .fineItems(Arrays.asList("Overdue fine 12.50"))
+        .recallItems(Arrays.asList())
+        .unavailableHoldItems(Arrays.asList())
+        .homeAddress("Nørregade 10, 1165 København")
+        .emailAddress("jose.muller@example.org")
+        .homePhoneNumber("+45 33 12 34 56")
+        .build();
+  }
+
+  /**
+   * Build the Freemarker data model for a response the way the handlers do.
+   *
+   * @param command the response command
+   * @param response the response POJO
+   * @param sessionData the session
+   * @return the data model
+   */
+  static Map<String, Object> templateRoot(Command command, Object response,
+      SessionData sessionData) {
+    final Map<String, Object> root = new HashMap<>();
+    if (command == Command.REQUEST_SC_RESEND) {
+      return root;
+    }
+
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("timezone", sessionData.getTimeZone());
+    root.put(templateName(command), response);
+    if (command == Command.PATRON_INFORMATION_RESPONSE || command == Command.ACS_STATUS) {
+      root.put("maxLength", sessionData.getMaxPrintWidth());
+    }
+    if (command == Command.ACS_STATUS) {
+      root.put("PackagedSupportedMessages",
+          new PackagedSupportedMessages(((ACSStatus) response).getSupportedMessages()));
+    }
+
+    return root;
+  }
+
+  private static String templateName(Command command) {
+    switch (command) {
+      case CHECKOUT_RESPONSE:
+        return "checkoutResponse";
+      case CHECKIN_RESPONSE:
+        return "checkinResponse";
+      case RENEW_RESPONSE:
+        return "renewResponse";
+      case RENEW_ALL_RESPONSE:
+        return "renewAllResponse";
+      case FEE_PAID_RESPONSE:
+        return "feePaidResponse";
+      case ACS_STATUS:
+        return "ACSStatus";
+      case LOGIN_RESPONSE:
+        return "loginResponse";
+      case PATRON_INFORMATION_RESPONSE:
+        return "patronInformationResponse";
+      case PATRON_STATUS_RESPONSE:
+        return "patronStatusResponse";
+      case ITEM_INFORMATION_RESPONSE:
+        return "itemInformationResponse";
+      case END_SESSION_RESPONSE:
+        return "endSessionResponse";
+      default:
+        throw new IllegalArgumentException("No template for " + command);
+    }
+  }
+
+  /**
+   * Create a session like the one MainVerticle creates for a connection.
+   */
+  static SessionData session(String charset, boolean errorDetection) {
+    final SessionData sessionData = SessionData.createSession("diku", '|',
+        errorDetection, charset);
+    sessionData.setTimeZone("America/New_York");
+    sessionData.setMaxPrintWidth(80);
+    return sessionData;
+  }
+}
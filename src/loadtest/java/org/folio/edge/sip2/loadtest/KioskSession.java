@@ -0,0 +1,267 @@
+package org.folio.edge.sip2.loadtest;
+
+import static org.folio.edge.sip2.parser.Command.ACS_STATUS;
+import static org.folio.edge.sip2.parser.Command.CHECKOUT;
+import static org.folio.edge.sip2.parser.Command.CHECKOUT_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.END_PATRON_SESSION;
+import static org.folio.edge.sip2.parser.Command.END_SESSION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.LOGIN;
+import static org.folio.edge.sip2.parser.Command.LOGIN_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_REQUEST;
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.SC_STATUS;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetSocket;
+import io.vertx.core.parsetools.RecordParser;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.handlers.encoders.ResponseFramer;
+import org.folio.edge.sip2.parser.Command;
+
+/**
+ * A self check kiosk that repeats the flow of a patron checking out items
+ * over one connection: Login, SC Status, Patron Status, Checkout for each
+ * item and End Patron Session. Each request is sent after the response to
+ * the previous one, plus a think time, and its round trip time is recorded.
+ */
+final class KioskSession {
+  private static final Logger log = LogManager.getLogger();
+  private static final String MESSAGE_DELIMITER = "\r";
+  private static final long RECONNECT_DELAY_MILLIS = 1000;
+  private static final String INSTITUTION = "AOdiku|";
+  private static final DateTimeFormatter SIP_DATE =
+      DateTimeFormatter.ofPattern("yyyyMMdd    HHmmss");
+
+  private final Vertx vertx;
+  private final NetClient client;
+  private final LoadTestOptions options;
+  private final LatencyRecorder recorder;
+  private final String host;
+  private final int port;
+  private final String patron;
+  private final String kiosk;
+
+  private volatile boolean running = true;
+  private volatile Context context;
+  private NetSocket socket;
+  private int step;
+  private int sequenceNumber;
+  private long items;
+  private Command command;
+  private long sentNanos;
+  private long timeoutTimer = -1;
+
+  /**
+   * Construct a kiosk session.
+   *
+   * @param vertx the vertx instance
+   * @param client the client to connect with
+   * @param options the load test options
+   * @param recorder the recorder for the round trip times
+   * @param host the edge-sip2 host
+   * @param port the edge-sip2 port
+   * @param id identifies the kiosk and its patron
+   */
+  KioskSession(Vertx vertx, NetClient client, LoadTestOptions options,
+      LatencyRecorder recorder, String host, int port, int id) {
+    this.vertx = vertx;
+    this.client = client;
+    this.options = options;
+    this.recorder = recorder;
+    this.host = host;
+    this.port = port;
+    this.patron = String.format("2087%06d", id);
+    this.kiosk = "kiosk" + id;
+  }
+
+  /**
+   * Connect and start sending requests. The session runs on the context
+   * this is called on.
+   */
+  void start() {
+    if (running) {
+      context = vertx.getOrCreateContext();
+      connect();
+    }
+  }
+
+  /**
+   * Stop sending requests and close the connection. May be called from any
+   * thread.
+   */
+  void stop() {
+    running = false;
+    final Context current = context;
+    if (current != null) {
+      current.runOnContext(v -> {
+        cancelTimeout();
+        if (socket != null) {
+          socket.close();
+        }
+      });
+    }
+  }
+
+  private void connect() {
+    client.connect(port, host, ar -> {
+      if (!running) {
+        if (ar.succeeded()) {
+          ar.result().close();
+        }
+        return;
+      }
+
+      if (ar.failed()) {
+        log.warn("{} unable to connect: {}", kiosk, ar.cause().getMessage());
+        recorder.error();
+        vertx.setTimer(RECONNECT_DELAY_MILLIS, id -> connect());
+        return;
+      }
+
+      socket = ar.result();
+      socket.handler(RecordParser.newDelimited(MESSAGE_DELIMITER, this::handleResponse));
+      socket.closeHandler(v -> handleClosed(ar.result()));
+      step = 0;
+      send();
+    });
+  }
+
+  private void handleClosed(NetSocket closed) {
+    if (running && closed == socket) {
+      log.warn("{} connection closed by edge-sip2", kiosk);
+      recorder.error();
+      cancelTimeout();
+      socket = null;
+      vertx.setTimer(RECONNECT_DELAY_MILLIS, id -> connect());
+    }
+  }
+
+  private void handleResponse(Buffer response) {
+    final long nanos = System.nanoTime() - sentNanos;
+    cancelTimeout();
+
+    final Command received = response.length() < 2 ? Command.UNKNOWN
+        : Command.find(response.getByte(0), response.getByte(1));
+    if (received == expectedResponse(command)) {
+      recorder.record(command, nanos);
+    } else {
+      log.warn("{} unexpected response to {}: {}", () -> kiosk, () -> command,
+          () -> response.toString(options.charset));
+      recorder.error();
+    }
+
+    if (!running) {
+      return;
+    }
+
+    step = (step + 1) % (options.checkouts + 4);
+
+    final long thinkTime = thinkTime();
+    if (thinkTime > 0) {
+      vertx.setTimer(thinkTime, id -> send());
+    } else {
+      send();
+    }
+  }
+
+  private void send() {
+    if (!running || socket == null) {
+      return;
+    }
+
+    command = commandFor(step);
+    final String request = request(command);
+    final Buffer buffer = options.errorDetection
+        ? ResponseFramer.frameWithErrorDetection(request, options.charset, MESSAGE_DELIMITER,
+            false, Integer.valueOf(sequenceNumber))
+        : ResponseFramer.frame(request, options.charset, MESSAGE_DELIMITER);
+    // a repeated sequence number would be answered with the previous response
+    sequenceNumber = (sequenceNumber + 1) % 10;
+
+    final NetSocket current = socket;
+    timeoutTimer = vertx.setTimer(options.timeoutMillis, id -> {
+      timeoutTimer = -1;
+      log.warn("{} timed out waiting for the response to {}", kiosk, command);
+      recorder.error();
+      // drop the connection, a late response would be taken for the next one
+      socket = null;
+      current.close();
+      if (running) {
+        vertx.setTimer(RECONNECT_DELAY_MILLIS, t -> connect());
+      }
+    });
+
+    sentNanos = System.nanoTime();
+    socket.write(buffer);
+  }
+
+  private Command commandFor(int index) {
+    if (index == 0) {
+      return LOGIN;
+    } else if (index == 1) {
+      return SC_STATUS;
+    } else if (index == 2) {
+      return PATRON_STATUS_REQUEST;
+    } else if (index < options.checkouts + 3) {
+      return CHECKOUT;
+    }
+    return END_PATRON_SESSION;
+  }
+
+  private String request(Command requestCommand) {
+    final String transactionDate = LocalDateTime.now().format(SIP_DATE);
+    final String patronFields = "AA" + patron + "|AC|AD4719|";
+
+    switch (requestCommand) {
+      case LOGIN:
+        return "9300CN" + kiosk + "|COs3cr3t|CP" + OkapiStandIn.SERVICE_POINT_ID + "|";
+      case SC_STATUS:
+        return "9900802.00";
+      case PATRON_STATUS_REQUEST:
+        return "23001" + transactionDate + INSTITUTION + patronFields;
+      case CHECKOUT:
+        return "11YN" + transactionDate + "                  " + INSTITUTION + patronFields
+            + "AB3192" + String.format("%010d", ++items) + "|BON|BIN|";
+      default:
+        return "35" + transactionDate + INSTITUTION + patronFields;
+    }
+  }
+
+  private static Command expectedResponse(Command requestCommand) {
+    switch (requestCommand) {
+      case LOGIN:
+        return LOGIN_RESPONSE;
+      case SC_STATUS:
+        return ACS_STATUS;
+      case PATRON_STATUS_REQUEST:
+        return PATRON_STATUS_RESPONSE;
+      case CHECKOUT:
+        return CHECKOUT_RESPONSE;
+      default:
+        return END_SESSION_RESPONSE;
+    }
+  }
+
+  private long thinkTime() {
+    if (options.thinkTimeMillis <= 0) {
+      return 0;
+    }
+    // vary the think time, so the kiosks do not end up sending in lockstep
+    return ThreadLocalRandom.current().nextLong(options.thinkTimeMillis / 2,
+        options.thinkTimeMillis * 3 / 2 + 1);
+  }
+
+  private void cancelTimeout() {
+    if (timeoutTimer != -1) {
+      vertx.cancelTimer(timeoutTimer);
+      timeoutTimer = -1;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package org.folio.edge.sip2.loadtest;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import org.folio.edge.sip2.parser.Command;
+
+/**
+ * Records the round trip time of each request by command. Every sample is
+ * kept, so the percentiles are exact; a run of a few minutes is well within
+ * what fits in memory.
+ */
+final class LatencyRecorder {
+  private final Map<Command, Samples> samples = new EnumMap<>(Command.class);
+  private long errors;
+  private long startNanos = System.nanoTime();
+  private long endNanos;
+
+  /**
+   * Record the round trip time of a request.
+   *
+   * @param command the request command
+   * @param nanos the time from writing the request to reading the response
+   */
+  synchronized void record(Command command, long nanos) {
+    samples.computeIfAbsent(command, c -> new Samples()).add(nanos);
+  }
+
+  /**
+   * Record a request that failed, timed out or got an unexpected response.
+   */
+  synchronized void error() {
+    errors++;
+  }
+
+  /**
+   * Discard everything recorded so far, e.g. at the end of the warm up.
+   */
+  synchronized void reset() {
+    samples.clear();
+    errors = 0;
+    startNanos = System.nanoTime();
+    endNanos = 0;
+  }
+
+  /**
+   * Stop the measurement. Samples recorded afterwards are still kept, but
+   * do not extend the measured time.
+   */
+  synchronized void stop() {
+    endNanos = System.nanoTime();
+  }
+
+  /**
+   * Summarize the samples recorded since the last reset.
+   *
+   * @return the summary for each command, in command order
+   */
+  synchronized Summary summarize() {
+    final long elapsed = (endNanos == 0 ? System.nanoTime() : endNanos) - startNanos;
+    final Map<Command, Stats> stats = new EnumMap<>(Command.class);
+    samples.forEach((command, s) -> stats.put(command, s.stats()));
+    return new Summary(stats, errors, elapsed);
+  }
+
+  /**
+   * The latency statistics for a command.
+   */
+  static final class Stats {
+    final long count;
+    final long p50;
+    final long p99;
+    final long p999;
+    final long max;
+
+    private Stats(long[] sorted) {
+      count = sorted.length;
+      p50 = percentile(sorted, 0.5);
+      p99 = percentile(sorted, 0.99);
+      p999 = percentile(sorted, 0.999);
+      max = sorted[sorted.length - 1];
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+      final int rank = (int) Math.ceil(quantile * sorted.length);
+      return sorted[Math.max(rank, 1) - 1];
+    }
+  }
+
+  /**
+   * The statistics of a measurement.
+   */
+  static final class Summary {
+    final Map<Command, Stats> stats;
+    final long errors;
+    final long elapsedNanos;
+
+    private Summary(Map<Command, Stats> stats, long errors, long elapsedNanos) {
+      this.stats = stats;
+      this.errors = errors;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    long count() {
+      return stats.values().stream().mapToLong(s -> s.count).sum();
+    }
+
+    double throughput(long count) {
+      return count * 1e9 / elapsedNanos;
+    }
+  }
+
+  private static final class Samples {
+    private long[] values = new long[1024];
+    private int size;
+
+    void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    Stats stats() {
+      final long[] sorted = Arrays.copyOf(values, size);
+      Arrays.sort(sorted);
+      return new Stats(sorted);
+    }
+  }
+}
@@ -0,0 +1,251 @@
+package org.folio.edge.sip2.loadtest;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.NetClient;
+import io.vertx.core.net.NetClientOptions;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.folio.edge.sip2.MainVerticle;
+import org.folio.edge.sip2.loadtest.LatencyRecorder.Stats;
+import org.folio.edge.sip2.loadtest.LatencyRecorder.Summary;
+import org.folio.edge.sip2.parser.Command;
+
+/**
+ * Puts edge-sip2 under the load of many self check kiosks and reports the
+ * throughput and latency percentiles for each command. Okapi is replaced by
+ * {@link OkapiStandIn}, so the results only depend on edge-sip2 and can be
+ * compared between builds and settings on the same machine.
+ *
+ * <p>By default a {@link MainVerticle} is deployed in-process, on its own
+ * {@code Vertx} instance. With {@code --target=host:port} a running
+ * edge-sip2 is used instead; its {@code okapiUrl} has to point at the
+ * stand-in ({@code --okapi-port}) and its tenant configuration has to match
+ * {@code --charset} and {@code --error-detection}.
+ */
+public final class LoadGenerator {
+  private static final long STARTUP_TIMEOUT_SECONDS = 30;
+
+  private LoadGenerator() {
+    super();
+  }
+
+  /**
+   * Run the load test.
+   *
+   * @param args the options, see {@link LoadTestOptions#usage()}
+   * @throws Exception if the load test could not be run
+   */
+  public static void main(String[] args) throws Exception {
+    System.setProperty("vertx.logger-delegate-factory-class-name",
+        "io.vertx.core.logging.Log4j2LogDelegateFactory");
+
+    final LoadTestOptions options;
+    try {
+      options = LoadTestOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.print(LoadTestOptions.usage());
+      System.exit(2);
+      return;
+    }
+
+    // separate instances, so the kiosks, edge-sip2 and Okapi do not share
+    // event loops
+    final Vertx okapiVertx = Vertx.vertx();
+    final Vertx serverVertx = Vertx.vertx();
+    final Vertx clientVertx = Vertx.vertx();
+    final LongAdder okapiRequests = new LongAdder();
+
+    try {
+      final int okapiPort = options.okapiPort == 0 ? freePort() : options.okapiPort;
+      LoadGenerator.<String>await(handler -> okapiVertx.deployVerticle(
+          () -> new OkapiStandIn(okapiPort, options.okapiLatencyMillis, okapiRequests),
+          new DeploymentOptions().setInstances(Runtime.getRuntime().availableProcessors()),
+          handler));
+
+      final String host;
+      final int port;
+      if (options.targetHost == null) {
+        host = "localhost";
+        port = freePort();
+        final JsonObject config = serverConfig(options, port, okapiPort);
+        final int instances = options.instances > 0
+            ? options.instances : Runtime.getRuntime().availableProcessors();
+        LoadGenerator.<String>await(handler -> serverVertx.deployVerticle(MainVerticle::new,
+            new DeploymentOptions().setConfig(config).setInstances(instances), handler));
+      } else {
+        host = options.targetHost;
+        port = options.targetPort;
+      }
+
+      System.out.printf("Okapi stand-in listening on port %d, edge-sip2 at %s:%d%n",
+          okapiPort, host, port);
+
+      final Summary summary = run(options, clientVertx, host, port, okapiRequests);
+      report(options, summary, System.out);
+      if (options.out != null) {
+        Files.write(Paths.get(options.out),
+            toJson(options, summary).encodePrettily().getBytes(StandardCharsets.UTF_8));
+      }
+    } finally {
+      clientVertx.close();
+      serverVertx.close();
+      okapiVertx.close();
+    }
+
+    System.exit(0);
+  }
+
+  private static Summary run(LoadTestOptions options, Vertx vertx, String host, int port,
+      LongAdder okapiRequests) throws InterruptedException {
+    final LatencyRecorder recorder = new LatencyRecorder();
+    final NetClient client = vertx.createNetClient(new NetClientOptions()
+        .setTcpNoDelay(true)
+        .setConnectTimeout((int) Math.min(options.timeoutMillis, Integer.MAX_VALUE)));
+
+    final List<KioskSession> sessions = new ArrayList<>(options.sessions);
+    for (int i = 0; i < options.sessions; i++) {
+      final KioskSession session =
+          new KioskSession(vertx, client, options, recorder, host, port, i);
+      sessions.add(session);
+      // spread the logins over the think time
+      vertx.setTimer(1 + (long) i * Math.max(options.thinkTimeMillis, 1) / options.sessions,
+          id -> session.start());
+    }
+
+    System.out.printf("Warming up for %d s with %d sessions%n",
+        options.warmupSeconds, options.sessions);
+    TimeUnit.SECONDS.sleep(options.warmupSeconds);
+
+    recorder.reset();
+    final long okapiRequestsBefore = okapiRequests.sum();
+    System.out.printf("Measuring for %d s%n", options.durationSeconds);
+    TimeUnit.SECONDS.sleep(options.durationSeconds);
+    recorder.stop();
+    final long okapiRequestsDuring = okapiRequests.sum() - okapiRequestsBefore;
+
+    sessions.forEach(KioskSession::stop);
+
+    final Summary summary = recorder.summarize();
+    System.out.printf("Okapi requests: %d (%.1f per SIP request)%n", okapiRequestsDuring,
+        summary.count() == 0 ? 0.0 : (double) okapiRequestsDuring / summary.count());
+    return summary;
+  }
+
+  private static void report(LoadTestOptions options, Summary summary, PrintStream out) {
+    out.printf("%n%d sessions, %d checkouts per patron, think time %d ms, "
+        + "Okapi latency %d ms, %s, error detection %s%n%n",
+        options.sessions, options.checkouts, options.thinkTimeMillis,
+        options.okapiLatencyMillis, options.charset, options.errorDetection ? "on" : "off");
+    out.printf("%-24s %10s %10s %10s %10s %10s %10s%n",
+        "Command", "Requests", "Req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+
+    for (Map.Entry<Command, Stats> entry : summary.stats.entrySet()) {
+      final Stats stats = entry.getValue();
+      out.printf("%-24s %10d %10.1f %10.2f %10.2f %10.2f %10.2f%n",
+          entry.getKey(), stats.count, summary.throughput(stats.count), millis(stats.p50),
+          millis(stats.p99), millis(stats.p999), millis(stats.max));
+    }
+
+    out.printf("%-24s %10d %10.1f%n", "Total", summary.count(),
+        summary.throughput(summary.count()));
+    out.printf("Errors: %d%n", summary.errors);
+  }
+
+  private static JsonObject toJson(LoadTestOptions options, Summary summary) {
+    final JsonObject commands = new JsonObject();
+    summary.stats.forEach((command, stats) -> commands.put(command.name(), new JsonObject()
+        .put("requests", stats.count)
+        .put("throughput", summary.throughput(stats.count))
+        .put("p50Millis", millis(stats.p50))
+        .put("p99Millis", millis(stats.p99))
+        .put("p999Millis", millis(stats.p999))
+        .put("maxMillis", millis(stats.max))));
+
+    return new JsonObject()
+        .put("sessions", options.sessions)
+        .put("checkouts", options.checkouts)
+        .put("thinkTimeMillis", options.thinkTimeMillis)
+        .put("okapiLatencyMillis", options.okapiLatencyMillis)
+        .put("charset", options.charset)
+        .put("errorDetection", options.errorDetection)
+        .put("elapsedSeconds", summary.elapsedNanos / 1e9)
+        .put("requests", summary.count())
+        .put("throughput", summary.throughput(summary.count()))
+        .put("errors", summary.errors)
+        .put("commands", commands);
+  }
+
+  private static JsonObject serverConfig(LoadTestOptions options, int port, int okapiPort)
+      throws IOException {
+    final Path tenants = Files.createTempFile("sip2-loadtest-tenants", ".conf");
+    tenants.toFile().deleteOnExit();
+    Files.write(tenants, new JsonObject()
+        .put("scTenants", new JsonArray().add(new JsonObject()
+            .put("scSubnet", "0.0.0.0/0")
+            .put("tenant", "diku")
+            .put("errorDetectionEnabled", options.errorDetection)
+            .put("messageDelimiter", "\r")
+            .put("charset", options.charset)))
+        .encodePrettily().getBytes(StandardCharsets.UTF_8));
+
+    final JsonObject config = new JsonObject()
+        .put("port", port)
+        .put("okapiUrl", "http://localhost:" + okapiPort)
+        .put("tenantConfigRetrieverOptions", new JsonObject()
+            .put("scanPeriod", 5000)
+            .put("stores", new JsonArray().add(new JsonObject()
+                .put("type", "file")
+                .put("format", "json")
+                .put("config", new JsonObject().put("path", tenants.toString()))
+                .put("optional", false))));
+
+    if (options.config != null) {
+      config.mergeIn(new JsonObject(new String(Files.readAllBytes(Paths.get(options.config)),
+          StandardCharsets.UTF_8)));
+      // the port is chosen by the load generator
+      config.put("port", port);
+    }
+
+    return config;
+  }
+
+  private static <T> T await(Consumer<Handler<AsyncResult<T>>> operation) throws Exception {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    operation.accept(ar -> {
+      if (ar.succeeded()) {
+        future.complete(ar.result());
+      } else {
+        future.completeExceptionally(ar.cause());
+      }
+    });
+    return future.get(STARTUP_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static double millis(long nanos) {
+    return nanos / 1e6;
+  }
+}
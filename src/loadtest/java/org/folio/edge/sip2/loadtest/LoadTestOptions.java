@@ -0,0 +1,136 @@
+package org.folio.edge.sip2.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The load test options, given on the command line as {@code --name=value}.
+ */
+final class LoadTestOptions {
+  private static final Map<String, String> DESCRIPTIONS = new LinkedHashMap<>();
+
+  static {
+    DESCRIPTIONS.put("sessions", "number of concurrent kiosk sessions (50)");
+    DESCRIPTIONS.put("checkouts", "checkouts per patron session (3)");
+    DESCRIPTIONS.put("think-time", "mean think time between requests in ms (250)");
+    DESCRIPTIONS.put("okapi-latency", "delay of every Okapi stand-in response in ms (20)");
+    DESCRIPTIONS.put("duration", "measured seconds (60)");
+    DESCRIPTIONS.put("warmup", "seconds of load before measuring (10)");
+    DESCRIPTIONS.put("timeout", "request timeout in ms (30000)");
+    DESCRIPTIONS.put("charset", "session charset (IBM850)");
+    DESCRIPTIONS.put("error-detection", "send AY/AZ error detection fields (true)");
+    DESCRIPTIONS.put("target", "host:port of a running edge-sip2, instead of an in-process"
+        + " MainVerticle");
+    DESCRIPTIONS.put("okapi-port", "port of the Okapi stand-in, 0 for any free port (0)");
+    DESCRIPTIONS.put("instances", "in-process MainVerticle instances, 0 for one per core (1)");
+    DESCRIPTIONS.put("config", "JSON file merged into the in-process MainVerticle config");
+    DESCRIPTIONS.put("out", "file to write the results to as JSON");
+  }
+
+  int sessions = 50;
+  int checkouts = 3;
+  long thinkTimeMillis = 250;
+  long okapiLatencyMillis = 20;
+  int durationSeconds = 60;
+  int warmupSeconds = 10;
+  long timeoutMillis = 30_000;
+  String charset = "IBM850";
+  boolean errorDetection = true;
+  String targetHost;
+  int targetPort;
+  int okapiPort;
+  int instances = 1;
+  String config;
+  String out;
+
+  private LoadTestOptions() {
+    super();
+  }
+
+  /**
+   * Parse the command line.
+   *
+   * @param args the command line arguments
+   * @return the options
+   * @throws IllegalArgumentException if an argument is not a known option
+   */
+  static LoadTestOptions parse(String[] args) {
+    final LoadTestOptions options = new LoadTestOptions();
+
+    for (String arg : args) {
+      final int separator = arg.indexOf('=');
+      if (!arg.startsWith("--") || separator < 0) {
+        throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+      }
+      options.set(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+
+    return options;
+  }
+
+  /**
+   * Describe the options.
+   *
+   * @return the usage text
+   */
+  static String usage() {
+    final StringBuilder sb = new StringBuilder("Options:\n");
+    DESCRIPTIONS.forEach((name, description) ->
+        sb.append(String.format("  --%-16s %s%n", name + "=", description)));
+    return sb.toString();
+  }
+
+  private void set(String name, String value) {
+    switch (name) {
+      case "sessions":
+        sessions = Integer.parseInt(value);
+        break;
+      case "checkouts":
+        checkouts = Integer.parseInt(value);
+        break;
+      case "think-time":
+        thinkTimeMillis = Long.parseLong(value);
+        break;
+      case "okapi-latency":
+        okapiLatencyMillis = Long.parseLong(value);
+        break;
+      case "duration":
+        durationSeconds = Integer.parseInt(value);
+        break;
+      case "warmup":
+        warmupSeconds = Integer.parseInt(value);
+        break;
+      case "timeout":
+        timeoutMillis = Long.parseLong(value);
+        break;
+      case "charset":
+        charset = value;
+        break;
+      case "error-detection":
+        errorDetection = Boolean.parseBoolean(value);
+        break;
+      case "target":
+        final int colon = value.lastIndexOf(':');
+        if (colon < 0) {
+          throw new IllegalArgumentException("Expected host:port, got: " + value);
+        }
+        targetHost = value.substring(0, colon);
+        targetPort = Integer.parseInt(value.substring(colon + 1));
+        break;
+      case "okapi-port":
+        okapiPort = Integer.parseInt(value);
+        break;
+      case "instances":
+        instances = Integer.parseInt(value);
+        break;
+      case "config":
+        config = value;
+        break;
+      case "out":
+        out = value;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown option: --" + name);
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package org.folio.edge.sip2.loadtest;
+
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serves canned Okapi responses for the requests edge-sip2 makes during a
+ * kiosk session, so the load on edge-sip2 can be measured without a FOLIO
+ * installation. Every response can be delayed to model the latency of the
+ * FOLIO modules.
+ */
+final class OkapiStandIn extends AbstractVerticle {
+  static final String SERVICE_POINT_ID = "c4c90014-c8c9-4ade-8f24-b5e313319f4b";
+
+  private static final String CONTENT_TYPE = "application/json";
+  private static final Pattern BARCODE = Pattern.compile("barcode==([^ )]+)");
+  private static final String USER_ID = "4f0e711c-d583-41e0-9555-b62f1725023f";
+
+  private static final Buffer CONFIGURATIONS = Buffer.buffer(configurations().encode());
+  private static final Buffer ACCOUNTS = Buffer.buffer(new JsonObject()
+      .put("accounts", new JsonArray()
+          .add(new JsonObject().put("userId", USER_ID).put("remaining", 2.5)))
+      .put("totalRecords", 1)
+      .encode());
+  private static final Buffer MANUAL_BLOCKS = Buffer.buffer(new JsonObject()
+      .put("manualblocks", new JsonArray())
+      .put("totalRecords", 0)
+      .encode());
+  private static final Buffer NO_RECORDS = Buffer.buffer(new JsonObject()
+      .put("loans", new JsonArray())
+      .put("requests", new JsonArray())
+      .put("totalRecords", 0)
+      .encode());
+  private static final Buffer LOAN = Buffer.buffer(new JsonObject()
+      .put("id", "a2ba4b12-5e5c-4a4f-8bd7-5b4dbf1a7bd1")
+      .put("userId", USER_ID)
+      .put("dueDate", "2026-11-15T23:59:59.000+00:00")
+      .put("item", new JsonObject()
+          .put("title", "Søren Kierkegaard : Enten-Eller, første del")
+          .put("barcode", "31924012345678"))
+      .encode());
+
+  private final long latencyMillis;
+  private final int port;
+  private final LongAdder requests;
+  private HttpServer server;
+
+  /**
+   * Construct a stand-in instance.
+   *
+   * @param port the port to listen on
+   * @param latencyMillis the delay of every response in milliseconds
+   * @param requests counts the requests served by all instances
+   */
+  OkapiStandIn(int port, long latencyMillis, LongAdder requests) {
+    this.port = port;
+    this.latencyMillis = latencyMillis;
+    this.requests = requests;
+  }
+
+  @Override
+  public void start(Promise<Void> startPromise) {
+    server = vertx.createHttpServer()
+        .requestHandler(this::handle)
+        .listen(port, ar -> {
+          if (ar.succeeded()) {
+            startPromise.complete();
+          } else {
+            startPromise.fail(ar.cause());
+          }
+        });
+  }
+
+  @Override
+  public void stop(Promise<Void> stopPromise) {
+    server.close(ar -> stopPromise.complete());
+  }
+
+  private void handle(HttpServerRequest request) {
+    requests.increment();
+    // read the whole request before responding, as Okapi would
+    request.bodyHandler(body -> {
+      final Response response = route(request, body);
+      if (latencyMillis > 0) {
+        vertx.setTimer(latencyMillis, id -> respond(request, response));
+      } else {
+        respond(request, response);
+      }
+    });
+  }
+
+  private Response route(HttpServerRequest request, Buffer body) {
+    final String path = request.path();
+    final HttpMethod method = request.method();
+
+    if (method == HttpMethod.POST) {
+      if ("/authn/login".equals(path)) {
+        final String username = body.toJsonObject().getString("username");
+        return new Response(201, Buffer.buffer(new JsonObject()
+            .put("username", username)
+            .encode()));
+      }
+      if (path.startsWith("/circulation/")) {
+        return new Response(201, LOAN);
+      }
+    } else if (method == HttpMethod.GET) {
+      if ("/users".equals(path)) {
+        return new Response(200, users(request.getParam("query")));
+      }
+      if ("/configurations/entries".equals(path)) {
+        return new Response(200, CONFIGURATIONS);
+      }
+      if ("/accounts".equals(path)) {
+        return new Response(200, ACCOUNTS);
+      }
+      if ("/manualblocks".equals(path)) {
+        return new Response(200, MANUAL_BLOCKS);
+      }
+      if (path.startsWith("/circulation/")) {
+        return new Response(200, NO_RECORDS);
+      }
+    }
+
+    return new Response(404, Buffer.buffer("No canned response for " + method + " " + path));
+  }
+
+  private void respond(HttpServerRequest request, Response response) {
+    request.response().setStatusCode(response.status);
+    if (response.status < 300) {
+      request.response().putHeader("Content-Type", CONTENT_TYPE);
+      request.response().putHeader("x-okapi-token", "loadtest-token");
+    } else {
+      request.response().putHeader("Content-Type", "text/plain");
+    }
+    request.response().end(response.body);
+  }
+
+  private static Buffer users(String query) {
+    final Matcher matcher = BARCODE.matcher(query == null ? "" : query);
+    final String barcode = matcher.find() ? matcher.group(1) : "2087654321";
+
+    return Buffer.buffer(new JsonObject()
+        .put("users", new JsonArray().add(new JsonObject()
+            .put("id", USER_ID)
+            .put("username", "patron" + barcode)
+            .put("barcode", barcode)
+            .put("active", true)
+            .put("personal", new JsonObject()
+                .put("lastName", "Müller")
+                .put("firstName", "José")
+                .put("email", "jose.muller@example.com"))))
+        .put("totalRecords", 1)
+        .encode());
+  }
+
+  private static JsonObject configurations() {
+    final JsonArray supportedMessages = new JsonArray();
+    for (String message : new String[] {"PATRON_STATUS_REQUEST", "CHECKOUT", "CHECKIN",
+        "BLOCK_PATRON", "SC_ACS_STATUS", "LOGIN", "PATRON_INFORMATION", "END_PATRON_SESSION",
+        "FEE_PAID", "ITEM_INFORMATION", "RENEW", "RENEW_ALL", "REQUEST_SC_ACS_RESEND"}) {
+      supportedMessages.add(new JsonObject()
+          .put("messageName", message)
+          .put("isSupported", "Y"));
+    }
+
+    return new JsonObject()
+        .put("configs", new JsonArray()
+            .add(configuration("edge-sip2", "acsTenantConfig", new JsonObject()
+                .put("statusUpdateOk", false)
+                .put("offlineOk", false)
+                .put("supportedMessages", supportedMessages)))
+            .add(configuration("edge-sip2", "selfCheckoutConfig." + SERVICE_POINT_ID,
+                new JsonObject()
+                    .put("retriesAllowed", 3)
+                    .put("timeoutPeriod", 10)
+                    .put("checkinOk", true)
+                    .put("checkoutOk", true)
+                    .put("acsRenewalPolicy", false)
+                    .put("libraryName", "Load Test Library")
+                    .put("terminalLocation", "North Wing")))
+            .add(configuration("ORG", "localeSettings", new JsonObject()
+                .put("locale", "en-US")
+                .put("timezone", "America/New_York")
+                .put("currency", "USD"))))
+        .put("totalRecords", 3);
+  }
+
+  private static JsonObject configuration(String module, String configName, JsonObject value) {
+    return new JsonObject()
+        .put("id", UUID.nameUUIDFromBytes((module + configName).getBytes()).toString())
+        .put("module", module)
+        .put("configName", configName)
+        .put("enabled", true)
+        .put("value", value.encode());
+  }
+
+  private static final class Response {
+    private final int status;
+    private final Buffer body;
+
+    private Response(int status, Buffer body) {
+      this.status = status;
+      this.body = body;
+    }
+  }
+}
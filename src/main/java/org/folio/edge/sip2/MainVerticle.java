@@ -1,28 +1,14 @@
 package org.folio.edge.sip2;
 
 import static java.lang.Boolean.FALSE;
-import static org.folio.edge.sip2.parser.Command.CHECKIN;
-import static org.folio.edge.sip2.parser.Command.CHECKOUT;
-import static org.folio.edge.sip2.parser.Command.END_PATRON_SESSION;
-import static org.folio.edge.sip2.parser.Command.FEE_PAID;
-import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION;
-import static org.folio.edge.sip2.parser.Command.LOGIN;
-import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION;
-import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_REQUEST;
-import static org.folio.edge.sip2.parser.Command.RENEW;
-import static org.folio.edge.sip2.parser.Command.RENEW_ALL;
 import static org.folio.edge.sip2.parser.Command.REQUEST_ACS_RESEND;
 import static org.folio.edge.sip2.parser.Command.REQUEST_SC_RESEND;
-import static org.folio.edge.sip2.parser.Command.SC_STATUS;
 import static org.folio.edge.sip2.parser.Command.UNKNOWN;
 
-import com.google.inject.Guice;
-import com.google.inject.Injector;
 import io.micrometer.core.instrument.Timer;
-import io.vertx.config.ConfigRetriever;
-import io.vertx.config.ConfigRetrieverOptions;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.json.pointer.JsonPointer;
 import io.vertx.core.net.NetServer;
@@ -30,41 +16,29 @@ import io.vertx.core.net.NetServerOptions;
 import io.vertx.core.net.NetSocket;
 import io.vertx.core.parsetools.RecordParser;
 import java.nio.charset.Charset;
-import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.PreviousMessage;
-import org.folio.edge.sip2.handlers.CheckinHandler;
-import org.folio.edge.sip2.handlers.CheckoutHandler;
-import org.folio.edge.sip2.handlers.EndPatronSessionHandler;
-import org.folio.edge.sip2.handlers.FeePaidHandler;
-import org.folio.edge.sip2.handlers.HandlersFactory;
 import org.folio.edge.sip2.handlers.ISip2RequestHandler;
-import org.folio.edge.sip2.handlers.ItemInformationHandler;
-import org.folio.edge.sip2.handlers.LoginHandler;
-import org.folio.edge.sip2.handlers.PatronInformationHandler;
-import org.folio.edge.sip2.handlers.PatronStatusHandler;
-import org.folio.edge.sip2.handlers.RenewAllHandler;
-import org.folio.edge.sip2.handlers.RenewHandler;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
+import org.folio.edge.sip2.handlers.encoders.ResponseFramer;
 import org.folio.edge.sip2.metrics.Metrics;
-import org.folio.edge.sip2.modules.ApplicationModule;
-import org.folio.edge.sip2.modules.FolioResourceProviderModule;
 import org.folio.edge.sip2.parser.Command;
 import org.folio.edge.sip2.parser.Message;
 import org.folio.edge.sip2.parser.Parser;
+import org.folio.edge.sip2.session.RequestTrace;
 import org.folio.edge.sip2.session.SessionData;
-import org.folio.edge.sip2.utils.TenantUtils;
 
 public class MainVerticle extends AbstractVerticle {
+  private static final String MAX_PIPELINED_REQUESTS = "maxPipelinedRequests";
+  private static final int DEFAULT_MAX_REQUEST_SIZE = 65536;
+
   private Map<Command, ISip2RequestHandler> handlers;
   private NetServer server;
   private final Logger log = LogManager.getLogger();
-  private final Map<Integer, Metrics> metricsMap = new HashMap<>();
-  private JsonObject multiTenantConfig = new JsonObject();
-  private ConfigRetriever configRetriever;
+  private SharedResources resources;
   
   /**
    * Construct the {@code MainVerticle}.
@@ -87,29 +61,12 @@ public class MainVerticle extends AbstractVerticle {
   public void start(Promise<Void> startFuture) {
     log.debug("Startup configuration: {}", () -> getSanitizedConfig());
 
-    // We need to reduce the complexity of this method...
-    if (handlers == null) {
-      String okapiUrl = config().getString("okapiUrl");
-
-      final Injector injector = Guice.createInjector(
-          new FolioResourceProviderModule(okapiUrl, vertx),
-          new ApplicationModule());
-      handlers = new EnumMap<>(Command.class);
-      handlers.put(CHECKOUT, injector.getInstance(CheckoutHandler.class));
-      handlers.put(CHECKIN, injector.getInstance(CheckinHandler.class));
-      handlers.put(SC_STATUS, HandlersFactory.getScStatusHandlerInstance(null, null,
-                null, null, okapiUrl, vertx));
-      handlers.put(REQUEST_ACS_RESEND, HandlersFactory.getACSResendHandler());
-      handlers.put(LOGIN, injector.getInstance(LoginHandler.class));
-      handlers.put(PATRON_INFORMATION, injector.getInstance(PatronInformationHandler.class));
-      handlers.put(PATRON_STATUS_REQUEST, injector.getInstance(PatronStatusHandler.class));
-      handlers.put(FEE_PAID, injector.getInstance(FeePaidHandler.class));
-      handlers.put(ITEM_INFORMATION, injector.getInstance(ItemInformationHandler.class));
-      handlers.put(RENEW,  injector.getInstance(RenewHandler.class));
-      handlers.put(RENEW_ALL,  injector.getInstance(RenewAllHandler.class));
-      handlers.put(REQUEST_SC_RESEND, HandlersFactory.getInvalidMessageHandler());
-      handlers.put(END_PATRON_SESSION, injector.getInstance(EndPatronSessionHandler.class));
-    }
+    resources = SharedResources.acquire(vertx, deploymentID(), config(), handlers);
+    handlers = resources.getHandlers();
+
+    // Freemarker templates can still be used to render all responses
+    ResponseEncoders.getInstance().setUseTemplates(
+        "freemarker".equalsIgnoreCase(config().getString("responseEncoding", "native")));
 
     //set Config object's defaults
     int port = config().getInteger("port"); // move port to netServerOptions
@@ -121,14 +78,18 @@ public class MainVerticle extends AbstractVerticle {
 
     log.info("Deployed verticle at port {}", port);
 
-    final Metrics metrics = Metrics.getMetrics(port);
-    metricsMap.putIfAbsent(port, metrics);
+    final Metrics metrics = resources.getMetrics();
+    final MessageLog messageLog = resources.getMessageLog();
+    // requests of a connection processed at the same time, the tenant can override it
+    final int maxPipelinedRequests = config().getInteger(MAX_PIPELINED_REQUESTS, 1);
+    // per connection limits of the buffered request and response bytes
+    final int maxRequestSize = config().getInteger("maxRequestSize", DEFAULT_MAX_REQUEST_SIZE);
+    final Integer writeQueueMaxSize = config().getInteger("writeQueueMaxSize");
 
     server.connectHandler(socket -> {
       
       String clientAddress = socket.remoteAddress().host();
-      JsonObject tenantConfig = TenantUtils.lookupTenantConfigForIPaddress(multiTenantConfig, 
-          clientAddress);
+      JsonObject tenantConfig = resources.getTenantConfig().lookup(clientAddress);
       
       final String defaultTimezone = "America/Los_Angeles";
       final SessionData sessionData = SessionData.createSession(
@@ -144,17 +105,34 @@ public class MainVerticle extends AbstractVerticle {
       log.debug("t: {}",tenantConfig);
       log.debug("Client IP {}", clientAddress);
       final String messageDelimiter = tenantConfig.getString("messageDelimiter", "\r");
-      socket.handler(RecordParser.newDelimited(messageDelimiter, buffer -> {
+      final Metrics.Session session = metrics.sessionStarted(sessionData.getTenant());
+      socket.closeHandler(v -> session.closed());
+      if (writeQueueMaxSize != null) {
+        socket.setWriteQueueMaxSize(writeQueueMaxSize);
+      }
+      final RecordParser requests = RecordParser.newDelimited(messageDelimiter, socket)
+          .maxRecordSize(maxRequestSize);
+      final RequestPipeline pipeline = new RequestPipeline(requests, socket,
+          tenantConfig.getInteger(MAX_PIPELINED_REQUESTS, maxPipelinedRequests), metrics);
+      requests.exceptionHandler(t -> {
+        log.error("Closing connection from {}, the request exceeds {} bytes", clientAddress,
+            maxRequestSize);
+        metrics.requestTooLongError();
+        socket.close();
+      });
+      requests.handler(buffer -> {
         final Timer.Sample sample = metrics.sample();
+        session.messageReceived(buffer.length() + messageDelimiter.length());
 
         if (Objects.isNull(sessionData.getTenant())) {
           log.error("No tenant configured for address: {}  message ignored.", clientAddress);
           return;
         }
 
-        final String messageString = buffer.getString(0, buffer.length(), sessionData.getCharset());
-
-        log.info("Received message: {}", messageString);
+        final RequestPipeline.Slot slot = pipeline.next();
+        final RequestTrace trace = RequestTrace.start(sessionData.getTenant());
+        // the session as seen by this request, which may be pipelined
+        final SessionData requestSession = sessionData.forRequest(trace);
 
         Command command = UNKNOWN;
 
@@ -167,26 +145,58 @@ public class MainVerticle extends AbstractVerticle {
               .build();
 
           //parsing
-          final Message<Object> message = parser.parseMessage(messageString);
+          final RequestTrace.Stage parseStage = trace.startStage("parse");
+          final Message<Object> message = parser.parseMessage(buffer);
+          parseStage.end();
 
           command = message.getCommand();
+          trace.setCommand(command.name());
+          final boolean logged = messageLog.received(command, buffer, sessionData);
 
           //process validation results
           if (!message.isValid()) {
-            log.error("Message is invalid: {}", messageString);
-            handleInvalidMessage(message, socket, sessionData, messageDelimiter, sample,
-                metrics);
+            log.error("Message is invalid: {}", () -> messageLog.masked(buffer, sessionData));
+            handleInvalidMessage(message, socket, slot, requestSession, messageDelimiter, sample,
+                metrics, session, trace);
             return;
           }
 
           //check if the previous message needs resending
           if (requiredResending(sessionData, message)) {
-            String prvMessage = sessionData
-                .getPreviousMessage()
-                .getPreviousMessageResponse();
-            log.info("Sending previous Sip response {}", prvMessage);
-            sample.stop(metrics.commandTimer(command));
-            socket.write(prvMessage, sessionData.getCharset());
+            final PreviousMessage prvMessage = sessionData.getPreviousMessage();
+            final Command resentCommand = command;
+            slot.complete(() -> {
+              final Buffer responseMsg = previousResponse(prvMessage, sessionData);
+              log.info("Sending previous Sip response");
+              if (logged) {
+                messageLog.sent(responseMsg, sessionData);
+              }
+              sample.stop(metrics.commandTimer(resentCommand, sessionData.getTenant()));
+              write(socket, session, trace, responseMsg, "resent");
+            });
+            return;
+          }
+
+          //check if the message repeats a pipelined message still in flight
+          final String requestKey = requestKey(sessionData, message);
+          final RequestPipeline.Slot original = requestKey == null
+              ? null : pipeline.find(requestKey);
+          if (original != null) {
+            final Command resentCommand = command;
+            slot.complete(() -> {
+              // written by now, the original is ahead in the pipeline
+              final Buffer responseMsg = original.getResponse();
+              sample.stop(metrics.commandTimer(resentCommand, sessionData.getTenant()));
+              if (responseMsg == null) {
+                trace.end("resent");
+                return;
+              }
+              log.info("Sending Sip response of the pipelined request again");
+              if (logged) {
+                messageLog.sent(responseMsg, sessionData);
+              }
+              write(socket, session, trace, responseMsg, "resent");
+            });
             return;
           }
 
@@ -194,93 +204,100 @@ public class MainVerticle extends AbstractVerticle {
 
           if (handler == null) {
             log.error("Error locating handler for command; " + command.name());
-            sample.stop(metrics.commandTimer(command));
+            sample.stop(metrics.commandTimer(command, sessionData.getTenant()));
+            slot.complete(() -> trace.end("unsupported"));
             return;
           }
 
+          if (requestKey != null) {
+            slot.identify(requestKey);
+          }
+
           handler
-              .execute(message.getRequest(), sessionData)
-              .onComplete(ar -> {
+              .execute(message.getRequest(), requestSession)
+              .onComplete(ar -> slot.complete(() -> {
                 if (ar.succeeded()) {
-                  final String responseMsg;
+                  final Buffer responseMsg;
                   if (message.getCommand() == REQUEST_ACS_RESEND) {
                     // we don't want to modify the response
-                    responseMsg = ar.result();
+                    final PreviousMessage prvMessage = sessionData.getPreviousMessage();
+                    responseMsg = prvMessage == null
+                        ? Buffer.buffer(ar.result(), sessionData.getCharset())
+                        : previousResponse(prvMessage, sessionData);
                   } else {
-                    responseMsg = formatResponse(ar.result(), message, sessionData,
+                    responseMsg = formatResponse(ar.result(), message, requestSession,
                         messageDelimiter);
                   }
                   handler.writeHistory(sessionData, message, responseMsg);
-                  log.info("Sip response {}", responseMsg);
-                  sample.stop(metrics.commandTimer(message.getCommand()));
-                  socket.write(responseMsg, sessionData.getCharset());
+                  slot.setResponse(responseMsg);
+                  if (logged) {
+                    messageLog.sent(responseMsg, sessionData);
+                  }
+                  sample.stop(metrics.commandTimer(message.getCommand(),
+                      sessionData.getTenant()));
+                  write(socket, session, trace, responseMsg, "ok");
                 } else {
                   String errorMsg = "Failed to respond to request";
                   log.error(errorMsg, ar.cause());
-                  sample.stop(metrics.commandTimer(message.getCommand()));
-                  socket.write(ar.cause().getMessage() + messageDelimiter,
-                      sessionData.getCharset());
+                  sample.stop(metrics.commandTimer(message.getCommand(),
+                      sessionData.getTenant()));
+                  final Buffer errorResponse = Buffer.buffer(
+                      ar.cause().getMessage() + messageDelimiter, sessionData.getCharset());
+                  slot.setResponse(errorResponse);
+                  write(socket, session, trace, errorResponse, "error");
                   metrics.responseError();
                 }
-              });
+              }));
         } catch (Exception ex) {
           String message = "Problems handling the request: " + ex.getMessage();
           log.error(message, ex);
           // Return an error message for now for the sake of negative testing.
           // Will find a better way to handle negative test cases.
-          sample.stop(metrics.commandTimer(command));
-          socket.write(message + messageDelimiter, sessionData.getCharset());
+          final Command failedCommand = command;
+          slot.complete(() -> {
+            sample.stop(metrics.commandTimer(failedCommand, sessionData.getTenant()));
+            write(socket, session, trace,
+                Buffer.buffer(message + messageDelimiter, sessionData.getCharset()), "error");
+          });
 
           metrics.requestError();
         }
-      }));
+      });
 
       socket.exceptionHandler(t -> {
         log.info("Socket exceptionHandler caught an issue, see error logs for more details");
         log.error("Socket exception", t);
         metrics.socketError();
+        session.failed();
       });
     });
 
-    JsonObject crOptionsJson = config().getJsonObject("tenantConfigRetrieverOptions");
-    ConfigRetrieverOptions crOptions = new ConfigRetrieverOptions(crOptionsJson);
-    configRetriever = ConfigRetriever.create(vertx, crOptions);
-
     // after tenant config is loaded, start listening for messages
-    configRetriever.getConfig(ar -> {
-      if (ar.succeeded()) {
-        multiTenantConfig = ar.result();
-        log.info("Tenant config loaded: {}", () -> multiTenantConfig.encodePrettily());
-
-        server.listen(result -> {
-          if (result.succeeded()) {
-            log.info("MainVerticle deployed successfuly, server is now listening!");
-            startFuture.complete();
-          } else {
-            log.error("Failed to deploy MainVerticle", result.cause());
-            startFuture.fail(result.cause());
-          }
-        });
-
-      } else {
-        log.error("Failed to load tenant config", ar.cause());
+    resources.getTenantConfigLoaded().onComplete(ar -> context.runOnContext(v -> {
+      if (ar.failed()) {
+        resources.release();
         startFuture.fail(ar.cause());
+        return;
       }
-    });
-    
-    configRetriever.listen(change -> {
-      multiTenantConfig = change.getNewConfiguration();
-      log.info("Tenant config changed: {}", () -> multiTenantConfig.encodePrettily());
-    });    
 
+      server.listen(result -> {
+        if (result.succeeded()) {
+          log.info("MainVerticle deployed successfuly, server is now listening!");
+          startFuture.complete();
+        } else {
+          log.error("Failed to deploy MainVerticle", result.cause());
+          resources.release();
+          startFuture.fail(result.cause());
+        }
+      });
+    }));
   }
 
   @Override
   public void stop(Promise<Void> stopFuture) {
-    configRetriever.close();
     server.close(result -> {
+      resources.release();
       if (result.succeeded()) {
-        metricsMap.values().stream().forEach(Metrics::stop);
         stopFuture.complete();
         log.info("MainVerticle stopped successfully!");
       } else {
@@ -293,67 +310,90 @@ public class MainVerticle extends AbstractVerticle {
   private void handleInvalidMessage(
       Message<Object> message,
       NetSocket socket,
+      RequestPipeline.Slot slot,
       SessionData sessionData,
       String messageDelimiter,
       Timer.Sample sample,
-      Metrics metrics) {
+      Metrics metrics,
+      Metrics.Session session,
+      RequestTrace trace) {
     if (sessionData.isErrorDetectionEnabled()) {
       //resends validation if checksum string does not match
       ISip2RequestHandler handler = handlers.get(Command.REQUEST_SC_RESEND);
       handler.execute(message.getRequest(), sessionData)
-          .onComplete(ar -> {
+          .onComplete(ar -> slot.complete(() -> {
             if (ar.succeeded()) {
-              sample.stop(metrics.commandTimer(message.getCommand()));
-              socket.write(formatResponse(ar.result(), message, sessionData,
-                  messageDelimiter, true), sessionData.getCharset());
+              sample.stop(metrics.commandTimer(message.getCommand(), sessionData.getTenant()));
+              write(socket, session, trace, formatResponse(ar.result(), message, sessionData,
+                  messageDelimiter, true), "invalid");
             } else {
               log.error("Failed to send SC resend", ar.cause());
               metrics.scResendError();
-              sample.stop(metrics.commandTimer(message.getCommand()));
+              sample.stop(metrics.commandTimer(message.getCommand(), sessionData.getTenant()));
+              trace.end("error");
             }
-          });
+          }));
     } else {
-      sample.stop(metrics.commandTimer(message.getCommand()));
-      socket.write("Problems handling the request: " + messageDelimiter, sessionData.getCharset());
+      slot.complete(() -> {
+        sample.stop(metrics.commandTimer(message.getCommand(), sessionData.getTenant()));
+        write(socket, session, trace, Buffer.buffer("Problems handling the request: "
+            + messageDelimiter, sessionData.getCharset()), "invalid");
+      });
       metrics.invalidMessageError();
     }
   }
 
-  private String formatResponse(String response, Message<Object> message, SessionData sessionData,
+  /**
+   * Write a response, which ends the trace of its request with the outcome.
+   */
+  private static void write(NetSocket socket, Metrics.Session session, RequestTrace trace,
+      Buffer buffer, String outcome) {
+    session.responseSent(buffer.length());
+    final RequestTrace.Stage stage = trace.startStage("write");
+    socket.write(buffer);
+    stage.end();
+    trace.end(outcome);
+  }
+
+  private Buffer formatResponse(String response, Message<Object> message, SessionData sessionData,
       String messageDelimiter) {
     return formatResponse(response, message, sessionData, messageDelimiter, false);
   }
 
-  private String formatResponse(String response, Message<Object> message, SessionData sessionData,
+  private Buffer formatResponse(String response, Message<Object> message, SessionData sessionData,
       String messageDelimiter, boolean isSCResend) {
-    final String result;
-
     if (sessionData.isErrorDetectionEnabled()) {
-      final StringBuilder sb = new StringBuilder(response.length() + (isSCResend ? 6 : 9)
-          + messageDelimiter.length())
-          .append(response);
-      // SC Resend messages never include a sequence number, but will include the checksum
-      if (!isSCResend) {
-        sb.append("AY").append(message.getSequenceNumber());
-      }
-
-      sb.append("AZ");
-
-      final byte [] bytes = sb.toString().getBytes(Charset.forName(sessionData.getCharset()));
-      int checksum = 0;
-      for (final byte b : bytes) {
-        checksum += b & 0xff;
-      }
+      return ResponseFramer.frameWithErrorDetection(response, sessionData.getCharset(),
+          messageDelimiter, isSCResend, message.getSequenceNumber());
+    }
 
-      checksum = -checksum & 0xffff;
-      sb.append(String.format("%04X", checksum)).append(messageDelimiter);
+    return ResponseFramer.frame(response, sessionData.getCharset(), messageDelimiter);
+  }
 
-      result = sb.toString();
-    } else {
-      result = response + messageDelimiter;
+  /**
+   * Get the previous response as it was sent, encoding it only when it was
+   * not saved as a framed response.
+   */
+  private Buffer previousResponse(PreviousMessage prvMessage, SessionData sessionData) {
+    final Buffer buffer = prvMessage.getPreviousMessageBuffer();
+    if (buffer != null) {
+      return buffer;
     }
+    return Buffer.buffer(prvMessage.getPreviousMessageResponse(), sessionData.getCharset());
+  }
 
-    return result;
+  /**
+   * Get the key of a message that a kiosk resending it would repeat, i.e. its
+   * checksum and sequence number, see {@link RequestPipeline#find(String)}.
+   *
+   * @return the key or {@code null} if error detection is not enabled, so a
+   *     message cannot be told from a resent one
+   */
+  private static String requestKey(SessionData sessionData, Message<Object> message) {
+    if (!sessionData.isErrorDetectionEnabled()) {
+      return null;
+    }
+    return message.getChecksumsString() + "/" + message.getSequenceNumber();
   }
 
   /**
@@ -374,7 +414,8 @@ public class MainVerticle extends AbstractVerticle {
     } else {
       log.debug("requiredResending is TRUE");
       return currentMessage.getChecksumsString().equals(prevMessage.getPreviousRequestChecksum())
-        && currentMessage.getSequenceNumber() == prevMessage.getPreviousRequestSequenceNo();
+        && Objects.equals(currentMessage.getSequenceNumber(),
+            prevMessage.getPreviousRequestSequenceNo());
     }
   }
 }
@@ -0,0 +1,206 @@
+package org.folio.edge.sip2;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.micrometer.backends.BackendRegistries;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Logs the SIP messages received and the responses sent, at INFO level of
+ * this class, without blocking the event loops.
+ *
+ * <p>The messages are put on a bounded queue and are decoded, masked and
+ * written by a dedicated thread. When the queue is full, e.g. because the
+ * appender is slow, messages are dropped and counted rather than waited
+ * for. Each message is sampled by its command, and the response of a
+ * sampled message is logged with it. The fields holding patron identifiers
+ * and passwords are masked.
+ */
+final class MessageLog {
+  private static final Logger log = LogManager.getLogger();
+  private static final String COUNTER_DROPPED = "org.folio.edge.sip2.messageLog.dropped";
+  private static final JsonArray DEFAULT_MASKED_FIELDS = new JsonArray()
+      .add("AA").add("AC").add("AD").add("CO");
+  private static final String MASK = "****";
+
+  private final MeterRegistry registry = Optional.ofNullable(BackendRegistries.getDefaultNow())
+      .orElse(new SimpleMeterRegistry());
+  private final double sampleRate;
+  private final Map<Command, Double> sampleRates = new EnumMap<>(Command.class);
+  private final Set<String> maskedFields = new HashSet<>();
+  private final BlockingQueue<Entry> entries;
+  private final BooleanSupplier enabled;
+  private final Consumer<String> writer;
+  private final Counter droppedCounter;
+  private final Thread writerThread;
+  private volatile boolean closed;
+
+  /**
+   * Construct the message log.
+   *
+   * @param config the {@code sampleRate} of all messages, the
+   *     {@code sampleRates} by command, the {@code maskedFields} and the
+   *     {@code queueSize}, all optional
+   */
+  MessageLog(JsonObject config) {
+    this(config, log::isInfoEnabled, log::info);
+  }
+
+  MessageLog(JsonObject config, BooleanSupplier enabled, Consumer<String> writer) {
+    this.enabled = enabled;
+    this.writer = writer;
+    sampleRate = config.getDouble("sampleRate", 1.0);
+    config.getJsonObject("sampleRates", new JsonObject()).forEach(rate ->
+        sampleRates.put(Command.valueOf(rate.getKey()), ((Number) rate.getValue()).doubleValue()));
+    config.getJsonArray("maskedFields", DEFAULT_MASKED_FIELDS)
+        .forEach(field -> maskedFields.add((String) field));
+    entries = new ArrayBlockingQueue<>(config.getInteger("queueSize", 1024));
+    droppedCounter = Counter.builder(COUNTER_DROPPED)
+        .description("The SIP messages not logged because the log queue was full")
+        .register(registry);
+
+    writerThread = new Thread(this::writeEntries, "sip2-message-log");
+    writerThread.setDaemon(true);
+    writerThread.start();
+  }
+
+  /**
+   * Log a message received, if it is sampled.
+   *
+   * @param command the command of the message
+   * @param message the message
+   * @param sessionData the session of the connection
+   * @return whether the message was sampled, i.e. its response is to be
+   *     logged as well
+   */
+  boolean received(Command command, Buffer message, SessionData sessionData) {
+    if (!enabled.getAsBoolean() || !isSampled(command)) {
+      return false;
+    }
+    enqueue(new Entry("Received message: ", message, sessionData));
+    return true;
+  }
+
+  /**
+   * Log a response sent.
+   *
+   * @param response the response
+   * @param sessionData the session of the connection
+   */
+  void sent(Buffer response, SessionData sessionData) {
+    enqueue(new Entry("Sip response ", response, sessionData));
+  }
+
+  /**
+   * Stop the writer, after it wrote the messages queued.
+   */
+  void close() {
+    closed = true;
+    writerThread.interrupt();
+  }
+
+  /**
+   * Get a message with its fields masked, e.g. to log it elsewhere.
+   *
+   * @param message the message
+   * @param sessionData the session of the connection
+   * @return the masked message
+   */
+  String masked(Buffer message, SessionData sessionData) {
+    return mask(message.toString(sessionData.getCharset()), sessionData.getFieldDelimiter(),
+        maskedFields);
+  }
+
+  double droppedCount() {
+    return droppedCounter.count();
+  }
+
+  /**
+   * Mask the fields of a message, i.e. replace their values.
+   */
+  static String mask(String message, char delimiter, Set<String> maskedFields) {
+    final StringBuilder masked = new StringBuilder(message.length());
+    int start = 0;
+    while (true) {
+      int end = message.indexOf(delimiter, start);
+      if (end < 0) {
+        end = message.length();
+      }
+      // the fixed length fields before the first delimiter are not masked
+      if (start > 0 && end - start >= 2
+          && maskedFields.contains(message.substring(start, start + 2))) {
+        masked.append(message, start, start + 2).append(MASK);
+      } else {
+        masked.append(message, start, end);
+      }
+      if (end == message.length()) {
+        return masked.toString();
+      }
+      masked.append(delimiter);
+      start = end + 1;
+    }
+  }
+
+  private boolean isSampled(Command command) {
+    final double rate = sampleRates.getOrDefault(command, sampleRate);
+    return rate >= 1.0 || rate > 0.0 && ThreadLocalRandom.current().nextDouble() < rate;
+  }
+
+  private void enqueue(Entry entry) {
+    if (closed || !entries.offer(entry)) {
+      droppedCounter.increment();
+    }
+  }
+
+  private void writeEntries() {
+    try {
+      while (!closed) {
+        write(entries.take());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+
+    Entry entry;
+    while ((entry = entries.poll()) != null) {
+      write(entry);
+    }
+  }
+
+  private void write(Entry entry) {
+    try {
+      writer.accept(entry.prefix + masked(entry.message, entry.sessionData));
+    } catch (RuntimeException e) {
+      log.error("Failed to log SIP message", e);
+    }
+  }
+
+  private static final class Entry {
+    private final String prefix;
+    private final Buffer message;
+    private final SessionData sessionData;
+
+    private Entry(String prefix, Buffer message, SessionData sessionData) {
+      this.prefix = prefix;
+      this.message = message;
+      this.sessionData = sessionData;
+    }
+  }
+}
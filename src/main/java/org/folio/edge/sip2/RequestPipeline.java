@@ -0,0 +1,201 @@
+package org.folio.edge.sip2;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.metrics.Metrics;
+
+/**
+ * Orders the responses of a kiosk connection. Up to {@code maxInFlight}
+ * requests of a connection are processed at the same time; their responses
+ * are written strictly in the order the requests were received, and the
+ * connection is not read while the window is full.
+ *
+ * <p>Responses are also held back while the write queue of the connection
+ * is full, e.g. for a kiosk on a slow link, and the connection is not read
+ * until the queue has drained. A connection therefore buffers at most its
+ * write queue and {@code maxInFlight} responses.
+ *
+ * <p>Every request reserves a {@link Slot} when it is received and must
+ * complete it exactly once, with the action that writes its response (or
+ * a no-op when there is no response). Actions run on the connection's
+ * context, as soon as all earlier slots have been completed.
+ *
+ * <p>A slot can be identified, e.g. by the checksum and sequence number of
+ * its request, so that a kiosk resending a request whose response has not
+ * been written yet is answered with that response rather than processing
+ * the request again, see {@link #find(String)}.
+ */
+final class RequestPipeline {
+  private static final Logger log = LogManager.getLogger();
+
+  private final ReadStream<?> requests;
+  private final WriteStream<?> responses;
+  private final int maxInFlight;
+  private final Metrics metrics;
+  private final Deque<Slot> inFlight = new ArrayDeque<>();
+  private boolean reading = true;
+  private boolean writeQueueFull;
+
+  /**
+   * Construct a pipeline for a connection.
+   *
+   * @param requests the stream of requests, e.g. the record parser of the
+   *     socket, which is paused while the window or the write queue is full
+   * @param responses the stream the responses are written to, i.e. the socket
+   * @param maxInFlight the number of requests processed at the same time
+   * @param metrics the metrics to count full write queues with
+   */
+  RequestPipeline(ReadStream<?> requests, WriteStream<?> responses, int maxInFlight,
+      Metrics metrics) {
+    this.requests = Objects.requireNonNull(requests, "requests cannot be null");
+    this.responses = Objects.requireNonNull(responses, "responses cannot be null");
+    this.metrics = Objects.requireNonNull(metrics, "metrics cannot be null");
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be at least 1, got: " + maxInFlight);
+    }
+    this.maxInFlight = maxInFlight;
+  }
+
+  /**
+   * Reserve the position of the response to the request just received.
+   * The request stream is paused when this fills the window.
+   *
+   * @return the slot to complete with the response
+   */
+  Slot next() {
+    final Slot slot = new Slot();
+    inFlight.addLast(slot);
+    updateReading();
+    return slot;
+  }
+
+  /**
+   * Find the request in flight that has been identified with a key. Its
+   * response is written before the response of any request received since,
+   * so a request that repeats it can be answered with
+   * {@link Slot#getResponse()}.
+   *
+   * @param key the key of the request
+   * @return the slot of the request or {@code null} if no request with the
+   *     key is in flight
+   */
+  Slot find(String key) {
+    for (Slot slot : inFlight) {
+      if (key.equals(slot.key)) {
+        return slot;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Get the number of requests that are processed or waiting for an
+   * earlier response to be written.
+   *
+   * @return the number of requests in flight
+   */
+  int inFlight() {
+    return inFlight.size();
+  }
+
+  private void drain() {
+    Slot head;
+    while (!writeQueueFull && (head = inFlight.peekFirst()) != null && head.action != null) {
+      inFlight.removeFirst();
+      try {
+        head.action.run();
+      } catch (RuntimeException e) {
+        // the remaining responses must still be written
+        log.error("Failed to write response", e);
+      }
+
+      if (responses.writeQueueFull()) {
+        writeQueueFull = true;
+        metrics.writeQueueFull();
+        // may be called more than once, or before the queue has drained
+        responses.drainHandler(v -> {
+          if (writeQueueFull && !responses.writeQueueFull()) {
+            writeQueueFull = false;
+            drain();
+          }
+        });
+      }
+    }
+
+    updateReading();
+  }
+
+  private void updateReading() {
+    final boolean read = !writeQueueFull && inFlight.size() < maxInFlight;
+    if (read != reading) {
+      // set first, resuming can parse further requests right away
+      reading = read;
+      if (read) {
+        requests.resume();
+      } else {
+        requests.pause();
+      }
+    }
+  }
+
+  /**
+   * The position of a response in the pipeline.
+   */
+  final class Slot {
+    private Runnable action;
+    private String key;
+    private Buffer response;
+
+    private Slot() {
+      super();
+    }
+
+    /**
+     * Identify the request, see {@link RequestPipeline#find(String)}.
+     *
+     * @param key the key of the request
+     */
+    void identify(String key) {
+      this.key = Objects.requireNonNull(key, "key cannot be null");
+    }
+
+    /**
+     * Get the response that was written for the request.
+     *
+     * @return the response or {@code null} if none was written (yet)
+     */
+    Buffer getResponse() {
+      return response;
+    }
+
+    /**
+     * Set the response that is written for the request, by its action.
+     *
+     * @param response the response
+     */
+    void setResponse(Buffer response) {
+      this.response = response;
+    }
+
+    /**
+     * Complete the request, writing its response once all earlier responses
+     * have been written.
+     *
+     * @param action writes the response
+     */
+    void complete(Runnable action) {
+      Objects.requireNonNull(action, "action cannot be null");
+      if (this.action != null) {
+        throw new IllegalStateException("Request already completed");
+      }
+      this.action = action;
+      drain();
+    }
+  }
+}
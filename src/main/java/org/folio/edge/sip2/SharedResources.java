@@ -0,0 +1,278 @@
+package org.folio.edge.sip2;
+
+import static org.folio.edge.sip2.parser.Command.CHECKIN;
+import static org.folio.edge.sip2.parser.Command.CHECKOUT;
+import static org.folio.edge.sip2.parser.Command.END_PATRON_SESSION;
+import static org.folio.edge.sip2.parser.Command.FEE_PAID;
+import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION;
+import static org.folio.edge.sip2.parser.Command.LOGIN;
+import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION;
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_REQUEST;
+import static org.folio.edge.sip2.parser.Command.RENEW;
+import static org.folio.edge.sip2.parser.Command.RENEW_ALL;
+import static org.folio.edge.sip2.parser.Command.REQUEST_ACS_RESEND;
+import static org.folio.edge.sip2.parser.Command.REQUEST_SC_RESEND;
+import static org.folio.edge.sip2.parser.Command.SC_STATUS;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import io.vertx.config.ConfigRetriever;
+import io.vertx.config.ConfigRetrieverOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import io.vertx.ext.web.client.WebClientOptions;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.handlers.CheckinHandler;
+import org.folio.edge.sip2.handlers.CheckoutHandler;
+import org.folio.edge.sip2.handlers.EndPatronSessionHandler;
+import org.folio.edge.sip2.handlers.FeePaidHandler;
+import org.folio.edge.sip2.handlers.HandlersFactory;
+import org.folio.edge.sip2.handlers.ISip2RequestHandler;
+import org.folio.edge.sip2.handlers.ItemInformationHandler;
+import org.folio.edge.sip2.handlers.LoginHandler;
+import org.folio.edge.sip2.handlers.PatronInformationHandler;
+import org.folio.edge.sip2.handlers.PatronStatusHandler;
+import org.folio.edge.sip2.handlers.RenewAllHandler;
+import org.folio.edge.sip2.handlers.RenewHandler;
+import org.folio.edge.sip2.journal.OfflineJournal;
+import org.folio.edge.sip2.metrics.LatencyHistograms;
+import org.folio.edge.sip2.metrics.Metrics;
+import org.folio.edge.sip2.modules.ApplicationModule;
+import org.folio.edge.sip2.modules.CacheModule;
+import org.folio.edge.sip2.modules.FolioResourceProviderModule;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.repositories.CirculationRepository;
+import org.folio.edge.sip2.repositories.ConfigurationRepository;
+import org.folio.edge.sip2.repositories.IRequestData;
+import org.folio.edge.sip2.repositories.IResourceProvider;
+import org.folio.edge.sip2.utils.TenantConfigIndex;
+
+/**
+ * The resources shared by all {@code MainVerticle} instances of a
+ * deployment. When the verticle is deployed with several instances, e.g.
+ * one per core, the connections are spread over the event loops of the
+ * instances, while the handlers (with the repositories, web client and
+ * templates they are injected with), the tenant configuration and the
+ * metrics exist only once.
+ *
+ * <p>The resources are kept in a Vert.x local map, keyed by the deployment
+ * ID, and are closed when the last instance releases them.
+ */
+final class SharedResources implements Shareable {
+  private static final String MAP_NAME = SharedResources.class.getName();
+  private static final Logger log = LogManager.getLogger();
+  // Okapi is a single host, the default pool of 5 connections is too small
+  // for the parallel requests of a few kiosks
+  private static final JsonObject DEFAULT_WEB_CLIENT_OPTIONS = new JsonObject()
+      .put("maxPoolSize", 20)
+      .put("tryUseCompression", true)
+      .put("connectTimeout", 10000);
+
+  private final Vertx vertx;
+  private final String deploymentId;
+  private final Map<Command, ISip2RequestHandler> handlers;
+  private final IResourceProvider<IRequestData> resourceProvider;
+  private final OfflineJournal offlineJournal;
+  private final long offlineReplayTimer;
+  private final Metrics metrics;
+  private final MessageLog messageLog;
+  private final ConfigRetriever configRetriever;
+  private final Future<Void> tenantConfigLoaded;
+  private volatile TenantConfigIndex tenantConfig = TenantConfigIndex.of(new JsonObject());
+  private int references;
+
+  private SharedResources(Vertx vertx, String deploymentId, JsonObject config,
+      Map<Command, ISip2RequestHandler> handlers) {
+    this.vertx = vertx;
+    this.deploymentId = deploymentId;
+    if (handlers == null) {
+      final Injector injector = createInjector(config, vertx);
+      // a single client, and connection pool, for all handlers
+      resourceProvider = injector.getInstance(
+          Key.get(new TypeLiteral<IResourceProvider<IRequestData>>() {}));
+      this.handlers = createHandlers(injector, resourceProvider, config, vertx);
+      offlineJournal = injector.getInstance(OfflineJournal.class);
+      offlineReplayTimer = startOfflineReplay(injector, config, vertx);
+    } else {
+      this.handlers = handlers;
+      resourceProvider = null;
+      offlineJournal = OfflineJournal.disabled();
+      offlineReplayTimer = -1;
+    }
+
+    metrics = Metrics.getMetrics(config.getInteger("port"),
+        LatencyHistograms.of(config.getJsonObject("latencyHistograms", new JsonObject())));
+    messageLog = new MessageLog(config.getJsonObject("messageLog", new JsonObject()));
+
+    configRetriever = ConfigRetriever.create(vertx,
+        new ConfigRetrieverOptions(config.getJsonObject("tenantConfigRetrieverOptions")));
+
+    final Promise<Void> loaded = Promise.promise();
+    configRetriever.getConfig(ar -> {
+      if (ar.failed()) {
+        log.error("Failed to load tenant config", ar.cause());
+        loaded.fail(ar.cause());
+        return;
+      }
+      try {
+        tenantConfig = TenantConfigIndex.of(ar.result());
+        log.info("Tenant config loaded: {}", () -> ar.result().encodePrettily());
+        loaded.complete();
+      } catch (IllegalArgumentException e) {
+        log.error("Failed to load tenant config", e);
+        loaded.fail(e);
+      }
+    });
+    tenantConfigLoaded = loaded.future();
+
+    configRetriever.listen(change -> {
+      final JsonObject newConfig = change.getNewConfiguration();
+      try {
+        tenantConfig = TenantConfigIndex.of(newConfig);
+        log.info("Tenant config changed: {}", () -> newConfig.encodePrettily());
+      } catch (IllegalArgumentException e) {
+        log.error("Ignoring invalid tenant config change: {}", newConfig.encodePrettily(), e);
+      }
+    });
+  }
+
+  /**
+   * Get the resources of a deployment, creating them for the first instance.
+   * Every call must be matched with a call to {@link #release()}.
+   *
+   * @param vertx the vertx instance
+   * @param deploymentId the deployment ID of the verticle instance
+   * @param config the verticle configuration
+   * @param handlers the handlers to use instead of the injected ones, may be
+   *     {@code null}
+   * @return the shared resources
+   */
+  static SharedResources acquire(Vertx vertx, String deploymentId, JsonObject config,
+      Map<Command, ISip2RequestHandler> handlers) {
+    final LocalMap<String, SharedResources> resources =
+        vertx.sharedData().getLocalMap(MAP_NAME);
+
+    return resources.compute(deploymentId, (id, existing) -> {
+      final SharedResources result = existing == null
+          ? new SharedResources(vertx, id, config, handlers) : existing;
+      result.references++;
+      return result;
+    });
+  }
+
+  /**
+   * Release the resources for a verticle instance. The resources are closed
+   * when no instance of the deployment uses them anymore.
+   */
+  void release() {
+    final LocalMap<String, SharedResources> resources =
+        vertx.sharedData().getLocalMap(MAP_NAME);
+
+    resources.compute(deploymentId, (id, existing) -> {
+      if (existing != this || --references > 0) {
+        return existing;
+      }
+      configRetriever.close();
+      vertx.cancelTimer(offlineReplayTimer);
+      offlineJournal.close();
+      if (resourceProvider != null) {
+        resourceProvider.close();
+      }
+      metrics.stop();
+      messageLog.close();
+      return null;
+    });
+  }
+
+  private static WebClientOptions webClientOptions(JsonObject config) {
+    return new WebClientOptions(DEFAULT_WEB_CLIENT_OPTIONS.copy()
+        .mergeIn(config.getJsonObject("webClientOptions", new JsonObject())));
+  }
+
+  private static Injector createInjector(JsonObject config, Vertx vertx) {
+    return Guice.createInjector(
+        new FolioResourceProviderModule(config.getString("okapiUrl"), vertx,
+            webClientOptions(config), config.getJsonObject("okapiRequests", new JsonObject())),
+        new ApplicationModule(config),
+        new CacheModule(config.getJsonObject("caches")));
+  }
+
+  /**
+   * Replay the checkins accepted while FOLIO was unreachable every
+   * {@code replayInterval}, if the offline journal is enabled.
+   */
+  private static long startOfflineReplay(Injector injector, JsonObject config, Vertx vertx) {
+    if (!injector.getInstance(OfflineJournal.class).isEnabled()) {
+      return -1;
+    }
+    final CirculationRepository circulationRepository =
+        injector.getInstance(CirculationRepository.class);
+    final long replayInterval = config.getJsonObject("offlineJournal")
+        .getLong("replayInterval", 30_000L);
+    return vertx.setPeriodic(replayInterval, id -> circulationRepository.replayOfflineCheckins()
+        .onFailure(t -> log.error("Failed to replay the offline checkins", t)));
+  }
+
+  private static Map<Command, ISip2RequestHandler> createHandlers(Injector injector,
+      IResourceProvider<IRequestData> resourceProvider, JsonObject config, Vertx vertx) {
+    final String okapiUrl = config.getString("okapiUrl");
+    final Map<Command, ISip2RequestHandler> handlerMap = new EnumMap<>(Command.class);
+    handlerMap.put(CHECKOUT, injector.getInstance(CheckoutHandler.class));
+    handlerMap.put(CHECKIN, injector.getInstance(CheckinHandler.class));
+    handlerMap.put(SC_STATUS, HandlersFactory.getScStatusHandlerInstance(
+        injector.getInstance(ConfigurationRepository.class), resourceProvider, null, null, okapiUrl,
+        vertx));
+    handlerMap.put(REQUEST_ACS_RESEND, HandlersFactory.getACSResendHandler());
+    handlerMap.put(LOGIN, injector.getInstance(LoginHandler.class));
+    handlerMap.put(PATRON_INFORMATION, injector.getInstance(PatronInformationHandler.class));
+    handlerMap.put(PATRON_STATUS_REQUEST, injector.getInstance(PatronStatusHandler.class));
+    handlerMap.put(FEE_PAID, injector.getInstance(FeePaidHandler.class));
+    handlerMap.put(ITEM_INFORMATION, injector.getInstance(ItemInformationHandler.class));
+    handlerMap.put(RENEW, injector.getInstance(RenewHandler.class));
+    handlerMap.put(RENEW_ALL, injector.getInstance(RenewAllHandler.class));
+    handlerMap.put(REQUEST_SC_RESEND, HandlersFactory.getInvalidMessageHandler());
+    handlerMap.put(END_PATRON_SESSION, injector.getInstance(EndPatronSessionHandler.class));
+    return Collections.unmodifiableMap(handlerMap);
+  }
+
+  Map<Command, ISip2RequestHandler> getHandlers() {
+    return handlers;
+  }
+
+  Metrics getMetrics() {
+    return metrics;
+  }
+
+  MessageLog getMessageLog() {
+    return messageLog;
+  }
+
+  /**
+   * Get the tenant configuration, which is reloaded when it changes.
+   *
+   * @return the current tenant configuration, indexed by the kiosk subnets
+   */
+  TenantConfigIndex getTenantConfig() {
+    return tenantConfig;
+  }
+
+  /**
+   * Get the initial load of the tenant configuration. Handlers will be
+   * called on the context of the instance that loaded it.
+   *
+   * @return a future completed when the tenant configuration has been loaded
+   */
+  Future<Void> getTenantConfigLoaded() {
+    return tenantConfigLoaded;
+  }
+}
@@ -0,0 +1,75 @@
+package org.folio.edge.sip2;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Launcher;
+import io.vertx.core.json.JsonObject;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Launches edge-sip2 like the Vert.x {@link Launcher}, additionally taking
+ * the number of {@code MainVerticle} instances from the {@code instances}
+ * config option. All instances listen on the same port, with the
+ * connections spread over their event loops. The {@code -instances} command
+ * line option takes precedence over the config option.
+ */
+public class Sip2Launcher extends Launcher {
+  static final String INSTANCES = "instances";
+  private static final Pattern INSTANCES_OPTION = Pattern.compile("--?instances(=.*)?");
+
+  // null for the arguments of the process
+  private final List<String> arguments;
+
+  /**
+   * Construct a launcher for the arguments the process was launched with.
+   */
+  public Sip2Launcher() {
+    this(null);
+  }
+
+  /**
+   * Construct a launcher for the command line arguments.
+   *
+   * @param arguments the command line arguments
+   */
+  Sip2Launcher(List<String> arguments) {
+    this.arguments = arguments;
+  }
+
+  /**
+   * Main entry point.
+   *
+   * @param args the user command line arguments.
+   */
+  public static void main(String[] args) {
+    new Sip2Launcher().dispatch(args);
+  }
+
+  @Override
+  public void beforeDeployingVerticle(DeploymentOptions deploymentOptions) {
+    final JsonObject config = deploymentOptions.getConfig();
+    // -instances on the command line takes precedence, even if it is the default
+    if (config != null && config.containsKey(INSTANCES) && !hasInstancesOption()) {
+      deploymentOptions.setInstances(instances(config.getInteger(INSTANCES)));
+    }
+  }
+
+  private boolean hasInstancesOption() {
+    final List<String> args = arguments == null ? getProcessArguments() : arguments;
+    return args != null && args.stream().anyMatch(arg -> INSTANCES_OPTION.matcher(arg).matches());
+  }
+
+  /**
+   * Get the number of instances to deploy for the configured value, where
+   * {@code 0} stands for one instance per available processor.
+   *
+   * @param configured the configured number of instances
+   * @return the number of instances to deploy
+   */
+  static int instances(int configured) {
+    if (configured > 0) {
+      return configured;
+    }
+    return Runtime.getRuntime().availableProcessors();
+  }
+}
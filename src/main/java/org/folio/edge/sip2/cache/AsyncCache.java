@@ -0,0 +1,325 @@
+package org.folio.edge.sip2.cache;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * A cache of values that are loaded asynchronously, e.g. from FOLIO.
+ *
+ * <p>A value is fresh for the time to live after it was loaded. After that it
+ * is stale, but is still returned for up to the maximum staleness while it is
+ * reloaded in the background (stale-while-revalidate). A failed reload keeps
+ * the stale value. Concurrent loads of the same key are merged into one, and
+ * failures are never cached. When the cache is bounded, the least recently
+ * used keys are evicted.
+ *
+ * <p>The cache may be shared by verticle instances: the returned futures
+ * complete on the context of the caller.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values, which must not be {@code null} or modified
+ *     once loaded
+ */
+public final class AsyncCache<K, V> {
+  private final Clock clock;
+  private final ToLongFunction<? super V> ttlMillis;
+  private final boolean disabled;
+  private final long maxStaleMillis;
+  private final Map<K, Entry<V>> entries;
+
+  private AsyncCache(Builder<K, V> builder) {
+    clock = Objects.requireNonNull(builder.clock, "clock cannot be null");
+    ttlMillis = builder.ttlMillis;
+    disabled = builder.disabled;
+    maxStaleMillis = Math.max(0, builder.maxStaleMillis);
+
+    final int maxSize = builder.maxSize;
+    entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, AsyncCache.Entry<V>> eldest) {
+        return maxSize > 0 && size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * Get a builder for a cache.
+   *
+   * @param clock the clock to age the values with
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   * @return the builder
+   */
+  public static <K, V> Builder<K, V> builder(Clock clock) {
+    return new Builder<>(clock);
+  }
+
+  /**
+   * Get the value for a key, loading it when it is not cached or too stale.
+   *
+   * @param key the key
+   * @param loader loads the value for the key
+   * @return the value
+   */
+  public Future<V> get(K key, Supplier<Future<V>> loader) {
+    Objects.requireNonNull(key, "key cannot be null");
+    Objects.requireNonNull(loader, "loader cannot be null");
+
+    if (disabled) {
+      return loader.get();
+    }
+
+    final Entry<V> entry;
+    synchronized (entries) {
+      entry = entries.computeIfAbsent(key, k -> new Entry<>());
+    }
+    final long now = clock.millis();
+    final V cached;
+    final Future<V> loading;
+    Promise<V> load = null;
+
+    synchronized (entry) {
+      final long age = now - entry.loadedAt;
+      cached = entry.loaded && age < entry.ttl + maxStaleMillis ? entry.value : null;
+      if ((cached == null || age >= entry.ttl) && entry.loading == null) {
+        load = Promise.promise();
+        entry.loading = load.future();
+      }
+      loading = entry.loading;
+    }
+
+    if (load != null) {
+      load(key, entry, loader, load);
+    }
+
+    if (cached != null) {
+      return Future.succeededFuture(cached);
+    }
+    return onCallerContext(loading);
+  }
+
+  /**
+   * Cache a value, e.g. under another key it can be looked up with.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(K key, V value) {
+    Objects.requireNonNull(key, "key cannot be null");
+    Objects.requireNonNull(value, "value cannot be null");
+
+    if (disabled) {
+      return;
+    }
+
+    final Entry<V> entry;
+    synchronized (entries) {
+      entry = entries.computeIfAbsent(key, k -> new Entry<>());
+    }
+    if (!loaded(entry, value)) {
+      remove(key, entry);
+    }
+  }
+
+  /**
+   * Remove the value for a key, it is loaded again on the next {@code get}.
+   *
+   * @param key the key
+   */
+  public void invalidate(K key) {
+    synchronized (entries) {
+      entries.remove(key);
+    }
+  }
+
+  /**
+   * Remove the value for a key if it matches, e.g. only the value that was
+   * found to be invalid and not a newer one.
+   *
+   * @param key the key
+   * @param invalid whether the cached value is invalid
+   */
+  public void invalidate(K key, Predicate<? super V> invalid) {
+    Objects.requireNonNull(invalid, "invalid cannot be null");
+
+    synchronized (entries) {
+      final Entry<V> entry = entries.get(key);
+      if (entry != null) {
+        synchronized (entry) {
+          if (entry.loaded && invalid.test(entry.value)) {
+            entries.remove(key);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Whether values are cached at all.
+   *
+   * @return {@code false} if every {@code get} loads the value
+   */
+  public boolean isEnabled() {
+    return !disabled;
+  }
+
+  /**
+   * Get the number of cached keys, including the ones being loaded.
+   *
+   * @return the number of keys
+   */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private void load(K key, Entry<V> entry, Supplier<Future<V>> loader, Promise<V> load) {
+    Future<V> loaded;
+    try {
+      loaded = loader.get();
+    } catch (RuntimeException e) {
+      loaded = Future.failedFuture(e);
+    }
+
+    loaded.onComplete(ar -> {
+      final boolean keep;
+      synchronized (entry) {
+        entry.loading = null;
+        keep = ar.succeeded() ? loaded(entry, ar.result()) : entry.loaded;
+      }
+      if (!keep) {
+        remove(key, entry);
+      }
+      load.handle(ar);
+    });
+  }
+
+  /**
+   * Set the value of an entry, unless it should not be cached at all.
+   */
+  private boolean loaded(Entry<V> entry, V value) {
+    final long ttl = ttlMillis.applyAsLong(value);
+    synchronized (entry) {
+      entry.value = value;
+      entry.ttl = ttl;
+      entry.loadedAt = clock.millis();
+      entry.loaded = ttl > 0;
+      return entry.loaded;
+    }
+  }
+
+  private void remove(K key, Entry<V> entry) {
+    synchronized (entries) {
+      entries.remove(key, entry);
+    }
+  }
+
+  private static <T> Future<T> onCallerContext(Future<T> future) {
+    final Context context = Vertx.currentContext();
+    if (context == null) {
+      return future;
+    }
+
+    final Promise<T> promise = Promise.promise();
+    future.onComplete(ar -> {
+      if (Vertx.currentContext() == context) {
+        promise.handle(ar);
+      } else {
+        context.runOnContext(v -> promise.handle(ar));
+      }
+    });
+    return promise.future();
+  }
+
+  private static final class Entry<V> {
+    private V value;
+    private long ttl;
+    private long loadedAt;
+    private boolean loaded;
+    private Future<V> loading;
+  }
+
+  /**
+   * Builder for an {@code AsyncCache}.
+   *
+   * @param <K> the type of the keys
+   * @param <V> the type of the values
+   */
+  public static final class Builder<K, V> {
+    private final Clock clock;
+    private ToLongFunction<? super V> ttlMillis = v -> 0;
+    private boolean disabled = true;
+    private long maxStaleMillis;
+    private int maxSize;
+
+    private Builder(Clock clock) {
+      this.clock = clock;
+    }
+
+    /**
+     * Set the time a value is fresh. Caching is disabled when this is
+     * {@code 0} or less, which is the default.
+     *
+     * @param ttlMillis the time to live in milliseconds
+     * @return the builder
+     */
+    public Builder<K, V> ttl(long ttlMillis) {
+      this.ttlMillis = v -> ttlMillis;
+      disabled = ttlMillis <= 0;
+      return this;
+    }
+
+    /**
+     * Set the time a value is fresh depending on the value, e.g. a shorter
+     * time for a value that was not found. A value is not cached when its
+     * time is {@code 0} or less.
+     *
+     * @param ttlMillis the time to live in milliseconds of a value
+     * @return the builder
+     */
+    public Builder<K, V> ttl(ToLongFunction<? super V> ttlMillis) {
+      this.ttlMillis = Objects.requireNonNull(ttlMillis, "ttlMillis cannot be null");
+      disabled = false;
+      return this;
+    }
+
+    /**
+     * Set the time an expired value is still returned while it is reloaded.
+     * Defaults to {@code 0}.
+     *
+     * @param maxStaleMillis the maximum staleness in milliseconds
+     * @return the builder
+     */
+    public Builder<K, V> maxStale(long maxStaleMillis) {
+      this.maxStaleMillis = maxStaleMillis;
+      return this;
+    }
+
+    /**
+     * Set the maximum number of keys. Defaults to {@code 0}, unbounded.
+     *
+     * @param maxSize the maximum number of keys
+     * @return the builder
+     */
+    public Builder<K, V> maxSize(int maxSize) {
+      this.maxSize = maxSize;
+      return this;
+    }
+
+    public AsyncCache<K, V> build() {
+      return new AsyncCache<>(this);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package org.folio.edge.sip2.domain;
 
+import io.vertx.core.buffer.Buffer;
 import org.folio.edge.sip2.parser.Message;
 
 /**
@@ -9,6 +10,8 @@ public class PreviousMessage {
   private int previousRequestSequenceNo;
   private String previousRequestChecksum;
   private String previousMessageResponse;
+  private Buffer previousMessageBuffer;
+  private String charset;
 
   /**
    * Constructor that constructs the PreviousMessage instance.
@@ -17,15 +20,48 @@ public class PreviousMessage {
    * @param response - the SIP response that corresponds to the @message.
    */
   public PreviousMessage(Message<Object> message, String response) {
-    previousRequestSequenceNo = message.getSequenceNumber();
+    previousRequestSequenceNo = getSequenceNumber(message);
     previousRequestChecksum = message.getChecksumsString();
     previousMessageResponse = response;
   }
 
+  /**
+   * Constructor that constructs the PreviousMessage instance from the framed
+   * response, so that it can be resent as is.
+   *
+   * @param message - The parsed request object
+   * @param response - the framed SIP response that corresponds to the @message.
+   * @param charset - the charset the response was encoded with.
+   */
+  public PreviousMessage(Message<Object> message, Buffer response, String charset) {
+    previousRequestSequenceNo = getSequenceNumber(message);
+    previousRequestChecksum = message.getChecksumsString();
+    previousMessageBuffer = response;
+    this.charset = charset;
+  }
+
+  /**
+   * Get the previous response. The response is decoded from the framed
+   * response when the message was constructed from one.
+   *
+   * @return the previous response
+   */
   public String getPreviousMessageResponse() {
+    if (previousMessageResponse == null && previousMessageBuffer != null) {
+      previousMessageResponse = previousMessageBuffer.toString(charset);
+    }
     return previousMessageResponse;
   }
 
+  /**
+   * Get the previous response as it was written to the socket.
+   *
+   * @return the framed response or {@code null} if the response was not framed
+   */
+  public Buffer getPreviousMessageBuffer() {
+    return previousMessageBuffer;
+  }
+
   public String getPreviousRequestChecksum() {
     return previousRequestChecksum;
   }
@@ -33,4 +69,10 @@ public class PreviousMessage {
   public int getPreviousRequestSequenceNo() {
     return previousRequestSequenceNo;
   }
+
+  private static int getSequenceNumber(Message<Object> message) {
+    // there is no sequence number without error detection
+    final Integer sequenceNumber = message.getSequenceNumber();
+    return sequenceNumber == null ? -1 : sequenceNumber.intValue();
+  }
 }
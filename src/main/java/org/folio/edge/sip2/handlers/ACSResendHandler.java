@@ -1,6 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
 import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
 import org.folio.edge.sip2.domain.PreviousMessage;
 import org.folio.edge.sip2.parser.Message;
 import org.folio.edge.sip2.session.SessionData;
@@ -22,4 +23,9 @@ public class ACSResendHandler implements ISip2RequestHandler {
   public void writeHistory(SessionData sessionData, Message<Object> request, String response) {
     //Do nothing. No need to save a response for the 97 message.
   }
+
+  @Override
+  public void writeHistory(SessionData sessionData, Message<Object> request, Buffer response) {
+    //Do nothing. No need to save a response for the 97 message.
+  }
 }
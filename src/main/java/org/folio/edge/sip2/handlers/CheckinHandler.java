@@ -1,5 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
+import static org.folio.edge.sip2.parser.Command.CHECKIN_RESPONSE;
+
 import freemarker.template.Template;
 import io.vertx.core.Future;
 import java.util.HashMap;
@@ -11,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.requests.Checkin;
 import org.folio.edge.sip2.domain.messages.responses.CheckinResponse;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 import org.folio.edge.sip2.repositories.CirculationRepository;
@@ -43,18 +46,22 @@ public class CheckinHandler implements ISip2RequestHandler {
     return circulationFuture.compose(checkinResponse -> {
       log.debug("CheckinResponse: {}", () -> checkinResponse);
 
-      final Map<String, Object> root = new HashMap<>();
-      root.put("formatDateTime", new FormatDateTimeMethodModel());
-      root.put("delimiter", sessionData.getFieldDelimiter());
-      root.put("checkinResponse", checkinResponse);
-      root.put("timezone", sessionData.getTimeZone());
-
-      final String response = FreemarkerUtils
-          .executeFreemarkerTemplate(root, commandTemplate);
+      final String response = ResponseEncoders.getInstance().encode(CHECKIN_RESPONSE,
+          checkinResponse, sessionData, () -> renderTemplate(checkinResponse, sessionData));
 
       log.debug("SIP checkin response: {}", response);
 
       return Future.succeededFuture(response);
     });
   }
+
+  private String renderTemplate(CheckinResponse checkinResponse, SessionData sessionData) {
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("checkinResponse", checkinResponse);
+    root.put("timezone", sessionData.getTimeZone());
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+  }
 }
@@ -1,5 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
+import static org.folio.edge.sip2.parser.Command.CHECKOUT_RESPONSE;
+
 import freemarker.template.Template;
 import io.vertx.core.Future;
 import java.util.HashMap;
@@ -11,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.requests.Checkout;
 import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 import org.folio.edge.sip2.repositories.CirculationRepository;
@@ -43,17 +46,22 @@ public class CheckoutHandler implements ISip2RequestHandler {
     return circulationFuture.compose(checkoutResponse -> {
       log.debug("CheckoutResponse: {}", () -> checkoutResponse);
 
-      final Map<String, Object> root = new HashMap<>();
-      root.put("formatDateTime", new FormatDateTimeMethodModel());
-      root.put("delimiter", sessionData.getFieldDelimiter());
-      root.put("checkoutResponse", checkoutResponse);
-      root.put("timezone", sessionData.getTimeZone());
-
-      final String response = FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+      final String response = ResponseEncoders.getInstance().encode(CHECKOUT_RESPONSE,
+          checkoutResponse, sessionData, () -> renderTemplate(checkoutResponse, sessionData));
 
       log.debug("SIP checkout response: {}", response);
 
       return Future.succeededFuture(response);
     });
   }
+
+  private String renderTemplate(CheckoutResponse checkoutResponse, SessionData sessionData) {
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("checkoutResponse", checkoutResponse);
+    root.put("timezone", sessionData.getTimeZone());
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+  }
 }
@@ -1,5 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
+import static org.folio.edge.sip2.parser.Command.END_SESSION_RESPONSE;
+
 import com.google.inject.Inject;
 import freemarker.template.Template;
 import io.vertx.core.Future;
@@ -11,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.requests.EndPatronSession;
 import org.folio.edge.sip2.domain.messages.responses.EndSessionResponse;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 import org.folio.edge.sip2.parser.Message;
@@ -45,14 +48,8 @@ public class EndPatronSessionHandler implements ISip2RequestHandler {
     return endPatronSessionFuture.map(endSessionResponse -> {
       log.debug("EndSessionResponse: {}", () -> endSessionResponse);
 
-      final Map<String, Object> root = new HashMap<>();
-      root.put("formatDateTime", new FormatDateTimeMethodModel());
-      root.put("delimiter", sessionData.getFieldDelimiter());
-      root.put("endSessionResponse", endSessionResponse);
-      root.put("timezone", sessionData.getTimeZone());
-
-      final String response = FreemarkerUtils
-          .executeFreemarkerTemplate(root, commandTemplate);
+      final String response = ResponseEncoders.getInstance().encode(END_SESSION_RESPONSE,
+          endSessionResponse, sessionData, () -> renderTemplate(endSessionResponse, sessionData));
 
       log.debug("SIP end session response: {}", response);
 
@@ -64,4 +61,14 @@ public class EndPatronSessionHandler implements ISip2RequestHandler {
   public void writeHistory(SessionData sessionData, Message<Object> request, String response) {
     //Do not write history for this command
   }
+
+  private String renderTemplate(EndSessionResponse endSessionResponse, SessionData sessionData) {
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("endSessionResponse", endSessionResponse);
+    root.put("timezone", sessionData.getTimeZone());
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+  }
 }
@@ -1,5 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
+import static org.folio.edge.sip2.parser.Command.FEE_PAID_RESPONSE;
+
 import freemarker.template.Template;
 import io.vertx.core.Future;
 import java.util.HashMap;
@@ -11,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.requests.FeePaid;
 import org.folio.edge.sip2.domain.messages.responses.FeePaidResponse;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 import org.folio.edge.sip2.repositories.FeeFinesRepository;
@@ -43,18 +46,22 @@ public class FeePaidHandler implements ISip2RequestHandler {
     return feePaidFuture.compose(feePaidResponse -> {
       log.info("FeePaidResponse: {}", () -> feePaidResponse);
 
-      final Map<String, Object> root = new HashMap<>();
-      root.put("formatDateTime", new FormatDateTimeMethodModel());
-      root.put("delimiter", sessionData.getFieldDelimiter());
-      root.put("feePaidResponse", feePaidResponse);
-      root.put("timezone", sessionData.getTimeZone());
-
-      final String response = FreemarkerUtils
-          .executeFreemarkerTemplate(root, commandTemplate);
+      final String response = ResponseEncoders.getInstance().encode(FEE_PAID_RESPONSE,
+          feePaidResponse, sessionData, () -> renderTemplate(feePaidResponse, sessionData));
 
       log.debug("SIP feePaid response: {}", response);
 
       return Future.succeededFuture(response);
     });
   }
+
+  private String renderTemplate(FeePaidResponse feePaidResponse, SessionData sessionData) {
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("feePaidResponse", feePaidResponse);
+    root.put("timezone", sessionData.getTimeZone());
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+  }
 }
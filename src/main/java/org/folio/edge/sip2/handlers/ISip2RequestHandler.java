@@ -1,6 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
 import io.vertx.core.Future;
+import io.vertx.core.buffer.Buffer;
 import org.folio.edge.sip2.domain.PreviousMessage;
 import org.folio.edge.sip2.parser.Message;
 import org.folio.edge.sip2.session.SessionData;
@@ -23,4 +24,15 @@ public interface ISip2RequestHandler {
   default void writeHistory(SessionData sessionData, Message<Object> request, String response) {
     sessionData.setPreviousMessage(new PreviousMessage(request, response));
   }
+
+  /**
+   * Save the current request and framed response as a history item (for the next request).
+   * @param sessionData Session object to store the history
+   * @param request A parsed SIP request object
+   * @param response framed SIP response for the passed in request
+   */
+  default void writeHistory(SessionData sessionData, Message<Object> request, Buffer response) {
+    sessionData.setPreviousMessage(
+        new PreviousMessage(request, response, sessionData.getCharset()));
+  }
 }
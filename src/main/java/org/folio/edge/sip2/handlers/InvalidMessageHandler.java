@@ -5,6 +5,7 @@ import static org.folio.edge.sip2.parser.Command.REQUEST_SC_RESEND;
 import freemarker.template.Template;
 import io.vertx.core.Future;
 import java.util.Collections;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerRepository;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 import org.folio.edge.sip2.session.SessionData;
@@ -12,10 +13,14 @@ import org.folio.edge.sip2.session.SessionData;
 public class InvalidMessageHandler implements ISip2RequestHandler {
   @Override
   public Future<String> execute(Object message, SessionData sessionData) {
+    final String response = ResponseEncoders.getInstance().encode(REQUEST_SC_RESEND,
+        null, sessionData, this::renderTemplate);
+    return Future.succeededFuture(response);
+  }
+
+  private String renderTemplate() {
     final Template commandTemplate = FreemarkerRepository
         .getInstance().getFreemarkerTemplate(REQUEST_SC_RESEND);
-    final String response = FreemarkerUtils
-        .executeFreemarkerTemplate(Collections.emptyMap(), commandTemplate);
-    return Future.succeededFuture(response);
+    return FreemarkerUtils.executeFreemarkerTemplate(Collections.emptyMap(), commandTemplate);
   }
 }
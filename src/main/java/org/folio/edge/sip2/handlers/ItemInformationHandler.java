@@ -1,5 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
+import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION_RESPONSE;
+
 import freemarker.template.Template;
 import io.vertx.core.Future;
 import java.util.HashMap;
@@ -11,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.requests.ItemInformation;
 import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 import org.folio.edge.sip2.repositories.ItemRepository;
@@ -43,18 +46,24 @@ public class ItemInformationHandler implements ISip2RequestHandler {
     return itemInformationFuture.compose(itemInformationResponse -> {
       log.info("ItemInformationResponse: {}", () -> itemInformationResponse);
 
-      final Map<String, Object> root = new HashMap<>();
-      root.put("formatDateTime", new FormatDateTimeMethodModel());
-      root.put("delimiter", sessionData.getFieldDelimiter());
-      root.put("itemInformationResponse", itemInformationResponse);
-      root.put("timezone", sessionData.getTimeZone());
-
-      final String response = FreemarkerUtils
-          .executeFreemarkerTemplate(root, commandTemplate);
+      final String response = ResponseEncoders.getInstance().encode(ITEM_INFORMATION_RESPONSE,
+          itemInformationResponse, sessionData,
+          () -> renderTemplate(itemInformationResponse, sessionData));
 
       log.debug("SIP itemInformation response: {}", response);
 
       return Future.succeededFuture(response);
     });
   }
+
+  private String renderTemplate(ItemInformationResponse itemInformationResponse,
+      SessionData sessionData) {
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("itemInformationResponse", itemInformationResponse);
+    root.put("timezone", sessionData.getTimeZone());
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+  }
 }
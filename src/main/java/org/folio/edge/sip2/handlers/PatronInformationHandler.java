@@ -1,5 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
+import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION_RESPONSE;
+
 import freemarker.template.Template;
 import io.vertx.core.Future;
 import java.util.HashMap;
@@ -11,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.requests.PatronInformation;
 import org.folio.edge.sip2.domain.messages.responses.PatronInformationResponse;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 import org.folio.edge.sip2.repositories.PatronRepository;
@@ -43,18 +46,25 @@ public class PatronInformationHandler implements ISip2RequestHandler {
     return patronFuture.compose(patronInformationResponse -> {
       log.debug("PatronInformationResponse: {}", () -> patronInformationResponse);
 
-      final Map<String, Object> root = new HashMap<>();
-      root.put("formatDateTime", new FormatDateTimeMethodModel());
-      root.put("delimiter", sessionData.getFieldDelimiter());
-      root.put("patronInformationResponse", patronInformationResponse);
-      root.put("maxLength", sessionData.getMaxPrintWidth());
-      root.put("timezone", sessionData.getTimeZone());
-
-      final String response = FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+      final String response = ResponseEncoders.getInstance().encode(PATRON_INFORMATION_RESPONSE,
+          patronInformationResponse, sessionData,
+          () -> renderTemplate(patronInformationResponse, sessionData));
 
       log.debug("SIP patron information response: {}", response);
 
       return Future.succeededFuture(response);
     });
   }
+
+  private String renderTemplate(PatronInformationResponse patronInformationResponse,
+      SessionData sessionData) {
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("patronInformationResponse", patronInformationResponse);
+    root.put("maxLength", sessionData.getMaxPrintWidth());
+    root.put("timezone", sessionData.getTimeZone());
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+  }
 }
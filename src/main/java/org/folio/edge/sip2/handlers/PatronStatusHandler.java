@@ -1,5 +1,7 @@
 package org.folio.edge.sip2.handlers;
 
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_RESPONSE;
+
 import freemarker.template.Template;
 import io.vertx.core.Future;
 import java.util.HashMap;
@@ -11,6 +13,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.requests.PatronStatusRequest;
 import org.folio.edge.sip2.domain.messages.responses.PatronStatusResponse;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 //import org.folio.edge.sip2.repositories.FeeFinesRepository;
@@ -49,18 +52,24 @@ public class PatronStatusHandler implements ISip2RequestHandler {
     return patronStatusFuture.compose(patronStatusResponse -> {
       log.info("PatronStatusResponse: {}", () -> patronStatusResponse);
 
-      final Map<String, Object> root = new HashMap<>();
-      root.put("formatDateTime", new FormatDateTimeMethodModel());
-      root.put("delimiter", sessionData.getFieldDelimiter());
-      root.put("patronStatusResponse", patronStatusResponse);
-      root.put("timezone", sessionData.getTimeZone());
-
-      final String response = FreemarkerUtils
-          .executeFreemarkerTemplate(root, commandTemplate);
+      final String response = ResponseEncoders.getInstance().encode(PATRON_STATUS_RESPONSE,
+          patronStatusResponse, sessionData,
+          () -> renderTemplate(patronStatusResponse, sessionData));
 
       log.debug("SIP patronStatus response: {}", response);
 
       return Future.succeededFuture(response);
     });
   }
+
+  private String renderTemplate(PatronStatusResponse patronStatusResponse,
+      SessionData sessionData) {
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("patronStatusResponse", patronStatusResponse);
+    root.put("timezone", sessionData.getTimeZone());
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root, commandTemplate);
+  }
 }
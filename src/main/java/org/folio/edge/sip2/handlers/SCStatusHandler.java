@@ -14,6 +14,7 @@ import org.folio.edge.sip2.domain.messages.enumerations.Messages;
 import org.folio.edge.sip2.domain.messages.enumerations.StatusCode;
 import org.folio.edge.sip2.domain.messages.requests.SCStatus;
 import org.folio.edge.sip2.domain.messages.responses.ACSStatus;
+import org.folio.edge.sip2.handlers.encoders.ResponseEncoders;
 import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
 import org.folio.edge.sip2.repositories.ConfigurationRepository;
@@ -50,21 +51,13 @@ public class SCStatusHandler implements ISip2RequestHandler {
       Future<ACSStatus> future = configurationRepository.getACSStatus(sessionData);
 
       return future.compose(acsStatus -> {
-        Map<String, Object> root = new HashMap<>();
-        root.put("PackagedSupportedMessages",
-            new PackagedSupportedMessages(acsStatus.getSupportedMessages()));
-        root.put("ACSStatus",acsStatus);
-        root.put("formatDateTime", new FormatDateTimeMethodModel());
-        root.put("delimiter", sessionData.getFieldDelimiter());
-        root.put("maxLength", sessionData.getMaxPrintWidth());
-        root.put("timezone", sessionData.getTimeZone());
-
         if (template == null) {
           log.error("Unable to locate Freemarker template for the command: " + ACS_STATUS.name());
           return Future.failedFuture("");
         }
 
-        String acsSipStatusMessage = FreemarkerUtils.executeFreemarkerTemplate(root, template);
+        String acsSipStatusMessage = ResponseEncoders.getInstance().encode(ACS_STATUS,
+            acsStatus, sessionData, () -> renderTemplate(acsStatus, sessionData));
         log.debug("Sip2 ACSStatus message: " + acsSipStatusMessage);
 
         return Future.succeededFuture(acsSipStatusMessage);
@@ -75,6 +68,19 @@ public class SCStatusHandler implements ISip2RequestHandler {
     }
   }
 
+  private String renderTemplate(ACSStatus acsStatus, SessionData sessionData) {
+    Map<String, Object> root = new HashMap<>();
+    root.put("PackagedSupportedMessages",
+        new PackagedSupportedMessages(acsStatus.getSupportedMessages()));
+    root.put("ACSStatus",acsStatus);
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put("maxLength", sessionData.getMaxPrintWidth());
+    root.put("timezone", sessionData.getTimeZone());
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root, template);
+  }
+
   /**
    * Inner utility class to help laid out the Messages data for freemarker template to consume.
    *
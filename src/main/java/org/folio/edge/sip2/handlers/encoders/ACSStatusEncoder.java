@@ -0,0 +1,65 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.BLOCK_PATRON;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.CHECKIN;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.CHECKOUT;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.END_PATRON_SESSION;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.FEE_PAID;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.HOLD;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.ITEM_INFORMATION;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.ITEM_STATUS_UPDATE;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.LOGIN;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.PATRON_ENABLE;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.PATRON_INFORMATION;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.PATRON_STATUS_REQUEST;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.RENEW;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.RENEW_ALL;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.REQUEST_SC_ACS_RESEND;
+import static org.folio.edge.sip2.domain.messages.enumerations.Messages.SC_ACS_STATUS;
+
+import java.util.Set;
+import org.folio.edge.sip2.domain.messages.enumerations.Messages;
+import org.folio.edge.sip2.domain.messages.responses.ACSStatus;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the ACS status response, see {@code acs-status.ftl}.
+ */
+public class ACSStatusEncoder implements ResponseEncoder<ACSStatus> {
+  /** The order of the supported messages field, BX. */
+  private static final Messages [] SUPPORTED_MESSAGES_ORDER = {
+      PATRON_STATUS_REQUEST, CHECKOUT, CHECKIN, BLOCK_PATRON, SC_ACS_STATUS,
+      REQUEST_SC_ACS_RESEND, LOGIN, PATRON_INFORMATION, END_PATRON_SESSION,
+      FEE_PAID, ITEM_INFORMATION, ITEM_STATUS_UPDATE, PATRON_ENABLE, HOLD,
+      RENEW, RENEW_ALL
+  };
+
+  @Override
+  public void encode(ACSStatus response, SessionData sessionData, SipResponseWriter writer) {
+    writer.append("98")
+        .yesOrNo(response.getOnLineStatus())
+        .yesOrNo(response.getCheckinOk())
+        .yesOrNo(response.getCheckoutOk())
+        .yesOrNo(response.getAcsRenewalPolicy())
+        .yesOrNo(response.getStatusUpdateOk())
+        .yesOrNo(response.getOffLineOk())
+        .number(response.getTimeoutPeriod(), 3)
+        .number(response.getRetriesAllowed(), 3)
+        .dateTime(response.getDateTimeSync())
+        .append(response.getProtocolVersion())
+        // The template writes these two fields with a literal '|'
+        .append("AO").append(response.getInstitutionId()).append("|")
+        .optionalField("AM", response.getLibraryName())
+        .append("BX");
+
+    final Set<Messages> supportedMessages = response.getSupportedMessages();
+    for (Messages message : SUPPORTED_MESSAGES_ORDER) {
+      writer.yesOrNo(supportedMessages.contains(message));
+    }
+
+    writer.append("|")
+        .optionalField("AN", response.getTerminalLocation())
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine(), sessionData.getMaxPrintWidth());
+  }
+}
@@ -0,0 +1,43 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.BaseCheckoutRenewResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * The checkout and renew responses only differ in their command identifier.
+ * See {@code CheckoutResponse.ftl} and {@code RenewResponse.ftl}.
+ *
+ * @param <T> the checkout or renew response type
+ */
+public abstract class BaseCheckoutRenewResponseEncoder<T extends BaseCheckoutRenewResponse>
+    implements ResponseEncoder<T> {
+  private final String commandIdentifier;
+
+  protected BaseCheckoutRenewResponseEncoder(String commandIdentifier) {
+    this.commandIdentifier = commandIdentifier;
+  }
+
+  @Override
+  public void encode(T response, SessionData sessionData, SipResponseWriter writer) {
+    writer.append(commandIdentifier)
+        .oneOrZero(response.getOk())
+        .yesOrNo(response.getRenewalOk())
+        .yesNoOrUnknown(response.getMagneticMedia())
+        .yesNoOrUnknown(response.getDesensitize())
+        .dateTime(response.getTransactionDate())
+        .field("AO", response.getInstitutionId())
+        .field("AA", response.getPatronIdentifier())
+        .field("AB", response.getItemIdentifier())
+        .field("AJ", response.getTitleIdentifier())
+        .dateTimeField("AH", response.getDueDate())
+        .feeType(response.getFeeType())
+        .yesOrNoField("CI", response.getSecurityInhibit())
+        .currencyType(response.getCurrencyType())
+        .optionalField("BV", response.getFeeAmount())
+        .mediaType(response.getMediaType())
+        .optionalField("CH", response.getItemProperties())
+        .optionalField("BK", response.getTransactionId())
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine());
+  }
+}
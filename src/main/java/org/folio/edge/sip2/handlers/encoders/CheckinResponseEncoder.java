@@ -0,0 +1,31 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.CheckinResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the checkin response, see {@code CheckinResponse.ftl}.
+ */
+public class CheckinResponseEncoder implements ResponseEncoder<CheckinResponse> {
+  @Override
+  public void encode(CheckinResponse response, SessionData sessionData,
+      SipResponseWriter writer) {
+    writer.append("10")
+        .oneOrZero(response.getOk())
+        .yesOrNo(response.getResensitize())
+        .yesNoOrUnknown(response.getMagneticMedia())
+        .yesOrNo(response.getAlert())
+        .dateTime(response.getTransactionDate())
+        .field("AO", response.getInstitutionId())
+        .field("AB", response.getItemIdentifier())
+        .field("AQ", response.getPermanentLocation())
+        .optionalField("AJ", response.getTitleIdentifier())
+        .optionalField("CL", response.getSortBin())
+        .optionalField("AA", response.getPatronIdentifier())
+        .mediaType(response.getMediaType())
+        .optionalField("CH", response.getItemProperties())
+        .optionalField("CR", response.getMaterialType())
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine());
+  }
+}
@@ -0,0 +1,12 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
+
+/**
+ * Encodes the checkout response, see {@code CheckoutResponse.ftl}.
+ */
+public class CheckoutResponseEncoder extends BaseCheckoutRenewResponseEncoder<CheckoutResponse> {
+  public CheckoutResponseEncoder() {
+    super("12");
+  }
+}
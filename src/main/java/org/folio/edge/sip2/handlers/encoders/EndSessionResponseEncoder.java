@@ -0,0 +1,21 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.EndSessionResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the end session response, see {@code EndSessionResponse.ftl}.
+ */
+public class EndSessionResponseEncoder implements ResponseEncoder<EndSessionResponse> {
+  @Override
+  public void encode(EndSessionResponse response, SessionData sessionData,
+      SipResponseWriter writer) {
+    writer.append("36")
+        .yesOrNo(response.getEndSession())
+        .dateTime(response.getTransactionDate())
+        .field("AO", response.getInstitutionId())
+        .field("AA", response.getPatronIdentifier())
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine());
+  }
+}
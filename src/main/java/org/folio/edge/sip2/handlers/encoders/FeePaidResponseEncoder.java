@@ -0,0 +1,22 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.FeePaidResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the fee paid response, see {@code FeePaidResponse.ftl}.
+ */
+public class FeePaidResponseEncoder implements ResponseEncoder<FeePaidResponse> {
+  @Override
+  public void encode(FeePaidResponse response, SessionData sessionData,
+      SipResponseWriter writer) {
+    writer.append("38")
+        .yesOrNo(response.getPaymentAccepted())
+        .dateTime(response.getTransactionDate())
+        .field("AO", response.getInstitutionId())
+        .field("AA", response.getPatronIdentifier())
+        .optionalField("BK", response.getTransactionId())
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine());
+  }
+}
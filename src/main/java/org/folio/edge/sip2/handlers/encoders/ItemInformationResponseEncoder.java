@@ -0,0 +1,49 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import static org.folio.edge.sip2.domain.messages.enumerations.CurrencyType.USD;
+import static org.folio.edge.sip2.domain.messages.enumerations.FeeType.OTHER_UNKNOWN;
+
+import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the item information response, see
+ * {@code ItemInformationResponse.ftl}.
+ */
+public class ItemInformationResponseEncoder implements ResponseEncoder<ItemInformationResponse> {
+  @Override
+  public void encode(ItemInformationResponse response, SessionData sessionData,
+      SipResponseWriter writer) {
+    writer.append("18")
+        .circulationStatus(response.getCirculationStatus())
+        .securityMarker(response.getSecurityMarker())
+        .feeType(response.getFeeType() == null ? OTHER_UNKNOWN : response.getFeeType())
+        .dateTime(response.getTransactionDate())
+        .optionalDateTimeField("AH", response.getDueDate())
+        .optionalDateTimeField("CJ", response.getRecallDate())
+        .optionalDateTimeField("CM", response.getHoldPickupDate())
+        .field("AB", response.getItemIdentifier())
+        .fieldOrEmpty("AJ", response.getTitleIdentifier());
+
+    final String owner = response.getOwner();
+    if (owner != null && !owner.isEmpty()) {
+      // The template lists the owner as a sequence, which fails for a
+      // string value. Let the template report it.
+      throw new UnsupportedResponseException("Owner is not supported: " + owner);
+    }
+
+    writer.currencyType(response.getCurrencyType() == null ? USD : response.getCurrencyType())
+        .mediaType(response.getMediaType())
+        .fieldOrEmpty("AQ", response.getPermanentLocation())
+        .fieldOrEmpty("AP", response.getCurrentLocation())
+        .optionalField("CH", response.getItemProperties())
+        .fieldOrEmpty("CT", response.getDestinationInstitutionId())
+        .fieldOrEmpty("CY", response.getHoldPatronId())
+        .fieldOrEmpty("DA", response.getHoldPatronName())
+        .fieldOrEmpty("EA", response.getAuthor())
+        .optionalField("CH", response.getSummary())
+        .repeatableListField("IN", response.getIsbn(), 50)
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine());
+  }
+}
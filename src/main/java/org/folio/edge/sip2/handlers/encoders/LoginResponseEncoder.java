@@ -0,0 +1,15 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.LoginResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the login response, see {@code LoginResponse.ftl}.
+ */
+public class LoginResponseEncoder implements ResponseEncoder<LoginResponse> {
+  @Override
+  public void encode(LoginResponse response, SessionData sessionData,
+      SipResponseWriter writer) {
+    writer.append("94").oneOrZero(response.getOk());
+  }
+}
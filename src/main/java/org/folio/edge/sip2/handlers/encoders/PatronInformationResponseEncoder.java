@@ -0,0 +1,50 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.PatronInformationResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the patron information response, see
+ * {@code PatronInformationResponse.ftl}.
+ */
+public class PatronInformationResponseEncoder
+    implements ResponseEncoder<PatronInformationResponse> {
+  @Override
+  public void encode(PatronInformationResponse response, SessionData sessionData,
+      SipResponseWriter writer) {
+    writer.append("64")
+        .patronStatus(response.getPatronStatus())
+        .language(response.getLanguage())
+        .dateTime(response.getTransactionDate())
+        .countOrSpaces(response.getHoldItemsCount())
+        .countOrSpaces(response.getOverdueItemsCount())
+        .countOrSpaces(response.getChargedItemsCount())
+        .countOrSpaces(response.getFineItemsCount())
+        .countOrSpaces(response.getRecallItemsCount())
+        .countOrSpaces(response.getUnavailableHoldsCount())
+        .field("AO", response.getInstitutionId())
+        .field("AA", response.getPatronIdentifier())
+        .field("AE", response.getPersonalName())
+        .countField("BZ", response.getHoldItemsLimit())
+        .countField("CA", response.getOverdueItemsLimit())
+        .countField("CB", response.getChargedItemsLimit())
+        .yesOrNoField("BL", response.getValidPatron())
+        .yesOrNoField("CQ", response.getValidPatronPassword())
+        .currencyType(response.getCurrencyType())
+        .optionalField("BV", response.getFeeAmount())
+        .optionalField("CC", response.getFeeLimit())
+        .listField("AS", response.getHoldItems())
+        .listField("AT", response.getOverdueItems())
+        .listField("AU", response.getChargedItems())
+        .listField("AV", response.getFineItems())
+        .listField("BU", response.getRecallItems())
+        .listField("CD", response.getUnavailableHoldItems())
+        .optionalField("BD", response.getHomeAddress())
+        .fieldOrEmpty("BE", response.getEmailAddress())
+        .optionalField("BF", response.getHomePhoneNumber())
+        .fieldOrEmpty("PC", response.getPatronLoanClass())
+        .dateField("PB", response.getPatronBirthDate())
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine(), sessionData.getMaxPrintWidth());
+  }
+}
@@ -0,0 +1,27 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.PatronStatusResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the patron status response, see {@code PatronStatusResponse.ftl}.
+ */
+public class PatronStatusResponseEncoder implements ResponseEncoder<PatronStatusResponse> {
+  @Override
+  public void encode(PatronStatusResponse response, SessionData sessionData,
+      SipResponseWriter writer) {
+    writer.append("24")
+        .patronStatus(response.getPatronStatus())
+        .language(response.getLanguage())
+        .dateTime(response.getTransactionDate())
+        .field("AO", response.getInstitutionId())
+        .field("AA", response.getPatronIdentifier())
+        .field("AE", response.getPersonalName())
+        .yesOrNoField("BL", response.getValidPatron())
+        .yesOrNoField("CQ", response.getValidPatronPassword())
+        .currencyType(response.getCurrencyType())
+        .optionalField("BV", response.getFeeAmount())
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine());
+  }
+}
@@ -0,0 +1,24 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the renew all response, see {@code RenewAllResponse.ftl}.
+ */
+public class RenewAllResponseEncoder implements ResponseEncoder<RenewAllResponse> {
+  @Override
+  public void encode(RenewAllResponse response, SessionData sessionData,
+      SipResponseWriter writer) {
+    writer.append("66")
+        .oneOrZero(response.getOk())
+        .count(response.getRenewedCount())
+        .count(response.getUnrenewedCount())
+        .dateTime(response.getTransactionDate())
+        .field("AO", response.getInstitutionId())
+        .listField("BM", response.getRenewedItems())
+        .listField("BN", response.getUnrenewedItems())
+        .screenMessage(response.getScreenMessage())
+        .printLine(response.getPrintLine());
+  }
+}
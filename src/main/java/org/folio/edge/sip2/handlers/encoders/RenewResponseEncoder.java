@@ -0,0 +1,12 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.domain.messages.responses.RenewResponse;
+
+/**
+ * Encodes the renew response, see {@code RenewResponse.ftl}.
+ */
+public class RenewResponseEncoder extends BaseCheckoutRenewResponseEncoder<RenewResponse> {
+  public RenewResponseEncoder() {
+    super("30");
+  }
+}
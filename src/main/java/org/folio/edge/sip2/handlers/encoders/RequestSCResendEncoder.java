@@ -0,0 +1,13 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes the request SC resend message, see {@code RequestSCResend.ftl}.
+ */
+public class RequestSCResendEncoder implements ResponseEncoder<Object> {
+  @Override
+  public void encode(Object response, SessionData sessionData, SipResponseWriter writer) {
+    writer.append("96");
+  }
+}
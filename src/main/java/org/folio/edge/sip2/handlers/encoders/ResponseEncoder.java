@@ -0,0 +1,21 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Encodes a SIP response POJO without going through a Freemarker template.
+ * Implementations must produce exactly what the matching template in
+ * {@code src/main/resources/templates} produces.
+ *
+ * @param <T> the response type
+ */
+public interface ResponseEncoder<T> {
+  /**
+   * Encode the response.
+   *
+   * @param response the response to encode
+   * @param sessionData the session the response is for
+   * @param writer the writer to encode the fields with
+   */
+  void encode(T response, SessionData sessionData, SipResponseWriter writer);
+}
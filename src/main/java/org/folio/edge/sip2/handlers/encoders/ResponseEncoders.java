@@ -0,0 +1,154 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import static org.folio.edge.sip2.parser.Command.ACS_STATUS;
+import static org.folio.edge.sip2.parser.Command.CHECKIN_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.CHECKOUT_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.END_SESSION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.FEE_PAID_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.LOGIN_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.RENEW_ALL_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.RENEW_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.REQUEST_SC_RESEND;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.micrometer.backends.BackendRegistries;
+import java.util.EnumMap;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.session.RequestTrace;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Holds the response encoders for each of the responses that have a
+ * Freemarker template. Responses are encoded into a per thread builder that
+ * is reused between requests. The Freemarker templates remain available,
+ * either for all responses when {@link #setUseTemplates(boolean)} is set, or
+ * for a single response when its encoder fails. A response the encoder
+ * does not support by design falls back quietly, any other failure is an
+ * encoder bug and is logged as an error. Both are counted.
+ */
+public final class ResponseEncoders {
+  private static final Logger log = LogManager.getLogger();
+  private static final String COUNTER_FALLBACKS = "org.folio.edge.sip2.encoder.fallbacks";
+
+  /** Builders that grew beyond this are not kept for the next response. */
+  private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private static ResponseEncoders instance;
+
+  private final EnumMap<Command, ResponseEncoder<?>> encoders;
+  private final ThreadLocal<StringBuilder> builders =
+      ThreadLocal.withInitial(() -> new StringBuilder(INITIAL_CAPACITY));
+  private final MeterRegistry registry = Optional.ofNullable(BackendRegistries.getDefaultNow())
+      .orElse(new SimpleMeterRegistry());
+  private volatile boolean useTemplates;
+
+  private ResponseEncoders() {
+    encoders = new EnumMap<>(Command.class);
+    encoders.put(CHECKOUT_RESPONSE, new CheckoutResponseEncoder());
+    encoders.put(CHECKIN_RESPONSE, new CheckinResponseEncoder());
+    encoders.put(RENEW_RESPONSE, new RenewResponseEncoder());
+    encoders.put(RENEW_ALL_RESPONSE, new RenewAllResponseEncoder());
+    encoders.put(FEE_PAID_RESPONSE, new FeePaidResponseEncoder());
+    encoders.put(ACS_STATUS, new ACSStatusEncoder());
+    encoders.put(REQUEST_SC_RESEND, new RequestSCResendEncoder());
+    encoders.put(LOGIN_RESPONSE, new LoginResponseEncoder());
+    encoders.put(PATRON_INFORMATION_RESPONSE, new PatronInformationResponseEncoder());
+    encoders.put(PATRON_STATUS_RESPONSE, new PatronStatusResponseEncoder());
+    encoders.put(ITEM_INFORMATION_RESPONSE, new ItemInformationResponseEncoder());
+    encoders.put(END_SESSION_RESPONSE, new EndSessionResponseEncoder());
+  }
+
+  /**
+   * Static method to get the only running ResponseEncoders instance.
+   */
+  public static synchronized ResponseEncoders getInstance() {
+    if (instance == null) {
+      instance = new ResponseEncoders();
+    }
+    return instance;
+  }
+
+  /**
+   * Switch all responses to be rendered by their Freemarker templates.
+   *
+   * @param useTemplates {@code true} to render with templates
+   */
+  public void setUseTemplates(boolean useTemplates) {
+    this.useTemplates = useTemplates;
+  }
+
+  public boolean isUsingTemplates() {
+    return useTemplates;
+  }
+
+  /**
+   * Encode a response.
+   *
+   * @param command the response command
+   * @param response the response POJO
+   * @param sessionData the session the response is for
+   * @param templateRenderer renders the response with its Freemarker template
+   * @return the SIP response without error detection or message delimiter
+   */
+  public <T> String encode(Command command, T response, SessionData sessionData,
+      Supplier<String> templateRenderer) {
+    final RequestTrace.Stage stage = RequestTrace.of(sessionData).startStage("render");
+    try {
+      return encodeResponse(command, response, sessionData, templateRenderer);
+    } finally {
+      stage.end();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> String encodeResponse(Command command, T response, SessionData sessionData,
+      Supplier<String> templateRenderer) {
+    final ResponseEncoder<T> encoder = (ResponseEncoder<T>) encoders.get(command);
+    if (useTemplates || encoder == null) {
+      return templateRenderer.get();
+    }
+
+    final StringBuilder sb = builders.get();
+    sb.setLength(0);
+
+    try {
+      encoder.encode(response, sessionData, new SipResponseWriter(sb,
+          sessionData.getFieldDelimiter(), sessionData.getTimeZone()));
+    } catch (UnsupportedResponseException e) {
+      log.debug("Unable to encode {}, falling back to the template: {}",
+          command, e.getMessage());
+      fallbackCounter(command, "unsupported").increment();
+      return templateRenderer.get();
+    } catch (RuntimeException e) {
+      log.error("Failed to encode {}, falling back to the template", command, e);
+      fallbackCounter(command, "error").increment();
+      return templateRenderer.get();
+    }
+
+    final String result = sb.toString();
+
+    if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+      builders.remove();
+    }
+
+    return result;
+  }
+
+  Counter fallbackCounter(Command command, String reason) {
+    return Counter.builder(COUNTER_FALLBACKS)
+        .description("The responses rendered with their template instead of their encoder")
+        .tag("command", command.toString())
+        .tag("reason", reason)
+        .register(registry);
+  }
+}
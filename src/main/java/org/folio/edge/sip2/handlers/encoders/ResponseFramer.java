@@ -0,0 +1,227 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import io.vertx.core.buffer.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Frames SIP responses for the wire. The response is encoded once, the error
+ * detection suffix (AY/AZ) is computed over the encoded bytes and the message
+ * delimiter is appended, resulting in a {@link Buffer} that can be written to
+ * the socket and kept for resending.
+ *
+ * <p>For charsets that encode ASCII as ASCII (IBM850, ISO-8859-1, UTF-8, ...)
+ * the response is encoded with {@link String#getBytes(Charset)}, which the JDK
+ * optimizes far better than a {@link CharsetEncoder}, and the suffix is
+ * written byte by byte. Other charsets are encoded into a per thread scratch
+ * buffer.
+ */
+public final class ResponseFramer {
+  /** Scratch buffers that grew beyond this are not kept for the next response. */
+  private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+  private static final int INITIAL_CAPACITY = 1024;
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  private static final ThreadLocal<ResponseFramer> framers =
+      ThreadLocal.withInitial(ResponseFramer::new);
+
+  private final StringBuilder suffix = new StringBuilder(16);
+  private ByteBuffer scratch = ByteBuffer.allocate(INITIAL_CAPACITY);
+  private String charsetName;
+  private Charset charset;
+  private CharsetEncoder encoder;
+  private boolean asciiCompatible;
+
+  private ResponseFramer() {
+  }
+
+  /**
+   * Frame a response without error detection.
+   *
+   * @param response the SIP response
+   * @param charset the session charset
+   * @param messageDelimiter the message delimiter
+   * @return the encoded response
+   */
+  public static Buffer frame(String response, String charset, String messageDelimiter) {
+    return framers.get().encode(response, charset, messageDelimiter, false, false, null);
+  }
+
+  /**
+   * Frame a response with the error detection fields. SC resend responses
+   * never include a sequence number, but will include the checksum.
+   *
+   * @param response the SIP response
+   * @param charset the session charset
+   * @param messageDelimiter the message delimiter
+   * @param isSCResend {@code true} if the response is an SC resend
+   * @param sequenceNumber the sequence number of the request
+   * @return the encoded response
+   */
+  public static Buffer frameWithErrorDetection(String response, String charset,
+      String messageDelimiter, boolean isSCResend, Integer sequenceNumber) {
+    return framers.get().encode(response, charset, messageDelimiter, true, isSCResend,
+        sequenceNumber);
+  }
+
+  private Buffer encode(String response, String charsetName, String messageDelimiter,
+      boolean errorDetection, boolean isSCResend, Integer sequenceNumber) {
+    selectCharset(charsetName);
+
+    suffix.setLength(0);
+    if (errorDetection && !isSCResend) {
+      suffix.append("AY").append(sequenceNumber);
+    }
+
+    if (asciiCompatible && isAscii(suffix) && isAscii(messageDelimiter)) {
+      return encodeAsciiCompatible(response, messageDelimiter, errorDetection);
+    }
+
+    return encodeWithEncoder(response, messageDelimiter, errorDetection, isSCResend,
+        sequenceNumber);
+  }
+
+  private Buffer encodeAsciiCompatible(String response, String messageDelimiter,
+      boolean errorDetection) {
+    final byte[] bytes = response.getBytes(charset);
+    final Buffer result = Buffer.buffer(bytes.length + suffix.length() + 6
+        + messageDelimiter.length()).appendBytes(bytes);
+
+    if (errorDetection) {
+      suffix.append("AZ");
+      int checksum = 0;
+      for (final byte b : bytes) {
+        checksum += b & 0xff;
+      }
+      for (int i = 0; i < suffix.length(); i++) {
+        final char c = suffix.charAt(i);
+        checksum += c;
+        result.appendByte((byte) c);
+      }
+
+      checksum = -checksum & 0xffff;
+      for (int shift = 12; shift >= 0; shift -= 4) {
+        result.appendByte((byte) HEX_DIGITS[(checksum >> shift) & 0xf]);
+      }
+    }
+
+    for (int i = 0; i < messageDelimiter.length(); i++) {
+      result.appendByte((byte) messageDelimiter.charAt(i));
+    }
+
+    return result;
+  }
+
+  private Buffer encodeWithEncoder(String response, String messageDelimiter,
+      boolean errorDetection, boolean isSCResend, Integer sequenceNumber) {
+    final CharsetEncoder charsetEncoder = encoder;
+
+    scratch.clear();
+    charsetEncoder.reset();
+    int checksum = append(charsetEncoder, response);
+
+    if (errorDetection) {
+      suffix.setLength(0);
+      if (!isSCResend) {
+        suffix.append("AY").append(sequenceNumber);
+      }
+      suffix.append("AZ");
+      checksum += append(charsetEncoder, suffix);
+
+      checksum = -checksum & 0xffff;
+      suffix.setLength(0);
+      for (int shift = 12; shift >= 0; shift -= 4) {
+        suffix.append(HEX_DIGITS[(checksum >> shift) & 0xf]);
+      }
+      append(charsetEncoder, suffix);
+    }
+
+    append(charsetEncoder, messageDelimiter);
+    flush(charsetEncoder);
+
+    final Buffer result = Buffer.buffer(scratch.position())
+        .appendBytes(scratch.array(), 0, scratch.position());
+
+    if (scratch.capacity() > MAX_RETAINED_CAPACITY) {
+      scratch = ByteBuffer.allocate(INITIAL_CAPACITY);
+    }
+
+    return result;
+  }
+
+  /**
+   * Encodes the characters into the scratch buffer. The segments of a
+   * response are encoded as one sequence, so stateful charsets behave as if
+   * the framed response had been encoded as a whole.
+   *
+   * @return the sum of the encoded bytes
+   */
+  private int append(CharsetEncoder charsetEncoder, CharSequence chars) {
+    final int start = scratch.position();
+    final CharBuffer in = CharBuffer.wrap(chars);
+
+    CoderResult result = charsetEncoder.encode(in, scratch, true);
+    while (result.isOverflow()) {
+      grow();
+      result = charsetEncoder.encode(in, scratch, true);
+    }
+
+    final byte[] bytes = scratch.array();
+    final int end = scratch.position();
+    int sum = 0;
+    for (int i = start; i < end; i++) {
+      sum += bytes[i] & 0xff;
+    }
+
+    return sum;
+  }
+
+  private void flush(CharsetEncoder charsetEncoder) {
+    while (charsetEncoder.flush(scratch).isOverflow()) {
+      grow();
+    }
+  }
+
+  private void grow() {
+    final ByteBuffer larger = ByteBuffer.allocate(scratch.capacity() * 2);
+    scratch.flip();
+    larger.put(scratch);
+    scratch = larger;
+  }
+
+  private void selectCharset(String name) {
+    if (!name.equals(charsetName)) {
+      charset = Charset.forName(name);
+      // match String.getBytes(), which replaces anything it cannot encode
+      encoder = charset.newEncoder()
+          .onMalformedInput(CodingErrorAction.REPLACE)
+          .onUnmappableCharacter(CodingErrorAction.REPLACE);
+      asciiCompatible = isAsciiCompatible(charset);
+      charsetName = name;
+    }
+  }
+
+  private static boolean isAsciiCompatible(Charset charset) {
+    final byte[] ascii = new byte[128];
+    for (int i = 0; i < ascii.length; i++) {
+      ascii[i] = (byte) i;
+    }
+    return Arrays.equals(ascii,
+        new String(ascii, StandardCharsets.US_ASCII).getBytes(charset));
+  }
+
+  private static boolean isAscii(CharSequence chars) {
+    for (int i = 0; i < chars.length(); i++) {
+      if (chars.charAt(i) >= 0x80) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
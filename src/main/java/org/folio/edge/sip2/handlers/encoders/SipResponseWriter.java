@@ -0,0 +1,658 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import org.folio.edge.sip2.domain.messages.enumerations.CirculationStatus;
+import org.folio.edge.sip2.domain.messages.enumerations.CurrencyType;
+import org.folio.edge.sip2.domain.messages.enumerations.FeeType;
+import org.folio.edge.sip2.domain.messages.enumerations.Language;
+import org.folio.edge.sip2.domain.messages.enumerations.MediaType;
+import org.folio.edge.sip2.domain.messages.enumerations.PatronStatus;
+import org.folio.edge.sip2.domain.messages.enumerations.SecurityMarker;
+
+/**
+ * Writes SIP response fields into a {@code StringBuilder}. Each method is the
+ * Java counterpart of a macro in {@code templates/lib.ftl} and produces the
+ * same characters. Values that the templates require will cause a
+ * {@code NullPointerException} when missing, just as the template would fail.
+ */
+public final class SipResponseWriter {
+  private static final DateTimeFormatter DATE_TIME_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyyMMdd    HHmmss");
+  private static final DateTimeFormatter DATE_FORMATTER =
+      DateTimeFormatter.ofPattern("yyyyMMdd");
+  private static final int MAX_FIELD_LENGTH = 255;
+  private static final int MAX_COUNT = 9999;
+  private static final int COUNT_LENGTH = 4;
+  private static final String EMPTY_COUNT = "    ";
+  private static final PatronStatus [] PATRON_STATUS_ORDER = {
+      PatronStatus.CHARGE_PRIVILEGES_DENIED,
+      PatronStatus.RENEWAL_PRIVILEGES_DENIED,
+      PatronStatus.RECALL_PRIVILEGES_DENIED,
+      PatronStatus.HOLD_PRIVILEGES_DENIED,
+      PatronStatus.CARD_REPORTED_LOST,
+      PatronStatus.TOO_MANY_ITEMS_CHARGED,
+      PatronStatus.TOO_MANY_ITEMS_OVERDUE,
+      PatronStatus.TOO_MANY_RENEWALS,
+      PatronStatus.TOO_MANY_CLAIMS_OF_ITEMS_RETURNED,
+      PatronStatus.TOO_MANY_ITEMS_LOST,
+      PatronStatus.EXCESSIVE_OUTSTANDING_FINES,
+      PatronStatus.EXCESSIVE_OUTSTANDING_FEES,
+      PatronStatus.RECALL_OVERDUE,
+      PatronStatus.TOO_MANY_ITEMS_BILLED
+  };
+
+  private final StringBuilder sb;
+  private final char delimiter;
+  private final String timezone;
+  private ZoneId zoneId;
+
+  /**
+   * Construct a writer for a single response.
+   *
+   * @param sb the builder to append the response to
+   * @param delimiter the session field delimiter
+   * @param timezone the session timezone used for all dates
+   */
+  public SipResponseWriter(StringBuilder sb, Character delimiter, String timezone) {
+    this.sb = Objects.requireNonNull(sb, "StringBuilder cannot be null");
+    this.delimiter = Objects.requireNonNull(delimiter, "Delimiter cannot be null").charValue();
+    this.timezone = timezone;
+  }
+
+  public SipResponseWriter append(String value) {
+    sb.append(Objects.requireNonNull(value, "Value cannot be null"));
+    return this;
+  }
+
+  public SipResponseWriter yesOrNo(Boolean value) {
+    sb.append(value.booleanValue() ? 'Y' : 'N');
+    return this;
+  }
+
+  /**
+   * Writes {@code Y} or {@code N}, or {@code U} if the value is unknown.
+   *
+   * @param value the value
+   * @return this writer
+   */
+  public SipResponseWriter yesNoOrUnknown(Boolean value) {
+    if (value == null) {
+      sb.append('U');
+      return this;
+    }
+    return yesOrNo(value);
+  }
+
+  public SipResponseWriter oneOrZero(Boolean value) {
+    sb.append(value.booleanValue() ? '1' : '0');
+    return this;
+  }
+
+  /**
+   * Writes an optional {@code Y} or {@code N} field with its identifier.
+   *
+   * @param id the field identifier
+   * @param value the value, nothing is written if {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter yesOrNoField(String id, Boolean value) {
+    if (value != null) {
+      sb.append(id);
+      yesOrNo(value);
+      sb.append(delimiter);
+    }
+    return this;
+  }
+
+  public SipResponseWriter dateTime(OffsetDateTime value) {
+    DATE_TIME_FORMATTER.formatTo(value.atZoneSameInstant(zoneId()), sb);
+    return this;
+  }
+
+  /**
+   * Writes a date time field. The identifier and delimiter are always written.
+   *
+   * @param id the field identifier
+   * @param value the value, may be {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter dateTimeField(String id, OffsetDateTime value) {
+    sb.append(id);
+    if (value != null) {
+      dateTime(value);
+    }
+    sb.append(delimiter);
+    return this;
+  }
+
+  /**
+   * Writes a date time field only if the value is present.
+   *
+   * @param id the field identifier
+   * @param value the value, may be {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter optionalDateTimeField(String id, OffsetDateTime value) {
+    if (value != null) {
+      dateTimeField(id, value);
+    }
+    return this;
+  }
+
+  /**
+   * Writes a date field. The identifier and delimiter are always written.
+   *
+   * @param id the field identifier
+   * @param value the value, may be {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter dateField(String id, OffsetDateTime value) {
+    sb.append(id);
+    if (value != null) {
+      DATE_FORMATTER.formatTo(value.atZoneSameInstant(zoneId()), sb);
+    }
+    sb.append(delimiter);
+    return this;
+  }
+
+  /**
+   * Writes a variable length field truncated to 255 characters. Delimiters in
+   * the value are replaced with spaces.
+   *
+   * @param id the field identifier
+   * @param value the required value
+   * @return this writer
+   */
+  public SipResponseWriter field(String id, String value) {
+    sb.append(id);
+    appendReplacingDelimiter(value, 0, Math.min(value.length(), MAX_FIELD_LENGTH));
+    sb.append(delimiter);
+    return this;
+  }
+
+  /**
+   * Writes a variable length field, writing an empty field for a missing
+   * value.
+   *
+   * @param id the field identifier
+   * @param value the value, may be {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter fieldOrEmpty(String id, String value) {
+    return field(id, value == null ? "" : value);
+  }
+
+  /**
+   * Writes a variable length field only if the value has content.
+   *
+   * @param id the field identifier
+   * @param value the value, may be {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter optionalField(String id, String value) {
+    if (value != null && !value.isEmpty()) {
+      field(id, value);
+    }
+    return this;
+  }
+
+  /**
+   * Writes a variable length field for each value in the list.
+   *
+   * @param id the field identifier
+   * @param values the values, may be {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter listField(String id, List<String> values) {
+    if (values != null) {
+      for (String value : values) {
+        field(id, value);
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Writes a value as repeated fields, each holding at most {@code length}
+   * characters.
+   *
+   * @param id the field identifier
+   * @param value the required value
+   * @param length the maximum number of characters in a field
+   * @return this writer
+   */
+  public SipResponseWriter repeatableField(String id, String value, int length) {
+    if (length < 1) {
+      throw new UnsupportedResponseException("Invalid field length: " + length);
+    }
+
+    final int end = value.length();
+    int start = 0;
+    while (start < end) {
+      final int chunkEnd = value.offsetByCodePoints(start,
+          Math.min(length, value.codePointCount(start, end)));
+      sb.append(id);
+      appendReplacingDelimiter(value, start, chunkEnd);
+      sb.append(delimiter);
+      start = chunkEnd;
+    }
+    return this;
+  }
+
+  /**
+   * Writes each value in the list as repeated fields.
+   *
+   * @param id the field identifier
+   * @param values the values, may be {@code null}
+   * @param length the maximum number of characters in a field
+   * @return this writer
+   */
+  public SipResponseWriter repeatableListField(String id, List<String> values, int length) {
+    if (values != null) {
+      for (String value : values) {
+        repeatableField(id, value, length);
+      }
+    }
+    return this;
+  }
+
+  public SipResponseWriter screenMessage(List<String> values) {
+    return repeatableListField("AF", values, MAX_FIELD_LENGTH);
+  }
+
+  public SipResponseWriter printLine(List<String> values) {
+    return printLine(values, MAX_FIELD_LENGTH);
+  }
+
+  public SipResponseWriter printLine(List<String> values, int maxLength) {
+    return values == null || values.isEmpty() ? this
+        : repeatableListField("AG", values, maxLength);
+  }
+
+  /**
+   * Writes a 4 character count limited to the range 0 to 9999.
+   *
+   * @param value the required count
+   * @return this writer
+   */
+  public SipResponseWriter count(Integer value) {
+    final int count = value.intValue();
+    if (count > MAX_COUNT) {
+      sb.append(MAX_COUNT);
+    } else {
+      zeroPad(Math.max(count, 0), COUNT_LENGTH);
+    }
+    return this;
+  }
+
+  /**
+   * Writes a 4 character count, or spaces if the count is not known.
+   *
+   * @param value the count, may be {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter countOrSpaces(Integer value) {
+    if (value == null) {
+      sb.append(EMPTY_COUNT);
+      return this;
+    }
+    return count(value);
+  }
+
+  /**
+   * Writes an optional 4 character count field with its identifier.
+   *
+   * @param id the field identifier
+   * @param value the count, nothing is written if {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter countField(String id, Integer value) {
+    if (value != null) {
+      sb.append(id);
+      count(value);
+      sb.append(delimiter);
+    }
+    return this;
+  }
+
+  /**
+   * Writes a number padded with zeros to at least {@code length} digits.
+   *
+   * @param value the required value
+   * @param length the minimum number of digits
+   * @return this writer
+   */
+  public SipResponseWriter number(Integer value, int length) {
+    final int number = value.intValue();
+    if (number < 0) {
+      sb.append('-');
+      zeroPad(-(long) number, length);
+    } else {
+      zeroPad(number, length);
+    }
+    return this;
+  }
+
+  /**
+   * Writes the 14 character patron status.
+   *
+   * @param value the required patron status
+   * @return this writer
+   */
+  public SipResponseWriter patronStatus(Collection<PatronStatus> value) {
+    Objects.requireNonNull(value, "Patron status cannot be null");
+    for (PatronStatus status : PATRON_STATUS_ORDER) {
+      sb.append(value.contains(status) ? 'Y' : ' ');
+    }
+    return this;
+  }
+
+  /**
+   * Writes the 3 character language code.
+   *
+   * @param value the required language
+   * @return this writer
+   */
+  public SipResponseWriter language(Language value) {
+    final String code;
+    switch (value) {
+      case ENGLISH:
+        code = "001";
+        break;
+      case FRENCH:
+        code = "002";
+        break;
+      case GERMAN:
+        code = "003";
+        break;
+      case ITALIAN:
+        code = "004";
+        break;
+      case DUTCH:
+        code = "005";
+        break;
+      case SWEDISH:
+        code = "006";
+        break;
+      case FINNISH:
+        code = "007";
+        break;
+      case SPANISH:
+        code = "008";
+        break;
+      case DANISH:
+        code = "009";
+        break;
+      case PORTUGUESE:
+        code = "010";
+        break;
+      case CANADIAN_FRENCH:
+        code = "011";
+        break;
+      case NORWEGIAN:
+        code = "012";
+        break;
+      case HEBREW:
+        code = "013";
+        break;
+      case JAPANESE:
+        code = "014";
+        break;
+      case RUSSIAN:
+        code = "015";
+        break;
+      case ARABIC:
+        code = "016";
+        break;
+      case POLISH:
+        code = "017";
+        break;
+      case GREEK:
+        code = "018";
+        break;
+      case CHINESE:
+        code = "019";
+        break;
+      case KOREAN:
+        code = "020";
+        break;
+      case NORTH_AMERICAN_SPANISH:
+        code = "021";
+        break;
+      case TAMIL:
+        code = "022";
+        break;
+      case MALAY:
+        code = "023";
+        break;
+      case UNITED_KINGDOM:
+        code = "024";
+        break;
+      case ICELANDIC:
+        code = "025";
+        break;
+      case BELGIAN:
+        code = "026";
+        break;
+      case TAIWANESE:
+        code = "027";
+        break;
+      default:
+        code = "000";
+    }
+    sb.append(code);
+    return this;
+  }
+
+  /**
+   * Writes the 2 character circulation status.
+   *
+   * @param value the required circulation status
+   * @return this writer
+   */
+  public SipResponseWriter circulationStatus(CirculationStatus value) {
+    final String code;
+    switch (value) {
+      case ON_ORDER:
+        code = "02";
+        break;
+      case AVAILABLE:
+        code = "03";
+        break;
+      case CHARGED:
+        code = "04";
+        break;
+      case CHARGED_NOT_TO_BE_RECALLED_UNTIL_EARLIEST_RECALL_DATE:
+        code = "05";
+        break;
+      case IN_PROCESS:
+        code = "06";
+        break;
+      case RECALLED:
+        code = "07";
+        break;
+      case WAITING_ON_HOLD_SHELF:
+        code = "08";
+        break;
+      case WAITING_TO_BE_RESHELVED:
+        code = "09";
+        break;
+      case IN_TRANSIT_BETWEEN_LIBRARY_LOCATIONS:
+        code = "10";
+        break;
+      case CLAIMED_RETURNED:
+        code = "11";
+        break;
+      case LOST:
+        code = "12";
+        break;
+      case MISSING:
+        code = "13";
+        break;
+      default:
+        code = "01";
+    }
+    sb.append(code);
+    return this;
+  }
+
+  /**
+   * Writes the 2 character security marker.
+   *
+   * @param value the required security marker
+   * @return this writer
+   */
+  public SipResponseWriter securityMarker(SecurityMarker value) {
+    final String code;
+    switch (value) {
+      case NONE:
+        code = "02";
+        break;
+      case TATTLE_TAPE_SECURITY_STRIP:
+        code = "03";
+        break;
+      case WHISPER_TAPE:
+        code = "04";
+        break;
+      default:
+        code = "01";
+    }
+    sb.append(code);
+    return this;
+  }
+
+  /**
+   * Writes the 2 character fee type.
+   *
+   * @param value the fee type, nothing is written if {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter feeType(FeeType value) {
+    if (value == null) {
+      return this;
+    }
+
+    final String code;
+    switch (value) {
+      case ADMINISTRATIVE:
+        code = "02";
+        break;
+      case DAMAGE:
+        code = "03";
+        break;
+      case OVERDUE:
+        code = "04";
+        break;
+      case PROCESSING:
+        code = "05";
+        break;
+      case RENTAL:
+        code = "06";
+        break;
+      case REPLACEMENT:
+        code = "07";
+        break;
+      case COMPUTER_ACCESS_CHARGE:
+        code = "08";
+        break;
+      case HOLD_FEE:
+        code = "09";
+        break;
+      default:
+        code = "01";
+    }
+    sb.append(code);
+    return this;
+  }
+
+  /**
+   * Writes the currency type field.
+   *
+   * @param value the currency type, nothing is written if {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter currencyType(CurrencyType value) {
+    if (value != null) {
+      sb.append("BH").append(value.name()).append(delimiter);
+    }
+    return this;
+  }
+
+  /**
+   * Writes the media type field.
+   *
+   * @param value the media type, nothing is written if {@code null}
+   * @return this writer
+   */
+  public SipResponseWriter mediaType(MediaType value) {
+    if (value == null) {
+      return this;
+    }
+
+    final String code;
+    switch (value) {
+      case BOOK:
+        code = "001";
+        break;
+      case MAGAZINE:
+        code = "002";
+        break;
+      case BOUND_JOURNAL:
+        code = "003";
+        break;
+      case AUDIO_TAPE:
+        code = "004";
+        break;
+      case VIDEO_TAPE:
+        code = "005";
+        break;
+      case CD_CDROM:
+        code = "006";
+        break;
+      case DISKETTE:
+        code = "007";
+        break;
+      case BOOK_WITH_DISKETTE:
+        code = "008";
+        break;
+      case BOOK_WITH_CD:
+        code = "009";
+        break;
+      case BOOK_WITH_AUDIO_TAPE:
+        code = "010";
+        break;
+      default:
+        code = "000";
+    }
+    sb.append("CK").append(code).append(delimiter);
+    return this;
+  }
+
+  private ZoneId zoneId() {
+    // Only resolved when a date is written, some responses have no dates
+    if (zoneId == null) {
+      zoneId = ZoneId.of(timezone);
+    }
+    return zoneId;
+  }
+
+  private void appendReplacingDelimiter(String value, int start, int end) {
+    for (int i = start; i < end; i++) {
+      final char c = value.charAt(i);
+      sb.append(c == delimiter ? ' ' : c);
+    }
+  }
+
+  private void zeroPad(long value, int length) {
+    final int mark = sb.length();
+    sb.append(value);
+    for (int digits = sb.length() - mark; digits < length; digits++) {
+      sb.insert(mark, '0');
+    }
+  }
+}
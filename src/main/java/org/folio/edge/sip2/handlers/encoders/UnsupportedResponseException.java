@@ -0,0 +1,14 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+/**
+ * Thrown by a response encoder for a response it does not support by
+ * design, e.g. a value the template renders differently. The response is
+ * rendered with its Freemarker template instead.
+ */
+public class UnsupportedResponseException extends IllegalArgumentException {
+  private static final long serialVersionUID = 1L;
+
+  public UnsupportedResponseException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,411 @@
+package org.folio.edge.sip2.journal;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * A durable, append-only journal of entries that are replayed later, e.g.
+ * the checkins accepted while FOLIO is unreachable.
+ *
+ * <p>The entries are written to a file, one JSON object per line. An append
+ * completes once its entry is synced to disk; the appends that arrive while a
+ * sync is in progress are written and synced together. All file access is
+ * done by a single worker thread, so the event loops are never blocked. A
+ * replay reads the entries in the order they were appended, and removes the
+ * ones that were replayed from the file. Only the entries of the same
+ * ordering key, e.g. the checkins of an item, are kept in order: an entry
+ * that cannot be replayed yet holds back the later entries of its key, not
+ * the entries of other keys.
+ *
+ * <p>The journal may be shared by verticle instances: the returned futures
+ * complete on the context of the caller.
+ */
+public final class OfflineJournal {
+  private static final Logger log = LogManager.getLogger();
+  private static final OfflineJournal DISABLED = new OfflineJournal(null, null);
+
+  private final Path path;
+  private final WorkerExecutor executor;
+  private final AtomicBoolean replaying = new AtomicBoolean();
+  private List<Append> appends = new ArrayList<>();
+  private boolean writing;
+  // only used by the worker thread
+  private FileChannel channel;
+
+  private OfflineJournal(Path path, WorkerExecutor executor) {
+    this.path = path;
+    this.executor = executor;
+  }
+
+  /**
+   * Get a journal that is disabled, i.e. does not accept entries.
+   *
+   * @return the disabled journal
+   */
+  public static OfflineJournal disabled() {
+    return DISABLED;
+  }
+
+  /**
+   * Get a journal that writes to a file. The file, and the directories it is
+   * in, are created with the first entry.
+   *
+   * @param vertx the vertx instance
+   * @param path the path of the file
+   * @return the journal
+   */
+  public static OfflineJournal of(Vertx vertx, Path path) {
+    Objects.requireNonNull(vertx, "vertx cannot be null");
+    Objects.requireNonNull(path, "path cannot be null");
+    return new OfflineJournal(path,
+        vertx.createSharedWorkerExecutor("offline-journal-" + path.toAbsolutePath(), 1));
+  }
+
+  /**
+   * Whether entries are journaled at all.
+   *
+   * @return {@code false} if every {@code append} fails
+   */
+  public boolean isEnabled() {
+    return executor != null;
+  }
+
+  /**
+   * Append an entry to the journal.
+   *
+   * @param entry the entry
+   * @return a future completed when the entry is on disk
+   */
+  public Future<Void> append(JsonObject entry) {
+    Objects.requireNonNull(entry, "entry cannot be null");
+
+    if (!isEnabled()) {
+      return Future.failedFuture(new IllegalStateException("The offline journal is disabled"));
+    }
+
+    final Append append = new Append(entry.encode(), Vertx.currentContext());
+    final boolean write;
+    synchronized (this) {
+      appends.add(append);
+      write = !writing;
+      writing = true;
+    }
+    if (write) {
+      executor.<Void>executeBlocking(promise -> {
+        writeAppends();
+        promise.complete();
+      }, false, ar -> { });
+    }
+    return append.promise.future();
+  }
+
+  /**
+   * Replay the entries in the order they were appended. The replay stops at
+   * the first entry the replayer does not succeed with, that entry and the
+   * ones after it are replayed again the next time. Entries appended while
+   * the replay is in progress are not replayed until the next time.
+   *
+   * @param replayer replays an entry, returns {@code false} or fails if the
+   *     entry could not be replayed
+   * @return the number of entries replayed, {@code 0} if another replay is in
+   *     progress
+   */
+  public Future<Integer> replay(Function<JsonObject, Future<Boolean>> replayer) {
+    return replay(entry -> "", replayer);
+  }
+
+  /**
+   * Replay the entries in the order they were appended, per ordering key.
+   * An entry the replayer does not succeed with is kept, and so are the
+   * later entries of its key, which are not replayed; the entries of the
+   * other keys are. The entries kept are replayed again the next time.
+   * Entries appended while the replay is in progress are not replayed until
+   * the next time.
+   *
+   * @param orderingKey gets the key of the entries to keep in order
+   * @param replayer replays an entry, returns {@code false} or fails if the
+   *     entry could not be replayed
+   * @return the number of entries replayed, {@code 0} if another replay is in
+   *     progress
+   */
+  public Future<Integer> replay(Function<JsonObject, String> orderingKey,
+      Function<JsonObject, Future<Boolean>> replayer) {
+    Objects.requireNonNull(orderingKey, "orderingKey cannot be null");
+    Objects.requireNonNull(replayer, "replayer cannot be null");
+
+    if (!isEnabled() || !replaying.compareAndSet(false, true)) {
+      return Future.succeededFuture(0);
+    }
+
+    final Context context = Vertx.currentContext();
+    final Promise<Integer> replayed = Promise.promise();
+    this.<List<String>>onWorker(context, this::readLines)
+        .compose(lines -> {
+          final Replay replay = new Replay(lines, orderingKey, replayer);
+          return replayFrom(replay, 0)
+              .compose(v -> onWorker(context, () -> removeLines(replay.consumed)))
+              .map(v -> replay.count);
+        })
+        .onComplete(ar -> {
+          replaying.set(false);
+          replayed.handle(ar);
+        });
+    return replayed.future();
+  }
+
+  /**
+   * Close the journal, entries that were not replayed stay in the file.
+   */
+  public void close() {
+    if (isEnabled()) {
+      executor.<Void>executeBlocking(promise -> {
+        closeChannel();
+        promise.complete();
+      }, false, ar -> executor.close());
+    }
+  }
+
+  /**
+   * Replay the entries from a line, and mark the lines that were consumed.
+   */
+  private Future<Void> replayFrom(Replay replay, int line) {
+    if (line == replay.lines.size()) {
+      return Future.succeededFuture();
+    }
+
+    final JsonObject entry;
+    try {
+      entry = new JsonObject(replay.lines.get(line));
+    } catch (DecodeException e) {
+      // e.g. the last line was not written completely when the process died
+      log.error("Skipping invalid offline journal entry: {}", replay.lines.get(line));
+      replay.consumed[line] = true;
+      return replayFrom(replay, line + 1);
+    }
+
+    String key = null;
+    Future<Boolean> result;
+    try {
+      key = replay.orderingKey.apply(entry);
+      // an earlier entry of the key was not replayed
+      result = replay.held.contains(key)
+          ? Future.succeededFuture(Boolean.FALSE) : replay.replayer.apply(entry);
+    } catch (RuntimeException e) {
+      result = Future.failedFuture(e);
+    }
+    final String held = key;
+    return result
+        .otherwise(t -> {
+          log.info("Failed to replay offline journal entry", t);
+          return Boolean.FALSE;
+        })
+        .compose(done -> {
+          if (Boolean.TRUE.equals(done)) {
+            replay.consumed[line] = true;
+            replay.count++;
+          } else {
+            replay.held.add(held);
+          }
+          return replayFrom(replay, line + 1);
+        });
+  }
+
+  private void writeAppends() {
+    while (true) {
+      final List<Append> batch;
+      synchronized (this) {
+        if (appends.isEmpty()) {
+          writing = false;
+          return;
+        }
+        batch = appends;
+        appends = new ArrayList<>();
+      }
+
+      Throwable cause = null;
+      try {
+        final StringBuilder lines = new StringBuilder();
+        for (Append append : batch) {
+          lines.append(append.line).append('\n');
+        }
+        final ByteBuffer buffer =
+            ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        final FileChannel fileChannel = openChannel();
+        while (buffer.hasRemaining()) {
+          fileChannel.write(buffer);
+        }
+        fileChannel.force(false);
+      } catch (IOException | RuntimeException e) {
+        log.error("Failed to write to the offline journal {}", path, e);
+        closeChannel();
+        cause = e;
+      }
+
+      for (Append append : batch) {
+        append.complete(cause);
+      }
+    }
+  }
+
+  private List<String> readLines() throws IOException {
+    if (!Files.exists(path)) {
+      return new ArrayList<>();
+    }
+    return Files.readAllLines(path, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Remove the lines that were consumed by a replay, keeping the others and
+   * the ones appended since they were read. The file is only appended to
+   * during a replay, so its first lines are the ones that were read.
+   */
+  private Void removeLines(boolean[] consumed) throws IOException {
+    boolean any = false;
+    for (boolean line : consumed) {
+      any |= line;
+    }
+    if (!any) {
+      return null;
+    }
+
+    final List<String> lines = readLines();
+    final Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel tempChannel = FileChannel.open(temp, CREATE, WRITE, TRUNCATE_EXISTING)) {
+      final StringBuilder rest = new StringBuilder();
+      for (int i = 0; i < lines.size(); i++) {
+        if (i >= consumed.length || !consumed[i]) {
+          rest.append(lines.get(i)).append('\n');
+        }
+      }
+      final ByteBuffer buffer = ByteBuffer.wrap(rest.toString().getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining()) {
+        tempChannel.write(buffer);
+      }
+      tempChannel.force(false);
+    }
+    closeChannel();
+    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return null;
+  }
+
+  private FileChannel openChannel() throws IOException {
+    if (channel == null) {
+      final Path parent = path.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      try {
+        // the entries hold the tenants, SC logins and item barcodes of the
+        // checkins, so only the owner may read them
+        Files.createFile(path, PosixFilePermissions.asFileAttribute(
+            PosixFilePermissions.fromString("rw-------")));
+      } catch (FileAlreadyExistsException | UnsupportedOperationException e) {
+        // use the file as it is
+      }
+      channel = FileChannel.open(path, CREATE, WRITE, APPEND);
+    }
+    return channel;
+  }
+
+  private void closeChannel() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        log.warn("Failed to close the offline journal {}", path, e);
+      }
+      channel = null;
+    }
+  }
+
+  private <T> Future<T> onWorker(Context context, BlockingTask<T> task) {
+    final Promise<T> promise = Promise.promise();
+    executor.<T>executeBlocking(p -> {
+      try {
+        p.complete(task.run());
+      } catch (IOException e) {
+        p.fail(e);
+      }
+    }, false, ar -> onContext(context, () -> promise.handle(ar)));
+    return promise.future();
+  }
+
+  private static void onContext(Context context, Runnable action) {
+    if (context == null || Vertx.currentContext() == context) {
+      action.run();
+    } else {
+      context.runOnContext(v -> action.run());
+    }
+  }
+
+  @FunctionalInterface
+  private interface BlockingTask<T> {
+    T run() throws IOException;
+  }
+
+  private static final class Replay {
+    private final List<String> lines;
+    private final Function<JsonObject, String> orderingKey;
+    private final Function<JsonObject, Future<Boolean>> replayer;
+    private final boolean[] consumed;
+    private final Set<String> held = new HashSet<>();
+    private int count;
+
+    private Replay(List<String> lines, Function<JsonObject, String> orderingKey,
+        Function<JsonObject, Future<Boolean>> replayer) {
+      this.lines = lines;
+      this.orderingKey = orderingKey;
+      this.replayer = replayer;
+      this.consumed = new boolean[lines.size()];
+    }
+  }
+
+  private static final class Append {
+    private final String line;
+    private final Context context;
+    private final Promise<Void> promise = Promise.promise();
+
+    private Append(String line, Context context) {
+      this.line = line;
+      this.context = context;
+    }
+
+    private void complete(Throwable cause) {
+      onContext(context, () -> {
+        if (cause == null) {
+          promise.complete();
+        } else {
+          promise.fail(cause);
+        }
+      });
+    }
+  }
+}
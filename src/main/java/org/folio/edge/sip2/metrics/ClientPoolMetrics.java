@@ -0,0 +1,125 @@
+package org.folio.edge.sip2.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.micrometer.backends.BackendRegistries;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics of the connection pool of the HTTP client to Okapi: the open
+ * connections, the configured pool size, the requests in flight and the
+ * requests waiting for a connection.
+ *
+ * <p>Vert.x does not report when a pooled connection is handed to a request,
+ * so the waiting requests are the requests in flight beyond what the open
+ * connections can carry, i.e. one request per HTTP/1.1 connection, or the
+ * pipelining or multiplexing limit per connection.
+ */
+public final class ClientPoolMetrics {
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.okapi.";
+
+  private final MeterRegistry registry = Optional.ofNullable(BackendRegistries.getDefaultNow())
+      .orElse(new SimpleMeterRegistry());
+  private final AtomicInteger connections = new AtomicInteger();
+  private final AtomicInteger requests = new AtomicInteger();
+  private final int requestsPerConnection;
+  private final Counter connectionsOpened;
+  private final List<Gauge> gauges;
+
+  /**
+   * Construct the metrics for a client.
+   *
+   * @param options the options the client was created with
+   */
+  public ClientPoolMetrics(WebClientOptions options) {
+    final int maxPoolSize;
+    if (options.getProtocolVersion() == HttpVersion.HTTP_2) {
+      maxPoolSize = options.getHttp2MaxPoolSize();
+      requestsPerConnection = options.getHttp2MultiplexingLimit() > 0
+          ? options.getHttp2MultiplexingLimit() : Integer.MAX_VALUE;
+    } else {
+      maxPoolSize = options.getMaxPoolSize();
+      requestsPerConnection = options.isPipelining() ? options.getPipeliningLimit() : 1;
+    }
+
+    gauges = Arrays.asList(
+        Gauge.builder(METRICS_PREFIX + "pool.max", () -> maxPoolSize)
+            .description("The maximum number of connections to Okapi")
+            .register(registry),
+        Gauge.builder(METRICS_PREFIX + "pool.connections", connections, AtomicInteger::get)
+            .description("The open connections to Okapi")
+            .register(registry),
+        Gauge.builder(METRICS_PREFIX + "requests.active", requests, AtomicInteger::get)
+            .description("The requests to Okapi in flight")
+            .register(registry),
+        Gauge.builder(METRICS_PREFIX + "pool.waiting", this, ClientPoolMetrics::waiting)
+            .description("The requests to Okapi waiting for a connection")
+            .register(registry));
+    connectionsOpened = Counter.builder(METRICS_PREFIX + "pool.opened")
+        .description("The connections opened to Okapi")
+        .register(registry);
+  }
+
+  /**
+   * Count a connection opened by the client, until it is closed.
+   *
+   * @param connection the connection
+   */
+  public void connectionOpened(HttpConnection connection) {
+    connections.incrementAndGet();
+    connectionsOpened.increment();
+    connection.closeHandler(v -> connections.decrementAndGet());
+  }
+
+  /**
+   * Count a request sent by the client, until {@link #requestEnded()} is
+   * called for it.
+   */
+  public void requestStarted() {
+    requests.incrementAndGet();
+  }
+
+  /**
+   * Count a request that has received its response or failed.
+   */
+  public void requestEnded() {
+    requests.decrementAndGet();
+  }
+
+  /**
+   * Remove the gauges, which would otherwise keep reporting this client
+   * instead of the client of a redeployment.
+   */
+  public void close() {
+    gauges.forEach(registry::remove);
+  }
+
+  MeterRegistry registry() {
+    return registry;
+  }
+
+  int connections() {
+    return connections.get();
+  }
+
+  int requests() {
+    return requests.get();
+  }
+
+  double connectionsOpenedCount() {
+    return connectionsOpened.count();
+  }
+
+  int waiting() {
+    final long capacity = (long) connections.get() * requestsPerConnection;
+    return (int) Math.max(0, requests.get() - capacity);
+  }
+}
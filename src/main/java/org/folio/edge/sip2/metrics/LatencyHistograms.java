@@ -0,0 +1,78 @@
+package org.folio.edge.sip2.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+
+/**
+ * The histograms the latency timers publish: the counts of the latencies up
+ * to each SLO bucket, and the latency percentiles, e.g. for Prometheus and
+ * InfluxDB respectively.
+ */
+public final class LatencyHistograms {
+  private static final JsonArray DEFAULT_SLO = new JsonArray()
+      .add(100).add(250).add(500).add(1000).add(2500).add(5000).add(10000);
+  private static final JsonArray DEFAULT_PERCENTILES = new JsonArray()
+      .add(0.5).add(0.95).add(0.99);
+
+  private final Duration[] slo;
+  private final double[] percentiles;
+
+  private LatencyHistograms(Duration[] slo, double[] percentiles) {
+    this.slo = slo;
+    this.percentiles = percentiles;
+  }
+
+  /**
+   * Get the histograms from their configuration.
+   *
+   * @param config the {@code slo} buckets in milliseconds and the
+   *     {@code percentiles}, both optional
+   * @return the histograms
+   */
+  public static LatencyHistograms of(JsonObject config) {
+    final JsonArray sloMillis = config.getJsonArray("slo", DEFAULT_SLO);
+    final Duration[] slo = new Duration[sloMillis.size()];
+    for (int i = 0; i < slo.length; i++) {
+      slo[i] = Duration.ofMillis(sloMillis.getLong(i));
+    }
+
+    final JsonArray percentileValues = config.getJsonArray("percentiles", DEFAULT_PERCENTILES);
+    final double[] percentiles = new double[percentileValues.size()];
+    for (int i = 0; i < percentiles.length; i++) {
+      percentiles[i] = percentileValues.getDouble(i);
+    }
+
+    return new LatencyHistograms(slo, percentiles);
+  }
+
+  /**
+   * Get the histograms with the default SLO buckets and percentiles.
+   *
+   * @return the histograms
+   */
+  public static LatencyHistograms defaults() {
+    return of(new JsonObject());
+  }
+
+  /**
+   * Publish the histograms with a timer.
+   *
+   * @param builder the builder of the timer
+   * @return the builder
+   */
+  public Timer.Builder publish(Timer.Builder builder) {
+    return builder
+        .sla(slo)
+        .publishPercentiles(percentiles);
+  }
+
+  Duration[] slo() {
+    return slo.clone();
+  }
+
+  double[] percentiles() {
+    return percentiles.clone();
+  }
+}
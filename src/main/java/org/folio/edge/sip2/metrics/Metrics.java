@@ -1,6 +1,8 @@
 package org.folio.edge.sip2.metrics;
 
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.binder.jvm.ClassLoaderMetrics;
@@ -10,7 +12,12 @@ import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
 import io.micrometer.core.instrument.binder.system.ProcessorMetrics;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.vertx.micrometer.backends.BackendRegistries;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.folio.edge.sip2.parser.Command;
 
 public final class Metrics {
@@ -24,10 +31,32 @@ public final class Metrics {
       METRICS_PREFIX + "scResend" + ERRORS_SUFFIX;
   private static final String COUNTER_INVALID_MESSAGE_ERRORS =
       METRICS_PREFIX + "invalidMessage" + ERRORS_SUFFIX;
+  private static final String COUNTER_REQUEST_TOO_LONG_ERRORS =
+      METRICS_PREFIX + "requestTooLong" + ERRORS_SUFFIX;
+  private static final String COUNTER_WRITE_QUEUE_FULL =
+      METRICS_PREFIX + "backpressure.writeQueueFull";
+  private static final String GAUGE_CONNECTIONS_ACTIVE = METRICS_PREFIX + "connections.active";
+  private static final String COUNTER_CONNECTIONS_ACCEPTED =
+      METRICS_PREFIX + "connections.accepted";
+  private static final String COUNTER_CONNECTIONS_UNKNOWN_ADDRESS =
+      METRICS_PREFIX + "connections.unknownAddress";
+  private static final String TIMER_SESSION_DURATION = METRICS_PREFIX + "session.duration";
+  private static final String SUMMARY_SESSION_MESSAGES = METRICS_PREFIX + "session.messages";
+  private static final String COUNTER_SESSION_ERRORS = METRICS_PREFIX + "session.errors";
+  private static final String COUNTER_BYTES_RECEIVED = METRICS_PREFIX + "bytes.received";
+  private static final String COUNTER_BYTES_SENT = METRICS_PREFIX + "bytes.sent";
 
+  private static final String PORT_TAG = "port";
   private static final String SIP2_COMMAND_TAG = "command";
+  private static final String SIP2_TENANT_TAG = "tenant";
+  // commands of connections without a tenant, e.g. from an unknown address
+  private static final String NO_TENANT = "none";
   private static final String SIP2_COMMAND_TIMER_NAME = METRICS_PREFIX + "command.timer";
 
+  // The JVM metrics are bound once per registry, no matter how many ports
+  // or verticle instances report to it
+  private static final Map<MeterRegistry, JvmMetrics> jvmMetrics = new IdentityHashMap<>();
+
   private final MeterRegistry registry = Optional.ofNullable(BackendRegistries.getDefaultNow())
       .orElse(new SimpleMeterRegistry());
   private final Counter socketErrorCounter;
@@ -35,9 +64,23 @@ public final class Metrics {
   private final Counter responseErrorCounter;
   private final Counter scResendErrorCounter;
   private final Counter invalidMessageErrorCounter;
-  private final JvmGcMetrics jvmGcMetrics;
+  private final Counter requestTooLongErrorCounter;
+  private final Counter writeQueueFullCounter;
+  private final Counter unknownAddressCounter;
+  private final LatencyHistograms histograms;
+  private final String port;
+  // the open connections by tenant, each with its gauge
+  private final Map<String, AtomicInteger> activeConnections = new ConcurrentHashMap<>();
+  private final Map<String, Gauge> activeConnectionsGauges = new ConcurrentHashMap<>();
+  private boolean stopped;
 
   Metrics(int port) {
+    this(port, LatencyHistograms.defaults());
+  }
+
+  Metrics(int port, LatencyHistograms histograms) {
+    this.histograms = histograms;
+    this.port = Integer.toString(port);
     socketErrorCounter = Counter.builder(COUNTER_SOCKET_ERRORS)
         .tag("port", Integer.toString(port))
         .register(registry);
@@ -53,20 +96,38 @@ public final class Metrics {
     invalidMessageErrorCounter = Counter.builder(COUNTER_INVALID_MESSAGE_ERRORS)
         .tag("port", Integer.toString(port))
         .register(registry);
+    requestTooLongErrorCounter = Counter.builder(COUNTER_REQUEST_TOO_LONG_ERRORS)
+        .tag("port", Integer.toString(port))
+        .register(registry);
+    writeQueueFullCounter = Counter.builder(COUNTER_WRITE_QUEUE_FULL)
+        .tag("port", Integer.toString(port))
+        .register(registry);
+    unknownAddressCounter = Counter.builder(COUNTER_CONNECTIONS_UNKNOWN_ADDRESS)
+        .description("The connections from an address without a tenant")
+        .tag(PORT_TAG, this.port)
+        .register(registry);
 
     // Load JVM instrumentation
-    new ClassLoaderMetrics().bindTo(registry);
-    new JvmMemoryMetrics().bindTo(registry);
-    jvmGcMetrics = new JvmGcMetrics();
-    jvmGcMetrics.bindTo(registry);
-    new ProcessorMetrics().bindTo(registry);
-    new JvmThreadMetrics().bindTo(registry);
+    synchronized (jvmMetrics) {
+      jvmMetrics.computeIfAbsent(registry, JvmMetrics::new).references++;
+    }
   }
 
   public static Metrics getMetrics(int port) {
     return new Metrics(port);
   }
 
+  /**
+   * Get the metrics of a port.
+   *
+   * @param port the port
+   * @param histograms the histograms the command timers publish
+   * @return the metrics
+   */
+  public static Metrics getMetrics(int port, LatencyHistograms histograms) {
+    return new Metrics(port, histograms);
+  }
+
   public void socketError() {
     socketErrorCounter.increment();
   }
@@ -107,23 +168,248 @@ public final class Metrics {
     return invalidMessageErrorCounter.count();
   }
 
+  public void requestTooLongError() {
+    requestTooLongErrorCounter.increment();
+  }
+
+  double requestTooLongErrorCount() {
+    return requestTooLongErrorCounter.count();
+  }
+
+  /**
+   * Count a connection whose write queue filled up, after which reading
+   * from it is paused until the queue has drained.
+   */
+  public void writeQueueFull() {
+    writeQueueFullCounter.increment();
+  }
+
+  double writeQueueFullCount() {
+    return writeQueueFullCounter.count();
+  }
+
+  /**
+   * Count a connection that was accepted, and start the metrics of its
+   * session.
+   *
+   * @param tenant the tenant of the connection, {@code null} if no tenant is
+   *     configured for its address
+   * @return the metrics of the session, closed when the connection closes
+   */
+  public Session sessionStarted(String tenant) {
+    if (tenant == null) {
+      unknownAddressCounter.increment();
+    }
+    return new Session(tenant == null ? NO_TENANT : tenant);
+  }
+
+  double unknownAddressCount() {
+    return unknownAddressCounter.count();
+  }
+
+  int activeConnections(String tenant) {
+    final AtomicInteger active = activeConnections.get(tenant);
+    return active == null ? 0 : active.get();
+  }
+
+  private AtomicInteger activeConnectionsOf(String tenant) {
+    return activeConnections.computeIfAbsent(tenant, t -> {
+      final AtomicInteger active = new AtomicInteger();
+      activeConnectionsGauges.put(t, Gauge.builder(GAUGE_CONNECTIONS_ACTIVE, active,
+          AtomicInteger::get)
+          .description("The open connections")
+          .tag(PORT_TAG, port)
+          .tag(SIP2_TENANT_TAG, t)
+          .register(registry));
+      return active;
+    });
+  }
+
   public Timer.Sample sample() {
     return Timer.start(registry);
   }
 
-  public Timer commandTimer(Command command) {
-    return registry.timer(SIP2_COMMAND_TIMER_NAME, SIP2_COMMAND_TAG, command.toString());
+  /**
+   * Get the timer of a command.
+   *
+   * @param command the command
+   * @param tenant the tenant of the connection, may be {@code null}
+   * @return the timer
+   */
+  public Timer commandTimer(Command command, String tenant) {
+    return histograms.publish(Timer.builder(SIP2_COMMAND_TIMER_NAME))
+        .tag(SIP2_COMMAND_TAG, command.toString())
+        .tag(SIP2_TENANT_TAG, tenant == null ? NO_TENANT : tenant)
+        .register(registry);
   }
 
   /**
    * Closes any metrics that need to be closed.
    */
   public void stop() {
-    jvmGcMetrics.close();
+    synchronized (jvmMetrics) {
+      if (stopped) {
+        return;
+      }
+      stopped = true;
+
+      final JvmMetrics bound = jvmMetrics.get(registry);
+      if (bound != null && --bound.references == 0) {
+        jvmMetrics.remove(registry);
+        bound.close();
+      }
+    }
+
     socketErrorCounter.close();
     requestErrorCounter.close();
     responseErrorCounter.close();
     scResendErrorCounter.close();
     invalidMessageErrorCounter.close();
+    requestTooLongErrorCounter.close();
+    writeQueueFullCounter.close();
+    unknownAddressCounter.close();
+    // the gauges would report the connections of a redeployment on the same
+    // port as closed
+    activeConnectionsGauges.values().forEach(registry::remove);
+  }
+
+  /**
+   * The metrics of the session of a connection: how long it lasted, the
+   * messages received and the bytes received and sent. All methods are
+   * called on the event loop of the connection.
+   */
+  public final class Session {
+    private final long started = registry.config().clock().monotonicTime();
+    private final AtomicInteger active;
+    private final Timer duration;
+    private final DistributionSummary messages;
+    private final Counter bytesReceived;
+    private final Counter bytesSent;
+    private final Counter errors;
+    private long messageCount;
+    private boolean closed;
+
+    private Session(String tenant) {
+      active = activeConnectionsOf(tenant);
+      active.incrementAndGet();
+      Counter.builder(COUNTER_CONNECTIONS_ACCEPTED)
+          .description("The connections accepted")
+          .tag(PORT_TAG, port)
+          .tag(SIP2_TENANT_TAG, tenant)
+          .register(registry)
+          .increment();
+      duration = Timer.builder(TIMER_SESSION_DURATION)
+          .description("The time from a connection being accepted until it closed")
+          .tag(PORT_TAG, port)
+          .tag(SIP2_TENANT_TAG, tenant)
+          .register(registry);
+      messages = DistributionSummary.builder(SUMMARY_SESSION_MESSAGES)
+          .description("The messages received in a session")
+          .tag(PORT_TAG, port)
+          .tag(SIP2_TENANT_TAG, tenant)
+          .register(registry);
+      bytesReceived = Counter.builder(COUNTER_BYTES_RECEIVED)
+          .description("The bytes of the messages received")
+          .baseUnit("bytes")
+          .tag(PORT_TAG, port)
+          .tag(SIP2_TENANT_TAG, tenant)
+          .register(registry);
+      bytesSent = Counter.builder(COUNTER_BYTES_SENT)
+          .description("The bytes of the responses sent")
+          .baseUnit("bytes")
+          .tag(PORT_TAG, port)
+          .tag(SIP2_TENANT_TAG, tenant)
+          .register(registry);
+      errors = Counter.builder(COUNTER_SESSION_ERRORS)
+          .description("The connections that failed with a socket error")
+          .tag(PORT_TAG, port)
+          .tag(SIP2_TENANT_TAG, tenant)
+          .register(registry);
+    }
+
+    /**
+     * Count a message received.
+     *
+     * @param bytes the length of the message, including its delimiter
+     */
+    public void messageReceived(int bytes) {
+      messageCount++;
+      bytesReceived.increment(bytes);
+    }
+
+    /**
+     * Count a response sent.
+     *
+     * @param bytes the length of the response
+     */
+    public void responseSent(int bytes) {
+      bytesSent.increment(bytes);
+    }
+
+    /**
+     * End the session when its connection failed, which is counted against
+     * its tenant.
+     */
+    public void failed() {
+      if (!closed) {
+        errors.increment();
+      }
+      closed();
+    }
+
+    /**
+     * End the session when its connection closed.
+     */
+    public void closed() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      active.decrementAndGet();
+      duration.record(registry.config().clock().monotonicTime() - started,
+          TimeUnit.NANOSECONDS);
+      messages.record(messageCount);
+    }
+
+    long messageCount() {
+      return messageCount;
+    }
+
+    double bytesReceivedCount() {
+      return bytesReceived.count();
+    }
+
+    double bytesSentCount() {
+      return bytesSent.count();
+    }
+
+    double errorCount() {
+      return errors.count();
+    }
+
+    Timer duration() {
+      return duration;
+    }
+
+    DistributionSummary messages() {
+      return messages;
+    }
+  }
+
+  private static final class JvmMetrics {
+    private final JvmGcMetrics jvmGcMetrics = new JvmGcMetrics();
+    private int references;
+
+    private JvmMetrics(MeterRegistry registry) {
+      new ClassLoaderMetrics().bindTo(registry);
+      new JvmMemoryMetrics().bindTo(registry);
+      jvmGcMetrics.bindTo(registry);
+      new ProcessorMetrics().bindTo(registry);
+      new JvmThreadMetrics().bindTo(registry);
+    }
+
+    private void close() {
+      jvmGcMetrics.close();
+    }
   }
 }
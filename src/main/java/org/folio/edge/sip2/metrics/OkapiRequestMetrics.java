@@ -0,0 +1,72 @@
+package org.folio.edge.sip2.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.micrometer.backends.BackendRegistries;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Timers of the requests to Okapi, by endpoint, HTTP method and status, so
+ * a slow SIP command can be traced to the FOLIO calls it makes.
+ *
+ * <p>The endpoint is named by the type of the request rather than its path,
+ * which holds IDs and queries, e.g. {@code LoansRequestData}.
+ */
+public final class OkapiRequestMetrics {
+  private static final String REQUEST_TIMER_NAME = "org.folio.edge.sip2.okapi.request.timer";
+
+  private final MeterRegistry registry = Optional.ofNullable(BackendRegistries.getDefaultNow())
+      .orElse(new SimpleMeterRegistry());
+  private final LatencyHistograms histograms;
+
+  /**
+   * Construct the metrics.
+   *
+   * @param histograms the histograms the timers publish
+   */
+  public OkapiRequestMetrics(LatencyHistograms histograms) {
+    this.histograms = Objects.requireNonNull(histograms, "histograms cannot be null");
+  }
+
+  /**
+   * Start timing a request.
+   *
+   * @return the sample to stop when the request ended
+   */
+  public Timer.Sample start() {
+    return Timer.start(registry);
+  }
+
+  /**
+   * Stop timing a request.
+   *
+   * @param sample the sample started with the request
+   * @param requestType the type of the request, e.g. its {@code IRequestData}
+   *     class
+   * @param method the HTTP method
+   * @param status the HTTP status, or what went wrong, e.g. {@code timeout}
+   */
+  public void stop(Timer.Sample sample, Class<?> requestType, String method, String status) {
+    sample.stop(requestTimer(endpoint(requestType), method, status));
+  }
+
+  Timer requestTimer(String endpoint, String method, String status) {
+    return histograms.publish(Timer.builder(REQUEST_TIMER_NAME))
+        .description("The requests to Okapi")
+        .tag("endpoint", endpoint)
+        .tag("method", method)
+        .tag("status", status)
+        .register(registry);
+  }
+
+  private static String endpoint(Class<?> requestType) {
+    // anonymous and lambda request types would each be their own endpoint
+    if (requestType.isAnonymousClass() || requestType.isSynthetic()
+        || requestType.getSimpleName().contains("$")) {
+      return "other";
+    }
+    return requestType.getSimpleName();
+  }
+}
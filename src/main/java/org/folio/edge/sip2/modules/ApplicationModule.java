@@ -13,11 +13,17 @@ import static org.folio.edge.sip2.parser.Command.RENEW_RESPONSE;
 
 import com.google.inject.AbstractModule;
 import com.google.inject.Provides;
-import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
 import freemarker.template.Template;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import java.nio.file.Paths;
 import java.time.Clock;
 import javax.inject.Named;
+import javax.inject.Singleton;
 import org.folio.edge.sip2.handlers.freemarker.FreemarkerRepository;
+import org.folio.edge.sip2.journal.OfflineJournal;
+import org.folio.edge.sip2.metrics.LatencyHistograms;
 import org.folio.edge.sip2.repositories.CirculationRepository;
 import org.folio.edge.sip2.repositories.FeeFinesRepository;
 import org.folio.edge.sip2.repositories.FolioResourceProvider;
@@ -26,6 +32,7 @@ import org.folio.edge.sip2.repositories.IResourceProvider;
 import org.folio.edge.sip2.repositories.ItemRepository;
 import org.folio.edge.sip2.repositories.LoginRepository;
 import org.folio.edge.sip2.repositories.PasswordVerifier;
+import org.folio.edge.sip2.repositories.SingleFlightResourceProvider;
 import org.folio.edge.sip2.repositories.UsersRepository;
 
 /**
@@ -35,11 +42,35 @@ import org.folio.edge.sip2.repositories.UsersRepository;
  *
  */
 public class ApplicationModule extends AbstractModule {
+  private final JsonObject config;
+
+  /**
+   * Build a module for dependency injection with the default configuration.
+   */
+  public ApplicationModule() {
+    this(new JsonObject());
+  }
+
+  /**
+   * Build a module for dependency injection.
+   * @param config the main configuration
+   */
+  public ApplicationModule(JsonObject config) {
+    this.config = config;
+  }
+
   @Override
   protected void configure() {
-    bind(new TypeLiteral<IResourceProvider<IRequestData>>() {})
-        .to(FolioResourceProvider.class).asEagerSingleton();
+    bindConstant().annotatedWith(Names.named("requestLookupChunkSize"))
+        .to(config.getInteger("requestLookupChunkSize", 50));
+    bindConstant().annotatedWith(Names.named("requestLookupParallelism"))
+        .to(config.getInteger("requestLookupParallelism", 4));
+    bindConstant().annotatedWith(Names.named("renewAllParallelism"))
+        .to(config.getInteger("renewAllParallelism", 4));
+    bind(FolioResourceProvider.class).asEagerSingleton();
     bind(Clock.class).toInstance(Clock.systemUTC());
+    bind(LatencyHistograms.class).toInstance(
+        LatencyHistograms.of(config.getJsonObject("latencyHistograms", new JsonObject())));
     bind(CirculationRepository.class);
     bind(FeeFinesRepository.class);
     bind(ItemRepository.class);
@@ -48,6 +79,27 @@ public class ApplicationModule extends AbstractModule {
     bind(PasswordVerifier.class);
   }
 
+  @Provides
+  @Singleton
+  IResourceProvider<IRequestData> provideResourceProvider(
+      FolioResourceProvider folioResourceProvider) {
+    if (config.getBoolean("coalesceRequests", true)) {
+      return new SingleFlightResourceProvider(folioResourceProvider);
+    }
+    return folioResourceProvider;
+  }
+
+  @Provides
+  @Singleton
+  OfflineJournal provideOfflineJournal(@Named("vertx") Vertx vertx) {
+    final String path = config.getJsonObject("offlineJournal", new JsonObject())
+        .getString("path");
+    if (path == null) {
+      return OfflineJournal.disabled();
+    }
+    return OfflineJournal.of(vertx, Paths.get(path));
+  }
+
   @Provides
   @Named("checkoutResponse")
   Template provideCheckoutResponseTemplate() {
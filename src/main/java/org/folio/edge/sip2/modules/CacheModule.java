@@ -0,0 +1,104 @@
+package org.folio.edge.sip2.modules;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.util.Optional;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import org.folio.edge.sip2.cache.AsyncCache;
+import org.folio.edge.sip2.repositories.ConfigurationRepository;
+import org.folio.edge.sip2.repositories.IRequestData;
+import org.folio.edge.sip2.repositories.IResourceProvider;
+import org.folio.edge.sip2.repositories.domain.LoginToken;
+import org.folio.edge.sip2.repositories.domain.User;
+
+/**
+ * Module for the caches shared by the repositories, configured by the
+ * {@code caches} object of the main configuration.
+ */
+public class CacheModule extends AbstractModule {
+  private static final String TTL = "ttl";
+  private static final String NEGATIVE_TTL = "negativeTtl";
+  private static final String MAX_STALE = "maxStale";
+  private static final String MAX_SIZE = "maxSize";
+  private static final String REFRESH_AHEAD = "refreshAhead";
+
+  private final JsonObject caches;
+
+  /**
+   * Build a module for dependency injection.
+   * @param caches the configuration of the caches, by cache name
+   */
+  public CacheModule(JsonObject caches) {
+    this.caches = caches == null ? new JsonObject() : caches;
+  }
+
+  /**
+   * Provide the repository of the configurations SC status messages are
+   * answered with, which caches them per tenant and SC location.
+   */
+  @Provides
+  @Singleton
+  ConfigurationRepository provideConfigurationRepository(
+      IResourceProvider<IRequestData> resourceProvider, Clock clock) {
+    final JsonObject config = caches.getJsonObject("acsStatus", new JsonObject());
+    return new ConfigurationRepository(resourceProvider, clock,
+        config.getLong(TTL, 60_000L), config.getLong(MAX_STALE, 600_000L));
+  }
+
+  @Provides
+  @Singleton
+  @Named("usersCache")
+  AsyncCache<String, Optional<User>> provideUsersCache(Clock clock) {
+    final JsonObject config = caches.getJsonObject("users", new JsonObject());
+    final long ttl = config.getLong(TTL, 30_000L);
+    final long negativeTtl = config.getLong(NEGATIVE_TTL, 5_000L);
+    return AsyncCache.<String, Optional<User>>builder(clock)
+        .ttl(user -> user.isPresent() ? ttl : negativeTtl)
+        .maxSize(config.getInteger(MAX_SIZE, 10_000))
+        .build();
+  }
+
+  /**
+   * Provide the cache of the holdings and instance records of items, which
+   * rarely change and are shared by many items.
+   */
+  @Provides
+  @Singleton
+  @Named("inventoryCache")
+  AsyncCache<String, JsonObject> provideInventoryCache(Clock clock) {
+    final JsonObject config = caches.getJsonObject("inventory", new JsonObject());
+    return AsyncCache.<String, JsonObject>builder(clock)
+        .ttl(config.getLong(TTL, 300_000L))
+        .maxStale(config.getLong(MAX_STALE, 0L))
+        .maxSize(config.getInteger(MAX_SIZE, 10_000))
+        .build();
+  }
+
+  /**
+   * Provide the cache of the SC login tokens. A token is used for at most
+   * the {@code ttl} and is replaced {@code refreshAhead} before it expires;
+   * it is still used during the first half of that time while it is being
+   * replaced.
+   */
+  @Provides
+  @Singleton
+  @Named("loginTokenCache")
+  AsyncCache<String, LoginToken> provideLoginTokenCache(Clock clock) {
+    final JsonObject config = caches.getJsonObject("loginTokens", new JsonObject());
+    final long ttl = config.getLong(TTL, 600_000L);
+    final long refreshAhead = config.getLong(REFRESH_AHEAD, 60_000L);
+    final AsyncCache.Builder<String, LoginToken> builder =
+        AsyncCache.<String, LoginToken>builder(clock)
+            .maxStale(refreshAhead / 2)
+            .maxSize(config.getInteger(MAX_SIZE, 1_000));
+    if (ttl <= 0) {
+      return builder.ttl(0).build();
+    }
+    return builder
+        .ttl(token -> Math.min(ttl, token.getExpiresAt() - clock.millis() - refreshAhead))
+        .build();
+  }
+}
@@ -3,6 +3,8 @@ package org.folio.edge.sip2.modules;
 import com.google.inject.AbstractModule;
 import com.google.inject.name.Names;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
 
 /**
  * Module for creating a {@code FolioResourceProvider} via Dependency injection.
@@ -13,6 +15,8 @@ import io.vertx.core.Vertx;
 public class FolioResourceProviderModule extends AbstractModule {
   private final String okapiUrl;
   private final Vertx vertx;
+  private final WebClientOptions webClientOptions;
+  private final JsonObject okapiRequests;
 
   /**
    * Build a module for dependency injection.
@@ -20,13 +24,43 @@ public class FolioResourceProviderModule extends AbstractModule {
    * @param vertx the instance of vertx
    */
   public FolioResourceProviderModule(String okapiUrl, Vertx vertx) {
+    this(okapiUrl, vertx, new WebClientOptions());
+  }
+
+  /**
+   * Build a module for dependency injection.
+   * @param okapiUrl the okapi url
+   * @param vertx the instance of vertx
+   * @param webClientOptions the options of the HTTP client to Okapi
+   */
+  public FolioResourceProviderModule(String okapiUrl, Vertx vertx,
+      WebClientOptions webClientOptions) {
+    this(okapiUrl, vertx, webClientOptions, new JsonObject());
+  }
+
+  /**
+   * Build a module for dependency injection.
+   * @param okapiUrl the okapi url
+   * @param vertx the instance of vertx
+   * @param webClientOptions the options of the HTTP client to Okapi
+   * @param okapiRequests the timeouts, retries and circuit breaker of the
+   *     requests to Okapi
+   */
+  public FolioResourceProviderModule(String okapiUrl, Vertx vertx,
+      WebClientOptions webClientOptions, JsonObject okapiRequests) {
     this.okapiUrl = okapiUrl;
     this.vertx = vertx;
+    this.webClientOptions = webClientOptions;
+    this.okapiRequests = okapiRequests;
   }
 
   @Override
   protected void configure() {
     bind(String.class).annotatedWith(Names.named("okapiUrl")).toInstance(okapiUrl);
     bind(Vertx.class).annotatedWith(Names.named("vertx")).toInstance(vertx);
+    bind(WebClientOptions.class).annotatedWith(Names.named("webClientOptions"))
+        .toInstance(webClientOptions);
+    bind(JsonObject.class).annotatedWith(Names.named("okapiRequests"))
+        .toInstance(okapiRequests);
   }
 }
@@ -43,6 +43,16 @@ public enum Command {
   RENEW_RESPONSE("30"),
   RENEW_ALL_RESPONSE("66");
 
+  private static final Command [] BY_NUMERIC_IDENTIFIER = new Command[100];
+
+  static {
+    for (Command command : values()) {
+      if (command != UNKNOWN) {
+        BY_NUMERIC_IDENTIFIER[Integer.parseInt(command.identifier)] = command;
+      }
+    }
+  }
+
   private final String identifier;
 
   private Command(String identifier) {
@@ -61,4 +71,22 @@ public enum Command {
         .findFirst()
         .orElse(UNKNOWN);
   }
+
+  /**
+   * Find an enum based on the two bytes of a command identifier. This avoids
+   * building a {@code String} for every received message.
+   *
+   * @param first the first byte of the command identifier.
+   * @param second the second byte of the command identifier.
+   * @return the found command enum or {@code UNKNOWN} if not found.
+   */
+  public static Command find(byte first, byte second) {
+    if (first < '0' || first > '9' || second < '0' || second > '9') {
+      return UNKNOWN;
+    }
+
+    final Command command = BY_NUMERIC_IDENTIFIER[(first - '0') * 10 + (second - '0')];
+
+    return command == null ? UNKNOWN : command;
+  }
 }
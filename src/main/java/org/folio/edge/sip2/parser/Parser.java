@@ -4,7 +4,9 @@ import static java.lang.Boolean.FALSE;
 import static org.folio.edge.sip2.parser.Command.REQUEST_ACS_RESEND;
 import static org.folio.edge.sip2.parser.Command.UNKNOWN;
 
+import io.vertx.core.buffer.Buffer;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.requests.BlockPatron;
@@ -86,100 +88,49 @@ public final class Parser {
       }
 
       // Remove the command identifier before parsing
-      message = message.substring(2);
-      final MessageBuilder<Object> builder =  Message.builder()
-          .command(command)
-          .sequenceNumber(ed.sequenceNumber)
-          .valid(ed.valid)
-          .checksumString(ed.checksum)
-          .timeZone(this.timezone);
-
-      switch (command) {
-        case PATRON_STATUS_REQUEST:
-          final PatronStatusRequest patronStatusRequest  =
-              new PatronStatusRequestMessageParser(delimiter, timezone).parse(message);
-          builder.request(patronStatusRequest);
-          break;
-        case CHECKOUT:
-          final Checkout checkout =
-              new CheckoutMessageParser(delimiter, timezone).parse(message);
-          builder.request(checkout);
-          break;
-        case CHECKIN:
-          final Checkin checkin =
-              new CheckinMessageParser(delimiter, timezone).parse(message);
-          builder.request(checkin);
-          break;
-        case BLOCK_PATRON:
-          final BlockPatron blockPatron =
-              new BlockPatronMessageParser(delimiter, timezone).parse(message);
-          builder.request(blockPatron);
-          break;
-        case SC_STATUS:
-          final SCStatus scStatus =
-              new SCStatusMessageParser(delimiter, timezone).parse(message);
-          builder.request(scStatus);
-          break;
-        case REQUEST_ACS_RESEND:
-          final RequestACSResend requestACSResend =
-              new RequestACSResendMessageParser(delimiter, timezone).parse(message);
-          builder.request(requestACSResend);
-          break;
-        case LOGIN:
-          final Login login =
-              new LoginMessageParser(delimiter, timezone).parse(message);
-          builder.request(login);
-          break;
-        case PATRON_INFORMATION:
-          final PatronInformation patronInformation =
-              new PatronInformationMessageParser(delimiter, timezone).parse(message);
-          builder.request(patronInformation);
-          break;
-        case END_PATRON_SESSION:
-          final EndPatronSession endPatronSession =
-              new EndPatronSessionMessageParser(delimiter, timezone).parse(message);
-          builder.request(endPatronSession);
-          break;
-        case FEE_PAID:
-          final FeePaid feePaid =
-              new FeePaidMessageParser(delimiter, timezone).parse(message);
-          builder.request(feePaid);
-          break;
-        case ITEM_INFORMATION:
-          final ItemInformation itemInformation =
-              new ItemInformationMessageParser(delimiter, timezone).parse(message);
-          builder.request(itemInformation);
-          break;
-        case ITEM_STATUS_UPDATE:
-          final ItemStatusUpdate itemStatusUpdate =
-              new ItemStatusUpdateMessageParser(delimiter, timezone).parse(message);
-          builder.request(itemStatusUpdate);
-          break;
-        case PATRON_ENABLE:
-          final PatronEnable patronEnable =
-              new PatronEnableMessageParser(delimiter, timezone).parse(message);
-          builder.request(patronEnable);
-          break;
-        case HOLD:
-          final Hold hold =
-              new HoldMessageParser(delimiter, timezone).parse(message);
-          builder.request(hold);
-          break;
-        case RENEW:
-          final Renew renew =
-              new RenewMessageParser(delimiter, timezone).parse(message);
-          builder.request(renew);
-          break;
-        case RENEW_ALL:
-          final RenewAll renewAll =
-              new RenewAllMessageParser(delimiter, timezone).parse(message);
-          builder.request(renewAll);
-          break;
-        default:
-          log.info("Command not supported: {}", command);
-          builder.valid(false);
+      return parseMessageBody(command, ed, message.substring(2));
+    } else {
+      return Message.builder()
+        .command(command)
+        .valid(false)
+        .checksumString(ed.checksum)
+        .sequenceNumber(ed.sequenceNumber)
+        .build();
+    }
+  }
+
+  /**
+   * Parses a SIP record directly from the bytes received from the SC. The
+   * command identifier, error detection fields and checksum are all handled
+   * on the raw bytes, so only the message body is decoded with the charset,
+   * and only once. Charsets must be ASCII compatible, which is required by
+   * SIP anyway.
+   *
+   * @param buffer the SIP record, without the message delimiter.
+   * @return the POJO message.
+   */
+  public Message<Object> parseMessage(Buffer buffer) {
+    // All messages must have at least a 2 character command code.
+    if (buffer == null || buffer.length() < 2) {
+      return Message.builder()
+          .command(UNKNOWN)
+          .valid(false)
+          .build();
+    }
+
+    final Command command = Command.find(buffer.getByte(0), buffer.getByte(1));
+
+    log.debug("Found command: {}", command);
+
+    final ErrorDetection ed = validateChecksum(buffer, command);
+    if (ed.valid) {
+      int end = buffer.length();
+      if (ed.sequenceNumber != null) {
+        // Skip the error detection bytes
+        end -= command == REQUEST_ACS_RESEND ? 6 : 9;
       }
-      return builder.build();
+
+      return parseMessageBody(command, ed, buffer.getString(2, end, charset.name()));
     } else {
       return Message.builder()
         .command(command)
@@ -190,6 +141,102 @@ public final class Parser {
     }
   }
 
+  private Message<Object> parseMessageBody(Command command, ErrorDetection ed, String message) {
+    final MessageBuilder<Object> builder =  Message.builder()
+        .command(command)
+        .sequenceNumber(ed.sequenceNumber)
+        .valid(ed.valid)
+        .checksumString(ed.checksum)
+        .timeZone(this.timezone);
+
+    switch (command) {
+      case PATRON_STATUS_REQUEST:
+        final PatronStatusRequest patronStatusRequest  =
+            new PatronStatusRequestMessageParser(delimiter, timezone).parse(message);
+        builder.request(patronStatusRequest);
+        break;
+      case CHECKOUT:
+        final Checkout checkout =
+            new CheckoutMessageParser(delimiter, timezone).parse(message);
+        builder.request(checkout);
+        break;
+      case CHECKIN:
+        final Checkin checkin =
+            new CheckinMessageParser(delimiter, timezone).parse(message);
+        builder.request(checkin);
+        break;
+      case BLOCK_PATRON:
+        final BlockPatron blockPatron =
+            new BlockPatronMessageParser(delimiter, timezone).parse(message);
+        builder.request(blockPatron);
+        break;
+      case SC_STATUS:
+        final SCStatus scStatus =
+            new SCStatusMessageParser(delimiter, timezone).parse(message);
+        builder.request(scStatus);
+        break;
+      case REQUEST_ACS_RESEND:
+        final RequestACSResend requestACSResend =
+            new RequestACSResendMessageParser(delimiter, timezone).parse(message);
+        builder.request(requestACSResend);
+        break;
+      case LOGIN:
+        final Login login =
+            new LoginMessageParser(delimiter, timezone).parse(message);
+        builder.request(login);
+        break;
+      case PATRON_INFORMATION:
+        final PatronInformation patronInformation =
+            new PatronInformationMessageParser(delimiter, timezone).parse(message);
+        builder.request(patronInformation);
+        break;
+      case END_PATRON_SESSION:
+        final EndPatronSession endPatronSession =
+            new EndPatronSessionMessageParser(delimiter, timezone).parse(message);
+        builder.request(endPatronSession);
+        break;
+      case FEE_PAID:
+        final FeePaid feePaid =
+            new FeePaidMessageParser(delimiter, timezone).parse(message);
+        builder.request(feePaid);
+        break;
+      case ITEM_INFORMATION:
+        final ItemInformation itemInformation =
+            new ItemInformationMessageParser(delimiter, timezone).parse(message);
+        builder.request(itemInformation);
+        break;
+      case ITEM_STATUS_UPDATE:
+        final ItemStatusUpdate itemStatusUpdate =
+            new ItemStatusUpdateMessageParser(delimiter, timezone).parse(message);
+        builder.request(itemStatusUpdate);
+        break;
+      case PATRON_ENABLE:
+        final PatronEnable patronEnable =
+            new PatronEnableMessageParser(delimiter, timezone).parse(message);
+        builder.request(patronEnable);
+        break;
+      case HOLD:
+        final Hold hold =
+            new HoldMessageParser(delimiter, timezone).parse(message);
+        builder.request(hold);
+        break;
+      case RENEW:
+        final Renew renew =
+            new RenewMessageParser(delimiter, timezone).parse(message);
+        builder.request(renew);
+        break;
+      case RENEW_ALL:
+        final RenewAll renewAll =
+            new RenewAllMessageParser(delimiter, timezone).parse(message);
+        builder.request(renewAll);
+        break;
+      default:
+        log.info("Command not supported: {}", command);
+        builder.valid(false);
+    }
+    return builder.build();
+  }
+
   private ErrorDetection validateChecksum(String message, Command command) {
     final ErrorDetection ed = new ErrorDetection();
 
@@ -255,6 +302,62 @@ public final class Parser {
     return ed;
   }
 
+  private ErrorDetection validateChecksum(Buffer buffer, Command command) {
+    final ErrorDetection ed = new ErrorDetection();
+
+    if (errorDetectionEnabled) {
+      // Same layout rules as the String based validation, but the offsets are
+      // byte offsets. All error detection characters are ASCII.
+      final int len = buffer.length();
+
+      final int minLen = command == REQUEST_ACS_RESEND ? 8 : 11;
+      if (len >= minLen && ((command != REQUEST_ACS_RESEND && buffer.getByte(len - 9) == 'A'
+          && buffer.getByte(len - 8) == 'Y') || command == REQUEST_ACS_RESEND)
+          && buffer.getByte(len - 6) == 'A'
+          && buffer.getByte(len - 5) == 'Z') {
+        final Integer sequenceNumber;
+        if (command != REQUEST_ACS_RESEND) {
+          final byte sequenceByte = buffer.getByte(len - 7);
+          if (sequenceByte < '0' || sequenceByte > '9') {
+            log.error("Sequence number is not 0-9: {}", (char) (sequenceByte & 0xff));
+            ed.valid = false;
+            return ed;
+          }
+          sequenceNumber = Integer.valueOf(sequenceByte - '0');
+        } else {
+          sequenceNumber = null;
+        }
+
+        // The checksum is computed over the bytes exactly as they were
+        // received, there is no need to encode the message again.
+        int value = 0;
+        for (int i = 0; i < len - 4; i++) {
+          value += buffer.getByte(i) & 0xff;
+        }
+
+        final String checksumString = buffer.getString(len - 4, len,
+            StandardCharsets.US_ASCII.name());
+        final int checksum = Integer.parseUnsignedInt(checksumString, 16);
+
+        value += checksum;
+        value &= 0xffff;
+
+        ed.valid = value == 0;
+        ed.sequenceNumber = sequenceNumber;
+        ed.checksum = checksumString;
+      } else {
+        // SC did not send error detection or something is really messed up
+        log.error("Error detection enabled: SC did not send error detection");
+        ed.valid = false;
+      }
+    } else {
+      // Error detection is not enabled
+      ed.valid = true;
+    }
+
+    return ed;
+  }
+
   private Command parseCommandIdentifier(String message) {
     final Command command = Command.find(message.substring(0, 2));
 
@@ -0,0 +1,85 @@
+package org.folio.edge.sip2.repositories;
+
+import java.time.Clock;
+import java.util.Objects;
+
+/**
+ * Circuit breaker of the requests to FOLIO for a tenant.
+ *
+ * <p>The breaker opens after a number of failures in a row, e.g. timeouts,
+ * and then rejects requests for the reset timeout. After that a single trial
+ * request is let through: when it succeeds the breaker closes, otherwise it
+ * opens again. The breaker is disabled when the failure threshold is
+ * {@code 0} or less.
+ */
+public final class CircuitBreaker {
+  private final Clock clock;
+  private final int failureThreshold;
+  private final long resetTimeoutMillis;
+  private int failures;
+  private boolean open;
+  private boolean trial;
+  private long openedAt;
+
+  /**
+   * Construct a closed circuit breaker.
+   *
+   * @param clock the clock to time the reset timeout with
+   * @param failureThreshold the failures in a row that open the breaker
+   * @param resetTimeoutMillis the time requests are rejected once the breaker
+   *     opened
+   */
+  public CircuitBreaker(Clock clock, int failureThreshold, long resetTimeoutMillis) {
+    this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    this.failureThreshold = failureThreshold;
+    this.resetTimeoutMillis = resetTimeoutMillis;
+  }
+
+  /**
+   * Whether a request may be sent. Every request that is sent must be
+   * followed by a call to {@link #succeeded()} or {@link #failed()}.
+   *
+   * @return {@code false} if the request must be rejected
+   */
+  public synchronized boolean allowRequest() {
+    if (!open) {
+      return true;
+    }
+    if (trial || clock.millis() - openedAt < resetTimeoutMillis) {
+      return false;
+    }
+    trial = true;
+    return true;
+  }
+
+  /**
+   * Record a request that succeeded, or failed for a reason that does not
+   * mean FOLIO is failing, e.g. an item that was not found.
+   */
+  public synchronized void succeeded() {
+    failures = 0;
+    open = false;
+    trial = false;
+  }
+
+  /**
+   * Record a request that failed, e.g. timed out.
+   */
+  public synchronized void failed() {
+    failures++;
+    if (failureThreshold > 0 && (trial || failures >= failureThreshold)) {
+      open = true;
+      trial = false;
+      openedAt = clock.millis();
+    }
+  }
+
+  /**
+   * Whether requests are rejected, or only a trial request is let through.
+   *
+   * @return {@code true} if the breaker is not closed
+   */
+  public synchronized boolean isOpen() {
+    return open;
+  }
+}
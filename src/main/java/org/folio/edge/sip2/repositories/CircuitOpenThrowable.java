@@ -0,0 +1,21 @@
+package org.folio.edge.sip2.repositories;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Throwable for a request to FOLIO that was not sent because the circuit
+ * breaker of the tenant is open.
+ */
+public class CircuitOpenThrowable extends RequestThrowable {
+  private static final long serialVersionUID = 4811092253416519235L;
+
+  public CircuitOpenThrowable(String tenant) {
+    super("FOLIO is unavailable for tenant " + tenant);
+  }
+
+  @Override
+  public List<String> getErrorMessages() {
+    return Collections.singletonList(getMessage());
+  }
+}
@@ -6,23 +6,30 @@ import static org.folio.edge.sip2.utils.JsonUtils.getChildString;
 import static org.folio.edge.sip2.utils.JsonUtils.getSubChildString;
 
 import io.micrometer.core.ipc.http.HttpSender.Request;
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.Json;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import java.io.IOException;
 import java.time.Clock;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeoutException;
 import javax.inject.Inject;
+import javax.inject.Named;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.enumerations.RequestStatus;
@@ -33,10 +40,12 @@ import org.folio.edge.sip2.domain.messages.requests.RenewAll;
 import org.folio.edge.sip2.domain.messages.responses.CheckinResponse;
 import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
 import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse;
-import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse.RenewAllResponseBuilder;
 import org.folio.edge.sip2.domain.messages.responses.RenewResponse;
+import org.folio.edge.sip2.journal.OfflineJournal;
 import org.folio.edge.sip2.repositories.domain.User;
 import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.session.TokenSource;
+import org.folio.edge.sip2.session.TokenSources;
 import org.folio.edge.sip2.utils.Utils;
 
 /**
@@ -49,18 +58,89 @@ public class CirculationRepository {
   private static final Logger log = LogManager.getLogger();
   // Should consider letting the template take care of required fields with missing values
   private static final String UNKNOWN = "";
+  // the requests of each item that are read per query, as by getRequestsByItemId()
+  private static final int REQUESTS_PER_ITEM = 10;
+  private static final int REQUESTS_LIMIT = 10;
+  private static final int LOANS_LIMIT = 200;
+  private static final int COUNT_ONLY = 0;
+  // the fields of loans and requests that patron information, recalls and
+  // renewals use, the rest of each record is not decoded
+  private static final JsonProjection LOANS_PROJECTION = JsonProjection.of(
+      "totalRecords", "loans.id", "loans.itemId", "loans.dueDate",
+      "loans.item.barcode", "loans.item.title", "loans.item.instanceId");
+  // the fields that tell whether an item was checked out again after an
+  // offline checkin
+  private static final JsonProjection ITEMS_PROJECTION = JsonProjection.of("items.id");
+  private static final JsonProjection OPEN_LOANS_PROJECTION = JsonProjection.of(
+      "loans.loanDate");
+  private static final JsonProjection REQUESTS_PROJECTION = JsonProjection.of(
+      "totalRecords", "requests.id", "requests.itemId", "requests.position",
+      "requests.dueDate", "requests.item.barcode", "requests.instance.title",
+      "requests.loan.dueDate");
   private final IResourceProvider<IRequestData> resourceProvider;
   private final PasswordVerifier passwordVerifier;
   private final Clock clock;
+  private final int requestLookupChunkSize;
+  private final int requestLookupParallelism;
+  private final int renewAllParallelism;
+  private final OfflineJournal offlineJournal;
+  private final ConfigurationRepository configurationRepository;
+  private final TokenSources tokenSources;
 
-  @Inject
   CirculationRepository(IResourceProvider<IRequestData> resourceProvider,
       PasswordVerifier passwordVerifier, Clock clock) {
+    this(resourceProvider, passwordVerifier, clock, 50, 4);
+  }
+
+  CirculationRepository(IResourceProvider<IRequestData> resourceProvider,
+      PasswordVerifier passwordVerifier, Clock clock,
+      int requestLookupChunkSize, int requestLookupParallelism) {
+    this(resourceProvider, passwordVerifier, clock, requestLookupChunkSize,
+        requestLookupParallelism, 4);
+  }
+
+  CirculationRepository(IResourceProvider<IRequestData> resourceProvider,
+      PasswordVerifier passwordVerifier, Clock clock,
+      int requestLookupChunkSize, int requestLookupParallelism, int renewAllParallelism) {
+    this(resourceProvider, passwordVerifier, clock, requestLookupChunkSize,
+        requestLookupParallelism, renewAllParallelism, OfflineJournal.disabled(), null,
+        new TokenSources());
+  }
+
+  @Inject
+  CirculationRepository(IResourceProvider<IRequestData> resourceProvider,
+      PasswordVerifier passwordVerifier, Clock clock,
+      @Named("requestLookupChunkSize") int requestLookupChunkSize,
+      @Named("requestLookupParallelism") int requestLookupParallelism,
+      @Named("renewAllParallelism") int renewAllParallelism,
+      OfflineJournal offlineJournal, ConfigurationRepository configurationRepository,
+      TokenSources tokenSources) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "Resource provider cannot be null");
     this.passwordVerifier = Objects.requireNonNull(passwordVerifier,
         "Password verifier cannot be null");
     this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    if (requestLookupChunkSize < 1 || requestLookupParallelism < 1) {
+      throw new IllegalArgumentException("requestLookupChunkSize and requestLookupParallelism"
+          + " must be at least 1, got: " + requestLookupChunkSize + ", "
+          + requestLookupParallelism);
+    }
+    if (renewAllParallelism < 1) {
+      throw new IllegalArgumentException("renewAllParallelism must be at least 1, got: "
+          + renewAllParallelism);
+    }
+    this.requestLookupChunkSize = requestLookupChunkSize;
+    this.requestLookupParallelism = requestLookupParallelism;
+    this.renewAllParallelism = renewAllParallelism;
+    this.offlineJournal = Objects.requireNonNull(offlineJournal,
+        "Offline journal cannot be null");
+    // the ACS configuration tells whether checkins are accepted offline
+    this.configurationRepository = offlineJournal.isEnabled()
+        ? Objects.requireNonNull(configurationRepository,
+            "Configuration repository cannot be null")
+        : configurationRepository;
+    this.tokenSources = Objects.requireNonNull(tokenSources,
+        "Token sources cannot be null");
   }
 
   /**
@@ -91,61 +171,254 @@ public class CirculationRepository {
     final Future<IResource> result = resourceProvider
         .createResource(checkinRequestData);
 
-    return result
-        .otherwise(() -> null)
-        .compose(resource -> {
-          String itemStatusString = resource.getResource() == null ? UNKNOWN
-              : getSubChildString(resource.getResource(),
-                  Arrays.asList("item", "status"), "name", UNKNOWN);
-          String transitDestinationString = resource.getResource() == null ? UNKNOWN
-              : getSubChildString(resource.getResource(),
-                  Arrays.asList("item", "inTransitDestinationServicePoint"), "name", UNKNOWN);
-          //TODO This actually belongs in Item Informtion 
-          String patronNameString = (resource.getResource() == null ? UNKNOWN
-              : getSubChildString(resource.getResource(),
-                  Arrays.asList("staffSlipContext", "requester"), "firstName", UNKNOWN))
-              +  " "
-              + (resource.getResource() == null ? UNKNOWN
-                  : getSubChildString(resource.getResource(),
-                      Arrays.asList("staffSlipContext", "requester"), "lastName", UNKNOWN));
-          
-          List<String> scrnMsg = List.of(itemStatusString
-              + " - "
-              + transitDestinationString);
-          return Future.succeededFuture(
-            CheckinResponse.builder()
-              .ok(resource.getResource() == null ? FALSE : TRUE)
-              .resensitize(resource.getResource() == null ? FALSE : TRUE)
-              .magneticMedia(null)
-              .alert(FALSE)
-              .transactionDate(OffsetDateTime.now(clock))
-              .institutionId(institutionId)
-              .itemIdentifier(itemIdentifier)
-              .materialType(
-                  resource.getResource() == null ? UNKNOWN
-                      : getSubChildString(resource.getResource(),
-                          Arrays.asList("item", "materialType"), "name", UNKNOWN))
-              // if the title is not available, use the item identifier passed in to the checkin.
-              // this allows the kiosk to show something related to the item that could be used
-              // by the patron to identify which item this checkin response applies to.
-              .titleIdentifier(resource.getResource() == null ? itemIdentifier
-                  : getChildString(
-                        resource.getResource(), "item", "title", itemIdentifier
-                      ))
-              // this is probably not the permanent location
-              // this might require a call to inventory
-              // GDG - it appears to be effective location, which is most likely appropriate
-              .permanentLocation(
-                  resource.getResource() == null ? UNKNOWN
-                      : getSubChildString(resource.getResource(),
-                          Arrays.asList("item", "location"), "name", UNKNOWN))
-              .screenMessage(
-                  itemStatusString.isBlank() 
-                  && transitDestinationString.isBlank() ? null : scrnMsg
-                )
-              .build());
-        }
-        );
+    return result.compose(
+        resource -> Future.succeededFuture(
+            checkinResponse(resource, institutionId, itemIdentifier)),
+        t -> offlineCheckin(t, body, sessionData, institutionId, itemIdentifier));
+  }
+
+  private CheckinResponse checkinResponse(IResource resource, String institutionId,
+      String itemIdentifier) {
+    String itemStatusString = resource.getResource() == null ? UNKNOWN
+        : getSubChildString(resource.getResource(),
+            Arrays.asList("item", "status"), "name", UNKNOWN);
+    String transitDestinationString = resource.getResource() == null ? UNKNOWN
+        : getSubChildString(resource.getResource(),
+            Arrays.asList("item", "inTransitDestinationServicePoint"), "name", UNKNOWN);
+    //TODO This actually belongs in Item Informtion 
+    String patronNameString = (resource.getResource() == null ? UNKNOWN
+        : getSubChildString(resource.getResource(),
+            Arrays.asList("staffSlipContext", "requester"), "firstName", UNKNOWN))
+        +  " "
+        + (resource.getResource() == null ? UNKNOWN
+            : getSubChildString(resource.getResource(),
+                Arrays.asList("staffSlipContext", "requester"), "lastName", UNKNOWN));
+    
+    List<String> scrnMsg = List.of(itemStatusString
+        + " - "
+        + transitDestinationString);
+    return CheckinResponse.builder()
+        .ok(resource.getResource() == null ? FALSE : TRUE)
+        .resensitize(resource.getResource() == null ? FALSE : TRUE)
+        .magneticMedia(null)
+        .alert(FALSE)
+        .transactionDate(OffsetDateTime.now(clock))
+        .institutionId(institutionId)
+        .itemIdentifier(itemIdentifier)
+        .materialType(
+            resource.getResource() == null ? UNKNOWN
+                : getSubChildString(resource.getResource(),
+                    Arrays.asList("item", "materialType"), "name", UNKNOWN))
+        // if the title is not available, use the item identifier passed in to the checkin.
+        // this allows the kiosk to show something related to the item that could be used
+        // by the patron to identify which item this checkin response applies to.
+        .titleIdentifier(resource.getResource() == null ? itemIdentifier
+            : getChildString(
+                  resource.getResource(), "item", "title", itemIdentifier
+                ))
+        // this is probably not the permanent location
+        // this might require a call to inventory
+        // GDG - it appears to be effective location, which is most likely appropriate
+        .permanentLocation(
+            resource.getResource() == null ? UNKNOWN
+                : getSubChildString(resource.getResource(),
+                    Arrays.asList("item", "location"), "name", UNKNOWN))
+        .screenMessage(
+            itemStatusString.isBlank() 
+            && transitDestinationString.isBlank() ? null : scrnMsg
+          )
+        .build();
+  }
+
+  /**
+   * Accept a checkin that could not be sent because FOLIO is unreachable,
+   * when the offline journal is enabled. It is checked in with the original
+   * date once FOLIO is back, see {@link #replayOfflineCheckins()}. The
+   * checkin is journaled with the SC login rather than its token, which may
+   * expire before FOLIO is back, and only when the ACS configuration of the
+   * tenant, or of the SC location, has {@code offlineOk}.
+   */
+  private Future<CheckinResponse> offlineCheckin(Throwable t, JsonObject body,
+      SessionData sessionData, String institutionId, String itemIdentifier) {
+    final IResource failed = () -> null;
+    if (!offlineJournal.isEnabled() || !isFolioUnreachable(t)
+        || sessionData.getUsername() == null) {
+      return Future.succeededFuture(checkinResponse(failed, institutionId, itemIdentifier));
+    }
+
+    return configurationRepository.getACSStatus(sessionData)
+        .map(acsStatus -> TRUE.equals(acsStatus.getOffLineOk()))
+        .otherwise(FALSE)
+        .compose(offlineOk -> {
+          if (!offlineOk) {
+            log.warn("FOLIO is unreachable, the checkin of item {} is not accepted offline",
+                itemIdentifier);
+            return Future.succeededFuture(checkinResponse(failed, institutionId,
+                itemIdentifier));
+          }
+          return journalCheckin(body, sessionData, institutionId, itemIdentifier);
+        });
+  }
+
+  private Future<CheckinResponse> journalCheckin(JsonObject body, SessionData sessionData,
+      String institutionId, String itemIdentifier) {
+    log.warn("FOLIO is unreachable, journaling the checkin of item {}", itemIdentifier);
+    return offlineJournal.append(new JsonObject()
+        .put("tenant", sessionData.getTenant())
+        .put("login", sessionData.getUsername())
+        .put("checkin", body))
+        .map(v -> CheckinResponse.builder()
+            .ok(TRUE)
+            .resensitize(TRUE)
+            .magneticMedia(null)
+            .alert(FALSE)
+            .transactionDate(OffsetDateTime.now(clock))
+            .institutionId(institutionId)
+            .itemIdentifier(itemIdentifier)
+            .materialType(UNKNOWN)
+            .titleIdentifier(itemIdentifier)
+            .permanentLocation(UNKNOWN)
+            .screenMessage(Collections.singletonList("Checkin accepted offline"))
+            .build())
+        .otherwise(e -> {
+          log.error("Failed to journal the checkin of item {}", itemIdentifier, e);
+          return checkinResponse(() -> null, institutionId, itemIdentifier);
+        });
+  }
+
+  /**
+   * Send the checkins accepted while FOLIO was unreachable, in the order they
+   * were accepted per tenant and item. A checkin is dropped when the item was
+   * checked out again after it was returned, as the checkin would end the new
+   * loan instead. A checkin FOLIO rejects is logged and dropped. A checkin is
+   * kept, with the later checkins of its item, when the tenant's FOLIO is
+   * unreachable again, rejects the token of the SC login, or the SC did not
+   * log in since edge-sip2 started, so no token can be got for it; the
+   * checkins of other tenants and items are still sent, and the ones kept are
+   * replayed the next time.
+   *
+   * @return the number of checkins that were replayed
+   */
+  public Future<Integer> replayOfflineCheckins() {
+    return offlineJournal
+        .replay(CirculationRepository::checkinOrderingKey, this::replayCheckin)
+        .onSuccess(count -> {
+          if (count > 0) {
+            log.info("Replayed {} offline checkins", count);
+          }
+        });
+  }
+
+  private static String checkinOrderingKey(JsonObject entry) {
+    return entry.getString("tenant") + "/"
+        + entry.getJsonObject("checkin").getString("itemBarcode");
+  }
+
+  private Future<Boolean> replayCheckin(JsonObject entry) {
+    final String tenant = entry.getString("tenant");
+    if (resourceProvider.isUnavailable(tenant)) {
+      return Future.succeededFuture(FALSE);
+    }
+
+    final String login = entry.getString("login");
+    final TokenSource tokenSource = tokenSources.get(tenant, login);
+    if (tokenSource == null) {
+      log.warn("Cannot replay the offline checkins until {} of tenant {} logs in", login,
+          tenant);
+      return Future.succeededFuture(FALSE);
+    }
+
+    final JsonObject body = entry.getJsonObject("checkin");
+    final SessionData sessionData = SessionData.createSession(tenant, '|', false, "IBM850");
+    sessionData.setUsername(login);
+    sessionData.setTokenSource(tokenSource);
+    final String itemBarcode = body.getString("itemBarcode");
+    return isCheckedOutSince(body, sessionData)
+        .compose(checkedOut -> {
+          if (checkedOut) {
+            log.warn("Dropping the offline checkin of item {}, it was checked out again since",
+                itemBarcode);
+            return Future.succeededFuture(TRUE);
+          }
+          return sendOfflineCheckin(body, sessionData);
+        })
+        .otherwise(t -> {
+          log.warn("Failed to get the open loan of item {}: {}", itemBarcode, t.getMessage());
+          return FALSE;
+        });
+  }
+
+  private Future<Boolean> sendOfflineCheckin(JsonObject body, SessionData sessionData) {
+    return resourceProvider
+        .createResource(new CheckinRequestData(body, getBaseHeaders(), sessionData))
+        .map(resource -> TRUE)
+        .recover(t -> {
+          if (!isFolioAnswer(t)) {
+            log.warn("Failed to replay the offline checkin of item {}: {}",
+                body.getString("itemBarcode"), t.getMessage());
+            return Future.succeededFuture(FALSE);
+          }
+          log.error("FOLIO rejected the offline checkin {}: {}", body.encode(), t.getMessage());
+          return Future.succeededFuture(TRUE);
+        });
+  }
+
+  /**
+   * Whether the item of an offline checkin has an open loan that started
+   * after the item was returned, i.e. it was checked out again meanwhile.
+   */
+  private Future<Boolean> isCheckedOutSince(JsonObject checkin, SessionData sessionData) {
+    final OffsetDateTime checkInDate = OffsetDateTime.parse(checkin.getString("checkInDate"));
+    return resourceProvider
+        .retrieveResource(new ItemByBarcodeRequestData(checkin.getString("itemBarcode"),
+            getBaseHeaders(), sessionData))
+        .compose(items -> {
+          final JsonArray found = items.getResource().getJsonArray("items", new JsonArray());
+          if (found.isEmpty()) {
+            // FOLIO rejects the checkin
+            return Future.succeededFuture(FALSE);
+          }
+          return resourceProvider
+              .retrieveResource(new OpenLoanRequestData(found.getJsonObject(0).getString("id"),
+                  getBaseHeaders(), sessionData))
+              .map(loans -> {
+                final JsonArray open = loans.getResource().getJsonArray("loans",
+                    new JsonArray());
+                return !open.isEmpty() && OffsetDateTime.parse(
+                    open.getJsonObject(0).getString("loanDate")).isAfter(checkInDate);
+              });
+        });
+  }
+
+  /**
+   * Whether a request failed because FOLIO could not be reached, rather than
+   * because FOLIO rejected it or the request could not be sent at all.
+   */
+  private static boolean isFolioUnreachable(Throwable t) {
+    if (t instanceof FolioRequestThrowable) {
+      final int statusCode = ((FolioRequestThrowable) t).getStatusCode();
+      return statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+    // timeouts, failures to connect and closed connections
+    return t instanceof TimeoutException || t instanceof IOException
+        || t instanceof CircuitOpenThrowable;
+  }
+
+  /**
+   * Whether FOLIO answered a request, so that sending it again does not
+   * change the outcome. A rejected token does not count, as a new one may be
+   * accepted.
+   */
+  private static boolean isFolioAnswer(Throwable t) {
+    if (t instanceof DecodeException) {
+      // the request succeeded, but not with the expected body
+      return true;
+    }
+    if (!(t instanceof FolioRequestThrowable) || isFolioUnreachable(t)) {
+      return false;
+    }
+    final int statusCode = ((FolioRequestThrowable) t).getStatusCode();
+    return statusCode > 0 && statusCode != 401 && statusCode != 403;
   }
 
   /**
@@ -293,19 +566,19 @@ public class CirculationRepository {
         });
   }
 
-  RenewAllResponseBuilder doRenewals(JsonObject jo, RenewAllResponseBuilder builder) {
-    log.debug(jo.toString());
-    return builder;
-  }
-
   /**
    * Perform a renewal for all items on customer account.
    *
-   * @param renewAll the checkout domain object
-   * @return the renewal response domain object
+   * <p>The patron's open loans are renewed {@code renewAllParallelism} at a
+   * time. Renewals are only started during the first half of the SC's timeout
+   * period, the loans left after that are reported as not renewed.
+   *
+   * @param renewAll the renew all domain object
+   * @return the renew all response domain object
    */
   public Future<RenewAllResponse> performRenewAllCommand(RenewAll renewAll,
       SessionData sessionData) {
+    final long started = clock.millis();
     final String institutionId = renewAll.getInstitutionId();
     final String patronIdentifier = renewAll.getPatronIdentifier();
     final String patronPassword = renewAll.getPatronPassword();
@@ -327,47 +600,125 @@ public class CirculationRepository {
                 .build());
           }
 
-          final User user = verification.getUser();
-          final JsonObject body = new JsonObject()
-              .put("servicePointId", sessionData.getScLocation());
-
-          final Map<String, String> headers = getBaseHeaders();
-          // Assume a sensible limit, or rewrite this method
-          final Future<JsonObject> loansFuture =
-              getLoansByUserId(user.getId(), null, null, sessionData);
-          
-          final RenewAllResponseBuilder builder = RenewAllResponse.builder();
-
-
-          loansFuture
-              .map(loans -> doRenewals(loans, builder));
-
-          final RenewalRequestData renewalRequestData =
-              new RenewalRequestData(body, headers, sessionData);
-
-          final Future<IResource> result = resourceProvider.createResource(renewalRequestData);
-
-          return result
-              .otherwise(Utils::handleErrors)
-              .map(resource -> {
-                final Optional<JsonObject> response = Optional.ofNullable(resource.getResource());
-
+          final String userId = verification.getUser().getId();
+
+          return getOpenLoans(userId, new JsonArray(), sessionData)
+              .compose(loans -> renewLoans(loans, userId,
+                  renewAllDeadline(started, sessionData), sessionData)
+                  .map(renewed -> {
+                    final List<String> renewedItems = new ArrayList<>();
+                    final List<String> unrenewedItems = new ArrayList<>();
+                    for (int i = 0; i < renewed.length; i++) {
+                      final JsonObject loan = loans.getJsonObject(i);
+                      (renewed[i] ? renewedItems : unrenewedItems).add(
+                          getChildString(loan, "item", "barcode", loan.getString("itemId")));
+                    }
+
+                    return RenewAllResponse.builder()
+                        .ok(TRUE)
+                        .transactionDate(OffsetDateTime.now(clock))
+                        .institutionId(institutionId)
+                        .renewedCount(renewedItems.size())
+                        .unrenewedCount(unrenewedItems.size())
+                        .renewedItems(renewedItems)
+                        .unrenewedItems(unrenewedItems)
+                        .build();
+                  }))
+              .otherwise(t -> {
+                log.error("Failed to get the loans of patron {}", patronIdentifier, t);
                 return RenewAllResponse.builder()
-                    .ok(Boolean.valueOf(response.isPresent()))
+                    .ok(FALSE)
                     .transactionDate(OffsetDateTime.now(clock))
                     .institutionId(institutionId)
                     .renewedCount(0)
                     .unrenewedCount(0)
                     .renewedItems(emptyItems)
                     .unrenewedItems(emptyItems)
-                    .screenMessage(Optional.of(resource.getErrorMessages())
-                        .filter(v -> !v.isEmpty())
-                        .orElse(null))
+                    .screenMessage(Utils.handleErrors(t).getErrorMessages())
                     .build();
               });
         });
   }
 
+  /**
+   * Get the time until which renewals are started: half of the SC's timeout
+   * period, the other half is left for the renewals in flight and the reply.
+   */
+  private long renewAllDeadline(long started, SessionData sessionData) {
+    final Integer timeoutPeriod = sessionData.getTimeoutPeriod();
+    // in tenths of a second, 000 is an offline ACS and 999 an unknown timeout
+    if (timeoutPeriod == null || timeoutPeriod <= 0 || timeoutPeriod >= 999) {
+      return Long.MAX_VALUE;
+    }
+    return started + timeoutPeriod * 100L / 2;
+  }
+
+  private Future<JsonArray> getOpenLoans(String userId, JsonArray loans,
+      SessionData sessionData) {
+    final LoansRequestData loansRequestData = new LoansRequestData(userId, LOANS_LIMIT,
+        loans.size(), null, null, getBaseHeaders(), sessionData);
+
+    return resourceProvider.retrieveResource(loansRequestData)
+        .map(IResource::getResource)
+        .compose(page -> {
+          final JsonArray found = page == null ? new JsonArray()
+              : page.getJsonArray("loans", new JsonArray());
+          loans.addAll(found);
+          if (found.isEmpty() || loans.size() >= page.getInteger("totalRecords", 0)) {
+            return Future.succeededFuture(loans);
+          }
+          return getOpenLoans(userId, loans, sessionData);
+        });
+  }
+
+  private Future<boolean[]> renewLoans(JsonArray loans, String userId, long deadline,
+      SessionData sessionData) {
+    final boolean[] renewed = new boolean[loans.size()];
+    final Deque<Integer> pending = new ArrayDeque<>();
+    for (int i = 0; i < loans.size(); i++) {
+      pending.add(i);
+    }
+
+    @SuppressWarnings("rawtypes")
+    final List<Future> renewals = new ArrayList<>();
+    while (renewals.size() < renewAllParallelism && renewals.size() < loans.size()) {
+      renewals.add(renewNextLoan(pending, loans, userId, renewed, deadline, sessionData));
+    }
+
+    return CompositeFuture.all(renewals).map(result -> renewed);
+  }
+
+  private Future<Void> renewNextLoan(Deque<Integer> pending, JsonArray loans, String userId,
+      boolean[] renewed, long deadline, SessionData sessionData) {
+    final Integer index = pending.poll();
+    if (index == null) {
+      return Future.succeededFuture();
+    }
+    if (clock.millis() >= deadline) {
+      log.info("Renew all ran out of time, {} loans are not renewed", pending.size() + 1);
+      pending.clear();
+      return Future.succeededFuture();
+    }
+
+    final JsonObject body = new JsonObject()
+        .put("itemId", loans.getJsonObject(index).getString("itemId"))
+        .put("userId", userId)
+        .put("servicePointId", sessionData.getScLocation());
+    final RenewalByIdRequestData renewalRequestData =
+        new RenewalByIdRequestData(body, getBaseHeaders(), sessionData);
+
+    return resourceProvider.createResource(renewalRequestData)
+        .otherwise(Utils::handleErrors)
+        .compose(resource -> {
+          renewed[index] = resource.getResource() != null;
+          if (!renewed[index]) {
+            log.info("Failed to renew item {}: {}", body.getString("itemId"),
+                resource.getErrorMessages());
+          }
+          return renewNextLoan(pending, loans, userId, renewed, deadline, sessionData);
+        });
+  }
+
   /**
    * Get requests for the specified patron.
    *
@@ -385,12 +736,30 @@ public class CirculationRepository {
     final Map<String, String> headers = getBaseHeaders();
 
     final RequestsRequestData requestsRequestData = new RequestsRequestData("requesterId", userId,
-        requestType, requestStatus, startItem, endItem, headers, sessionData);
+        requestType, requestStatus, REQUESTS_LIMIT, startItem, endItem, headers, sessionData);
     final Future<IResource> result = resourceProvider.retrieveResource(requestsRequestData);
 
     return result.otherwise(() -> null).map(IResource::getResource);
   }
 
+  /**
+   * Count the requests of the specified patron without retrieving them.
+   *
+   * @param userId the FOLIO ID of the patron
+   * @param requestType The request type to filter on
+   * @param requestStatus The request status list to filter on
+   * @param sessionData session data
+   * @return the number of requests the patron has placed, or {@code null} if
+   *     they could not be counted
+   */
+  public Future<Integer> countRequestsByUserId(String userId, String requestType,
+      ArrayList<RequestStatus> requestStatus, SessionData sessionData) {
+    final RequestsRequestData requestsRequestData = new RequestsRequestData("requesterId", userId,
+        requestType, requestStatus, COUNT_ONLY, null, null, getBaseHeaders(), sessionData);
+
+    return count(resourceProvider.retrieveResource(requestsRequestData));
+  }
+
   /**
    * Gets open requests for a specific item.
    *
@@ -404,20 +773,88 @@ public class CirculationRepository {
   public Future<JsonObject> getRequestsByItemId(String itemId, String requestType,
       Integer startItem, Integer endItem, SessionData sessionData) {
     final Map<String, String> headers = getBaseHeaders();
-    final ArrayList<RequestStatus> requestStatus = new ArrayList<RequestStatus>();
-    requestStatus.add(RequestStatus.OPEN_AWAITING_DELIVERY);
-    requestStatus.add(RequestStatus.OPEN_AWAITING_PICKUP);
-    requestStatus.add(RequestStatus.OPEN_IN_TRANSIT);
-    requestStatus.add(RequestStatus.OPEN_NOT_YET_FILLED);
-    
+    final ArrayList<RequestStatus> requestStatus = openRequestStatuses();
 
     final RequestsRequestData requestsRequestData = new RequestsRequestData("itemId", itemId,
-        requestType, requestStatus, startItem, endItem, headers, sessionData);
+        requestType, requestStatus, REQUESTS_LIMIT, startItem, endItem, headers, sessionData);
     final Future<IResource> result = resourceProvider.retrieveResource(requestsRequestData);
 
     return result.otherwise(() -> null).map(IResource::getResource);
   }
 
+  /**
+   * Get the open requests of many items, e.g. of the items a patron has on
+   * loan. The items are queried {@code requestLookupChunkSize} at a time,
+   * with up to {@code requestLookupParallelism} queries in flight, instead of
+   * one query per item.
+   *
+   * @param itemIds the FOLIO IDs of the items
+   * @param sessionData session data
+   * @return the first open request of each item that has one, by item ID;
+   *     the items of a failed query are left out
+   */
+  public Future<Map<String, JsonObject>> getRequestsByItemIds(List<String> itemIds,
+      SessionData sessionData) {
+    Objects.requireNonNull(itemIds, "itemIds cannot be null");
+
+    final Deque<List<String>> chunks = new ArrayDeque<>();
+    for (int i = 0; i < itemIds.size(); i += requestLookupChunkSize) {
+      chunks.add(itemIds.subList(i, Math.min(i + requestLookupChunkSize, itemIds.size())));
+    }
+
+    final Map<String, JsonObject> requests = new HashMap<>();
+    @SuppressWarnings("rawtypes")
+    final List<Future> lookups = new ArrayList<>();
+    while (lookups.size() < requestLookupParallelism && lookups.size() < chunks.size()) {
+      lookups.add(getRequestsOfNextChunk(chunks, requests, sessionData));
+    }
+
+    return CompositeFuture.all(lookups).map(result -> requests);
+  }
+
+  private Future<Void> getRequestsOfNextChunk(Deque<List<String>> chunks,
+      Map<String, JsonObject> requests, SessionData sessionData) {
+    final List<String> chunk = chunks.poll();
+    if (chunk == null) {
+      return Future.succeededFuture();
+    }
+
+    return getRequestsOfChunk(chunk, 0, requests, sessionData)
+        .otherwise(t -> {
+          log.error("Failed to get the requests of items {}", chunk, t);
+          return null;
+        })
+        .compose(v -> getRequestsOfNextChunk(chunks, requests, sessionData));
+  }
+
+  private Future<Void> getRequestsOfChunk(List<String> itemIds, int offset,
+      Map<String, JsonObject> requests, SessionData sessionData) {
+    final ItemsRequestsRequestData requestsRequestData = new ItemsRequestsRequestData(itemIds,
+        offset, itemIds.size() * REQUESTS_PER_ITEM, getBaseHeaders(), sessionData);
+
+    return resourceProvider.retrieveResource(requestsRequestData)
+        .map(IResource::getResource)
+        .compose(page -> {
+          final JsonArray found = page == null ? new JsonArray()
+              : page.getJsonArray("requests", new JsonArray());
+          for (Object o : found) {
+            final JsonObject request = (JsonObject) o;
+            final String itemId = request.getString("itemId");
+            if (itemId != null) {
+              requests.putIfAbsent(itemId, request);
+            }
+          }
+
+          // items with many requests can push the others to further pages
+          final int read = offset + found.size();
+          if (found.isEmpty() || read >= page.getInteger("totalRecords", 0)
+              || requests.keySet().containsAll(itemIds)) {
+            return Future.succeededFuture();
+          }
+          return getRequestsOfChunk(itemIds, read, requests, sessionData);
+        });
+  }
+
   /**
    * Get loans for the specified patron.
    *
@@ -432,7 +869,8 @@ public class CirculationRepository {
     final Map<String, String> headers = getBaseHeaders();
 
     final LoansRequestData loansRequestData =
-        new LoansRequestData(userId, startItem, endItem, headers, sessionData);
+        new LoansRequestData(userId, LOANS_LIMIT, 0, startItem, endItem, headers,
+            sessionData);
     final Future<IResource> result = resourceProvider.retrieveResource(loansRequestData);
 
     return result
@@ -455,7 +893,8 @@ public class CirculationRepository {
     final Map<String, String> headers = getBaseHeaders();
 
     final OverdueLoansRequestData loansRequestData =
-        new OverdueLoansRequestData(userId, dueDate, startItem, endItem, headers, sessionData);
+        new OverdueLoansRequestData(userId, dueDate, LOANS_LIMIT, startItem, endItem, headers,
+            sessionData);
     final Future<IResource> result = resourceProvider.retrieveResource(loansRequestData);
 
     return result
@@ -463,6 +902,46 @@ public class CirculationRepository {
         .map(IResource::getResource);
   }
 
+  /**
+   * Count the loans of the specified patron without retrieving them.
+   *
+   * @param userId the FOLIO ID of the patron
+   * @param sessionData session data
+   * @return the number of loans the patron has open, or {@code null} if they
+   *     could not be counted
+   */
+  public Future<Integer> countLoansByUserId(String userId, SessionData sessionData) {
+    final LoansRequestData loansRequestData = new LoansRequestData(userId, COUNT_ONLY, 0,
+        null, null, getBaseHeaders(), sessionData);
+
+    return count(resourceProvider.retrieveResource(loansRequestData));
+  }
+
+  /**
+   * Count the over due items that the patron has on loan without retrieving
+   * them.
+   *
+   * @param userId the patron's user ID
+   * @param dueDate the date and time (UTC) that items are considered over due
+   * @param sessionData session info
+   * @return the number of over due items for this patron, or {@code null} if
+   *     they could not be counted
+   */
+  public Future<Integer> countOverdueLoansByUserId(String userId, OffsetDateTime dueDate,
+      SessionData sessionData) {
+    final OverdueLoansRequestData loansRequestData = new OverdueLoansRequestData(userId, dueDate,
+        COUNT_ONLY, null, null, getBaseHeaders(), sessionData);
+
+    return count(resourceProvider.retrieveResource(loansRequestData));
+  }
+
+  private Future<Integer> count(Future<IResource> result) {
+    return result
+        .otherwise(() -> null)
+        .map(IResource::getResource)
+        .map(records -> records == null ? null : records.getInteger("totalRecords"));
+  }
+
   private Map<String, String> getBaseHeaders() {
     final Map<String, String> headers = new HashMap<>();
     headers.put("accept", "application/json");
@@ -534,6 +1013,48 @@ public class CirculationRepository {
     }
   }
 
+  private class ItemByBarcodeRequestData extends CirculationRequestData {
+    private final String itemBarcode;
+
+    private ItemByBarcodeRequestData(String itemBarcode, Map<String, String> headers,
+        SessionData sessionData) {
+      super(null, null, null, headers, sessionData);
+      this.itemBarcode = itemBarcode;
+    }
+
+    @Override
+    public JsonProjection getProjection() {
+      return ITEMS_PROJECTION;
+    }
+
+    @Override
+    public String getPath() {
+      return "/inventory/items?limit=1&query="
+          + Utils.encode("barcode==\"" + itemBarcode + "\"");
+    }
+  }
+
+  private class OpenLoanRequestData extends CirculationRequestData {
+    private final String itemId;
+
+    private OpenLoanRequestData(String itemId, Map<String, String> headers,
+        SessionData sessionData) {
+      super(null, null, null, headers, sessionData);
+      this.itemId = itemId;
+    }
+
+    @Override
+    public JsonProjection getProjection() {
+      return OPEN_LOANS_PROJECTION;
+    }
+
+    @Override
+    public String getPath() {
+      return "/circulation/loans?limit=1&query="
+          + Utils.encode("(itemId==" + itemId + " and status.name=Open)");
+    }
+  }
+
   private class CheckoutRequestData extends CirculationRequestData {
     private CheckoutRequestData(JsonObject body, Map<String, String> headers,
         SessionData sessionData) {
@@ -558,17 +1079,31 @@ public class CirculationRepository {
     }
   }
 
+  private class RenewalByIdRequestData extends CirculationRequestData {
+    private RenewalByIdRequestData(JsonObject body, Map<String, String> headers,
+        SessionData sessionData) {
+      super(body, null, null, headers, sessionData);
+    }
+
+    @Override
+    public String getPath() {
+      return "/circulation/renew-by-id";
+    }
+  }
+
   private class RequestsRequestData extends CirculationRequestData {
     private final String idField;
     private final String idValue;
     private final String requestType;
     private final ArrayList<RequestStatus> requestStatus;
+    private final int limit;
 
     private RequestsRequestData(
         String idField,
         String idValue,
         String requestType,
         ArrayList<RequestStatus> requestStatus,
+        int limit,
         Integer startItem,
         Integer endItem,
         Map<String, String> headers,
@@ -578,6 +1113,12 @@ public class CirculationRepository {
       this.idValue = idValue;
       this.requestType = requestType;
       this.requestStatus = requestStatus;
+      this.limit = limit;
+    }
+
+    @Override
+    public JsonProjection getProjection() {
+      return REQUESTS_PROJECTION;
     }
 
     @Override
@@ -602,40 +1143,111 @@ public class CirculationRepository {
       qSb.append(')');
       qSb.append(')');
       final StringBuilder urlSb = new StringBuilder()
-          .append("/circulation/requests?limit=10&query=")
+          .append("/circulation/requests?limit=")
+          .append(limit)
+          .append("&query=")
           .append(Utils.encode(qSb.toString()));
 
       return appendLimits(urlSb).toString();
     }
   }
 
+  private static ArrayList<RequestStatus> openRequestStatuses() {
+    final ArrayList<RequestStatus> requestStatus = new ArrayList<RequestStatus>();
+    requestStatus.add(RequestStatus.OPEN_AWAITING_DELIVERY);
+    requestStatus.add(RequestStatus.OPEN_AWAITING_PICKUP);
+    requestStatus.add(RequestStatus.OPEN_IN_TRANSIT);
+    requestStatus.add(RequestStatus.OPEN_NOT_YET_FILLED);
+    return requestStatus;
+  }
+
+  private class ItemsRequestsRequestData extends CirculationRequestData {
+    private final List<String> itemIds;
+    private final int offset;
+    private final int limit;
+
+    private ItemsRequestsRequestData(
+        List<String> itemIds,
+        int offset,
+        int limit,
+        Map<String, String> headers,
+        SessionData sessionData) {
+      super(null, null, null, headers, sessionData);
+      this.itemIds = itemIds;
+      this.offset = offset;
+      this.limit = limit;
+    }
+
+    @Override
+    public JsonProjection getProjection() {
+      return REQUESTS_PROJECTION;
+    }
+
+    @Override
+    public String getPath() {
+      final StringBuilder qSb = new StringBuilder()
+          .append("(itemId==(")
+          .append(String.join(" or ", itemIds))
+          .append(") and (");
+      final List<RequestStatus> requestStatus = openRequestStatuses();
+      for (int i = 0;i < requestStatus.size();i++) {
+        if (i > 0) {
+          qSb.append(" or ");
+        }
+        qSb.append("status==\"" + requestStatus.get(i).getValue() + "\"");
+      }
+      qSb.append(')');
+      qSb.append(')');
+      // sorted, so the continuation pages neither skip nor repeat requests
+      qSb.append(" sortBy id");
+
+      return "/circulation/requests?limit=" + limit + "&offset=" + offset
+          + "&query=" + Utils.encode(qSb.toString());
+    }
+  }
+
   private class LoansRequestData extends CirculationRequestData {
     private final String userId;
+    private final int limit;
+    private final int offset;
 
     private LoansRequestData(
         String userId,
+        int limit,
+        int offset,
         Integer startItem,
         Integer endItem,
         Map<String, String> headers,
         SessionData sessionData) {
       super(null, startItem, endItem, headers, sessionData);
       this.userId = userId;
+      this.limit = limit;
+      this.offset = offset;
+    }
+
+    @Override
+    public JsonProjection getProjection() {
+      return LOANS_PROJECTION;
     }
 
     @Override
     public String getPath() {
-      String query = Utils.encode("(userId==" + userId + " and status.name=Open)");
-      return "/circulation/loans?limit=200&query=" + query;
+      // sorted, so the pages neither skip nor repeat loans
+      String query = Utils.encode("(userId==" + userId + " and status.name=Open) sortBy id");
+      final String path = "/circulation/loans?limit=" + limit + "&query=" + query;
+      return offset > 0 ? path + "&offset=" + offset : path;
     }
   }
 
   private class OverdueLoansRequestData extends CirculationRequestData {
     private final String userId;
     private final OffsetDateTime dueDate;
+    private final int limit;
 
     private OverdueLoansRequestData(
         String userId,
         OffsetDateTime dueDate,
+        int limit,
         Integer startItem,
         Integer endItem,
         Map<String, String> headers,
@@ -643,6 +1255,12 @@ public class CirculationRepository {
       super(null, startItem, endItem, headers, sessionData);
       this.userId = userId;
       this.dueDate = dueDate;
+      this.limit = limit;
+    }
+
+    @Override
+    public JsonProjection getProjection() {
+      return LOANS_PROJECTION;
     }
 
     @Override
@@ -654,7 +1272,9 @@ public class CirculationRepository {
           .append(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(dueDate))
           .append(')');
       final StringBuilder path = new StringBuilder()
-          .append("/circulation/loans?limit=200&query=")
+          .append("/circulation/loans?limit=")
+          .append(limit)
+          .append("&query=")
           .append(Utils.encode(qSb.toString()));
 
       return appendLimits(path).toString();
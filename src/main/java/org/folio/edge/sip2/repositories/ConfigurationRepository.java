@@ -16,6 +16,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.AsyncCache;
 import org.folio.edge.sip2.domain.messages.enumerations.Messages;
 import org.folio.edge.sip2.domain.messages.responses.ACSStatus;
 import org.folio.edge.sip2.domain.messages.responses.ACSStatus.ACSStatusBuilder;
@@ -27,6 +28,8 @@ public class ConfigurationRepository {
   private IResourceProvider<IRequestData> resourceProvider;
   private final Logger log;
   private Clock clock;
+  // the parsed ACS status configurations by tenant and SC location
+  private final AsyncCache<String, LinkedHashMap<String, JsonObject>> acsStatusCache;
 
   static final String TENANT_CONFIG_NAME = "acsTenantConfig";
   static final String SC_STATION_CONFIG_NAME = "selfCheckoutConfig";
@@ -44,10 +47,32 @@ public class ConfigurationRepository {
    */
 
   public ConfigurationRepository(IResourceProvider<IRequestData> resourceProvider, Clock clock) {
+    this(resourceProvider, clock, 0, 0);
+  }
+
+  /**
+   * Constructor that takes an IResourceProvider and caches the configurations
+   * of the ACS status. SC status messages, sent by the kiosks every few
+   * seconds, are answered from the cache while it is fresh, or stale and
+   * being refreshed in the background.
+   *
+   * @param resourceProvider This can be DefaultResourceProvider or any provider in the future.
+   * @param clock the clock for the date and time sync and the cache
+   * @param cacheTtlMillis the time the configurations are cached, {@code 0}
+   *     to not cache them
+   * @param cacheMaxStaleMillis the time expired configurations are still used
+   *     while they are refreshed
+   */
+  public ConfigurationRepository(IResourceProvider<IRequestData> resourceProvider, Clock clock,
+      long cacheTtlMillis, long cacheMaxStaleMillis) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "ConfigGateway cannot be null");
     this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
     log = LogManager.getLogger();
+    acsStatusCache = AsyncCache.<String, LinkedHashMap<String, JsonObject>>builder(clock)
+        .ttl(cacheTtlMillis)
+        .maxStale(cacheMaxStaleMillis)
+        .build();
   }
 
   /**
@@ -83,14 +108,50 @@ public class ConfigurationRepository {
 
     ACSStatus.ACSStatusBuilder builder = ACSStatus.builder();
 
-    final Future<ACSStatusBuilder> acsStatusBuilderFuture =
-        retrieveConfigurations(sessionData, kvpQueryParamsList)
+    // the configurations rarely change, the date and time sync is set on every reply
+    final String cacheKey = sessionData.getTenant() + "/" + sessionData.getScLocation();
+    final Future<ACSStatusBuilder> acsStatusBuilderFuture = acsStatusCache
+        .get(cacheKey, () -> retrieveConfigurations(sessionData, kvpQueryParamsList))
         .map(configs -> setACSConfig(configs,
                                      configKeyTenant, configKeySC,
                                      configKeyLocale, builder,
                                      sessionData));
 
-    return acsStatusBuilderFuture.map(result -> builder.build());
+    // while FOLIO is failing for the tenant, the kiosks are told to go
+    // offline rather than wait for it
+    final String tenant = sessionData.getTenant();
+    return acsStatusBuilderFuture
+        .map(result -> {
+          if (resourceProvider.isUnavailable(tenant)) {
+            builder.onLineStatus(false);
+          }
+          return builder.build();
+        })
+        .recover(t -> resourceProvider.isUnavailable(tenant)
+            ? Future.succeededFuture(offLineACSStatus(sessionData)) : Future.failedFuture(t));
+  }
+
+  /**
+   * Get the ACS status when FOLIO is unavailable and the configurations are
+   * not cached, so nothing but that it is not on-line is known.
+   */
+  private ACSStatus offLineACSStatus(SessionData sessionData) {
+    log.warn("FOLIO is unavailable for tenant {}, reporting the ACS offline",
+        sessionData.getTenant());
+    return ACSStatus.builder()
+        .onLineStatus(false)
+        .checkinOk(false)
+        .checkoutOk(false)
+        .acsRenewalPolicy(false)
+        .statusUpdateOk(false)
+        .offLineOk(false)
+        // 0 means the ACS is not on-line, 999 that the retries are unknown
+        .timeoutPeriod(0)
+        .retriesAllowed(999)
+        .dateTimeSync(OffsetDateTime.now(clock))
+        .protocolVersion("2.00")
+        .institutionId(sessionData.getTenant())
+        .build();
   }
 
   /**
@@ -186,7 +247,9 @@ public class ConfigurationRepository {
         config.toString());
     if (config != null) {
       builder.retriesAllowed(config.getInteger("retriesAllowed", 3));
-      builder.timeoutPeriod(config.getInteger("timeoutPeriod",30));
+      final Integer timeoutPeriod = config.getInteger("timeoutPeriod", 30);
+      builder.timeoutPeriod(timeoutPeriod);
+      sessionData.setTimeoutPeriod(timeoutPeriod);
       builder.checkinOk(config.getBoolean("checkinOk", Boolean.TRUE));
       builder.acsRenewalPolicy(config.getBoolean("acsRenewalPolicy", Boolean.FALSE));
       builder.checkoutOk(config.getBoolean("checkoutOk", Boolean.TRUE));
@@ -15,8 +15,30 @@ import java.util.stream.Collectors;
 public class FolioRequestThrowable extends RequestThrowable {
   private static final long serialVersionUID = -3631812923140695707L;
 
+  private final int statusCode;
+
   public FolioRequestThrowable(String message) {
+    this(message, 0);
+  }
+
+  /**
+   * Construct a throwable for a FOLIO response.
+   *
+   * @param message the body of the response
+   * @param statusCode the HTTP status code of the response
+   */
+  public FolioRequestThrowable(String message, int statusCode) {
     super(message);
+    this.statusCode = statusCode;
+  }
+
+  /**
+   * Get the HTTP status code of the response.
+   *
+   * @return the status code, or {@code 0} if unknown
+   */
+  public int getStatusCode() {
+    return statusCode;
   }
 
   @Override
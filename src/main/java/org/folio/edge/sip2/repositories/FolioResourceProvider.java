@@ -1,26 +1,44 @@
 package org.folio.edge.sip2.repositories;
 
+import io.micrometer.core.instrument.Timer;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
+import io.vertx.core.Promise;
 import io.vertx.core.Vertx;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.json.DecodeException;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.HttpRequest;
 import io.vertx.ext.web.client.HttpResponse;
 import io.vertx.ext.web.client.WebClient;
+import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.ext.web.client.predicate.ErrorConverter;
 import io.vertx.ext.web.client.predicate.ResponsePredicate;
 import io.vertx.ext.web.codec.BodyCodec;
+import java.time.Clock;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.metrics.ClientPoolMetrics;
+import org.folio.edge.sip2.metrics.LatencyHistograms;
+import org.folio.edge.sip2.metrics.OkapiRequestMetrics;
+import org.folio.edge.sip2.session.RequestTrace;
 import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.session.TokenSource;
 
 /**
  * Resource provider for communicating with FOLIO.
@@ -31,38 +49,209 @@ import org.folio.edge.sip2.session.SessionData;
 public class FolioResourceProvider implements IResourceProvider<IRequestData> {
   private static final String HEADER_X_OKAPI_TOKEN = "x-okapi-token";
   private static final String HEADER_X_OKAPI_TENANT = "x-okapi-tenant";
+  private static final String HEADER_X_OKAPI_REQUEST_ID = "x-okapi-request-id";
   private static final Logger log = LogManager.getLogger();
 
   private final String okapiUrl;
+  private final Vertx vertx;
   private final WebClient client;
+  private final ClientPoolMetrics poolMetrics;
+  private final OkapiRequestMetrics requestMetrics;
+  private final long timeoutMillis;
+  private final Map<String, Long> endpointTimeouts;
+  private final int retries;
+  private final long retryDelayMillis;
+  private final int failureThreshold;
+  private final long resetTimeoutMillis;
+  private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
 
   /**
    * Construct a FOLIO resource provider with the specified parameters.
    * @param okapiUrl the URL for okapi
    * @param vertx the vertx instance
    */
+  public FolioResourceProvider(String okapiUrl, Vertx vertx) {
+    this(okapiUrl, vertx, new WebClientOptions());
+  }
+
+  /**
+   * Construct a FOLIO resource provider with the specified parameters.
+   * @param okapiUrl the URL for okapi
+   * @param vertx the vertx instance
+   * @param webClientOptions the options of the HTTP client to Okapi, e.g.
+   *     its connection pool
+   */
+  public FolioResourceProvider(String okapiUrl, Vertx vertx,
+      WebClientOptions webClientOptions) {
+    this(okapiUrl, vertx, webClientOptions, new JsonObject());
+  }
+
+  /**
+   * Construct a FOLIO resource provider with the specified parameters.
+   * @param okapiUrl the URL for okapi
+   * @param vertx the vertx instance
+   * @param webClientOptions the options of the HTTP client to Okapi, e.g.
+   *     its connection pool
+   * @param okapiRequests the timeouts, retries and circuit breaker of the
+   *     requests to Okapi
+   */
+  public FolioResourceProvider(String okapiUrl, Vertx vertx,
+      WebClientOptions webClientOptions, JsonObject okapiRequests) {
+    this(okapiUrl, vertx, webClientOptions, okapiRequests, LatencyHistograms.defaults());
+  }
+
+  /**
+   * Construct a FOLIO resource provider with the specified parameters.
+   * @param okapiUrl the URL for okapi
+   * @param vertx the vertx instance
+   * @param webClientOptions the options of the HTTP client to Okapi, e.g.
+   *     its connection pool
+   * @param okapiRequests the timeouts, retries and circuit breaker of the
+   *     requests to Okapi
+   * @param latencyHistograms the histograms the timers of the requests
+   *     publish
+   */
   @Inject
   public FolioResourceProvider(
       @Named("okapiUrl") String okapiUrl,
-      @Named("vertx") Vertx vertx) {
+      @Named("vertx") Vertx vertx,
+      @Named("webClientOptions") WebClientOptions webClientOptions,
+      @Named("okapiRequests") JsonObject okapiRequests,
+      LatencyHistograms latencyHistograms) {
     this.okapiUrl = okapiUrl;
-    this.client = WebClient.create(vertx);
+    this.vertx = vertx;
+    this.poolMetrics = new ClientPoolMetrics(webClientOptions);
+    this.requestMetrics = new OkapiRequestMetrics(latencyHistograms);
+
+    final HttpClient httpClient = vertx.createHttpClient(webClientOptions);
+    httpClient.connectionHandler(poolMetrics::connectionOpened);
+    this.client = WebClient.wrap(httpClient, webClientOptions);
+
+    timeoutMillis = okapiRequests.getLong("timeout", 10_000L);
+    // the longest path prefixes first
+    final JsonObject timeouts = okapiRequests.getJsonObject("timeouts", new JsonObject());
+    endpointTimeouts = new TreeMap<>(Comparator.comparingInt(String::length).reversed()
+        .thenComparing(Comparator.naturalOrder()));
+    for (String path : timeouts.fieldNames()) {
+      endpointTimeouts.put(path, timeouts.getLong(path));
+    }
+    retries = okapiRequests.getInteger("retries", 2);
+    retryDelayMillis = okapiRequests.getLong("retryDelay", 100L);
+    failureThreshold = okapiRequests.getInteger("failureThreshold", 5);
+    resetTimeoutMillis = okapiRequests.getLong("resetTimeout", 30_000L);
   }
 
   @Override
   public Future<IResource> retrieveResource(IRequestData requestData) {
+    return withToken(requestData, data -> withRetries(data, 0));
+  }
+
+  /**
+   * Send a GET, which is idempotent, again after it failed for a reason that
+   * may go away, e.g. a timeout. The retries are delayed by a random time
+   * that grows with each retry, so the retries of many requests are spread.
+   */
+  private Future<IResource> withRetries(IRequestData requestData, int retry) {
+    return withCircuitBreaker(requestData, this::get).recover(t -> {
+      if (retry >= retries || !isTransient(t)) {
+        return Future.failedFuture(t);
+      }
+      final long delay = ThreadLocalRandom.current()
+          .nextLong(Math.max(1, retryDelayMillis << retry)) + 1;
+      log.info("Retrying {} in {} ms: {}", requestData.getPath(), delay, t.getMessage());
+      final Promise<IResource> promise = Promise.promise();
+      vertx.setTimer(delay, id -> withRetries(requestData, retry + 1).onComplete(promise));
+      return promise.future();
+    });
+  }
+
+  /**
+   * Send a request unless the circuit breaker of the tenant is open, and
+   * record whether FOLIO failed to answer it.
+   */
+  private Future<IResource> withCircuitBreaker(IRequestData requestData,
+      Function<IRequestData, Future<IResource>> send) {
+    final String tenant = Objects.requireNonNull(requestData.getSessionData(),
+        "SessionData cannot be null").getTenant();
+    final CircuitBreaker circuitBreaker = circuitBreakers.computeIfAbsent(tenant,
+        t -> new CircuitBreaker(Clock.systemUTC(), failureThreshold, resetTimeoutMillis));
+    if (!circuitBreaker.allowRequest()) {
+      return Future.failedFuture(new CircuitOpenThrowable(tenant));
+    }
+
+    return send.apply(requestData).onComplete(ar -> {
+      if (ar.succeeded() || !isFolioFailure(ar.cause())) {
+        circuitBreaker.succeeded();
+      } else {
+        final boolean wasOpen = circuitBreaker.isOpen();
+        circuitBreaker.failed();
+        if (!wasOpen && circuitBreaker.isOpen()) {
+          log.warn("Circuit breaker opened for tenant {}", tenant);
+        }
+      }
+    });
+  }
+
+  @Override
+  public void close() {
+    poolMetrics.close();
+  }
+
+  @Override
+  public boolean isUnavailable(String tenant) {
+    final CircuitBreaker circuitBreaker = circuitBreakers.get(tenant);
+    return circuitBreaker != null && circuitBreaker.isOpen();
+  }
+
+  /**
+   * Whether a request failed because FOLIO is failing, e.g. a timeout or a
+   * server error, rather than because of the request.
+   */
+  private static boolean isFolioFailure(Throwable t) {
+    if (t instanceof FolioRequestThrowable) {
+      return ((FolioRequestThrowable) t).getStatusCode() >= 500;
+    }
+    return !(t instanceof DecodeException || t instanceof CircuitOpenThrowable);
+  }
+
+  /**
+   * Whether a request may succeed when it is sent again.
+   */
+  private static boolean isTransient(Throwable t) {
+    if (t instanceof FolioRequestThrowable) {
+      final int statusCode = ((FolioRequestThrowable) t).getStatusCode();
+      return statusCode == 502 || statusCode == 503 || statusCode == 504;
+    }
+    return isFolioFailure(t);
+  }
+
+  private long timeout(String path) {
+    for (Map.Entry<String, Long> entry : endpointTimeouts.entrySet()) {
+      if (path.startsWith(entry.getKey())) {
+        return entry.getValue();
+      }
+    }
+    return timeoutMillis;
+  }
+
+  private Future<IResource> get(IRequestData requestData) {
     log.debug("retrieve resource {}", requestData::getPath);
 
     final HttpRequest<Buffer> request =
         client.getAbs(okapiUrl + requestData.getPath());
 
-    log.info("QS: {}", request.queryParams());
+    log.debug("QS: {}", request.queryParams());
 
     setHeaders(requestData.getHeaders(), request,
         Objects.requireNonNull(requestData.getSessionData(), "SessionData cannot be null"));
 
     final Future<IResource> future = Future.future();
+    final RequestTrace.Stage stage = RequestTrace.of(requestData.getSessionData())
+        .startStage(stageName("GET", requestData));
+    final Timer.Sample sample = requestMetrics.start();
+    poolMetrics.requestStarted();
     request
+        .timeout(timeout(requestData.getPath()))
         .expect(ResponsePredicate.create(ResponsePredicate.SC_OK, getErrorConverter()))
         // Some APIs return application/json, some return with the charset
         // parameter (e.g. circulation). So we can't use the built-in JSON
@@ -70,14 +259,29 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
         .expect(ResponsePredicate.contentType(Arrays.asList(
             "application/json",
             "application/json; charset=utf-8")))
-        .as(BodyCodec.jsonObject())
-        .send(ar -> handleResponse(future, ar));
+        .as(bodyCodec(requestData))
+        .send(ar -> handleResponse(future, ar, status -> {
+          stage.end(status);
+          requestMetrics.stop(sample, requestData.getClass(), "GET", status);
+        }));
 
     return future;
   }
 
+  private static BodyCodec<JsonObject> bodyCodec(IRequestData requestData) {
+    final JsonProjection projection = requestData.getProjection();
+    if (projection == null) {
+      return BodyCodec.jsonObject();
+    }
+    return BodyCodec.create(projection::decode);
+  }
+
   @Override
   public Future<IResource> createResource(IRequestData requestData) {
+    return withToken(requestData, data -> withCircuitBreaker(data, this::post));
+  }
+
+  private Future<IResource> post(IRequestData requestData) {
     log.debug("Create resource {}, body: {}",
         requestData::getPath,
         () -> requestData.getBody().encodePrettily());
@@ -88,7 +292,12 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
     setHeaders(requestData.getHeaders(), request, requestData.getSessionData());
 
     final Future<IResource> future = Future.future();
+    final RequestTrace.Stage stage = RequestTrace.of(requestData.getSessionData())
+        .startStage(stageName("POST", requestData));
+    final Timer.Sample sample = requestMetrics.start();
+    poolMetrics.requestStarted();
     request
+        .timeout(timeout(requestData.getPath()))
         .expect(ResponsePredicate.create(ResponsePredicate.SC_SUCCESS, getErrorConverter()))
         // Some APIs return application/json, some return with the charset
         // parameter (e.g. circulation). So we can't use the built-in JSON
@@ -98,11 +307,43 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
             "application/json; charset=utf-8")))
         .as(BodyCodec.jsonObject())
         .sendJsonObject(requestData.getBody(),
-            ar -> handleResponse(future, ar));
+            ar -> handleResponse(future, ar, status -> {
+              stage.end(status);
+              requestMetrics.stop(sample, requestData.getClass(), "POST", status);
+            }));
 
     return future;
   }
 
+  /**
+   * Send a request with the token of the session's token source, if it has
+   * one. When FOLIO rejects the token, the request is sent once more with a
+   * new token.
+   */
+  private Future<IResource> withToken(IRequestData requestData,
+      Function<IRequestData, Future<IResource>> send) {
+    final SessionData sessionData = requestData.getSessionData();
+    final TokenSource tokenSource = sessionData == null ? null : sessionData.getTokenSource();
+    if (tokenSource == null) {
+      return send.apply(requestData);
+    }
+
+    return tokenSource.getToken().compose(token -> {
+      sessionData.setAuthenticationToken(token);
+      return send.apply(requestData).recover(t -> {
+        if (!(t instanceof FolioRequestThrowable)
+            || ((FolioRequestThrowable) t).getStatusCode() != 401) {
+          return Future.failedFuture(t);
+        }
+        log.info("Authentication token rejected, retrying with a new token");
+        return tokenSource.refreshToken(token).compose(newToken -> {
+          sessionData.setAuthenticationToken(newToken);
+          return send.apply(requestData);
+        });
+      });
+    });
+  }
+
   @Override
   public Future<IResource> editResource(IRequestData fromData) {
     return null;
@@ -130,11 +371,29 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
 
     log.debug(HEADER_X_OKAPI_TENANT + ": {}", sessionData.getTenant());
     request.putHeader(HEADER_X_OKAPI_TENANT, sessionData.getTenant());
+
+    final String requestId = RequestTrace.of(sessionData).getRequestId();
+    if (requestId != null) {
+      request.putHeader(HEADER_X_OKAPI_REQUEST_ID, requestId);
+    }
+  }
+
+  /**
+   * Get the name of the stage of a request in the trace, e.g.
+   * {@code GET /circulation/loans}, without the query.
+   */
+  private static String stageName(String method, IRequestData requestData) {
+    final String path = requestData.getPath();
+    final int query = path.indexOf('?');
+    return method + " " + (query < 0 ? path : path.substring(0, query));
   }
 
   private void handleResponse(
       Future<IResource> future,
-      AsyncResult<HttpResponse<JsonObject>> ar) {
+      AsyncResult<HttpResponse<JsonObject>> ar,
+      Consumer<String> requestEnded) {
+    poolMetrics.requestEnded();
+    requestEnded.accept(status(ar));
     if (ar.succeeded()) {
       log.debug("FOLIO response body: {}",
           () -> ar.result().body().encodePrettily());
@@ -146,10 +405,26 @@ public class FolioResourceProvider implements IResourceProvider<IRequestData> {
     }
   }
 
+  /**
+   * Get the HTTP status of a response, or what went wrong when there is none.
+   */
+  private static String status(AsyncResult<HttpResponse<JsonObject>> ar) {
+    if (ar.succeeded()) {
+      return Integer.toString(ar.result().statusCode());
+    }
+    final Throwable t = ar.cause();
+    if (t instanceof FolioRequestThrowable
+        && ((FolioRequestThrowable) t).getStatusCode() > 0) {
+      return Integer.toString(((FolioRequestThrowable) t).getStatusCode());
+    }
+    return t instanceof TimeoutException ? "timeout" : "error";
+  }
+
   private ErrorConverter getErrorConverter() {
     return ErrorConverter.createFullBody(result -> {
       log.error("Error communicating with FOLIO: {}", result.response().bodyAsString());
-      return new FolioRequestThrowable(result.response().bodyAsString());
+      return new FolioRequestThrowable(result.response().bodyAsString(),
+          result.response().statusCode());
     });
   }
 }
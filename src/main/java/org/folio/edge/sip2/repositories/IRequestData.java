@@ -25,4 +25,14 @@ public interface IRequestData {
   default SessionData getSessionData() {
     return null;
   }
+
+  /**
+   * Get the fields of the response that are used.
+   *
+   * @return the projection of the fields, or {@code null} to decode all of
+   *     the response
+   */
+  default JsonProjection getProjection() {
+    return null;
+  }
 }
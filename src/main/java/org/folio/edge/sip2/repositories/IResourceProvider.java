@@ -14,4 +14,22 @@ public interface IResourceProvider<T> {
   Future<IResource> editResource(T fromData);
 
   Future<IResource> deleteResource(T resource);
+
+  /**
+   * Whether the resources of a tenant cannot be accessed at the moment, e.g.
+   * while the requests for the tenant are failing.
+   *
+   * @param tenant the tenant
+   * @return {@code true} if requests for the tenant are rejected
+   */
+  default boolean isUnavailable(String tenant) {
+    return false;
+  }
+
+  /**
+   * Release what the provider holds on to, e.g. its metrics, when it is no
+   * longer used.
+   */
+  default void close() {
+  }
 }
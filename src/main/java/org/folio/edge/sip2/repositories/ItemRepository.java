@@ -1,5 +1,6 @@
 package org.folio.edge.sip2.repositories;
 
+import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -13,8 +14,10 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import javax.inject.Inject;
+import javax.inject.Named;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.AsyncCache;
 import org.folio.edge.sip2.domain.messages.enumerations.CirculationStatus;
 import org.folio.edge.sip2.domain.messages.enumerations.ItemStatus;
 import org.folio.edge.sip2.domain.messages.enumerations.SecurityMarker;
@@ -30,20 +33,33 @@ import org.folio.edge.sip2.utils.Utils;
 /**
  * Provides interaction with the Items service.
  *
+ * <p>The holdings and instance records of items may be cached per tenant,
+ * since many copies share them.
+ *
  * @author mreno-EBSCO
  *
  */
 public class ItemRepository {
   private static final Logger log = LogManager.getLogger();
   private final IResourceProvider<IRequestData> resourceProvider;
+  private final AsyncCache<String, JsonObject> inventoryCache;
   private Clock clock;
 
-  @Inject
   ItemRepository(IResourceProvider<IRequestData> resourceProvider,
       Clock clock) {
+    this(resourceProvider, clock,
+        AsyncCache.<String, JsonObject>builder(Clock.systemUTC()).build());
+  }
+
+  @Inject
+  ItemRepository(IResourceProvider<IRequestData> resourceProvider,
+      Clock clock,
+      @Named("inventoryCache") AsyncCache<String, JsonObject> inventoryCache) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "Resource provider cannot be null");
     this.clock = Objects.requireNonNull(clock, "Clock cannot be null");
+    this.inventoryCache = Objects.requireNonNull(inventoryCache,
+        "Inventory cache cannot be null");
   }
 
   private Map<String, String> getBaseHeaders() {
@@ -234,119 +250,73 @@ public class ItemRepository {
         JsonObject instance = itemView.getJsonObject("instance");
         JsonObject loan = itemView.getJsonObject("loan");
         log.debug("itemView1: {}", () -> itemView);
-        NextHoldRequestData nextHoldRequestData =
-            new NextHoldRequestData(item.getString("id"), getBaseHeaders(), sessionData);
 
-        Future<IResource> nextHoldResult;
-        nextHoldResult = resourceProvider.retrieveResource(nextHoldRequestData);
-        
-        return nextHoldResult
-            .otherwise(Utils::handleErrors)
-            .compose(holdResource -> {
-              final ItemInformationResponseBuilder builder = ItemInformationResponse.builder();
-              OffsetDateTime dueDate = OffsetDateTime.now(clock);
-              if (!loan.isEmpty()) {
-                dueDate = OffsetDateTime.from(
-                    Utils.getFolioDateTimeFormatter().parse(loan.getString("dueDate"))
-                );
-              }
-              builder
-                  .circulationStatus(
-                      lookupCirculationStatus(item.getJsonObject("status").getString("name")))
-                  .securityMarker(SecurityMarker.NONE)
-                  .transactionDate(OffsetDateTime.now(clock))
-                  .dueDate(dueDate)
-                  .itemIdentifier(itemIdentifier)
-                  .titleIdentifier(item.getString("title"))
-                  .permanentLocation(item.getJsonObject("effectiveLocation").getString("name"))
-                  .destinationInstitutionId(
-                      item.getJsonObject("effectiveLocation").getString("name"))
-                  .isbn(getIsbn(instance.getJsonArray("identifiers")))
-                  .author(getAuthor(instance.getJsonArray("contributors")))
-                  .summary(getSummary(instance.getJsonArray("notes")))
-                  .screenMessage(Collections.singletonList(
-                      item.getJsonObject("status").getString("name")));
-              JsonObject holdResponse = holdResource.getResource();
-
-              if (holdResponse.getJsonArray("requests").size() > 0) {
-                JsonObject nextHold = holdResponse.getJsonArray("requests").getJsonObject(0);
-                JsonObject holdPatron = nextHold.getJsonObject("requester");
-                JsonObject holdLocation = nextHold.getJsonObject("pickupServicePoint");
-                builder
-                    .destinationInstitutionId(holdLocation.getString("name"))
-                    .holdPatronId(holdPatron.getString("barcode"))
-                    .holdPatronName(holdPatron.getString("lastName") + ", "
-                      + holdPatron.getString("firstName"));
-              }
-              if (item.getJsonObject("status")
-                  .getString("name").equals(ItemStatus.CHECKED_OUT.getValue())) {
-                    LoanRequestData loanRequestData =
-                        new LoanRequestData(item.getString("id"), getBaseHeaders(), sessionData);
-                    Future<IResource> loansResult = resourceProvider
-                        .retrieveResource(loanRequestData);
-                    //   loansResult
-                    //       .otherwiseEmpty()
-                    //       .map(IResource::getResource)
-                    //       .compose(loansResource -> {
-                    //         JsonArray loans = loansResource.getJsonArray("loans");
-                    //       }); //end compose
-              }
-      
-              return Future.succeededFuture(builder.build());
-            }
+        final ItemInformationResponseBuilder builder = ItemInformationResponse.builder();
+        OffsetDateTime dueDate = OffsetDateTime.now(clock);
+        if (!loan.isEmpty()) {
+          dueDate = OffsetDateTime.from(
+              Utils.getFolioDateTimeFormatter().parse(loan.getString("dueDate"))
           );
+        }
+        builder
+            .circulationStatus(
+                lookupCirculationStatus(item.getJsonObject("status").getString("name")))
+            .securityMarker(SecurityMarker.NONE)
+            .transactionDate(OffsetDateTime.now(clock))
+            .dueDate(dueDate)
+            .itemIdentifier(itemIdentifier)
+            .titleIdentifier(item.getString("title"))
+            .permanentLocation(item.getJsonObject("effectiveLocation").getString("name"))
+            .destinationInstitutionId(
+                item.getJsonObject("effectiveLocation").getString("name"))
+            .isbn(getIsbn(instance.getJsonArray("identifiers")))
+            .author(getAuthor(instance.getJsonArray("contributors")))
+            .summary(getSummary(instance.getJsonArray("notes")))
+            .screenMessage(Collections.singletonList(
+                item.getJsonObject("status").getString("name")));
+
+        JsonObject nextHold = itemView.getJsonObject("nextHold");
+        if (!nextHold.isEmpty()) {
+          JsonObject holdPatron = nextHold.getJsonObject("requester");
+          JsonObject holdLocation = nextHold.getJsonObject("pickupServicePoint");
+          builder
+              .destinationInstitutionId(holdLocation.getString("name"))
+              .holdPatronId(holdPatron.getString("barcode"))
+              .holdPatronName(holdPatron.getString("lastName") + ", "
+                + holdPatron.getString("firstName"));
+        }
+
+        return Future.succeededFuture(builder.build());
       }); // end compose
   }
 
   private Future<JsonObject> getItemView(ItemInformationRequestData itemInformationRequestData) {
-    
-    JsonObject itemJson = new JsonObject();
-    JsonObject holdingJson = new JsonObject();
-    JsonObject instanceJson = new JsonObject();
-    JsonObject loanJson = new JsonObject();
-    //TODO this should be refactored for concurrency not sequential, holds and loans
-    return getItem(itemInformationRequestData)
-        .compose(itemResult -> {
-          itemJson.mergeIn(itemResult);
-          String itemId = itemResult.getString("id");
-          String holdingsId = itemResult.getString("holdingsRecordId");
-          HoldingsRequestData holdingsRequestData = 
-              new HoldingsRequestData(holdingsId, getBaseHeaders(), 
-                itemInformationRequestData.sessionData);
-          LoanRequestData loanRequestData = 
-              new LoanRequestData(itemId, getBaseHeaders(), 
-                itemInformationRequestData.sessionData);
-
-          return getHoldings(holdingsRequestData)
-              .compose(holdingsResult -> {
-                holdingJson.mergeIn(holdingsResult);
-                String instanceId = holdingsResult.getString("instanceId");
-                InstanceRequestData instanceRequestData = 
-                    new InstanceRequestData(instanceId, getBaseHeaders(), 
-                      holdingsRequestData.sessionData);
-
-                return getInstance(instanceRequestData)
-                    .compose(instanceResult -> {
-                      instanceJson.mergeIn(instanceResult);
-                      //JsonArray identifiers = instanceResult.getJsonArray("identifiers");
-                      return getLoan(loanRequestData)
-                        .compose(loanResult -> {
-                          log.debug("LoanResult: {}", () -> loanResult);
-                          loanJson.mergeIn(loanResult);
-                          return Future.succeededFuture(loanResult);
-                        });
-                    });
+    final SessionData sessionData = itemInformationRequestData.sessionData;
 
+    return getItem(itemInformationRequestData)
+        .compose(item -> {
+          final String itemId = item.getString("id");
+          // Only the instance depends on another record, the holdings, so the
+          // loan and the next hold are retrieved at the same time as they are.
+          final Future<JsonObject> holdingFuture =
+              getHoldings(item.getString("holdingsRecordId"), sessionData);
+          final Future<JsonObject> instanceFuture = holdingFuture.compose(
+              holding -> getInstance(holding.getString("instanceId"), sessionData));
+          final Future<JsonObject> loanFuture = getLoan(
+              new LoanRequestData(itemId, getBaseHeaders(), sessionData));
+          final Future<JsonObject> nextHoldFuture = getNextHold(
+              new NextHoldRequestData(itemId, getBaseHeaders(), sessionData));
+
+          return CompositeFuture.all(instanceFuture, loanFuture, nextHoldFuture)
+              .map(result -> {
+                log.debug("LoanResult: {}", loanFuture::result);
+                return new JsonObject()
+                    .put("item", item)
+                    .put("holding", holdingFuture.result())
+                    .put("instance", instanceFuture.result())
+                    .put("loan", loanFuture.result())
+                    .put("nextHold", nextHoldFuture.result());
               });
-        })
-        .compose(ar -> {
-          JsonObject viewJson = new JsonObject();
-          viewJson
-              .put("item", itemJson)
-              .put("holding", holdingJson)
-              .put("instance", instanceJson)
-              .put("loan", loanJson);
-          return Future.succeededFuture(viewJson);
         });
   }
 
@@ -360,21 +330,40 @@ public class ItemRepository {
       });
   }
 
-  private Future<JsonObject> getHoldings(HoldingsRequestData holdingsRequestData) {
-    return resourceProvider
-      .retrieveResource(holdingsRequestData)
-      .compose(holdingsResource -> {
-        JsonObject holdings = holdingsResource.getResource();
-        return Future.succeededFuture(holdings);
-      });
+  private Future<JsonObject> getHoldings(String holdingsId, SessionData sessionData) {
+    final HoldingsRequestData holdingsRequestData =
+        new HoldingsRequestData(holdingsId, getBaseHeaders(), sessionData);
+
+    return inventoryCache.get(cacheKey(sessionData, "holdings", holdingsId), () ->
+        resourceProvider
+          .retrieveResource(holdingsRequestData)
+          .map(IResource::getResource));
   }
 
-  private Future<JsonObject> getInstance(InstanceRequestData instanceRequestData) {
+  private Future<JsonObject> getInstance(String instanceId, SessionData sessionData) {
+    final InstanceRequestData instanceRequestData =
+        new InstanceRequestData(instanceId, getBaseHeaders(), sessionData);
+
+    return inventoryCache.get(cacheKey(sessionData, "instances", instanceId), () ->
+        resourceProvider
+          .retrieveResource(instanceRequestData)
+          .map(IResource::getResource));
+  }
+
+  private static String cacheKey(SessionData sessionData, String type, String id) {
+    return sessionData.getTenant() + "/" + type + "/" + id;
+  }
+
+  private Future<JsonObject> getNextHold(NextHoldRequestData nextHoldRequestData) {
     return resourceProvider
-      .retrieveResource(instanceRequestData)
-      .compose(instanceResource -> {
-        JsonObject instance = instanceResource.getResource();
-        return Future.succeededFuture(instance);
+      .retrieveResource(nextHoldRequestData)
+      .otherwise(Utils::handleErrors)
+      .map(holdResource -> {
+        JsonObject holds = holdResource.getResource();
+        if (holds == null || holds.getJsonArray("requests", new JsonArray()).isEmpty()) {
+          return new JsonObject();
+        }
+        return holds.getJsonArray("requests").getJsonObject(0);
       });
   }
 
@@ -0,0 +1,112 @@
+package org.folio.edge.sip2.repositories;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The fields of a FOLIO response that are used, e.g. a few fields of each
+ * loan in a list of loans.
+ *
+ * <p>The response is decoded with a streaming parser: only the projected
+ * fields are copied to the returned {@code JsonObject}, everything else is
+ * skipped without being decoded. A field is named by its path, e.g.
+ * {@code loans.item.barcode}; a path through an array projects each element
+ * of the array, and all of a field is kept when no path goes below it.
+ */
+public final class JsonProjection {
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private final Node root = new Node();
+
+  private JsonProjection(String... paths) {
+    for (String path : paths) {
+      Objects.requireNonNull(path, "path cannot be null");
+      Node node = root;
+      for (String field : path.split("\\.")) {
+        node = node.fields.computeIfAbsent(field, f -> new Node());
+      }
+    }
+  }
+
+  /**
+   * Get the projection of fields.
+   *
+   * @param paths the paths of the fields
+   * @return the projection
+   */
+  public static JsonProjection of(String... paths) {
+    return new JsonProjection(paths);
+  }
+
+  /**
+   * Decode the projected fields of a JSON object.
+   *
+   * @param body the JSON object
+   * @return the projected fields
+   * @throws DecodeException if the body is not a JSON object
+   */
+  public JsonObject decode(Buffer body) {
+    try (JsonParser parser = JSON_FACTORY.createParser(body.getBytes())) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        throw new DecodeException("Expected a JSON object");
+      }
+      return readObject(parser, root);
+    } catch (IOException e) {
+      throw new DecodeException("Failed to decode: " + e.getMessage(), e);
+    }
+  }
+
+  private static Object readValue(JsonParser parser, Node node) throws IOException {
+    switch (parser.currentToken()) {
+      case START_OBJECT:
+        return readObject(parser, node);
+      case START_ARRAY:
+        final JsonArray array = new JsonArray();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+          array.add(readValue(parser, node));
+        }
+        return array;
+      case VALUE_STRING:
+        return parser.getText();
+      case VALUE_NUMBER_INT:
+        return parser.getNumberValue();
+      case VALUE_NUMBER_FLOAT:
+        return parser.getDoubleValue();
+      case VALUE_TRUE:
+        return Boolean.TRUE;
+      case VALUE_FALSE:
+        return Boolean.FALSE;
+      default:
+        return null;
+    }
+  }
+
+  private static JsonObject readObject(JsonParser parser, Node node) throws IOException {
+    final JsonObject object = new JsonObject();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      final String name = parser.getCurrentName();
+      parser.nextToken();
+      final Node field = node.fields.isEmpty() ? node : node.fields.get(name);
+      if (field == null) {
+        parser.skipChildren();
+      } else {
+        object.put(name, readValue(parser, field));
+      }
+    }
+    return object;
+  }
+
+  private static final class Node {
+    // no fields means all of them
+    private final Map<String, Node> fields = new HashMap<>();
+  }
+}
@@ -5,31 +5,67 @@ import static java.lang.Boolean.TRUE;
 
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import javax.inject.Inject;
+import javax.inject.Named;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.folio.edge.sip2.cache.AsyncCache;
 import org.folio.edge.sip2.domain.messages.requests.Login;
 import org.folio.edge.sip2.domain.messages.responses.LoginResponse;
+import org.folio.edge.sip2.repositories.domain.LoginToken;
 import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.session.TokenSource;
+import org.folio.edge.sip2.session.TokenSources;
 import org.folio.edge.sip2.utils.Utils;
 
 /**
  * Provides interaction with the login service.
  *
+ * <p>The tokens of SC logins may be cached per tenant and login, so a kiosk
+ * that reconnects does not log in to FOLIO again. A cached token is only used
+ * for the same password, is replaced before it expires and, when FOLIO
+ * rejects it, is replaced and the request retried. The token source of the
+ * latest login of each user is kept, see {@link TokenSources}.
+ *
  * @author mreno-EBSCO
  *
  */
 public class LoginRepository {
   private static final Logger log = LogManager.getLogger();
+  // the cache keys do not contain the passwords, only salted digests
+  private static final byte[] KEY_SALT = salt();
   private final IResourceProvider<IRequestData> resourceProvider;
+  private final AsyncCache<String, LoginToken> loginTokenCache;
+  private final TokenSources tokenSources;
 
-  @Inject
   LoginRepository(IResourceProvider<IRequestData> resourceProvider) {
+    this(resourceProvider, AsyncCache.<String, LoginToken>builder(Clock.systemUTC()).build());
+  }
+
+  LoginRepository(IResourceProvider<IRequestData> resourceProvider,
+      AsyncCache<String, LoginToken> loginTokenCache) {
+    this(resourceProvider, loginTokenCache, new TokenSources());
+  }
+
+  @Inject
+  LoginRepository(IResourceProvider<IRequestData> resourceProvider,
+      @Named("loginTokenCache") AsyncCache<String, LoginToken> loginTokenCache,
+      TokenSources tokenSources) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "Resource provider cannot be null");
+    this.loginTokenCache = Objects.requireNonNull(loginTokenCache,
+        "Login token cache cannot be null");
+    this.tokenSources = Objects.requireNonNull(tokenSources,
+        "Token sources cannot be null");
   }
 
   /**
@@ -48,6 +84,23 @@ public class LoginRepository {
         .put("username", user)
         .put("password", password);
 
+    if (loginTokenCache.isEnabled()) {
+      final TokenSource tokenSource = new CachedTokenSource(credentials, sessionData);
+      return tokenSource.getToken()
+          .map(authenticationToken -> {
+            sessionData.setUsername(user);
+            sessionData.setAuthenticationToken(authenticationToken);
+            sessionData.setTokenSource(tokenSource);
+            sessionData.setScLocation(locationCode);
+            tokenSources.put(sessionData.getTenant(), user, tokenSource);
+            return LoginResponse.builder().ok(TRUE).build();
+          })
+          .otherwise(t -> {
+            log.error("Login failed", t);
+            return LoginResponse.builder().ok(FALSE).build();
+          });
+    }
+
     final Future<IResource> result = resourceProvider
         .createResource(new LoginRequestData(credentials, sessionData));
 
@@ -63,6 +116,11 @@ public class LoginRepository {
           sessionData.setUsername(user);
           sessionData.setAuthenticationToken(authenticationToken);
           sessionData.setScLocation(locationCode);
+          if (resource.getResource() != null) {
+            // logs in for each request, as the tokens are not cached
+            tokenSources.put(sessionData.getTenant(), user,
+                new CachedTokenSource(credentials, sessionData));
+          }
           return Future.succeededFuture(
             LoginResponse.builder()
               .ok(resource.getResource() == null ? FALSE : TRUE)
@@ -91,6 +149,68 @@ public class LoginRepository {
         .otherwise(Utils::handleErrors);
   }
 
+  private static byte[] salt() {
+    final byte[] salt = new byte[16];
+    new SecureRandom().nextBytes(salt);
+    return salt;
+  }
+
+  private static String tokenCacheKey(String tenant, JsonObject credentials) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+    digest.update(KEY_SALT);
+    digest.update(credentials.getString("password", "").getBytes(StandardCharsets.UTF_8));
+    return tenant + "/" + credentials.getString("username") + "/"
+        + Base64.getEncoder().encodeToString(digest.digest());
+  }
+
+  /**
+   * The token of an SC login, shared by the sessions of the same login.
+   */
+  private final class CachedTokenSource implements TokenSource {
+    private final String key;
+    private final JsonObject credentials;
+    private final SessionData loginSession;
+
+    private CachedTokenSource(JsonObject credentials, SessionData sessionData) {
+      this.key = tokenCacheKey(sessionData.getTenant(), credentials);
+      this.credentials = credentials;
+      // logs in without a token, so a failed login is not retried
+      this.loginSession = SessionData.createSession(sessionData.getTenant(),
+          sessionData.getFieldDelimiter(), sessionData.isErrorDetectionEnabled(),
+          sessionData.getCharset());
+    }
+
+    @Override
+    public Future<String> getToken() {
+      return loginTokenCache.get(key, this::login).map(LoginToken::getToken);
+    }
+
+    @Override
+    public Future<String> refreshToken(String rejectedToken) {
+      loginTokenCache.invalidate(key, token -> token.getToken().equals(rejectedToken));
+      return getToken();
+    }
+
+    private Future<LoginToken> login() {
+      return resourceProvider
+          .createResource(new LoginRequestData(credentials, loginSession))
+          .map(resource -> {
+            final String authenticationToken = resource.getAuthenticationToken();
+            if (authenticationToken == null || resource.getResource() == null) {
+              throw new IllegalStateException(
+                  "Login does not have a valid authentication token");
+            }
+            return LoginToken.of(authenticationToken);
+          });
+    }
+  }
+
   private class LoginRequestData implements IRequestData {
     private final JsonObject body;
     private final SessionData sessionData;
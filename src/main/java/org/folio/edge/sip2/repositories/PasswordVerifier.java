@@ -7,6 +7,7 @@ import io.vertx.core.Future;
 import java.util.Objects;
 import javax.inject.Inject;
 import org.folio.edge.sip2.repositories.domain.PatronPasswordVerificationRecords;
+import org.folio.edge.sip2.session.RequestTrace;
 import org.folio.edge.sip2.session.SessionData;
 
 /**
@@ -41,8 +42,9 @@ public class PasswordVerifier {
     Objects.requireNonNull(patronIdentifier, "patronIdentifier cannot be null");
     Objects.requireNonNull(sessionData, "sessionData cannot be null");
 
+    final RequestTrace.Stage stage = RequestTrace.of(sessionData).startStage("verifyPassword");
     final Future<PatronPasswordVerificationRecords> loginFuture;
-    
+
     if (sessionData.isPatronPasswordVerificationRequired()) {
       loginFuture = usersRepository.getUserById(patronIdentifier, sessionData)
           .compose(user -> {
@@ -75,6 +77,6 @@ public class PasswordVerifier {
       });
     }
 
-    return loginFuture;
+    return loginFuture.onComplete(ar -> stage.end());
   }
 }
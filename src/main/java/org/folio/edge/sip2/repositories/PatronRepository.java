@@ -23,10 +23,12 @@ import java.time.Clock;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Predicate;
@@ -37,6 +39,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.folio.edge.sip2.domain.messages.enumerations.PatronStatus;
 import org.folio.edge.sip2.domain.messages.enumerations.RequestStatus;
+import org.folio.edge.sip2.domain.messages.enumerations.Summary;
 import org.folio.edge.sip2.domain.messages.requests.EndPatronSession;
 import org.folio.edge.sip2.domain.messages.requests.PatronInformation;
 import org.folio.edge.sip2.domain.messages.requests.PatronStatusRequest;
@@ -226,32 +229,37 @@ public class PatronRepository {
     unAvailableRequestStatus.add(RequestStatus.OPEN_NOT_YET_FILLED);
     unAvailableRequestStatus.add(RequestStatus.OPEN_AWAITING_DELIVERY);
     unAvailableRequestStatus.add(RequestStatus.OPEN_IN_TRANSIT);
-    // Get holds data (count and items) and store it in the builder
-    final Future<PatronInformationResponseBuilder> availableHoldsFuture = circulationRepository
-        .getRequestsByUserId(userId, "Hold", availableRequestStatus,
-            startItem, endItem, sessionData).map(
-              holds -> addHolds(holds, patronInformation.getSummary() == HOLD_ITEMS, builder));
-    final Future<PatronInformationResponseBuilder> unAvailableHoldsFuture = circulationRepository
-        .getRequestsByUserId(userId, "Hold", unAvailableRequestStatus,
-            startItem, endItem, sessionData).map(
-              holds -> addUnAvailableHolds(holds, 
-                  patronInformation.getSummary() == UNAVAILABLE_HOLDS, builder));
+    // Get holds data (count and items) and store it in the builder. Only the
+    // summary category needs its items, the others are just counted.
+    final Summary summary = patronInformation.getSummary();
+    final Future<PatronInformationResponseBuilder> availableHoldsFuture = summary == HOLD_ITEMS
+        ? circulationRepository.getRequestsByUserId(userId, "Hold", availableRequestStatus,
+            startItem, endItem, sessionData).map(holds -> addHolds(holds, true, builder))
+        : circulationRepository.countRequestsByUserId(userId, "Hold", availableRequestStatus,
+            sessionData).map(count -> builder.holdItemsCount(itemsCount(count)));
+    final Future<PatronInformationResponseBuilder> unAvailableHoldsFuture =
+        summary == UNAVAILABLE_HOLDS
+        ? circulationRepository.getRequestsByUserId(userId, "Hold", unAvailableRequestStatus,
+            startItem, endItem, sessionData).map(holds -> addUnAvailableHolds(holds, true, builder))
+        : circulationRepository.countRequestsByUserId(userId, "Hold", unAvailableRequestStatus,
+            sessionData).map(count -> builder.unavailableHoldsCount(itemsCount(count)));
     // Get overdue loans data (count and items) and store it in the builder
     // Due date needs to be UTC since it is being used in CQL for time comparison in the DB.
-    final Future<PatronInformationResponseBuilder> overdueFuture =
-        circulationRepository.getOverdueLoansByUserId(userId, OffsetDateTime.now(clock),
-        startItem, endItem, sessionData).map(
-          overdues -> addOverdueItems(overdues,
-              patronInformation.getSummary() == OVERDUE_ITEMS, builder));
-    final Future<PatronInformationResponseBuilder> loansFuture =
-        circulationRepository.getLoansByUserId(userId,
-        startItem, endItem, sessionData).map(
-          loans -> addChargedItems(loans,
-              patronInformation.getSummary() == CHARGED_ITEMS, builder));
+    final Future<PatronInformationResponseBuilder> overdueFuture = summary == OVERDUE_ITEMS
+        ? circulationRepository.getOverdueLoansByUserId(userId, OffsetDateTime.now(clock),
+            startItem, endItem, sessionData)
+            .map(overdues -> addOverdueItems(overdues, true, builder))
+        : circulationRepository.countOverdueLoansByUserId(userId, OffsetDateTime.now(clock),
+            sessionData).map(count -> builder.overdueItemsCount(itemsCount(count)));
+    final Future<PatronInformationResponseBuilder> loansFuture = summary == CHARGED_ITEMS
+        ? circulationRepository.getLoansByUserId(userId, startItem, endItem, sessionData)
+            .map(loans -> addChargedItems(loans, true, builder))
+        : circulationRepository.countLoansByUserId(userId, sessionData)
+            .map(count -> builder.chargedItemsCount(itemsCount(count)));
     // Get recalled items data (count and items) and store it in the builder
     final Future<PatronInformationResponseBuilder> recallsFuture =
-        getRecalls(userId, sessionData).compose(recalls -> addRecalls(recalls, startItem, endItem,
-            patronInformation.getSummary() == RECALL_ITEMS, builder));
+        getRecalls(userId, sessionData).map(recalls -> addRecalls(recalls, startItem, endItem,
+            summary == RECALL_ITEMS, builder));
 
     final Future<PatronInformationResponseBuilder> getFeeAmountFuture = 
         feeFinesRepository.getFeeAmountByUserId(userId, sessionData)
@@ -557,22 +565,23 @@ public class PatronRepository {
     return builder.overdueItemsCount(Integer.valueOf(overdueItemsCount)).overdueItems(overdueItems);
   }
 
-  @SuppressWarnings("rawtypes")
-  private Future<PatronInformationResponseBuilder> addRecalls(List<Future<JsonObject>> recalls,
+  private static Integer itemsCount(Integer totalRecords) {
+    return totalRecords == null ? 0 : Math.min(totalRecords, 9999);
+  }
+
+  private PatronInformationResponseBuilder addRecalls(Collection<JsonObject> recalls,
       Integer startItem, Integer endItem, boolean details,
       PatronInformationResponseBuilder builder) {
-    return CompositeFuture.all(new ArrayList<Future>(recalls)).map(result -> {
-      final int recallItemsCount = Math.min(countRecallItems(recalls), 9999);
-      final List<String> recallItems;
+    final int recallItemsCount = Math.min(recalls.size(), 9999);
+    final List<String> recallItems;
 
-      if (details) {
-        recallItems = getRecallItems(recalls, startItem, endItem);
-      } else {
-        recallItems = null;
-      }
+    if (details) {
+      recallItems = getRecallItems(recalls, startItem, endItem);
+    } else {
+      recallItems = null;
+    }
 
-      return builder.recallItemsCount(Integer.valueOf(recallItemsCount)).recallItems(recallItems);
-    });
+    return builder.recallItemsCount(Integer.valueOf(recallItemsCount)).recallItems(recallItems);
   }
 
   private String getPatronPersonalName(Personal personal, String defaultPersonalName) {
@@ -679,27 +688,13 @@ public class PatronRepository {
     return getTitlesForLoans(requestArray);
   }
 
-  private int countRecallItems(List<Future<JsonObject>> recallItems) {
-    return (int) recallItems.stream()
-        .map(Future::result)
-        .filter(Objects::nonNull)
-        .filter(jo -> getTotalRecords(jo) > 0)
-        .count();
-  }
-
-  private List<String> getRecallItems(List<Future<JsonObject>> recallItems, Integer startItem,
+  private List<String> getRecallItems(Collection<JsonObject> recallItems, Integer startItem,
       Integer endItem) {
     final int skip = startItem == null ? 0 : startItem.intValue() - 1;
     final int maxSize = endItem == null ? 9999 : endItem.intValue() - skip;
     return recallItems.stream()
-        .map(Future::result)
+        .map(request -> getChildString(request, FIELD_INSTANCE, FIELD_TITLE))
         .filter(Objects::nonNull)
-        .filter(jo -> getTotalRecords(jo) > 0)
-        .map(jo -> jo.getJsonArray(FIELD_REQUESTS, new JsonArray()).stream().findAny()
-            .map(o -> (JsonObject) o)
-            .map(jsonObject -> getChildString(jsonObject, FIELD_INSTANCE, FIELD_TITLE)))
-        .filter(Optional::isPresent)
-        .map(Optional::get)
         .sorted(Comparator.naturalOrder())
         .skip(skip)
         .limit(maxSize)
@@ -732,18 +727,23 @@ public class PatronRepository {
             Collectors.joining(" "), result -> result.isEmpty() ? null : result));
   }
 
-  private Future<List<Future<JsonObject>>> getRecalls(String userId, SessionData sessionData) {
+  /**
+   * Get the first open request of each item the patron has on loan.
+   */
+  private Future<Collection<JsonObject>> getRecalls(String userId, SessionData sessionData) {
     final Future<JsonObject> loansFuture =
         circulationRepository.getLoansByUserId(userId, null, null, sessionData);
 
-    return loansFuture.map(jo -> {
+    return loansFuture.compose(jo -> {
       final JsonArray loans = jo == null ? new JsonArray()
           : jo.getJsonArray("loans", new JsonArray());
-      return loans.stream()
-          .map(o -> (JsonObject) o)
-          .map(loan -> circulationRepository.getRequestsByItemId(loan.getString("itemId"),
-              "Recall", null, null, sessionData))
+      final List<String> itemIds = loans.stream()
+          .map(o -> ((JsonObject) o).getString("itemId"))
+          .filter(Objects::nonNull)
+          .distinct()
           .collect(Collectors.toList());
+      return circulationRepository.getRequestsByItemIds(itemIds, sessionData)
+          .map(Map::values);
     });
   }
 }
@@ -0,0 +1,131 @@
+package org.folio.edge.sip2.repositories;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import io.vertx.micrometer.backends.BackendRegistries;
+import java.time.Clock;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import org.folio.edge.sip2.cache.AsyncCache;
+import org.folio.edge.sip2.session.SessionData;
+
+/**
+ * Resource provider that merges identical GETs in flight into one request,
+ * e.g. the SC status and patron requests of the kiosks of a library that
+ * opens. GETs are identical when they have the same tenant, authentication
+ * token, path, headers and projection; each caller gets its own copy of the
+ * response. Nothing is kept once the response arrives, and all other requests
+ * are passed on as they are.
+ */
+public class SingleFlightResourceProvider implements IResourceProvider<IRequestData> {
+  private static final String METRICS_PREFIX = "org.folio.edge.sip2.okapi.";
+
+  private final IResourceProvider<IRequestData> delegate;
+  // values are never kept, only concurrent loads of a key are merged
+  private final AsyncCache<List<Object>, IResource> inFlight =
+      AsyncCache.<List<Object>, IResource>builder(Clock.systemUTC()).ttl(v -> 0).build();
+  private final MeterRegistry registry = Optional.ofNullable(BackendRegistries.getDefaultNow())
+      .orElse(new SimpleMeterRegistry());
+  private final Counter requests;
+  private final Counter coalesced;
+  private final Gauge coalescedRatioGauge;
+
+  /**
+   * Construct a provider that merges the GETs of another provider.
+   *
+   * @param delegate the provider that sends the requests
+   */
+  public SingleFlightResourceProvider(IResourceProvider<IRequestData> delegate) {
+    this.delegate = Objects.requireNonNull(delegate, "Delegate cannot be null");
+
+    requests = Counter.builder(METRICS_PREFIX + "get.requests")
+        .description("The GETs to Okapi, including the ones merged")
+        .register(registry);
+    coalesced = Counter.builder(METRICS_PREFIX + "get.coalesced")
+        .description("The GETs to Okapi merged into an identical GET in flight")
+        .register(registry);
+    coalescedRatioGauge = Gauge.builder(METRICS_PREFIX + "get.coalesced.ratio", this,
+        SingleFlightResourceProvider::coalescedRatio)
+        .description("The share of the GETs to Okapi merged into an identical GET in flight")
+        .register(registry);
+  }
+
+  @Override
+  public Future<IResource> retrieveResource(IRequestData requestData) {
+    final SessionData sessionData = requestData.getSessionData();
+    if (sessionData == null) {
+      return delegate.retrieveResource(requestData);
+    }
+
+    final List<Object> key = Arrays.asList(sessionData.getTenant(),
+        sessionData.getAuthenticationToken(), requestData.getPath(),
+        requestData.getHeaders(), requestData.getProjection());
+    final boolean[] sent = new boolean[1];
+    final Future<IResource> result = inFlight.get(key, () -> {
+      sent[0] = true;
+      return delegate.retrieveResource(requestData);
+    });
+
+    requests.increment();
+    if (sent[0]) {
+      return result;
+    }
+    coalesced.increment();
+    return result.map(SingleFlightResourceProvider::copy);
+  }
+
+  @Override
+  public Future<IResource> createResource(IRequestData requestData) {
+    return delegate.createResource(requestData);
+  }
+
+  @Override
+  public Future<IResource> editResource(IRequestData requestData) {
+    return delegate.editResource(requestData);
+  }
+
+  @Override
+  public Future<IResource> deleteResource(IRequestData requestData) {
+    return delegate.deleteResource(requestData);
+  }
+
+  @Override
+  public boolean isUnavailable(String tenant) {
+    return delegate.isUnavailable(tenant);
+  }
+
+  @Override
+  public void close() {
+    // the gauge would keep reporting this provider after a redeployment
+    registry.remove(coalescedRatioGauge);
+    delegate.close();
+  }
+
+  MeterRegistry registry() {
+    return registry;
+  }
+
+  double requestsCount() {
+    return requests.count();
+  }
+
+  double coalescedCount() {
+    return coalesced.count();
+  }
+
+  double coalescedRatio() {
+    final double count = requests.count();
+    return count == 0 ? 0 : coalesced.count() / count;
+  }
+
+  private static IResource copy(IResource resource) {
+    final JsonObject json = resource.getResource();
+    return new FolioResource(json == null ? null : json.copy(), resource.getMetadata());
+  }
+}
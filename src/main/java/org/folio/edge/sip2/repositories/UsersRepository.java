@@ -3,11 +3,15 @@ package org.folio.edge.sip2.repositories;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import java.time.Clock;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import javax.inject.Inject;
+import javax.inject.Named;
+import org.folio.edge.sip2.cache.AsyncCache;
 import org.folio.edge.sip2.repositories.domain.User;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.edge.sip2.utils.Utils;
@@ -15,16 +19,29 @@ import org.folio.edge.sip2.utils.Utils;
 /**
  * Provides interaction with the users service.
  *
+ * <p>Users may be cached per tenant, e.g. for the patron information, patron
+ * status and fee paid requests of a patron at a kiosk. A found user is cached
+ * under its barcode, external system ID and username, so a lookup with any of
+ * them is answered from the cache. An identifier without a user is cached
+ * too, usually for a shorter time.
+ *
  * @author mreno-EBSCO
  *
  */
 public class UsersRepository {
   private final IResourceProvider<IRequestData> resourceProvider;
+  private final AsyncCache<String, Optional<User>> usersCache;
 
-  @Inject
   UsersRepository(IResourceProvider<IRequestData> resourceProvider) {
+    this(resourceProvider, AsyncCache.<String, Optional<User>>builder(Clock.systemUTC()).build());
+  }
+
+  @Inject
+  UsersRepository(IResourceProvider<IRequestData> resourceProvider,
+      @Named("usersCache") AsyncCache<String, Optional<User>> usersCache) {
     this.resourceProvider = Objects.requireNonNull(resourceProvider,
         "Resource provider cannot be null");
+    this.usersCache = Objects.requireNonNull(usersCache, "Users cache cannot be null");
   }
 
   /**
@@ -40,6 +57,19 @@ public class UsersRepository {
     Objects.requireNonNull(identifier, "identifier cannot be null");
     Objects.requireNonNull(sessionData, "sessionData cannot be null");
 
+    final String tenant = sessionData.getTenant();
+
+    return usersCache.get(cacheKey(tenant, identifier), () -> retrieveUser(identifier, sessionData)
+        .map(user -> {
+          user.ifPresent(u -> cacheAliases(tenant, u));
+          return user;
+        }))
+        // failures are not cached
+        .otherwise(Optional.empty())
+        .map(user -> user.orElse(null));
+  }
+
+  private Future<Optional<User>> retrieveUser(String identifier, SessionData sessionData) {
     final Map<String, String> headers = new HashMap<>();
     headers.put("accept", "application/json");
 
@@ -48,9 +78,22 @@ public class UsersRepository {
     final Future<IResource> result = resourceProvider.retrieveResource(getUserByBarcodeRequestData);
 
     return result
-        .otherwise(() -> null)
         .map(IResource::getResource)
-        .map(this::getUserFromList);
+        .map(this::getUserFromList)
+        .map(Optional::ofNullable);
+  }
+
+  private void cacheAliases(String tenant, User user) {
+    for (String alias : new String[] {user.getBarcode(), user.getExtSystemId(),
+        user.getUsername()}) {
+      if (alias != null) {
+        usersCache.put(cacheKey(tenant, alias), Optional.of(user));
+      }
+    }
+  }
+
+  private static String cacheKey(String tenant, String identifier) {
+    return tenant + "/" + identifier;
   }
 
   private User getUserFromList(JsonObject userList) {
@@ -0,0 +1,62 @@
+package org.folio.edge.sip2.repositories.domain;
+
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+/**
+ * An authentication token returned by {@code /authn/login} and when it
+ * expires. The expiry is the {@code exp} claim of the token, which is a JWT.
+ */
+public final class LoginToken {
+  private final String token;
+  private final long expiresAt;
+
+  private LoginToken(String token, long expiresAt) {
+    this.token = token;
+    this.expiresAt = expiresAt;
+  }
+
+  /**
+   * Get the login token for a token.
+   *
+   * @param token the token
+   * @return the login token
+   */
+  public static LoginToken of(String token) {
+    Objects.requireNonNull(token, "token cannot be null");
+
+    long expiresAt = Long.MAX_VALUE;
+    final String[] parts = token.split("\\.");
+    if (parts.length == 3) {
+      try {
+        final JsonObject claims = new JsonObject(
+            new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8));
+        final Long exp = claims.getLong("exp");
+        if (exp != null) {
+          expiresAt = exp * 1000;
+        }
+      } catch (IllegalArgumentException | DecodeException | ClassCastException e) {
+        // not a JWT we can read, assume it does not expire
+      }
+    }
+
+    return new LoginToken(token, expiresAt);
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  /**
+   * Get the time the token expires.
+   *
+   * @return the expiry in milliseconds since the epoch, or
+   *     {@code Long.MAX_VALUE} if the token does not expire
+   */
+  public long getExpiresAt() {
+    return expiresAt;
+  }
+}
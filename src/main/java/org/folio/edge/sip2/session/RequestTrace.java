@@ -0,0 +1,173 @@
+package org.folio.edge.sip2.session;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * The trace of a SIP request: the request ID sent to FOLIO as
+ * {@code X-Okapi-Request-Id}, and the time spent in each stage of the
+ * request, e.g. parsing, each request to FOLIO and writing the response.
+ *
+ * <p>When the INFO level of this logger is enabled, the trace is logged as
+ * a JSON event when the request ends. The stages of a request are recorded
+ * on the event loop of its connection.
+ */
+public final class RequestTrace {
+  private static final Logger log = LogManager.getLogger();
+  private static final RequestTrace NONE = new RequestTrace(null, null, false);
+  private static final Stage NO_STAGE = new Stage(null, 0L);
+
+  private final String requestId;
+  private final String tenant;
+  private final boolean recording;
+  private final long started = System.nanoTime();
+  private final List<Stage> stages = new ArrayList<>();
+
+  private String command;
+  private String outcome;
+
+  private RequestTrace(String requestId, String tenant, boolean recording) {
+    this.requestId = requestId;
+    this.tenant = tenant;
+    this.recording = recording;
+  }
+
+  /**
+   * Start the trace of a request, with a new request ID.
+   *
+   * @param tenant the tenant of the connection
+   * @return the trace
+   */
+  public static RequestTrace start(String tenant) {
+    return start(tenant, log.isInfoEnabled());
+  }
+
+  static RequestTrace start(String tenant, boolean recording) {
+    // the format of the request IDs Okapi generates
+    return new RequestTrace(String.format("%06d", ThreadLocalRandom.current().nextInt(1000000)),
+        tenant, recording);
+  }
+
+  /**
+   * Get the trace of the request a session is processing.
+   *
+   * @param sessionData the session, may be {@code null}
+   * @return the trace, which records nothing if there is no request
+   */
+  public static RequestTrace of(SessionData sessionData) {
+    final RequestTrace trace = sessionData == null ? null : sessionData.getRequestTrace();
+    return trace == null ? NONE : trace;
+  }
+
+  /**
+   * Get the request ID.
+   *
+   * @return the request ID, {@code null} if there is no request
+   */
+  public String getRequestId() {
+    return requestId;
+  }
+
+  /**
+   * Set the command of the request, once it is parsed.
+   *
+   * @param command the command
+   */
+  public void setCommand(String command) {
+    this.command = command;
+  }
+
+  /**
+   * Start a stage of the request.
+   *
+   * @param name the name of the stage, e.g. {@code parse}
+   * @return the stage, to end when it is done
+   */
+  public Stage startStage(String name) {
+    if (!recording) {
+      return NO_STAGE;
+    }
+    final Stage stage = new Stage(name, System.nanoTime());
+    stages.add(stage);
+    return stage;
+  }
+
+  /**
+   * End the trace and log it.
+   *
+   * @param outcome how the request ended, e.g. {@code ok} when its response
+   *     was written or {@code error}
+   */
+  public void end(String outcome) {
+    if (!recording) {
+      return;
+    }
+    this.outcome = outcome;
+    final long duration = System.nanoTime() - started;
+    log.info("{}", () -> toJson(duration).encode());
+  }
+
+  JsonObject toJson(long duration) {
+    final JsonArray stageEvents = new JsonArray();
+    for (Stage stage : stages) {
+      final JsonObject event = new JsonObject()
+          .put("name", stage.name)
+          .put("startMs", millis(stage.start - started))
+          .put("durationMs", stage.duration < 0 ? null : millis(stage.duration));
+      if (stage.status != null) {
+        event.put("status", stage.status);
+      }
+      stageEvents.add(event);
+    }
+    return new JsonObject()
+        .put("requestId", requestId)
+        .put("tenant", tenant)
+        .put("command", command)
+        .put("outcome", outcome)
+        .put("durationMs", millis(duration))
+        .put("stages", stageEvents);
+  }
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1000.0) / 1000.0;
+  }
+
+  /**
+   * A stage of a request.
+   */
+  public static final class Stage {
+    private final String name;
+    private final long start;
+    private long duration = -1L;
+    private String status;
+
+    private Stage(String name, long start) {
+      this.name = name;
+      this.start = start;
+    }
+
+    /**
+     * End the stage.
+     */
+    public void end() {
+      end(null);
+    }
+
+    /**
+     * End the stage with its outcome.
+     *
+     * @param status the outcome, e.g. the HTTP status of a request to FOLIO
+     */
+    public void end(String status) {
+      if (name != null && duration < 0) {
+        this.status = status;
+        duration = System.nanoTime() - start;
+      }
+    }
+  }
+}
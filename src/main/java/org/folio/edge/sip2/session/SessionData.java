@@ -8,14 +8,8 @@ public class SessionData {
   private final boolean errorDetectionEnabled;
   private final String charset;
 
-  private String scLocation;
-  private String authenticationToken;
-  private int maxPrintWidth = -1; // since 0 is valid
-  private String username;
-  private String password; // should we really save this?
-  private PreviousMessage previousMessage;
-  private String timeZone;
-  private boolean patronPasswordVerificationRequired;
+  private final State state;
+  private final RequestTrace requestTrace;
 
   private SessionData(String tenant, char fieldDelimiter,
       boolean errorDetectionEnabled, String charset) {
@@ -23,46 +17,65 @@ public class SessionData {
     this.fieldDelimiter = fieldDelimiter;
     this.errorDetectionEnabled = errorDetectionEnabled;
     this.charset = charset;
+    this.state = new State();
+    this.requestTrace = null;
+  }
+
+  private SessionData(SessionData session, RequestTrace requestTrace) {
+    this.tenant = session.tenant;
+    this.fieldDelimiter = session.fieldDelimiter;
+    this.errorDetectionEnabled = session.errorDetectionEnabled;
+    this.charset = session.charset;
+    this.state = session.state;
+    this.requestTrace = requestTrace;
   }
 
   public String getScLocation() {
-    return scLocation;
+    return state.scLocation;
   }
 
   public void setScLocation(String scLocation) {
-    this.scLocation = scLocation;
+    state.scLocation = scLocation;
   }
 
   public String getAuthenticationToken() {
-    return authenticationToken;
+    return state.authenticationToken;
   }
 
   public void setAuthenticationToken(String authenticationToken) {
-    this.authenticationToken = authenticationToken;
+    state.authenticationToken = authenticationToken;
+  }
+
+  public TokenSource getTokenSource() {
+    return state.tokenSource;
+  }
+
+  public void setTokenSource(TokenSource tokenSource) {
+    state.tokenSource = tokenSource;
   }
 
   public int getMaxPrintWidth() {
-    return maxPrintWidth;
+    return state.maxPrintWidth;
   }
 
   public void setMaxPrintWidth(int maxPrintWidth) {
-    this.maxPrintWidth = maxPrintWidth;
+    state.maxPrintWidth = maxPrintWidth;
   }
 
   public String getUsername() {
-    return username;
+    return state.username;
   }
 
   public void setUsername(String username) {
-    this.username = username;
+    state.username = username;
   }
 
   public String getPassword() {
-    return password;
+    return state.password;
   }
 
   public void setPassword(String password) {
-    this.password = password;
+    state.password = password;
   }
 
   public char getFieldDelimiter() {
@@ -82,27 +95,51 @@ public class SessionData {
   }
 
   public PreviousMessage getPreviousMessage() {
-    return previousMessage;
+    return state.previousMessage;
   }
 
   public void setPreviousMessage(PreviousMessage message) {
-    this.previousMessage = message;
+    state.previousMessage = message;
   }
 
   public String getTimeZone() {
-    return timeZone;
+    return state.timeZone;
   }
 
   public void setTimeZone(String timeZone) {
-    this.timeZone = timeZone;
+    state.timeZone = timeZone;
   }
 
   public boolean isPatronPasswordVerificationRequired() {
-    return patronPasswordVerificationRequired;
+    return state.patronPasswordVerificationRequired;
   }
 
   public void setPatronPasswordVerificationRequired(boolean patronPasswordVerificationRequired) {
-    this.patronPasswordVerificationRequired = patronPasswordVerificationRequired;
+    state.patronPasswordVerificationRequired = patronPasswordVerificationRequired;
+  }
+
+  public Integer getTimeoutPeriod() {
+    return state.timeoutPeriod;
+  }
+
+  public void setTimeoutPeriod(Integer timeoutPeriod) {
+    state.timeoutPeriod = timeoutPeriod;
+  }
+
+  public RequestTrace getRequestTrace() {
+    return requestTrace;
+  }
+
+  /**
+   * Get a view of the session for a request, which shares the state of the
+   * session but carries the trace of the request, so that requests
+   * pipelined on a connection are traced separately.
+   *
+   * @param requestTrace the trace of the request
+   * @return the view of the session
+   */
+  public SessionData forRequest(RequestTrace requestTrace) {
+    return new SessionData(this, requestTrace);
   }
 
   public static SessionData createSession(String tenant, char fieldDelimiter,
@@ -110,4 +147,20 @@ public class SessionData {
     return new SessionData(tenant, fieldDelimiter, errorDetectionEnabled,
         charset);
   }
+
+  /**
+   * The state of a session, shared by the views of its requests.
+   */
+  private static final class State {
+    private String scLocation;
+    private String authenticationToken;
+    private TokenSource tokenSource;
+    private int maxPrintWidth = -1; // since 0 is valid
+    private String username;
+    private String password; // should we really save this?
+    private PreviousMessage previousMessage;
+    private String timeZone;
+    private boolean patronPasswordVerificationRequired;
+    private Integer timeoutPeriod; // in tenths of a second, as in the ACS status
+  }
 }
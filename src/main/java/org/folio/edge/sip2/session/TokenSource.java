@@ -0,0 +1,24 @@
+package org.folio.edge.sip2.session;
+
+import io.vertx.core.Future;
+
+/**
+ * Supplies the authentication token of a session. The token may be shared by
+ * the sessions of the same login and is replaced before it expires.
+ */
+public interface TokenSource {
+  /**
+   * Get a token to send a request with.
+   *
+   * @return the token
+   */
+  Future<String> getToken();
+
+  /**
+   * Get a new token after FOLIO rejected a token, e.g. because it expired.
+   *
+   * @param rejectedToken the token FOLIO rejected
+   * @return the new token
+   */
+  Future<String> refreshToken(String rejectedToken);
+}
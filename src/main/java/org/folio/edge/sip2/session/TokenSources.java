@@ -0,0 +1,44 @@
+package org.folio.edge.sip2.session;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.inject.Singleton;
+
+/**
+ * The token sources of the SC logins, by tenant and login user, e.g. to send
+ * the checkins accepted offline once FOLIO is back, after the session that
+ * accepted them has ended. The latest login of a user replaces the earlier
+ * ones. The token sources are kept in memory only, so the credentials of the
+ * logins are never written anywhere.
+ */
+@Singleton
+public final class TokenSources {
+  private final Map<String, TokenSource> tokenSources = new ConcurrentHashMap<>();
+
+  /**
+   * Keep the token source of a login.
+   *
+   * @param tenant the tenant
+   * @param username the login user
+   * @param tokenSource the token source of the login
+   */
+  public void put(String tenant, String username, TokenSource tokenSource) {
+    tokenSources.put(key(tenant, username), tokenSource);
+  }
+
+  /**
+   * Get the token source of the latest login of a user.
+   *
+   * @param tenant the tenant
+   * @param username the login user
+   * @return the token source, {@code null} if the user did not log in since
+   *     edge-sip2 started
+   */
+  public TokenSource get(String tenant, String username) {
+    return tokenSources.get(key(tenant, username));
+  }
+
+  private static String key(String tenant, String username) {
+    return tenant + "/" + username;
+  }
+}
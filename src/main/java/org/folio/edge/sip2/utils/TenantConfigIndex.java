@@ -0,0 +1,163 @@
+package org.folio.edge.sip2.utils;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Objects;
+
+/**
+ * An immutable index of the tenant configurations by the subnets of their
+ * self service kiosks. The {@code scSubnet} CIDRs of the {@code scTenants}
+ * array, IPv4 or IPv6, are kept in a binary prefix trie, so a client address
+ * is looked up in time proportional to the prefix length, independent of
+ * the number of tenants.
+ *
+ * <p>When subnets overlap, the most specific subnet (the longest prefix)
+ * containing the address wins. Of several tenants with the same subnet, the
+ * first one is used.
+ */
+public final class TenantConfigIndex {
+  private static final String SC_TENANTS = "scTenants";
+  private static final String SC_SUBNET = "scSubnet";
+
+  private final JsonObject sip2config;
+  private final Node ipv4 = new Node();
+  private final Node ipv6 = new Node();
+
+  private TenantConfigIndex(JsonObject sip2config) {
+    this.sip2config = sip2config;
+  }
+
+  /**
+   * Build the index for a SIP2 configuration. See
+   * {@link TenantUtils#lookupTenantConfigForIPaddress(JsonObject, String)}
+   * for the layout of the configuration.
+   *
+   * @param sip2config the SIP2 edge module config
+   * @return the index
+   * @throws IllegalArgumentException if a tenant does not have a valid
+   *     {@code scSubnet}
+   */
+  public static TenantConfigIndex of(JsonObject sip2config) {
+    Objects.requireNonNull(sip2config, "sip2config cannot be null");
+
+    final TenantConfigIndex index = new TenantConfigIndex(sip2config);
+    final JsonArray tenants = sip2config.getJsonArray(SC_TENANTS);
+    if (tenants != null) {
+      for (int i = 0; i < tenants.size(); i++) {
+        index.add(tenants.getJsonObject(i));
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Get the tenant configuration for a client.
+   *
+   * @param clientIP the IPv4 or IPv6 address of the client SC
+   * @return the tenant config whose {@code scSubnet} is the most specific one
+   *     containing {@code clientIP}, or the SIP2 config itself if there is no
+   *     such tenant
+   */
+  public JsonObject lookup(String clientIP) {
+    final byte[] address = parseAddress(clientIP);
+    if (address == null) {
+      return sip2config;
+    }
+
+    JsonObject result = sip2config;
+    Node node = address.length == 4 ? ipv4 : ipv6;
+    for (int bit = 0; node != null; bit++) {
+      if (node.tenantConfig != null) {
+        result = node.tenantConfig;
+      }
+      if (bit == address.length * 8) {
+        break;
+      }
+      node = node.children[bitAt(address, bit)];
+    }
+    return result;
+  }
+
+  /**
+   * Get the SIP2 configuration this index was built for.
+   *
+   * @return the SIP2 config
+   */
+  public JsonObject getSip2config() {
+    return sip2config;
+  }
+
+  private void add(JsonObject tenantConfig) {
+    final String subnet = tenantConfig.getString(SC_SUBNET);
+    final int slash = subnet == null ? -1 : subnet.indexOf('/');
+    final byte[] address = slash < 0 ? null : parseAddress(subnet.substring(0, slash));
+    if (address == null) {
+      throw new IllegalArgumentException("Invalid scSubnet: " + subnet);
+    }
+
+    final int prefixLength;
+    try {
+      prefixLength = Integer.parseInt(subnet.substring(slash + 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid scSubnet: " + subnet, e);
+    }
+    if (prefixLength < 0 || prefixLength > address.length * 8) {
+      throw new IllegalArgumentException("Invalid scSubnet: " + subnet);
+    }
+
+    Node node = address.length == 4 ? ipv4 : ipv6;
+    for (int bit = 0; bit < prefixLength; bit++) {
+      final int b = bitAt(address, bit);
+      if (node.children[b] == null) {
+        node.children[b] = new Node();
+      }
+      node = node.children[b];
+    }
+    if (node.tenantConfig == null) {
+      node.tenantConfig = tenantConfig;
+    }
+  }
+
+  private static int bitAt(byte[] address, int bit) {
+    return (address[bit >> 3] >> (7 - (bit & 7))) & 1;
+  }
+
+  /**
+   * Parse an IP address literal without ever resolving a host name.
+   */
+  private static byte[] parseAddress(String address) {
+    if (address == null) {
+      return null;
+    }
+    // the scope of an IPv6 address does not matter for its subnet
+    final int scope = address.indexOf('%');
+    final String ip = scope < 0 ? address : address.substring(0, scope);
+
+    // an IPv6 literal has hex digits and colons, an IPv4 literal only digits
+    // and dots; anything else would be resolved as a host name
+    final boolean ipv6 = ip.indexOf(':') >= 0;
+    if (ip.isEmpty()) {
+      return null;
+    }
+    for (int i = 0; i < ip.length(); i++) {
+      final char c = ip.charAt(i);
+      if (c != '.' && (ipv6 ? c != ':' && Character.digit(c, 16) < 0 : c < '0' || c > '9')) {
+        return null;
+      }
+    }
+
+    try {
+      // IPv4-mapped IPv6 addresses are returned as IPv4 addresses
+      return InetAddress.getByName(ip).getAddress();
+    } catch (UnknownHostException e) {
+      return null;
+    }
+  }
+
+  private static final class Node {
+    private final Node[] children = new Node[2];
+    private JsonObject tenantConfig;
+  }
+}
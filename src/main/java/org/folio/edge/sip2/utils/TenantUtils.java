@@ -1,21 +1,21 @@
 package org.folio.edge.sip2.utils;
 
 import io.vertx.core.json.JsonObject;
-import java.util.Optional;
-import org.apache.commons.net.util.SubnetUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class TenantUtils {
   private static final Logger log = LogManager.getLogger();
   private static final String SC_TENANTS = "scTenants";
-  private static final String SC_SUBNET = "scSubnet";
 
   private TenantUtils() {
     super();
   }
 
   /** Returns JSON config for tenant whose subnet encompasses a client IP address.
+   *
+   * <p>This builds a {@link TenantConfigIndex} for every call, build it once
+   * instead when looking up several clients in the same config.
    * 
    * @param sip2config - SIP2 edge module config. 
    *     Contains a JSON array (scTenants) of tenant configs, 
@@ -50,7 +50,7 @@ public class TenantUtils {
       }
    * </pre>
    * 
-   * @param clientIP - IPv4 address of client SC used as lookup to find tenant config
+   * @param clientIP - IPv4 or IPv6 address of client SC used as lookup to find tenant config
    * @returns tenant config whose scSubnet encompasses clientIP. 
    *     Returns the sip2conf itself if it does not contain a scTenants element or 
    *     the scTenants array has no tenant with subnet in range for clientIP. 
@@ -63,15 +63,7 @@ public class TenantUtils {
       return sip2config;
     }
     
-    Optional<JsonObject> tcOpt = sip2config.getJsonArray(SC_TENANTS).stream()
-        .map(o -> (JsonObject) o)
-        .filter(jo -> {
-          SubnetUtils sn = new SubnetUtils(jo.getString(SC_SUBNET));
-          sn.setInclusiveHostCount(true);
-          return sn.getInfo().isInRange(clientIP);
-        })
-        .findFirst();
-    return tcOpt.orElse(sip2config);
+    return TenantConfigIndex.of(sip2config).lookup(clientIP);
   }
 
 }
@@ -0,0 +1,98 @@
+package org.folio.edge.sip2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+
+class MessageLogTests {
+  private final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+
+  @Test
+  void canMaskFields() {
+    assertEquals("9300CNuser|CO****|CPcircdesk|",
+        MessageLog.mask("9300CNuser|COpassword|CPcircdesk|", '|',
+            new HashSet<>(Arrays.asList("AA", "AC", "AD", "CO"))));
+    assertEquals("6300020200101    084237Y         AOinst|AA****|AD****|BP1|",
+        MessageLog.mask("6300020200101    084237Y         AOinst|AA1234567|ADsecret|BP1|", '|',
+            new HashSet<>(Arrays.asList("AA", "AC", "AD", "CO"))));
+    assertEquals("AOinst^AE****", MessageLog.mask("AOinst^AEJane Doe", '^',
+        new HashSet<>(Arrays.asList("AE"))));
+  }
+
+  @Test
+  void canLogMaskedMessages() throws InterruptedException {
+    final List<String> lines = new CopyOnWriteArrayList<>();
+    final CountDownLatch written = new CountDownLatch(2);
+    final MessageLog messageLog = new MessageLog(new JsonObject(), () -> true, line -> {
+      lines.add(line);
+      written.countDown();
+    });
+
+    assertTrue(messageLog.received(Command.LOGIN,
+        Buffer.buffer("9300CNuser|COpassword|CPcircdesk|"), sessionData));
+    messageLog.sent(Buffer.buffer("941"), sessionData);
+
+    assertTrue(written.await(5, TimeUnit.SECONDS));
+    assertEquals(Arrays.asList("Received message: 9300CNuser|CO****|CPcircdesk|",
+        "Sip response 941"), lines);
+    messageLog.close();
+  }
+
+  @Test
+  void canSampleByCommand() {
+    final MessageLog messageLog = new MessageLog(new JsonObject()
+        .put("sampleRate", 0.0)
+        .put("sampleRates", new JsonObject().put("CHECKOUT", 1.0)), () -> true, line -> { });
+
+    assertFalse(messageLog.received(Command.SC_STATUS, Buffer.buffer("9900302.00"),
+        sessionData));
+    assertTrue(messageLog.received(Command.CHECKOUT, Buffer.buffer("11YN"), sessionData));
+    messageLog.close();
+
+    final MessageLog disabled = new MessageLog(new JsonObject(), () -> false, line -> { });
+    assertFalse(disabled.received(Command.CHECKOUT, Buffer.buffer("11YN"), sessionData));
+    disabled.close();
+  }
+
+  @Test
+  void canDropMessagesWhenQueueIsFull() throws InterruptedException {
+    final CountDownLatch writing = new CountDownLatch(1);
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final Consumer<String> writer = line -> {
+      writing.countDown();
+      try {
+        blocked.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    final MessageLog messageLog = new MessageLog(new JsonObject()
+        .put("queueSize", 1)
+        .put("maskedFields", new JsonArray()), () -> true, writer);
+
+    messageLog.sent(Buffer.buffer("941"), sessionData);
+    assertTrue(writing.await(5, TimeUnit.SECONDS));
+    // the writer is blocked, one message is queued and the others dropped
+    messageLog.sent(Buffer.buffer("941"), sessionData);
+    messageLog.sent(Buffer.buffer("941"), sessionData);
+    messageLog.sent(Buffer.buffer("941"), sessionData);
+
+    assertEquals(2, messageLog.droppedCount());
+    blocked.countDown();
+    messageLog.close();
+  }
+}
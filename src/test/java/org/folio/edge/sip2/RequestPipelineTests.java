@@ -0,0 +1,171 @@
+package org.folio.edge.sip2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.ReadStream;
+import io.vertx.core.streams.WriteStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.folio.edge.sip2.metrics.Metrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class RequestPipelineTests {
+  private ReadStream<Buffer> requests;
+  private WriteStream<Buffer> responses;
+  private Metrics metrics;
+  private List<String> written;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    requests = mock(ReadStream.class);
+    responses = mock(WriteStream.class);
+    metrics = Metrics.getMetrics(1234);
+    written = new ArrayList<>();
+  }
+
+  @Test
+  void cannotCreateWithoutWindow() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new RequestPipeline(requests, responses, 0, metrics));
+  }
+
+  @Test
+  void canWriteResponsesInRequestOrder() {
+    final RequestPipeline pipeline = new RequestPipeline(requests, responses, 3, metrics);
+    final RequestPipeline.Slot first = pipeline.next();
+    final RequestPipeline.Slot second = pipeline.next();
+    final RequestPipeline.Slot third = pipeline.next();
+
+    third.complete(() -> written.add("third"));
+    second.complete(() -> written.add("second"));
+    assertEquals(3, pipeline.inFlight());
+    assertEquals(0, written.size());
+
+    first.complete(() -> written.add("first"));
+    assertEquals(Arrays.asList("first", "second", "third"), written);
+    assertEquals(0, pipeline.inFlight());
+  }
+
+  @Test
+  void canPauseWhileWindowIsFull() {
+    final RequestPipeline pipeline = new RequestPipeline(requests, responses, 2, metrics);
+    final RequestPipeline.Slot first = pipeline.next();
+    verify(requests, never()).pause();
+
+    final RequestPipeline.Slot second = pipeline.next();
+    verify(requests).pause();
+
+    second.complete(() -> written.add("second"));
+    verify(requests, never()).resume();
+
+    first.complete(() -> written.add("first"));
+    verify(requests).resume();
+    assertEquals(Arrays.asList("first", "second"), written);
+  }
+
+  @Test
+  void canProcessOneRequestAtATime() {
+    final RequestPipeline pipeline = new RequestPipeline(requests, responses, 1, metrics);
+
+    pipeline.next().complete(() -> written.add("first"));
+    pipeline.next().complete(() -> written.add("second"));
+
+    verify(requests, times(2)).pause();
+    verify(requests, times(2)).resume();
+    assertEquals(Arrays.asList("first", "second"), written);
+  }
+
+  @Test
+  void canContinueAfterFailedWrite() {
+    final RequestPipeline pipeline = new RequestPipeline(requests, responses, 2, metrics);
+    final RequestPipeline.Slot first = pipeline.next();
+    final RequestPipeline.Slot second = pipeline.next();
+
+    second.complete(() -> written.add("second"));
+    first.complete(() -> {
+      throw new IllegalStateException("closed");
+    });
+
+    assertEquals(Arrays.asList("second"), written);
+    assertEquals(0, pipeline.inFlight());
+    verify(requests).resume();
+  }
+
+  @Test
+  void canFindRequestInFlight() {
+    final RequestPipeline pipeline = new RequestPipeline(requests, responses, 3, metrics);
+    final RequestPipeline.Slot first = pipeline.next();
+    first.identify("AZ1234/1");
+    final RequestPipeline.Slot resent = pipeline.next();
+
+    assertSame(first, pipeline.find("AZ1234/1"));
+    assertNull(pipeline.find("AZ5678/2"));
+
+    resent.complete(() -> written.add(pipeline.find("AZ1234/1") == null
+        ? first.getResponse().toString() : "not written"));
+    first.complete(() -> {
+      first.setResponse(Buffer.buffer("first"));
+      written.add("first");
+    });
+
+    // the original is written first, and no longer in flight
+    assertEquals(Arrays.asList("first", "first"), written);
+    assertNull(pipeline.find("AZ1234/1"));
+  }
+
+  @Test
+  void cannotCompleteTwice() {
+    final RequestPipeline pipeline = new RequestPipeline(requests, responses, 2, metrics);
+    final RequestPipeline.Slot first = pipeline.next();
+    pipeline.next();
+
+    first.complete(() -> written.add("first"));
+    assertThrows(IllegalStateException.class, () -> first.complete(() -> { }));
+  }
+
+  @Test
+  void canHoldResponsesWhileWriteQueueIsFull() {
+    final RequestPipeline pipeline = new RequestPipeline(requests, responses, 3, metrics);
+    final RequestPipeline.Slot first = pipeline.next();
+    final RequestPipeline.Slot second = pipeline.next();
+
+    when(responses.writeQueueFull()).thenReturn(true);
+    second.complete(() -> written.add("second"));
+    first.complete(() -> written.add("first"));
+
+    // the kiosk is not reading, neither are we
+    assertEquals(Arrays.asList("first"), written);
+    assertEquals(1, pipeline.inFlight());
+    verify(requests).pause();
+
+    @SuppressWarnings("unchecked")
+    final ArgumentCaptor<Handler<Void>> drainHandler = ArgumentCaptor.forClass(Handler.class);
+    verify(responses).drainHandler(drainHandler.capture());
+
+    // called while the queue is still full
+    drainHandler.getValue().handle(null);
+    assertEquals(Arrays.asList("first"), written);
+
+    when(responses.writeQueueFull()).thenReturn(false);
+    drainHandler.getValue().handle(null);
+    assertEquals(Arrays.asList("first", "second"), written);
+    assertEquals(0, pipeline.inFlight());
+    verify(requests).resume();
+    verify(responses).drainHandler(any());
+  }
+}
@@ -0,0 +1,85 @@
+package org.folio.edge.sip2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class SharedResourcesTests {
+  private static final int INSTANCES = 3;
+
+  @Test
+  void canShareResourcesBetweenInstances(Vertx vertx, VertxTestContext testContext)
+      throws IOException {
+    final int port = freePort();
+    final JsonObject config = vertx.fileSystem().readFileBlocking("test-sip2.conf")
+        .toJsonObject()
+        .put("port", port);
+    final LocalMap<String, SharedResources> resources =
+        vertx.sharedData().getLocalMap(SharedResources.class.getName());
+
+    vertx.deployVerticle(MainVerticle::new,
+        new DeploymentOptions().setConfig(config).setInstances(INSTANCES),
+        testContext.succeeding(deploymentId -> {
+          testContext.verify(() -> assertEquals(1, resources.size()));
+
+          // every connection is answered, whichever instance accepted it
+          @SuppressWarnings("rawtypes")
+          final List<Future> responses = new ArrayList<>();
+          for (int i = 0; i < INSTANCES * 2; i++) {
+            responses.add(resendRequest(vertx, port));
+          }
+
+          CompositeFuture.all(responses).onComplete(testContext.succeeding(all -> {
+            for (int i = 0; i < all.size(); i++) {
+              final String response = all.resultAt(i);
+              testContext.verify(() -> assertEquals("PreviousMessage is NULL\r", response));
+            }
+
+            vertx.undeploy(deploymentId, testContext.succeeding(v -> {
+              testContext.verify(() -> assertTrue(resources.isEmpty()));
+              testContext.completeNow();
+            }));
+          }));
+        }));
+  }
+
+  private static Future<String> resendRequest(Vertx vertx, int port) {
+    final Promise<String> response = Promise.promise();
+
+    vertx.createNetClient().connect(port, "localhost", ar -> {
+      if (ar.failed()) {
+        response.fail(ar.cause());
+        return;
+      }
+      ar.result().handler(buffer -> {
+        ar.result().close();
+        response.tryComplete(buffer.toString());
+      });
+      ar.result().write("97\r");
+    });
+
+    return response.future();
+  }
+
+  private static int freePort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package org.folio.edge.sip2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.json.JsonObject;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class Sip2LauncherTests {
+  @Test
+  void canConfigureInstances() {
+    final DeploymentOptions options = new DeploymentOptions()
+        .setConfig(new JsonObject().put("instances", 4));
+
+    new Sip2Launcher().beforeDeployingVerticle(options);
+
+    assertEquals(4, options.getInstances());
+  }
+
+  @Test
+  void canConfigureInstancePerProcessor() {
+    final DeploymentOptions options = new DeploymentOptions()
+        .setConfig(new JsonObject().put("instances", 0));
+
+    new Sip2Launcher().beforeDeployingVerticle(options);
+
+    assertEquals(Runtime.getRuntime().availableProcessors(), options.getInstances());
+  }
+
+  @Test
+  void canOverrideInstancesOnCommandLine() {
+    final DeploymentOptions options = new DeploymentOptions()
+        .setConfig(new JsonObject().put("instances", 4))
+        .setInstances(2);
+
+    new Sip2Launcher(Arrays.asList("run", MainVerticle.class.getName(), "-instances", "2"))
+        .beforeDeployingVerticle(options);
+
+    assertEquals(2, options.getInstances());
+  }
+
+  @Test
+  void canOverrideInstancesWithDefaultOnCommandLine() {
+    final DeploymentOptions options = new DeploymentOptions()
+        .setConfig(new JsonObject().put("instances", 4))
+        .setInstances(1);
+
+    new Sip2Launcher(Arrays.asList("run", MainVerticle.class.getName(), "--instances=1"))
+        .beforeDeployingVerticle(options);
+
+    assertEquals(1, options.getInstances());
+  }
+
+  @Test
+  void canDeployOneInstanceByDefault() {
+    final DeploymentOptions options = new DeploymentOptions()
+        .setConfig(new JsonObject().put("port", 6443));
+
+    new Sip2Launcher().beforeDeployingVerticle(options);
+
+    assertEquals(1, options.getInstances());
+  }
+}
@@ -0,0 +1,224 @@
+package org.folio.edge.sip2.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+@ExtendWith(VertxExtension.class)
+class AsyncCacheTests {
+  private Clock clock;
+  private List<Promise<String>> loads;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+    loads = new ArrayList<>();
+  }
+
+  @Test
+  void canCacheFreshValue() {
+    final AsyncCache<String, String> cache = cache(1000, 0);
+
+    final Future<String> first = cache.get("key", this::load);
+    final Future<String> merged = cache.get("key", this::load);
+    assertEquals(1, loads.size());
+    loads.get(0).complete("value");
+
+    assertEquals("value", first.result());
+    assertEquals("value", merged.result());
+
+    when(clock.millis()).thenReturn(999L);
+    assertEquals("value", cache.get("key", this::load).result());
+    assertEquals(1, loads.size());
+  }
+
+  @Test
+  void canRefreshStaleValue() {
+    final AsyncCache<String, String> cache = cache(1000, 5000);
+    cache.get("key", this::load);
+    loads.get(0).complete("value");
+
+    when(clock.millis()).thenReturn(1000L);
+    assertEquals("value", cache.get("key", this::load).result());
+    assertEquals("value", cache.get("key", this::load).result());
+    assertEquals(2, loads.size());
+
+    loads.get(1).complete("refreshed");
+    assertEquals("refreshed", cache.get("key", this::load).result());
+    assertEquals(2, loads.size());
+  }
+
+  @Test
+  void canKeepStaleValueWhenRefreshFails() {
+    final AsyncCache<String, String> cache = cache(1000, 5000);
+    cache.get("key", this::load);
+    loads.get(0).complete("value");
+
+    when(clock.millis()).thenReturn(2000L);
+    assertEquals("value", cache.get("key", this::load).result());
+    loads.get(1).fail("unavailable");
+
+    assertEquals("value", cache.get("key", this::load).result());
+    assertEquals(3, loads.size());
+  }
+
+  @Test
+  void canWaitForTooStaleValue() {
+    final AsyncCache<String, String> cache = cache(1000, 5000);
+    cache.get("key", this::load);
+    loads.get(0).complete("value");
+
+    when(clock.millis()).thenReturn(6000L);
+    final Future<String> reloaded = cache.get("key", this::load);
+    assertFalse(reloaded.isComplete());
+
+    loads.get(1).complete("reloaded");
+    assertEquals("reloaded", reloaded.result());
+  }
+
+  @Test
+  void cannotCacheFailure() {
+    final AsyncCache<String, String> cache = cache(1000, 5000);
+
+    final Future<String> failed = cache.get("key", this::load);
+    loads.get(0).fail("unavailable");
+    assertTrue(failed.failed());
+
+    final Future<String> loaded = cache.get("key", this::load);
+    loads.get(1).complete("value");
+    assertEquals("value", loaded.result());
+  }
+
+  @Test
+  void canLoadEveryTimeWhenDisabled() {
+    final AsyncCache<String, String> cache = cache(0, 5000);
+
+    cache.get("key", this::load);
+    cache.get("key", this::load);
+    assertEquals(2, loads.size());
+  }
+
+  @Test
+  void canInvalidate() {
+    final AsyncCache<String, String> cache = cache(1000, 0);
+    cache.get("key", this::load);
+    loads.get(0).complete("value");
+
+    cache.invalidate("key");
+    final Future<String> reloaded = cache.get("key", this::load);
+    loads.get(1).complete("reloaded");
+    assertEquals("reloaded", reloaded.result());
+  }
+
+  @Test
+  void canEvictLeastRecentlyUsed() {
+    final AsyncCache<String, String> cache = AsyncCache.<String, String>builder(clock)
+        .ttl(1000)
+        .maxSize(2)
+        .build();
+    cache.put("first", "1");
+    cache.put("second", "2");
+    assertEquals("1", cache.get("first", this::load).result());
+
+    cache.put("third", "3");
+    assertEquals(2, cache.size());
+    assertEquals("1", cache.get("first", this::load).result());
+    assertEquals("3", cache.get("third", this::load).result());
+    assertEquals(0, loads.size());
+
+    cache.get("second", this::load);
+    assertEquals(1, loads.size());
+  }
+
+  @Test
+  void canCacheByValue() {
+    final AsyncCache<String, String> cache = AsyncCache.<String, String>builder(clock)
+        .ttl(value -> value.isEmpty() ? 100 : 1000)
+        .build();
+    cache.get("missing", this::load);
+    loads.get(0).complete("");
+    cache.get("key", this::load);
+    loads.get(1).complete("value");
+
+    when(clock.millis()).thenReturn(100L);
+    assertEquals("value", cache.get("key", this::load).result());
+    cache.get("missing", this::load);
+    assertEquals(3, loads.size());
+  }
+
+  @Test
+  void cannotCacheValueWithoutTtl() {
+    final AsyncCache<String, String> cache = AsyncCache.<String, String>builder(clock)
+        .ttl(value -> value.isEmpty() ? 0 : 1000)
+        .build();
+    final Future<String> missing = cache.get("missing", this::load);
+    loads.get(0).complete("");
+    assertEquals("", missing.result());
+    assertEquals(0, cache.size());
+
+    cache.put("other", "");
+    assertEquals(0, cache.size());
+  }
+
+  @Test
+  void canPutAlias() {
+    final AsyncCache<String, String> cache = cache(1000, 0);
+    cache.put("alias", "value");
+    assertEquals("value", cache.get("alias", this::load).result());
+    assertEquals(0, loads.size());
+  }
+
+  @Test
+  void canCompleteOnCallerContext(Vertx vertx, VertxTestContext testContext) {
+    final AsyncCache<String, String> cache = cache(1000, 0);
+    final Context loaderContext = vertx.getOrCreateContext();
+    final Context callerContext = vertx.getOrCreateContext();
+
+    loaderContext.runOnContext(v -> {
+      cache.get("key", this::load);
+
+      // another verticle instance waits for the same load
+      callerContext.runOnContext(w -> {
+        cache.get("key", this::load).onComplete(testContext.succeeding(value ->
+            testContext.verify(() -> {
+              assertSame(callerContext, Vertx.currentContext());
+              assertEquals("value", value);
+              assertEquals(1, loads.size());
+              testContext.completeNow();
+            })));
+
+        loaderContext.runOnContext(x -> loads.get(0).complete("value"));
+      });
+    });
+  }
+
+  private AsyncCache<String, String> cache(long ttlMillis, long maxStaleMillis) {
+    return AsyncCache.<String, String>builder(clock)
+        .ttl(ttlMillis)
+        .maxStale(maxStaleMillis)
+        .build();
+  }
+
+  private Future<String> load() {
+    final Promise<String> promise = Promise.promise();
+    loads.add(promise);
+    return promise.future();
+  }
+}
@@ -0,0 +1,38 @@
+package org.folio.edge.sip2.domain;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.vertx.core.buffer.Buffer;
+import org.folio.edge.sip2.parser.Message;
+import org.folio.edge.sip2.parser.Parser;
+import org.junit.jupiter.api.Test;
+
+class PreviousMessageTests {
+  @Test
+  void canConstructWithErrorDetection() {
+    final Message<Object> message = Parser.builder()
+        .errorDetectionEnaled(Boolean.TRUE)
+        .build()
+        .parseMessage(Buffer.buffer("9900302.00AY3AZFCA3"));
+
+    final PreviousMessage previousMessage =
+        new PreviousMessage(message, Buffer.buffer("98YYYNYN"), "IBM850");
+
+    assertEquals(3, previousMessage.getPreviousRequestSequenceNo());
+    assertEquals("98YYYNYN", previousMessage.getPreviousMessageResponse());
+  }
+
+  @Test
+  void canConstructWithoutErrorDetection() {
+    final Message<Object> message = Parser.builder()
+        .errorDetectionEnaled(Boolean.FALSE)
+        .build()
+        .parseMessage(Buffer.buffer("9900302.00"));
+
+    final PreviousMessage previousMessage =
+        new PreviousMessage(message, Buffer.buffer("98YYYNYN"), "IBM850");
+
+    assertEquals(-1, previousMessage.getPreviousRequestSequenceNo());
+    assertEquals("98YYYNYN", previousMessage.getPreviousMessageResponse());
+  }
+}
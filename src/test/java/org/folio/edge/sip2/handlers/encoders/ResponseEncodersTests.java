@@ -0,0 +1,560 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static org.folio.edge.sip2.domain.messages.enumerations.CirculationStatus.CHARGED;
+import static org.folio.edge.sip2.domain.messages.enumerations.CirculationStatus.NONE;
+import static org.folio.edge.sip2.domain.messages.enumerations.CurrencyType.CAD;
+import static org.folio.edge.sip2.domain.messages.enumerations.CurrencyType.USD;
+import static org.folio.edge.sip2.domain.messages.enumerations.FeeType.DAMAGE;
+import static org.folio.edge.sip2.domain.messages.enumerations.FeeType.HOLD_FEE;
+import static org.folio.edge.sip2.domain.messages.enumerations.Language.TAIWANESE;
+import static org.folio.edge.sip2.domain.messages.enumerations.Language.UNKNOWN;
+import static org.folio.edge.sip2.domain.messages.enumerations.MediaType.BOOK_WITH_AUDIO_TAPE;
+import static org.folio.edge.sip2.domain.messages.enumerations.MediaType.OTHER;
+import static org.folio.edge.sip2.domain.messages.enumerations.PatronStatus.CARD_REPORTED_LOST;
+import static org.folio.edge.sip2.domain.messages.enumerations.PatronStatus.TOO_MANY_ITEMS_BILLED;
+import static org.folio.edge.sip2.domain.messages.enumerations.SecurityMarker.WHISPER_TAPE;
+import static org.folio.edge.sip2.parser.Command.ACS_STATUS;
+import static org.folio.edge.sip2.parser.Command.CHECKIN_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.CHECKOUT_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.END_SESSION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.FEE_PAID_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.ITEM_INFORMATION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.LOGIN_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_INFORMATION_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.PATRON_STATUS_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.RENEW_ALL_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.RENEW_RESPONSE;
+import static org.folio.edge.sip2.parser.Command.REQUEST_SC_RESEND;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import io.micrometer.core.instrument.Counter;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.domain.messages.enumerations.Messages;
+import org.folio.edge.sip2.domain.messages.enumerations.PatronStatus;
+import org.folio.edge.sip2.domain.messages.responses.ACSStatus;
+import org.folio.edge.sip2.domain.messages.responses.CheckinResponse;
+import org.folio.edge.sip2.domain.messages.responses.CheckoutResponse;
+import org.folio.edge.sip2.domain.messages.responses.EndSessionResponse;
+import org.folio.edge.sip2.domain.messages.responses.FeePaidResponse;
+import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse;
+import org.folio.edge.sip2.domain.messages.responses.LoginResponse;
+import org.folio.edge.sip2.domain.messages.responses.PatronInformationResponse;
+import org.folio.edge.sip2.domain.messages.responses.PatronStatusResponse;
+import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse;
+import org.folio.edge.sip2.domain.messages.responses.RenewResponse;
+import org.folio.edge.sip2.handlers.SCStatusHandler.PackagedSupportedMessages;
+import org.folio.edge.sip2.handlers.freemarker.FormatDateTimeMethodModel;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerRepository;
+import org.folio.edge.sip2.handlers.freemarker.FreemarkerUtils;
+import org.folio.edge.sip2.parser.Command;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+
+class ResponseEncodersTests {
+  private static final OffsetDateTime DATE =
+      OffsetDateTime.of(2021, 3, 14, 23, 59, 26, 0, ZoneOffset.ofHours(2));
+  private static final String LONG_VALUE = String.join("", Collections.nCopies(30,
+      "0123456|89"));
+
+  @Test
+  void canEncodeCheckoutResponse() {
+    final CheckoutResponse populated = CheckoutResponse.builder()
+        .ok(TRUE)
+        .renewalOk(FALSE)
+        .magneticMedia(TRUE)
+        .desensitize(FALSE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .patronIdentifier("patron|1")
+        .itemIdentifier("item")
+        .titleIdentifier(LONG_VALUE)
+        .dueDate(DATE.plusDays(14))
+        .feeType(HOLD_FEE)
+        .securityInhibit(TRUE)
+        .currencyType(USD)
+        .feeAmount("2.50")
+        .mediaType(BOOK_WITH_AUDIO_TAPE)
+        .itemProperties("props")
+        .transactionId("tx")
+        .screenMessage(Arrays.asList(LONG_VALUE, "second"))
+        .printLine(Arrays.asList("print"))
+        .build();
+    final CheckoutResponse minimal = CheckoutResponse.builder()
+        .ok(FALSE)
+        .renewalOk(TRUE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .patronIdentifier("")
+        .itemIdentifier("item")
+        .titleIdentifier("")
+        .build();
+
+    assertEncodesLikeTemplate(CHECKOUT_RESPONSE, "checkoutResponse",
+        new CheckoutResponseEncoder(), populated, false);
+    assertEncodesLikeTemplate(CHECKOUT_RESPONSE, "checkoutResponse",
+        new CheckoutResponseEncoder(), minimal, false);
+  }
+
+  @Test
+  void canEncodeRenewResponse() {
+    final RenewResponse populated = RenewResponse.builder()
+        .ok(TRUE)
+        .renewalOk(TRUE)
+        .magneticMedia(FALSE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .patronIdentifier("patron")
+        .itemIdentifier("item")
+        .titleIdentifier("title")
+        .dueDate(DATE.plusDays(7))
+        .feeType(DAMAGE)
+        .securityInhibit(FALSE)
+        .currencyType(CAD)
+        .feeAmount("1.00")
+        .mediaType(OTHER)
+        .screenMessage(Collections.emptyList())
+        .build();
+
+    assertEncodesLikeTemplate(RENEW_RESPONSE, "renewResponse",
+        new RenewResponseEncoder(), populated, false);
+  }
+
+  @Test
+  void canEncodeCheckinResponse() {
+    final CheckinResponse populated = CheckinResponse.builder()
+        .ok(TRUE)
+        .resensitize(TRUE)
+        .magneticMedia(FALSE)
+        .alert(TRUE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .itemIdentifier("item")
+        .permanentLocation("Main|Library")
+        .titleIdentifier("title")
+        .sortBin("bin")
+        .patronIdentifier("patron")
+        .mediaType(BOOK_WITH_AUDIO_TAPE)
+        .itemProperties("props")
+        .materialType("book")
+        .screenMessage(Arrays.asList("screen"))
+        .printLine(Arrays.asList(LONG_VALUE))
+        .build();
+    final CheckinResponse minimal = CheckinResponse.builder()
+        .ok(FALSE)
+        .resensitize(FALSE)
+        .alert(FALSE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .itemIdentifier("item")
+        .permanentLocation("")
+        .build();
+
+    assertEncodesLikeTemplate(CHECKIN_RESPONSE, "checkinResponse",
+        new CheckinResponseEncoder(), populated, false);
+    assertEncodesLikeTemplate(CHECKIN_RESPONSE, "checkinResponse",
+        new CheckinResponseEncoder(), minimal, false);
+  }
+
+  @Test
+  void canEncodeEndSessionResponse() {
+    final EndSessionResponse response = EndSessionResponse.builder()
+        .endSession(TRUE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .patronIdentifier("patron")
+        .screenMessage(Arrays.asList("bye"))
+        .build();
+
+    assertEncodesLikeTemplate(END_SESSION_RESPONSE, "endSessionResponse",
+        new EndSessionResponseEncoder(), response, false);
+  }
+
+  @Test
+  void canEncodeFeePaidResponse() {
+    final FeePaidResponse response = FeePaidResponse.builder()
+        .paymentAccepted(FALSE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .patronIdentifier("patron")
+        .transactionId("tx")
+        .printLine(Arrays.asList("receipt"))
+        .build();
+
+    assertEncodesLikeTemplate(FEE_PAID_RESPONSE, "feePaidResponse",
+        new FeePaidResponseEncoder(), response, false);
+  }
+
+  @Test
+  void canEncodeLoginResponse() {
+    assertEncodesLikeTemplate(LOGIN_RESPONSE, "loginResponse",
+        new LoginResponseEncoder(), LoginResponse.builder().ok(TRUE).build(), false);
+    assertEncodesLikeTemplate(LOGIN_RESPONSE, "loginResponse",
+        new LoginResponseEncoder(), LoginResponse.builder().ok(FALSE).build(), false);
+  }
+
+  @Test
+  void canEncodeRequestSCResend() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+
+    assertEquals(FreemarkerUtils.executeFreemarkerTemplate(Collections.emptyMap(),
+        FreemarkerRepository.getInstance().getFreemarkerTemplate(REQUEST_SC_RESEND)),
+        encode(new RequestSCResendEncoder(), null, sessionData));
+  }
+
+  @Test
+  void canEncodeRenewAllResponse() {
+    final RenewAllResponse response = RenewAllResponse.builder()
+        .ok(TRUE)
+        .renewedCount(Integer.valueOf(12345))
+        .unrenewedCount(Integer.valueOf(-3))
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .renewedItems(Arrays.asList("a", "b|c"))
+        .unrenewedItems(Arrays.asList(""))
+        .build();
+
+    assertEncodesLikeTemplate(RENEW_ALL_RESPONSE, "renewAllResponse",
+        new RenewAllResponseEncoder(), response, false);
+  }
+
+  @Test
+  void canEncodePatronStatusResponse() {
+    final PatronStatusResponse response = PatronStatusResponse.builder()
+        .patronStatus(EnumSet.of(CARD_REPORTED_LOST, TOO_MANY_ITEMS_BILLED))
+        .language(TAIWANESE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .patronIdentifier("patron")
+        .personalName("Doe, Jane")
+        .validPatron(TRUE)
+        .validPatronPassword(FALSE)
+        .currencyType(USD)
+        .feeAmount("10.00")
+        .build();
+
+    assertEncodesLikeTemplate(PATRON_STATUS_RESPONSE, "patronStatusResponse",
+        new PatronStatusResponseEncoder(), response, false);
+  }
+
+  @Test
+  void canEncodePatronInformationResponse() {
+    final List<String> chargedItems = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      chargedItems.add("Charged item " + i + " | with a delimiter");
+    }
+
+    final PatronInformationResponse populated = PatronInformationResponse.builder()
+        .patronStatus(EnumSet.allOf(PatronStatus.class))
+        .language(UNKNOWN)
+        .transactionDate(DATE)
+        .holdItemsCount(Integer.valueOf(3))
+        .overdueItemsCount(Integer.valueOf(10000))
+        .chargedItemsCount(Integer.valueOf(200))
+        .fineItemsCount(Integer.valueOf(0))
+        .recallItemsCount(Integer.valueOf(-1))
+        .unavailableHoldsCount(null)
+        .institutionId("diku")
+        .patronIdentifier("patron")
+        .personalName("Doe, Jane")
+        .holdItemsLimit(Integer.valueOf(5))
+        .overdueItemsLimit(Integer.valueOf(99999))
+        .chargedItemsLimit(null)
+        .validPatron(TRUE)
+        .validPatronPassword(TRUE)
+        .currencyType(USD)
+        .feeAmount("1.50")
+        .feeLimit("20.00")
+        .holdItems(Arrays.asList("hold"))
+        .overdueItems(Collections.emptyList())
+        .chargedItems(chargedItems)
+        .fineItems(Arrays.asList("fine"))
+        .recallItems(Arrays.asList("recall"))
+        .unavailableHoldItems(Arrays.asList("unavailable"))
+        .homeAddress("Main Street")
+        .emailAddress("jane@example.com")
+        .homePhoneNumber("555-1212")
+        .patronLoanClass("undergrad")
+        .patronBirthDate(DATE.minusYears(20))
+        .screenMessage(Arrays.asList("Welcome"))
+        .printLine(Arrays.asList(LONG_VALUE))
+        .build();
+    final PatronInformationResponse minimal = PatronInformationResponse.builder()
+        .patronStatus(EnumSet.noneOf(PatronStatus.class))
+        .language(TAIWANESE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .patronIdentifier("patron")
+        .personalName("")
+        .build();
+
+    assertEncodesLikeTemplate(PATRON_INFORMATION_RESPONSE, "patronInformationResponse",
+        new PatronInformationResponseEncoder(), populated, true);
+    assertEncodesLikeTemplate(PATRON_INFORMATION_RESPONSE, "patronInformationResponse",
+        new PatronInformationResponseEncoder(), minimal, true);
+  }
+
+  @Test
+  void canEncodeItemInformationResponse() {
+    final ItemInformationResponse populated = ItemInformationResponse.builder()
+        .circulationStatus(CHARGED)
+        .securityMarker(WHISPER_TAPE)
+        .feeType(DAMAGE)
+        .transactionDate(DATE)
+        .dueDate(DATE.plusDays(1))
+        .recallDate(DATE.plusDays(2))
+        .holdPickupDate(DATE.plusDays(3))
+        .itemIdentifier("item")
+        .titleIdentifier("title")
+        .currencyType(CAD)
+        .mediaType(OTHER)
+        .permanentLocation("perm")
+        .currentLocation("current")
+        .itemProperties("props")
+        .destinationInstitutionId("dest")
+        .holdPatronId("holder")
+        .holdPatronName("Holder, Name")
+        .author("Author")
+        .summary("Summary")
+        .isbn(Arrays.asList(LONG_VALUE.substring(0, 120), "9780000000000"))
+        .screenMessage(Arrays.asList("screen"))
+        .build();
+    final ItemInformationResponse minimal = ItemInformationResponse.builder()
+        .circulationStatus(NONE)
+        .securityMarker(WHISPER_TAPE)
+        .transactionDate(DATE)
+        .itemIdentifier("item")
+        .build();
+
+    assertEncodesLikeTemplate(ITEM_INFORMATION_RESPONSE, "itemInformationResponse",
+        new ItemInformationResponseEncoder(), populated, false);
+    assertEncodesLikeTemplate(ITEM_INFORMATION_RESPONSE, "itemInformationResponse",
+        new ItemInformationResponseEncoder(), minimal, false);
+  }
+
+  @Test
+  void canEncodeACSStatus() {
+    final ACSStatus populated = ACSStatus.builder()
+        .onLineStatus(TRUE)
+        .checkinOk(TRUE)
+        .checkoutOk(FALSE)
+        .acsRenewalPolicy(TRUE)
+        .statusUpdateOk(FALSE)
+        .offLineOk(FALSE)
+        .timeoutPeriod(Integer.valueOf(5))
+        .retriesAllowed(Integer.valueOf(-3))
+        .dateTimeSync(DATE)
+        .protocolVersion("2.00")
+        .institutionId("diku")
+        .libraryName("Datalogisk Institut")
+        .supportedMessages(EnumSet.of(Messages.CHECKIN, Messages.LOGIN, Messages.RENEW_ALL))
+        .terminalLocation("terminal")
+        .screenMessage(Arrays.asList("screen"))
+        .printLine(Arrays.asList(LONG_VALUE))
+        .build();
+    final ACSStatus minimal = ACSStatus.builder()
+        .onLineStatus(FALSE)
+        .checkinOk(FALSE)
+        .checkoutOk(FALSE)
+        .acsRenewalPolicy(FALSE)
+        .statusUpdateOk(FALSE)
+        .offLineOk(TRUE)
+        .timeoutPeriod(Integer.valueOf(1000))
+        .retriesAllowed(Integer.valueOf(999))
+        .dateTimeSync(DATE)
+        .protocolVersion("2.00")
+        .institutionId("diku")
+        .build();
+
+    assertEncodesLikeTemplate(ACS_STATUS, "ACSStatus", new ACSStatusEncoder(), populated, true);
+    assertEncodesLikeTemplate(ACS_STATUS, "ACSStatus", new ACSStatusEncoder(), minimal, true);
+  }
+
+  @Test
+  void canEncodeWithOtherDelimiterAndTimezone() {
+    final SessionData sessionData = SessionData.createSession("diku", '^', false, "IBM850");
+    sessionData.setTimeZone("America/New_York");
+    sessionData.setMaxPrintWidth(7);
+
+    final PatronStatusResponse response = PatronStatusResponse.builder()
+        .patronStatus(EnumSet.of(CARD_REPORTED_LOST))
+        .language(UNKNOWN)
+        .transactionDate(DATE)
+        .institutionId("di^ku")
+        .patronIdentifier("patron")
+        .personalName("Doe|Jane")
+        .screenMessage(Arrays.asList("a^b"))
+        .printLine(Arrays.asList("print^line that is long"))
+        .build();
+
+    assertEquals(renderTemplate(PATRON_STATUS_RESPONSE, "patronStatusResponse", response,
+        sessionData, false), encode(new PatronStatusResponseEncoder(), response, sessionData));
+    assertEquals(renderTemplate(ACS_STATUS, "ACSStatus", acsStatus(Arrays.asList(
+        "print^line that is long")), sessionData, true),
+        encode(new ACSStatusEncoder(), acsStatus(Arrays.asList("print^line that is long")),
+            sessionData));
+  }
+
+  @Test
+  void canChunkRepeatableFieldsByCodePoint() {
+    final String value = "📚" + String.join("", Collections.nCopies(300, "é"));
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final EndSessionResponse response = EndSessionResponse.builder()
+        .endSession(FALSE)
+        .transactionDate(DATE)
+        .institutionId("diku")
+        .patronIdentifier("patron")
+        .screenMessage(Arrays.asList(value))
+        .printLine(Arrays.asList(value))
+        .build();
+
+    assertEquals(renderTemplate(END_SESSION_RESPONSE, "endSessionResponse", response,
+        sessionData, false), encode(new EndSessionResponseEncoder(), response, sessionData));
+  }
+
+  @Test
+  void cannotEncodeWithMissingRequiredField() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final LoginResponse response = LoginResponse.builder().build();
+
+    assertThrows(NullPointerException.class,
+        () -> encode(new LoginResponseEncoder(), response, sessionData));
+  }
+
+  @Test
+  void fallsBackToTemplateWhenEncodingFails() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final CheckoutResponse response = CheckoutResponse.builder()
+        .ok(TRUE)
+        .build();
+
+    final Counter errors = ResponseEncoders.getInstance()
+        .fallbackCounter(CHECKOUT_RESPONSE, "error");
+    final double count = errors.count();
+
+    assertEquals("template", ResponseEncoders.getInstance().encode(CHECKOUT_RESPONSE,
+        response, sessionData, () -> "template"));
+    assertEquals(count + 1, errors.count());
+  }
+
+  @Test
+  void fallsBackToTemplateForInvalidPrintWidth() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setMaxPrintWidth(-1);
+    final ACSStatus response = acsStatus(Arrays.asList("print"));
+    final String expected = renderTemplate(ACS_STATUS, "ACSStatus", response, sessionData, true);
+
+    assertEquals(expected, ResponseEncoders.getInstance().encode(ACS_STATUS,
+        response, sessionData, () -> renderTemplate(ACS_STATUS, "ACSStatus", response,
+            sessionData, true)));
+  }
+
+  @Test
+  void fallsBackToTemplateForItemOwner() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final ItemInformationResponse response = ItemInformationResponse.builder()
+        .circulationStatus(CHARGED)
+        .securityMarker(WHISPER_TAPE)
+        .transactionDate(DATE)
+        .itemIdentifier("item")
+        .owner("owner")
+        .build();
+    final String expected = renderTemplate(ITEM_INFORMATION_RESPONSE,
+        "itemInformationResponse", response, sessionData, false);
+
+    final Counter unsupported = ResponseEncoders.getInstance()
+        .fallbackCounter(ITEM_INFORMATION_RESPONSE, "unsupported");
+    final double count = unsupported.count();
+
+    assertEquals(expected, ResponseEncoders.getInstance().encode(ITEM_INFORMATION_RESPONSE,
+        response, sessionData, () -> renderTemplate(ITEM_INFORMATION_RESPONSE,
+            "itemInformationResponse", response, sessionData, false)));
+    assertEquals(count + 1, unsupported.count());
+  }
+
+  @Test
+  void canUseTemplatesForAllResponses() {
+    final ResponseEncoders encoders = ResponseEncoders.getInstance();
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final LoginResponse response = LoginResponse.builder().ok(TRUE).build();
+
+    assertFalse(encoders.isUsingTemplates());
+    assertEquals("941", encoders.encode(LOGIN_RESPONSE, response, sessionData,
+        () -> fail("Template should not be used")));
+
+    try {
+      encoders.setUseTemplates(true);
+      assertEquals("template", encoders.encode(LOGIN_RESPONSE, response, sessionData,
+          () -> "template"));
+    } finally {
+      encoders.setUseTemplates(false);
+    }
+  }
+
+  private ACSStatus acsStatus(List<String> printLine) {
+    return ACSStatus.builder()
+        .onLineStatus(TRUE)
+        .checkinOk(TRUE)
+        .checkoutOk(TRUE)
+        .acsRenewalPolicy(TRUE)
+        .statusUpdateOk(TRUE)
+        .offLineOk(TRUE)
+        .timeoutPeriod(Integer.valueOf(0))
+        .retriesAllowed(Integer.valueOf(0))
+        .dateTimeSync(DATE)
+        .protocolVersion("2.00")
+        .institutionId("diku")
+        .printLine(printLine)
+        .build();
+  }
+
+  private <T> void assertEncodesLikeTemplate(Command command, String name,
+      ResponseEncoder<T> encoder, T response, boolean includeMaxLength) {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final String expected = renderTemplate(command, name, response, sessionData,
+        includeMaxLength);
+
+    // make sure the template actually rendered something
+    assertFalse(expected.isEmpty());
+    assertEquals(expected, encode(encoder, response, sessionData));
+  }
+
+  private <T> String encode(ResponseEncoder<T> encoder, T response, SessionData sessionData) {
+    final StringBuilder sb = new StringBuilder();
+    encoder.encode(response, sessionData, new SipResponseWriter(sb,
+        sessionData.getFieldDelimiter(), sessionData.getTimeZone()));
+    return sb.toString();
+  }
+
+  private String renderTemplate(Command command, String name, Object response,
+      SessionData sessionData, boolean includeMaxLength) {
+    final Map<String, Object> root = new HashMap<>();
+    root.put("formatDateTime", new FormatDateTimeMethodModel());
+    root.put("delimiter", sessionData.getFieldDelimiter());
+    root.put(name, response);
+    root.put("timezone", sessionData.getTimeZone());
+    if (includeMaxLength) {
+      root.put("maxLength", sessionData.getMaxPrintWidth());
+    }
+    if (response instanceof ACSStatus) {
+      root.put("PackagedSupportedMessages",
+          new PackagedSupportedMessages(((ACSStatus) response).getSupportedMessages()));
+    }
+
+    return FreemarkerUtils.executeFreemarkerTemplate(root,
+        FreemarkerRepository.getInstance().getFreemarkerTemplate(command));
+  }
+}
@@ -0,0 +1,101 @@
+package org.folio.edge.sip2.handlers.encoders;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.vertx.core.buffer.Buffer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class ResponseFramerTests {
+  @Test
+  void canFrameResponse() {
+    final Buffer buffer = ResponseFramer.frame("941", "IBM850", "\r");
+
+    assertEquals("941\r", buffer.toString("IBM850"));
+  }
+
+  @Test
+  void canFrameResponseWithErrorDetection() {
+    final Buffer buffer = ResponseFramer.frameWithErrorDetection("941", "IBM850", "\r",
+        false, Integer.valueOf(1));
+
+    assertEquals("941AY1AZFDFC\r", buffer.toString("IBM850"));
+  }
+
+  @Test
+  void canFrameSCResend() {
+    final Buffer buffer = ResponseFramer.frameWithErrorDetection("96", "IBM850", "\r",
+        true, null);
+
+    assertEquals("96AZFEF6\r", buffer.toString("IBM850"));
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+      "IBM850, 98YYYNYN, false",
+      "IBM850, 64Doe|Jane éèü, false",
+      "IBM850, 64中文📚 unmappable, false",
+      "UTF-8, 64中文📚, false",
+      "ISO-8859-1, 10ÿþ, true",
+      "UTF-16, 941, false",
+  })
+  void canFrameLikeStringEncoding(String charset, String response, boolean isSCResend) {
+    final Buffer buffer = ResponseFramer.frameWithErrorDetection(response, charset, "\r",
+        isSCResend, Integer.valueOf(7));
+
+    assertArrayEquals(expected(response, charset, "\r", isSCResend, Integer.valueOf(7)),
+        buffer.getBytes());
+  }
+
+  @ParameterizedTest
+  @CsvSource({"IBM850", "UTF-16"})
+  void canFrameLargeResponse(String charset) {
+    final String response = "64" + String.join("", Collections.nCopies(20000, "éabc|"));
+
+    // twice to check the scratch buffer is in a usable state afterwards
+    for (int i = 0; i < 2; i++) {
+      final Buffer buffer = ResponseFramer.frameWithErrorDetection(response, charset, "\r\n",
+          false, Integer.valueOf(9));
+
+      assertArrayEquals(expected(response, charset, "\r\n", false, Integer.valueOf(9)),
+          buffer.getBytes());
+    }
+
+    assertEquals("941\r", ResponseFramer.frame("941", charset, "\r").toString(charset));
+  }
+
+  @Test
+  void canFrameWithNonAsciiDelimiter() {
+    final Buffer buffer = ResponseFramer.frameWithErrorDetection("941", "IBM850", "§",
+        false, Integer.valueOf(2));
+
+    assertArrayEquals(expected("941", "IBM850", "§", false, Integer.valueOf(2)),
+        buffer.getBytes());
+  }
+
+  /**
+   * Frames the response with String encoding, the way responses were framed
+   * before they were encoded in a single pass.
+   */
+  private byte[] expected(String response, String charset, String messageDelimiter,
+      boolean isSCResend, Integer sequenceNumber) {
+    final StringBuilder sb = new StringBuilder(response);
+    if (!isSCResend) {
+      sb.append("AY").append(sequenceNumber);
+    }
+    sb.append("AZ");
+
+    int checksum = 0;
+    for (final byte b : sb.toString().getBytes(Charset.forName(charset))) {
+      checksum += b & 0xff;
+    }
+    checksum = -checksum & 0xffff;
+
+    return sb.append(String.format("%04X", checksum)).append(messageDelimiter).toString()
+        .getBytes(Charset.forName(charset));
+  }
+}
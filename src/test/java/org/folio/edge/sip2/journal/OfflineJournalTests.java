@@ -0,0 +1,148 @@
+package org.folio.edge.sip2.journal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+@ExtendWith(VertxExtension.class)
+class OfflineJournalTests {
+  @Test
+  void canReplayInOrder(Vertx vertx, VertxTestContext testContext, @TempDir Path dir) {
+    final OfflineJournal journal = OfflineJournal.of(vertx, dir.resolve("journal/checkins"));
+    final List<Integer> replayed = new ArrayList<>();
+
+    CompositeFuture.all(journal.append(entry(1)), journal.append(entry(2)),
+        journal.append(entry(3)))
+        .compose(v -> journal.replay(entry -> {
+          replayed.add(entry.getInteger("id"));
+          return Future.succeededFuture(Boolean.TRUE);
+        }))
+        .compose(count -> {
+          testContext.verify(() -> {
+            assertEquals(3, count);
+            assertEquals(Arrays.asList(1, 2, 3), replayed);
+          });
+          // the replayed entries are removed
+          return journal.replay(entry -> Future.succeededFuture(Boolean.TRUE));
+        })
+        .onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+          assertEquals(0, count);
+          journal.close();
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canKeepEntriesNotReplayed(Vertx vertx, VertxTestContext testContext,
+      @TempDir Path dir) {
+    final Path path = dir.resolve("checkins");
+    final OfflineJournal journal = OfflineJournal.of(vertx, path);
+
+    CompositeFuture.all(journal.append(entry(1)), journal.append(entry(2)),
+        journal.append(entry(3)))
+        .compose(v -> journal.replay(entry ->
+            Future.succeededFuture(entry.getInteger("id") < 2)))
+        .compose(count -> {
+          testContext.verify(() -> assertEquals(1, count));
+          // the entries are still there after a restart
+          journal.close();
+          final List<Integer> replayed = new ArrayList<>();
+          return OfflineJournal.of(vertx, path)
+              .replay(entry -> {
+                replayed.add(entry.getInteger("id"));
+                return Future.failedFuture("FOLIO is down");
+              })
+              .map(replayed);
+        })
+        .onComplete(testContext.succeeding(replayed -> testContext.verify(() -> {
+          assertEquals(Arrays.asList(2), replayed);
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canReplayOtherKeysPastEntryNotReplayed(Vertx vertx, VertxTestContext testContext,
+      @TempDir Path dir) {
+    final OfflineJournal journal = OfflineJournal.of(vertx, dir.resolve("checkins"));
+    final List<Integer> replayed = new ArrayList<>();
+
+    CompositeFuture.all(journal.append(entry(1)), journal.append(entry(2)),
+        journal.append(entry(3)), journal.append(entry(4)))
+        // the odd entries cannot be replayed after entry 1 was not
+        .compose(v -> journal.replay(entry -> entry.getInteger("id") % 2 == 0 ? "even" : "odd",
+            entry -> {
+              replayed.add(entry.getInteger("id"));
+              return Future.succeededFuture(entry.getInteger("id") != 1);
+            }))
+        .compose(count -> {
+          testContext.verify(() -> {
+            assertEquals(2, count);
+            assertEquals(Arrays.asList(1, 2, 4), replayed);
+          });
+          replayed.clear();
+          return journal.replay(entry -> {
+            replayed.add(entry.getInteger("id"));
+            return Future.succeededFuture(Boolean.TRUE);
+          });
+        })
+        .onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+          // the entries kept are still in order
+          assertEquals(2, count);
+          assertEquals(Arrays.asList(1, 3), replayed);
+          journal.close();
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  void canSkipIncompleteEntry(Vertx vertx, VertxTestContext testContext, @TempDir Path dir)
+      throws IOException {
+    final Path path = dir.resolve("checkins");
+    Files.write(path, (entry(1).encode() + "\n{\"id\":").getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE_NEW);
+    final OfflineJournal journal = OfflineJournal.of(vertx, path);
+    final List<Integer> replayed = new ArrayList<>();
+
+    journal.replay(entry -> {
+      replayed.add(entry.getInteger("id"));
+      return Future.succeededFuture(Boolean.TRUE);
+    }).onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+      assertEquals(1, count);
+      assertEquals(Arrays.asList(1), replayed);
+      assertEquals(0, Files.size(path));
+      journal.close();
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  void cannotAppendWhenDisabled() {
+    final OfflineJournal journal = OfflineJournal.disabled();
+
+    assertFalse(journal.isEnabled());
+    assertTrue(journal.append(entry(1)).failed());
+    assertEquals(0, journal.replay(entry -> Future.succeededFuture(Boolean.TRUE)).result());
+  }
+
+  private static JsonObject entry(int id) {
+    return new JsonObject().put("id", id);
+  }
+}
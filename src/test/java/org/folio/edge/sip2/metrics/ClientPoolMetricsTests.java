@@ -0,0 +1,91 @@
+package org.folio.edge.sip2.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.ext.web.client.WebClientOptions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+class ClientPoolMetricsTests {
+  @Test
+  void canCountConnections() {
+    final ClientPoolMetrics metrics = new ClientPoolMetrics(new WebClientOptions());
+    final HttpConnection connection = mock(HttpConnection.class);
+
+    metrics.connectionOpened(connection);
+    metrics.connectionOpened(mock(HttpConnection.class));
+    assertEquals(2, metrics.connections());
+    assertEquals(2, metrics.connectionsOpenedCount());
+
+    @SuppressWarnings("unchecked")
+    final ArgumentCaptor<Handler<Void>> closeHandler = ArgumentCaptor.forClass(Handler.class);
+    verify(connection).closeHandler(closeHandler.capture());
+    closeHandler.getValue().handle(null);
+    assertEquals(1, metrics.connections());
+    assertEquals(2, metrics.connectionsOpenedCount());
+  }
+
+  @Test
+  void canCountWaitingRequests() {
+    final ClientPoolMetrics metrics = new ClientPoolMetrics(new WebClientOptions());
+
+    for (int i = 0; i < 3; i++) {
+      metrics.requestStarted();
+    }
+    assertEquals(3, metrics.requests());
+    assertEquals(3, metrics.waiting());
+
+    metrics.connectionOpened(mock(HttpConnection.class));
+    metrics.connectionOpened(mock(HttpConnection.class));
+    assertEquals(1, metrics.waiting());
+
+    metrics.requestEnded();
+    assertEquals(2, metrics.requests());
+    assertEquals(0, metrics.waiting());
+  }
+
+  @Test
+  void canCountWaitingPipelinedRequests() {
+    final ClientPoolMetrics metrics = new ClientPoolMetrics(new WebClientOptions()
+        .setPipelining(true)
+        .setPipeliningLimit(2));
+
+    for (int i = 0; i < 5; i++) {
+      metrics.requestStarted();
+    }
+    metrics.connectionOpened(mock(HttpConnection.class));
+    metrics.connectionOpened(mock(HttpConnection.class));
+    assertEquals(1, metrics.waiting());
+  }
+
+  @Test
+  void canCountWaitingMultiplexedRequests() {
+    final ClientPoolMetrics metrics = new ClientPoolMetrics(new WebClientOptions()
+        .setProtocolVersion(HttpVersion.HTTP_2));
+
+    for (int i = 0; i < 100; i++) {
+      metrics.requestStarted();
+    }
+    assertEquals(100, metrics.waiting());
+
+    metrics.connectionOpened(mock(HttpConnection.class));
+    assertEquals(0, metrics.waiting());
+  }
+
+  @Test
+  void canRemoveGauges() {
+    final ClientPoolMetrics metrics = new ClientPoolMetrics(new WebClientOptions());
+    assertNotNull(metrics.registry().find("org.folio.edge.sip2.okapi.pool.connections").gauge());
+
+    metrics.close();
+    assertNull(metrics.registry().find("org.folio.edge.sip2.okapi.pool.connections").gauge());
+    assertNull(metrics.registry().find("org.folio.edge.sip2.okapi.pool.waiting").gauge());
+  }
+}
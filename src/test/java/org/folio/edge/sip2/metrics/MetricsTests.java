@@ -5,6 +5,10 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
 import org.folio.edge.sip2.parser.Command;
 import org.junit.jupiter.api.Test;
 
@@ -60,6 +64,23 @@ class MetricsTests {
     assertEquals(4, m.invalidMessageErrorCount());
   }
 
+  @Test
+  void testRequestTooLongError() {
+    final Metrics m = Metrics.getMetrics(1234);
+    m.requestTooLongError();
+    m.requestTooLongError();
+    assertEquals(2, m.requestTooLongErrorCount());
+  }
+
+  @Test
+  void testWriteQueueFull() {
+    final Metrics m = Metrics.getMetrics(1234);
+    m.writeQueueFull();
+    m.writeQueueFull();
+    m.writeQueueFull();
+    assertEquals(3, m.writeQueueFullCount());
+  }
+
   @Test
   void testSample() {
     final Metrics m = Metrics.getMetrics(1234);
@@ -71,16 +92,84 @@ class MetricsTests {
   void testCommandTimer() {
     final Metrics m = Metrics.getMetrics(1234);
     final Timer.Sample sample = m.sample();
-    final Timer timer = m.commandTimer(Command.UNKNOWN);
+    final Timer timer = m.commandTimer(Command.UNKNOWN, "diku");
     assertNotNull(timer);
     final long time = sample.stop(timer);
     assertTrue(time > 0L);
   }
 
+  @Test
+  void testCommandTimerHistograms() {
+    final Metrics m = Metrics.getMetrics(1234, LatencyHistograms.of(new JsonObject()
+        .put("slo", new JsonArray().add(100).add(1000))
+        .put("percentiles", new JsonArray().add(0.9))));
+    final Timer timer = m.commandTimer(Command.LOGIN, "diku");
+    timer.record(Duration.ofMillis(50));
+    timer.record(Duration.ofMillis(500));
+
+    assertEquals("diku", timer.getId().getTag("tenant"));
+    assertEquals("LOGIN", timer.getId().getTag("command"));
+    final HistogramSnapshot snapshot = timer.takeSnapshot();
+    assertEquals(2, snapshot.histogramCounts().length);
+    assertEquals(1, snapshot.histogramCounts()[0].count());
+    assertEquals(2, snapshot.histogramCounts()[1].count());
+    assertEquals(1, snapshot.percentileValues().length);
+    assertEquals("none", m.commandTimer(Command.LOGIN, null).getId().getTag("tenant"));
+  }
+
   @Test
   void testStop() {
     final Metrics m = Metrics.getMetrics(1234);
     assertNotNull(m);
     m.stop();
   }
+
+  @Test
+  void testSession() {
+    final Metrics m = Metrics.getMetrics(1234);
+    final Metrics.Session session = m.sessionStarted("diku");
+    final Metrics.Session other = m.sessionStarted("diku");
+    assertEquals(2, m.activeConnections("diku"));
+
+    session.messageReceived(20);
+    session.messageReceived(30);
+    session.responseSent(40);
+    session.closed();
+    session.closed();
+
+    assertEquals(1, m.activeConnections("diku"));
+    assertEquals(2, session.messageCount());
+    assertEquals(50, session.bytesReceivedCount());
+    assertEquals(40, session.bytesSentCount());
+    assertEquals(1, session.duration().count());
+    assertEquals(1, session.messages().count());
+    assertEquals(2, session.messages().totalAmount());
+
+    other.closed();
+    assertEquals(0, m.activeConnections("diku"));
+    assertEquals(0, m.unknownAddressCount());
+  }
+
+  @Test
+  void testSessionFailed() {
+    final Metrics m = Metrics.getMetrics(1234);
+    final Metrics.Session session = m.sessionStarted("diku");
+
+    session.failed();
+    // the connection closes after the failure
+    session.closed();
+    session.failed();
+
+    assertEquals(1, session.errorCount());
+    assertEquals(1, session.duration().count());
+    assertEquals(0, m.activeConnections("diku"));
+  }
+
+  @Test
+  void testSessionFromUnknownAddress() {
+    final Metrics m = Metrics.getMetrics(1234);
+    m.sessionStarted(null);
+    assertEquals(1, m.unknownAddressCount());
+    assertEquals(1, m.activeConnections("none"));
+  }
 }
@@ -0,0 +1,42 @@
+package org.folio.edge.sip2.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.Callable;
+import org.junit.jupiter.api.Test;
+
+class OkapiRequestMetricsTests {
+  @Test
+  void canTimeRequestsByEndpoint() {
+    final OkapiRequestMetrics metrics = new OkapiRequestMetrics(LatencyHistograms.defaults());
+
+    metrics.stop(metrics.start(), LoansRequestData.class, "GET", "200");
+    metrics.stop(metrics.start(), LoansRequestData.class, "GET", "200");
+    metrics.stop(metrics.start(), LoansRequestData.class, "GET", "timeout");
+
+    final Timer timer = metrics.requestTimer("LoansRequestData", "GET", "200");
+    assertEquals(2, timer.count());
+    assertEquals(1, metrics.requestTimer("LoansRequestData", "GET", "timeout").count());
+  }
+
+  @Test
+  void canTimeRequestsOfAnonymousTypes() {
+    final OkapiRequestMetrics metrics = new OkapiRequestMetrics(LatencyHistograms.defaults());
+    final Callable<String> anonymous = new Callable<String>() {
+      @Override
+      public String call() {
+        return "";
+      }
+    };
+    final Callable<String> lambda = () -> "";
+
+    metrics.stop(metrics.start(), anonymous.getClass(), "POST", "201");
+    metrics.stop(metrics.start(), lambda.getClass(), "POST", "201");
+
+    assertEquals(2, metrics.requestTimer("other", "POST", "201").count());
+  }
+
+  private static final class LoansRequestData {
+  }
+}
@@ -0,0 +1,128 @@
+package org.folio.edge.sip2.modules;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.Key;
+import com.google.inject.TypeLiteral;
+import com.google.inject.name.Names;
+import io.vertx.core.Future;
+import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.edge.sip2.cache.AsyncCache;
+import org.folio.edge.sip2.repositories.ConfigurationRepository;
+import org.folio.edge.sip2.repositories.IRequestData;
+import org.folio.edge.sip2.repositories.IResourceProvider;
+import org.folio.edge.sip2.repositories.domain.LoginToken;
+import org.folio.edge.sip2.repositories.domain.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheModuleTests {
+  private Clock clock;
+
+  @BeforeEach
+  void setUp() {
+    clock = mock(Clock.class);
+    when(clock.millis()).thenReturn(0L);
+  }
+
+  @Test
+  void canShareCaches() {
+    final Injector injector = injector(new JsonObject());
+
+    assertSame(loginTokenCache(injector), loginTokenCache(injector));
+  }
+
+  @Test
+  void canRefreshLoginTokenBeforeExpiry() {
+    final AsyncCache<String, LoginToken> cache = loginTokenCache(injector(new JsonObject()));
+    final AtomicInteger logins = new AtomicInteger();
+    final LoginToken token = LoginToken.of(jwt(120));
+
+    assertEquals(120_000L, token.getExpiresAt());
+    cache.get("diku/test", () -> login(logins, token));
+
+    when(clock.millis()).thenReturn(59_999L);
+    cache.get("diku/test", () -> login(logins, token));
+    assertEquals(1, logins.get());
+
+    // refreshed a minute before the token expires
+    when(clock.millis()).thenReturn(60_000L);
+    cache.get("diku/test", () -> login(logins, token));
+    assertEquals(2, logins.get());
+  }
+
+  @Test
+  void canCapLoginTokenTtl() {
+    final AsyncCache<String, LoginToken> cache = loginTokenCache(
+        injector(new JsonObject().put("loginTokens", new JsonObject().put("ttl", 1000))));
+    final AtomicInteger logins = new AtomicInteger();
+    final LoginToken token = LoginToken.of("not-a-jwt");
+
+    assertEquals(Long.MAX_VALUE, token.getExpiresAt());
+    cache.get("diku/test", () -> login(logins, token));
+
+    when(clock.millis()).thenReturn(1000L);
+    cache.get("diku/test", () -> login(logins, token));
+    assertEquals(2, logins.get());
+  }
+
+  @Test
+  void canDisableCaches() {
+    final Injector injector = injector(new JsonObject()
+        .put("loginTokens", new JsonObject().put("ttl", 0)));
+
+    assertFalse(loginTokenCache(injector).isEnabled());
+    assertTrue(injector.getInstance(Key.get(
+        new TypeLiteral<AsyncCache<String, Optional<User>>>() {},
+        Names.named("usersCache"))).isEnabled());
+  }
+
+  @Test
+  void canShareConfigurationRepository() {
+    final Injector injector = injector(new JsonObject()
+        .put("acsStatus", new JsonObject().put("ttl", 0)));
+
+    assertSame(injector.getInstance(ConfigurationRepository.class),
+        injector.getInstance(ConfigurationRepository.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  private Injector injector(JsonObject caches) {
+    final IResourceProvider<IRequestData> resourceProvider = mock(IResourceProvider.class);
+    return Guice.createInjector(new CacheModule(caches), binder -> {
+      binder.bind(Clock.class).toInstance(clock);
+      binder.bind(new TypeLiteral<IResourceProvider<IRequestData>>() {})
+          .toInstance(resourceProvider);
+    });
+  }
+
+  private static AsyncCache<String, LoginToken> loginTokenCache(Injector injector) {
+    return injector.getInstance(Key.get(new TypeLiteral<AsyncCache<String, LoginToken>>() {},
+        Names.named("loginTokenCache")));
+  }
+
+  private static Future<LoginToken> login(AtomicInteger logins, LoginToken token) {
+    logins.incrementAndGet();
+    return Future.succeededFuture(token);
+  }
+
+  private static String jwt(long exp) {
+    final Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+    return encoder.encodeToString("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8))
+        + "." + encoder.encodeToString(new JsonObject().put("exp", exp).encode()
+            .getBytes(StandardCharsets.UTF_8))
+        + ".signature";
+  }
+}
@@ -36,6 +36,7 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import io.vertx.core.buffer.Buffer;
 import java.nio.charset.Charset;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
@@ -776,6 +777,131 @@ class ParserTests {
     assertEquals(FALSE, renewAll.getFeeAcknowledged());
   }
 
+  @Test
+  void testLoginParsingFromBufferWithErrorDetection() {
+    final Parser parser = Parser.builder().errorDetectionEnaled(TRUE).build();
+    final Message<?> message = parser.parseMessage(
+        Buffer.buffer("9300CNuser_id|COpassw0rd|AY1AZF594", "IBM850"));
+
+    assertTrue(message.isValid());
+    assertEquals(LOGIN, message.getCommand());
+    assertEquals(1, message.getSequenceNumber());
+    assertEquals("F594", message.getChecksumsString());
+    assertTrue(message.getRequest() instanceof Login);
+
+    final Login login = (Login) message.getRequest();
+
+    assertEquals("user_id", login.getLoginUserId());
+    assertEquals("passw0rd", login.getLoginPassword());
+    assertNull(login.getLocationCode());
+  }
+
+  @Test
+  void testLoginParsingFromBufferWithErrorDetectionAndBadChecksum() {
+    final Parser parser = Parser.builder().errorDetectionEnaled(TRUE).build();
+    final Message<?> message = parser.parseMessage(
+        Buffer.buffer("9300CNuser_id|COpassw0rd|AY1AZF595", "IBM850"));
+
+    assertFalse(message.isValid());
+    assertEquals("F595", message.getChecksumsString());
+    assertEquals(1, message.getSequenceNumber());
+  }
+
+  @Test
+  void testParsingFromBufferWithErrorDetectionAndBadSequenceNumber() {
+    final Parser parser = Parser.builder().errorDetectionEnaled(TRUE).build();
+    final Message<?> message = parser.parseMessage(
+        Buffer.buffer("9300CNuser_id|COpassw0rd|AYxAZF594", "IBM850"));
+
+    assertFalse(message.isValid());
+    assertNull(message.getSequenceNumber());
+  }
+
+  @Test
+  void testParsingFromBufferWithErrorDetectionMissing() {
+    final Parser parser = Parser.builder().errorDetectionEnaled(TRUE).build();
+    final Message<?> message = parser.parseMessage(
+        Buffer.buffer("9300CNuser_id|COpassw0rd|", "IBM850"));
+
+    assertFalse(message.isValid());
+    assertEquals(LOGIN, message.getCommand());
+  }
+
+  @Test
+  void testCheckinParsingFromBufferWithNonAsciiCharacters() {
+    final Parser parser = Parser.builder()
+        .errorDetectionEnaled(TRUE)
+        .timezone(TestUtils.UTCTimeZone)
+        .build();
+    final OffsetDateTime transactionDate =
+        TestUtils.getOffsetDateTimeUtc().truncatedTo(SECONDS);
+    final DateTimeFormatter formatter = DateTimeFormatter
+        .ofPattern("yyyyMMdd    HHmmss");
+    final String transactionDateString = formatter.format(transactionDate);
+    final String sip = addErrorDetection("09N" + transactionDateString
+        + transactionDateString + "APBibliothèque|AOuniversity_id|ABSomeBook|"
+        + "AC|CHKöln|BIN|", 4);
+
+    final Message<?> stringMessage = parser.parseMessage(sip);
+    final Message<?> bufferMessage = parser.parseMessage(Buffer.buffer(sip, "IBM850"));
+
+    assertTrue(bufferMessage.isValid());
+    assertEquals(CHECKIN, bufferMessage.getCommand());
+    assertEquals(4, bufferMessage.getSequenceNumber());
+    assertEquals(stringMessage.getChecksumsString(), bufferMessage.getChecksumsString());
+    assertEquals(stringMessage.getRequest().toString(),
+        bufferMessage.getRequest().toString());
+
+    final Checkin checkin = (Checkin) bufferMessage.getRequest();
+
+    assertEquals("Bibliothèque", checkin.getCurrentLocation());
+    assertEquals("Köln", checkin.getItemProperties());
+  }
+
+  @Test
+  void testRequestACSResendParsingFromBufferWithErrorDetection() {
+    final Parser parser = Parser.builder().errorDetectionEnaled(TRUE).build();
+    final Message<?> message = parser.parseMessage(Buffer.buffer("97AZFEF5", "IBM850"));
+
+    assertTrue(message.isValid());
+    assertEquals(REQUEST_ACS_RESEND, message.getCommand());
+    assertNull(message.getSequenceNumber());
+    assertEquals("FEF5", message.getChecksumsString());
+  }
+
+  @Test
+  void testParsingFromBufferWithUnknownCommand() {
+    final Parser parser = Parser.builder().build();
+
+    assertEquals(Command.UNKNOWN, parser.parseMessage(Buffer.buffer("X")).getCommand());
+    assertFalse(parser.parseMessage(Buffer.buffer("X")).isValid());
+    assertEquals(Command.UNKNOWN, parser.parseMessage(Buffer.buffer("00AB|")).getCommand());
+    assertEquals(Command.UNKNOWN, parser.parseMessage(Buffer.buffer("A9AB|")).getCommand());
+    assertFalse(parser.parseMessage(Buffer.buffer("00AB|")).isValid());
+  }
+
+  @Test
+  void testFindCommandFromBytesMatchesFindFromString() {
+    for (Command command : Command.values()) {
+      if (command != Command.UNKNOWN) {
+        final String identifier = identifierOf(command);
+        assertEquals(command, Command.find((byte) identifier.charAt(0),
+            (byte) identifier.charAt(1)));
+        assertEquals(command, Command.find(identifier));
+      }
+    }
+  }
+
+  private String identifierOf(Command command) {
+    for (int i = 0; i < 100; i++) {
+      final String identifier = String.format("%02d", i);
+      if (Command.find(identifier) == command) {
+        return identifier;
+      }
+    }
+    throw new IllegalStateException("No identifier for " + command);
+  }
+
   private String addErrorDetection(String message) {
     return addErrorDetection(message, new Random().nextInt(10));
   }
@@ -0,0 +1,80 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class CircuitBreakerTests {
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  void canOpenAfterFailuresInARow(@Mock Clock clock) {
+    when(clock.millis()).thenAnswer(invocation -> now.get());
+    final CircuitBreaker circuitBreaker = new CircuitBreaker(clock, 3, 1000);
+
+    circuitBreaker.failed();
+    circuitBreaker.failed();
+    circuitBreaker.succeeded();
+    circuitBreaker.failed();
+    circuitBreaker.failed();
+    assertFalse(circuitBreaker.isOpen());
+    assertTrue(circuitBreaker.allowRequest());
+
+    circuitBreaker.failed();
+    assertTrue(circuitBreaker.isOpen());
+    assertFalse(circuitBreaker.allowRequest());
+  }
+
+  @Test
+  void canCloseAfterTrialSucceeds(@Mock Clock clock) {
+    when(clock.millis()).thenAnswer(invocation -> now.get());
+    final CircuitBreaker circuitBreaker = new CircuitBreaker(clock, 1, 1000);
+    circuitBreaker.failed();
+
+    now.set(999);
+    assertFalse(circuitBreaker.allowRequest());
+    now.set(1000);
+    assertTrue(circuitBreaker.allowRequest());
+    // only one trial request at a time
+    assertFalse(circuitBreaker.allowRequest());
+
+    circuitBreaker.succeeded();
+    assertFalse(circuitBreaker.isOpen());
+    assertTrue(circuitBreaker.allowRequest());
+  }
+
+  @Test
+  void canOpenAgainAfterTrialFails(@Mock Clock clock) {
+    when(clock.millis()).thenAnswer(invocation -> now.get());
+    final CircuitBreaker circuitBreaker = new CircuitBreaker(clock, 2, 1000);
+    circuitBreaker.failed();
+    circuitBreaker.failed();
+
+    now.set(1000);
+    assertTrue(circuitBreaker.allowRequest());
+    circuitBreaker.failed();
+    assertTrue(circuitBreaker.isOpen());
+    assertFalse(circuitBreaker.allowRequest());
+    now.set(2000);
+    assertTrue(circuitBreaker.allowRequest());
+  }
+
+  @Test
+  void cannotOpenWhenDisabled(@Mock Clock clock) {
+    final CircuitBreaker circuitBreaker = new CircuitBreaker(clock, 0, 1000);
+
+    for (int i = 0; i < 100; i++) {
+      circuitBreaker.failed();
+    }
+    assertFalse(circuitBreaker.isOpen());
+    assertTrue(circuitBreaker.allowRequest());
+  }
+}
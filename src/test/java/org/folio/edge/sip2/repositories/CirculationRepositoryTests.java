@@ -14,6 +14,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.vertx.core.Future;
@@ -25,24 +27,41 @@ import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.time.Clock;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.folio.edge.sip2.api.support.TestUtils;
 import org.folio.edge.sip2.domain.messages.enumerations.RequestStatus;
 import org.folio.edge.sip2.domain.messages.requests.Checkin;
 import org.folio.edge.sip2.domain.messages.requests.Checkout;
+import org.folio.edge.sip2.domain.messages.requests.RenewAll;
+import org.folio.edge.sip2.domain.messages.responses.ACSStatus;
+import org.folio.edge.sip2.domain.messages.responses.RenewAllResponse;
+import org.folio.edge.sip2.journal.OfflineJournal;
 import org.folio.edge.sip2.repositories.domain.PatronPasswordVerificationRecords;
 import org.folio.edge.sip2.repositories.domain.User;
 import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.session.TokenSource;
+import org.folio.edge.sip2.session.TokenSources;
 import org.folio.edge.sip2.utils.Utils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -131,6 +150,241 @@ public class CirculationRepositoryTests {
         })));
   }
 
+  @Test
+  public void canCheckinOffline(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock ConfigurationRepository mockConfigurationRepository,
+      @Mock TokenSource mockTokenSource,
+      @TempDir Path dir) {
+    offlineOk(mockConfigurationRepository, TRUE);
+    // the item was not checked out again
+    openLoans(mockFolioProvider, "2020-06-22T09:00:00.000+00:00");
+    final List<IRequestData> sent = new ArrayList<>();
+    when(mockFolioProvider.createResource(any())).thenAnswer(invocation -> {
+      sent.add(invocation.getArgument(0));
+      return sent.size() == 1
+          ? Future.failedFuture(new CircuitOpenThrowable("dikutest"))
+          : Future.succeededFuture(new FolioResource(new JsonObject(),
+              MultiMap.caseInsensitiveMultiMap()));
+    });
+
+    final TokenSources tokenSources = new TokenSources();
+    tokenSources.put("dikutest", "kiosk", mockTokenSource);
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 50, 4, 4,
+        OfflineJournal.of(vertx, dir.resolve("checkins")), mockConfigurationRepository,
+        tokenSources);
+    circulationRepository.performCheckinCommand(offlineCheckin(), kioskSession())
+        .compose(checkinResponse -> {
+          testContext.verify(() -> {
+            assertTrue(checkinResponse.getOk());
+            assertEquals(Collections.singletonList("Checkin accepted offline"),
+                checkinResponse.getScreenMessage());
+          });
+          return circulationRepository.replayOfflineCheckins();
+        })
+        .onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+          assertEquals(1, count);
+          assertEquals(2, sent.size());
+          final IRequestData replayed = sent.get(1);
+          assertEquals("/circulation/check-in-by-barcode", replayed.getPath());
+          assertEquals(sent.get(0).getBody(), replayed.getBody());
+          assertEquals("2020-06-22T10:15:30Z", replayed.getBody().getString("checkInDate"));
+          assertEquals("dikutest", replayed.getSessionData().getTenant());
+          // a token of the SC login, not the token of the session that ended
+          assertNull(replayed.getSessionData().getAuthenticationToken());
+          assertEquals(mockTokenSource, replayed.getSessionData().getTokenSource());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void cannotReplayCheckinWithRejectedToken(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock ConfigurationRepository mockConfigurationRepository,
+      @Mock TokenSource mockTokenSource,
+      @TempDir Path dir) {
+    offlineOk(mockConfigurationRepository, TRUE);
+    openLoans(mockFolioProvider);
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.failedFuture(new CircuitOpenThrowable("dikutest")))
+        .thenReturn(Future.failedFuture(new FolioRequestThrowable("Invalid token", 401)))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap())));
+
+    final TokenSources tokenSources = new TokenSources();
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 50, 4, 4,
+        OfflineJournal.of(vertx, dir.resolve("checkins")), mockConfigurationRepository,
+        tokenSources);
+    circulationRepository.performCheckinCommand(offlineCheckin(), kioskSession())
+        // no token until the SC logs in again
+        .compose(checkinResponse -> circulationRepository.replayOfflineCheckins())
+        .compose(count -> {
+          testContext.verify(() -> assertEquals(0, count));
+          tokenSources.put("dikutest", "kiosk", mockTokenSource);
+          return circulationRepository.replayOfflineCheckins();
+        })
+        // the checkin is kept when FOLIO rejects the token
+        .compose(count -> {
+          testContext.verify(() -> assertEquals(0, count));
+          return circulationRepository.replayOfflineCheckins();
+        })
+        .onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+          assertEquals(1, count);
+          verify(mockFolioProvider, times(3)).createResource(any());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canReplayCheckinWhileOtherTenantIsUnavailable(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock ConfigurationRepository mockConfigurationRepository,
+      @Mock TokenSource mockTokenSource,
+      @TempDir Path dir) {
+    offlineOk(mockConfigurationRepository, TRUE);
+    openLoans(mockFolioProvider);
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.failedFuture(new CircuitOpenThrowable("dikutest")))
+        .thenReturn(Future.failedFuture(new CircuitOpenThrowable("othertest")))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap())));
+    final Set<String> unavailable = new HashSet<>(Collections.singleton("dikutest"));
+    when(mockFolioProvider.isUnavailable(any()))
+        .thenAnswer(invocation -> unavailable.contains(invocation.<String>getArgument(0)));
+
+    final SessionData otherSession = SessionData.createSession("othertest", '|', false,
+        "IBM850");
+    otherSession.setUsername("kiosk");
+    final TokenSources tokenSources = new TokenSources();
+    tokenSources.put("dikutest", "kiosk", mockTokenSource);
+    tokenSources.put("othertest", "kiosk", mockTokenSource);
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 50, 4, 4,
+        OfflineJournal.of(vertx, dir.resolve("checkins")), mockConfigurationRepository,
+        tokenSources);
+    circulationRepository.performCheckinCommand(offlineCheckin(), kioskSession())
+        .compose(checkinResponse -> circulationRepository.performCheckinCommand(
+            offlineCheckin(), otherSession))
+        // the checkin of the unavailable tenant does not hold back the other
+        .compose(checkinResponse -> circulationRepository.replayOfflineCheckins())
+        .compose(count -> {
+          testContext.verify(() -> {
+            assertEquals(1, count);
+            verify(mockFolioProvider, times(2)).createResource(argThat(requestData ->
+                "othertest".equals(requestData.getSessionData().getTenant())));
+            verify(mockFolioProvider, times(1)).createResource(argThat(requestData ->
+                "dikutest".equals(requestData.getSessionData().getTenant())));
+          });
+          unavailable.clear();
+          return circulationRepository.replayOfflineCheckins();
+        })
+        .onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+          // the checkin that was kept is replayed once the tenant is back
+          assertEquals(1, count);
+          verify(mockFolioProvider, times(4)).createResource(any());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void cannotCheckinOfflineWhenFolioIsReachable(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock ConfigurationRepository mockConfigurationRepository,
+      @TempDir Path dir) {
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.failedFuture(new IllegalStateException("Not a network failure")));
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 50, 4, 4,
+        OfflineJournal.of(vertx, dir.resolve("checkins")), mockConfigurationRepository,
+        new TokenSources());
+    circulationRepository.performCheckinCommand(offlineCheckin(), kioskSession())
+        .compose(checkinResponse -> {
+          testContext.verify(() -> assertFalse(checkinResponse.getOk()));
+          return circulationRepository.replayOfflineCheckins();
+        })
+        .onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+          assertEquals(0, count);
+          verify(mockFolioProvider, times(1)).createResource(any());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void cannotReplayCheckinAfterItemWasCheckedOutAgain(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock ConfigurationRepository mockConfigurationRepository,
+      @Mock TokenSource mockTokenSource,
+      @TempDir Path dir) {
+    offlineOk(mockConfigurationRepository, TRUE);
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.failedFuture(new CircuitOpenThrowable("dikutest")));
+    // returned at 10:15:30, then checked out to another patron once FOLIO was back
+    openLoans(mockFolioProvider, "2020-06-22T11:00:00.000+00:00");
+
+    final TokenSources tokenSources = new TokenSources();
+    tokenSources.put("dikutest", "kiosk", mockTokenSource);
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 50, 4, 4,
+        OfflineJournal.of(vertx, dir.resolve("checkins")), mockConfigurationRepository,
+        tokenSources);
+    circulationRepository.performCheckinCommand(offlineCheckin(), kioskSession())
+        .compose(checkinResponse -> circulationRepository.replayOfflineCheckins())
+        .onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+          // the checkin is dropped rather than ending the new loan
+          assertEquals(1, count);
+          verify(mockFolioProvider, times(1)).createResource(any());
+          verify(mockFolioProvider).retrieveResource(argThat(requestData ->
+              requestData.getPath().startsWith("/circulation/loans?limit=1&query=")
+              && requestData.getPath().contains("item-1")));
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void cannotCheckinOfflineWithoutOfflineOk(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock ConfigurationRepository mockConfigurationRepository,
+      @TempDir Path dir) {
+    offlineOk(mockConfigurationRepository, FALSE);
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.failedFuture(new CircuitOpenThrowable("dikutest")));
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 50, 4, 4,
+        OfflineJournal.of(vertx, dir.resolve("checkins")), mockConfigurationRepository,
+        new TokenSources());
+    circulationRepository.performCheckinCommand(offlineCheckin(), kioskSession())
+        .compose(checkinResponse -> {
+          testContext.verify(() -> assertFalse(checkinResponse.getOk()));
+          return circulationRepository.replayOfflineCheckins();
+        })
+        .onComplete(testContext.succeeding(count -> testContext.verify(() -> {
+          assertEquals(0, count);
+
+          testContext.completeNow();
+        })));
+  }
+
   @Test
   public void canCheckinWithoutTitleIdentifier(Vertx vertx,
       VertxTestContext testContext,
@@ -740,6 +994,92 @@ public class CirculationRepositoryTests {
             })));
   }
 
+  @Test
+  public void canGetRequestsByItemIdsInChunks(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final List<String> itemIds = Stream.generate(() -> UUID.randomUUID().toString())
+        .limit(5)
+        .collect(Collectors.toList());
+    final List<String> paths = new ArrayList<>();
+
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> {
+      final String path = URLDecoder.decode(
+          invocation.<IRequestData>getArgument(0).getPath(), StandardCharsets.UTF_8);
+      paths.add(path);
+      final JsonArray requests = new JsonArray();
+      itemIds.stream()
+          .filter(path::contains)
+          .forEach(itemId -> requests.add(new JsonObject().put("itemId", itemId)));
+      return Future.succeededFuture(new FolioResource(new JsonObject()
+          .put("requests", requests)
+          .put("totalRecords", requests.size()), MultiMap.caseInsensitiveMultiMap()));
+    });
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 2, 2);
+    final Map<String, JsonObject> requests = circulationRepository.getRequestsByItemIds(
+        itemIds, TestUtils.getMockedSessionData()).result();
+
+    assertEquals(new HashSet<>(itemIds), requests.keySet());
+    assertEquals(3, paths.size());
+    assertTrue(paths.get(0).contains(
+        "(itemId==(" + itemIds.get(0) + " or " + itemIds.get(1) + ") and (status=="));
+    assertTrue(paths.get(0).startsWith("/circulation/requests?limit=20&offset=0&query="));
+    assertTrue(paths.stream().allMatch(path -> path.endsWith(") sortBy id")));
+  }
+
+  @Test
+  public void canGetRequestsByItemIdsOnFurtherPages(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final String popularItemId = UUID.randomUUID().toString();
+    final String itemId = UUID.randomUUID().toString();
+    final JsonArray firstPage = new JsonArray();
+    for (int i = 0; i < 20; i++) {
+      firstPage.add(new JsonObject().put("itemId", popularItemId).put("position", i + 1));
+    }
+
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+            .put("requests", firstPage)
+            .put("totalRecords", 21), MultiMap.caseInsensitiveMultiMap())))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+            .put("requests", new JsonArray().add(new JsonObject().put("itemId", itemId)))
+            .put("totalRecords", 21), MultiMap.caseInsensitiveMultiMap())));
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 2, 2);
+    final Map<String, JsonObject> requests = circulationRepository.getRequestsByItemIds(
+        asList(popularItemId, itemId), TestUtils.getMockedSessionData()).result();
+
+    assertEquals(1, requests.get(popularItemId).getInteger("position"));
+    assertNotNull(requests.get(itemId));
+    verify(mockFolioProvider).retrieveResource(
+        argThat((IRequestData data) -> data.getPath().contains("&offset=20&")));
+  }
+
+  @Test
+  public void canGetRequestsByItemIdsWhenChunkFails(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final String itemId = UUID.randomUUID().toString();
+
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.failedFuture(new NoStackTraceThrowable("cannotGetRequests")))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+            .put("requests", new JsonArray().add(new JsonObject().put("itemId", itemId)))
+            .put("totalRecords", 1), MultiMap.caseInsensitiveMultiMap())));
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 1, 1);
+    final Map<String, JsonObject> requests = circulationRepository.getRequestsByItemIds(
+        asList(UUID.randomUUID().toString(), itemId), TestUtils.getMockedSessionData())
+        .result();
+
+    assertEquals(Collections.singleton(itemId), requests.keySet());
+  }
+
   @Test
   public void canGetRequestsByUserId(Vertx vertx,
       VertxTestContext testContext,
@@ -804,4 +1144,253 @@ public class CirculationRepositoryTests {
               testContext.completeNow();
             })));
   }
+
+  @Test
+  public void canCountLoansByUserId(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final String userId = UUID.randomUUID().toString();
+
+    when(mockFolioProvider.retrieveResource(
+        argThat((IRequestData data) -> data.getPath().startsWith(
+            "/circulation/loans?limit=0&query="))))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+            .put("loans", new JsonArray())
+            .put("totalRecords", 7), MultiMap.caseInsensitiveMultiMap())));
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock());
+
+    assertEquals(7, circulationRepository.countLoansByUserId(
+        userId, TestUtils.getMockedSessionData()).result());
+  }
+
+  @Test
+  public void canCountOverdueLoansAndRequestsByUserId(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final String userId = UUID.randomUUID().toString();
+    final List<String> paths = new ArrayList<>();
+
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> {
+      paths.add(invocation.<IRequestData>getArgument(0).getPath());
+      return Future.succeededFuture(new FolioResource(new JsonObject()
+          .put("totalRecords", 4), MultiMap.caseInsensitiveMultiMap()));
+    });
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock());
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+
+    assertEquals(4, circulationRepository.countOverdueLoansByUserId(
+        userId, OffsetDateTime.now(), sessionData).result());
+    assertEquals(4, circulationRepository.countRequestsByUserId(userId, "Hold",
+        new ArrayList<>(asList(RequestStatus.OPEN_AWAITING_PICKUP)), sessionData).result());
+    assertTrue(paths.get(0).startsWith("/circulation/loans?limit=0&query="));
+    assertTrue(paths.get(1).startsWith("/circulation/requests?limit=0&query="));
+    assertFalse(paths.get(1).contains("offset"));
+  }
+
+  @Test
+  public void cannotCountLoansByUserIdWhenFolioFails(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.failedFuture(new NoStackTraceThrowable("cannotCountLoans")));
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock());
+
+    assertNull(circulationRepository.countLoansByUserId(
+        UUID.randomUUID().toString(), TestUtils.getMockedSessionData()).result());
+  }
+
+  @Test
+  public void canPerformRenewAllCommand(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final User userResponse = Json.decodeValue(getJsonFromFile("json/user_response.json"),
+        User.class);
+    final List<String> renewedItemIds = new ArrayList<>();
+
+    when(mockPasswordVerifier.verifyPatronPassword(eq("1234567890"), eq("7890"), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
+            .user(userResponse)
+            .passwordVerified(TRUE)
+            .build()));
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> {
+      // the loans are read in pages
+      final JsonArray loans = invocation.<IRequestData>getArgument(0).getPath()
+          .endsWith("&offset=2")
+          ? new JsonArray().add(loan("3"))
+          : new JsonArray().add(loan("1")).add(loan("2"));
+      return Future.succeededFuture(new FolioResource(new JsonObject()
+          .put("loans", loans)
+          .put("totalRecords", 3), MultiMap.caseInsensitiveMultiMap()));
+    });
+    when(mockFolioProvider.createResource(
+        argThat((IRequestData data) -> data.getPath().equals("/circulation/renew-by-id"))))
+        .thenAnswer(invocation -> {
+          final String itemId = invocation.<IRequestData>getArgument(0).getBody()
+              .getString("itemId");
+          renewedItemIds.add(itemId);
+          return itemId.equals("item-2")
+              ? Future.failedFuture(new FolioRequestThrowable("Loan has reached its maximum"
+                  + " number of renewals", 422))
+              : Future.succeededFuture(new FolioResource(new JsonObject(),
+                  MultiMap.caseInsensitiveMultiMap()));
+        });
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 50, 4, 2);
+    final RenewAllResponse response = circulationRepository.performRenewAllCommand(
+        renewAll(), TestUtils.getMockedSessionData()).result();
+
+    assertTrue(response.getOk());
+    assertEquals(2, response.getRenewedCount());
+    assertEquals(asList("barcode-1", "barcode-3"), response.getRenewedItems());
+    assertEquals(1, response.getUnrenewedCount());
+    assertEquals(asList("barcode-2"), response.getUnrenewedItems());
+    assertEquals(asList("item-1", "item-2", "item-3"), renewedItemIds);
+    // the pages of a stable order
+    verify(mockFolioProvider, times(2)).retrieveResource(argThat((IRequestData data) ->
+        data.getPath().startsWith("/circulation/loans?")
+        && data.getPath().contains(Utils.encode(") sortBy id"))));
+  }
+
+  @Test
+  public void canPerformRenewAllCommandWithinTimeout(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier,
+      @Mock Clock clock) {
+    final User userResponse = Json.decodeValue(getJsonFromFile("json/user_response.json"),
+        User.class);
+    final AtomicLong now = new AtomicLong();
+
+    when(clock.millis()).thenAnswer(invocation -> now.get());
+    when(clock.instant()).thenAnswer(invocation -> Instant.ofEpochMilli(now.get()));
+    when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+    when(mockPasswordVerifier.verifyPatronPassword(eq("1234567890"), eq("7890"), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
+            .user(userResponse)
+            .passwordVerified(TRUE)
+            .build()));
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject()
+            .put("loans", new JsonArray().add(loan("1")).add(loan("2")).add(loan("3")))
+            .put("totalRecords", 3), MultiMap.caseInsensitiveMultiMap())));
+    when(mockFolioProvider.createResource(any())).thenAnswer(invocation -> {
+      // each renewal takes a second
+      now.addAndGet(1000);
+      return Future.succeededFuture(new FolioResource(new JsonObject(),
+          MultiMap.caseInsensitiveMultiMap()));
+    });
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setTimeoutPeriod(30);
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, clock, 50, 4, 1);
+    final RenewAllResponse response = circulationRepository.performRenewAllCommand(
+        renewAll(), sessionData).result();
+
+    assertTrue(response.getOk());
+    assertEquals(asList("barcode-1", "barcode-2"), response.getRenewedItems());
+    assertEquals(asList("barcode-3"), response.getUnrenewedItems());
+  }
+
+  @Test
+  public void cannotPerformRenewAllCommandWhenLoansFail(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final User userResponse = Json.decodeValue(getJsonFromFile("json/user_response.json"),
+        User.class);
+
+    when(mockPasswordVerifier.verifyPatronPassword(eq("1234567890"), eq("7890"), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
+            .user(userResponse)
+            .passwordVerified(TRUE)
+            .build()));
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.failedFuture(new NoStackTraceThrowable("cannotGetLoans")));
+
+    final CirculationRepository circulationRepository = new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock());
+    final RenewAllResponse response = circulationRepository.performRenewAllCommand(
+        renewAll(), TestUtils.getMockedSessionData()).result();
+
+    assertFalse(response.getOk());
+    assertEquals(0, response.getRenewedCount());
+    assertEquals(asList("cannotGetLoans"), response.getScreenMessage());
+  }
+
+  @Test
+  public void cannotCreateCirculationRepositoryWithoutRenewAllParallelism(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    assertThrows(IllegalArgumentException.class, () -> new CirculationRepository(
+        mockFolioProvider, mockPasswordVerifier, TestUtils.getUtcFixedClock(), 50, 4, 0));
+  }
+
+  private static JsonObject loan(String id) {
+    return new JsonObject()
+        .put("id", "loan-" + id)
+        .put("itemId", "item-" + id)
+        .put("item", new JsonObject().put("barcode", "barcode-" + id));
+  }
+
+  private static Checkin offlineCheckin() {
+    return Checkin.builder()
+        .noBlock(FALSE)
+        .transactionDate(OffsetDateTime.now())
+        .returnDate(OffsetDateTime.parse("2020-06-22T10:15:30Z"))
+        .currentLocation("Main Library")
+        .institutionId("diku")
+        .itemIdentifier("1234567890")
+        .terminalPassword("1234")
+        .cancel(FALSE)
+        .build();
+  }
+
+  private static void offlineOk(ConfigurationRepository mockConfigurationRepository,
+      Boolean offlineOk) {
+    when(mockConfigurationRepository.getACSStatus(any()))
+        .thenReturn(Future.succeededFuture(ACSStatus.builder().offLineOk(offlineOk).build()));
+  }
+
+  /**
+   * Answer the lookups of the item of an offline checkin, with an open loan
+   * for each loan date.
+   */
+  private static void openLoans(IResourceProvider<IRequestData> mockFolioProvider,
+      String... loanDates) {
+    final JsonArray loans = new JsonArray();
+    Stream.of(loanDates).forEach(loanDate -> loans.add(new JsonObject()
+        .put("loanDate", loanDate)));
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> {
+      final IRequestData requestData = invocation.getArgument(0);
+      final JsonObject body = requestData.getPath().startsWith("/inventory/items")
+          ? new JsonObject().put("items", new JsonArray().add(new JsonObject()
+              .put("id", "item-1")))
+          : new JsonObject().put("loans", loans);
+      return Future.succeededFuture(new FolioResource(body,
+          MultiMap.caseInsensitiveMultiMap()));
+    });
+  }
+
+  private static SessionData kioskSession() {
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setUsername("kiosk");
+    sessionData.setAuthenticationToken("token");
+    return sessionData;
+  }
+
+  private static RenewAll renewAll() {
+    return RenewAll.builder()
+        .transactionDate(OffsetDateTime.now())
+        .institutionId("diku")
+        .patronIdentifier("1234567890")
+        .patronPassword("7890")
+        .build();
+  }
 }
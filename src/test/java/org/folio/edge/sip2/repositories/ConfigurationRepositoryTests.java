@@ -1,10 +1,13 @@
 package org.folio.edge.sip2.repositories;
 
+import static io.vertx.core.Future.failedFuture;
 import static io.vertx.core.Future.succeededFuture;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.vertx.core.Vertx;
@@ -13,7 +16,9 @@ import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import java.time.Clock;
+import java.time.Instant;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -121,6 +126,54 @@ public class ConfigurationRepositoryTests {
         })));
   }
 
+  @Test
+  public void canCacheAcsStatusConfigurations(Vertx vertx, VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider, @Mock Clock clock) {
+    final JsonObject tenantConfig = new JsonObject()
+        .put("module", "edge-sip2")
+        .put("configName", "acsTenantConfig")
+        .put("value", "{\"supportedMessages\":[{\"messageName\":\"CHECKOUT\","
+            + "\"isSupported\":\"Y\"}],\"statusUpdateOk\":false,"
+            + "\"offlineOk\":true}");
+    final JsonObject scConfig = new JsonObject()
+        .put("module", "edge-sip2")
+        .put("configName", "selfCheckoutConfig.SE10")
+        .put("value", "{\"libraryName\":\"diku\"}");
+    final JsonObject configs = new JsonObject().put("configs", new JsonArray()
+        .add(tenantConfig)
+        .add(scConfig)
+        .add(new JsonObject()));
+
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(succeededFuture(() -> configs));
+    final Instant first = Instant.parse("2026-10-18T10:00:00Z");
+    final Instant second = first.plusSeconds(5);
+    when(clock.millis()).thenReturn(first.toEpochMilli(), second.toEpochMilli());
+    when(clock.instant()).thenReturn(first, second);
+    when(clock.getZone()).thenReturn(ZoneOffset.UTC);
+
+    final ConfigurationRepository configurationRepository =
+        new ConfigurationRepository(mockFolioProvider, clock, 60_000, 0);
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setScLocation("SE10");
+
+    configurationRepository.getACSStatus(sessionData)
+        .compose(status -> {
+          testContext.verify(() -> assertEquals(OffsetDateTime.ofInstant(first, ZoneOffset.UTC),
+              status.getDateTimeSync()));
+          return configurationRepository.getACSStatus(sessionData);
+        })
+        .onComplete(testContext.succeeding(status -> testContext.verify(() -> {
+          // answered from the cache, with the current date and time
+          assertEquals("diku", status.getLibraryName());
+          assertEquals(OffsetDateTime.ofInstant(second, ZoneOffset.UTC),
+              status.getDateTimeSync());
+          verify(mockFolioProvider, times(1)).retrieveResource(any());
+
+          testContext.completeNow();
+        })));
+  }
+
   @Test
   public void canRetrieveTenantConfiguration(
       Vertx vertx,
@@ -152,5 +205,29 @@ public class ConfigurationRepositoryTests {
             testContext.completeNow();
           })));
   }
-}
 
+  @Test
+  public void canGetOffLineAcsStatusWhenFolioIsUnavailable(Vertx vertx,
+      VertxTestContext testContext,
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(failedFuture(new CircuitOpenThrowable("dikutest")));
+    when(mockFolioProvider.isUnavailable("dikutest")).thenReturn(true);
+
+    ConfigurationRepository configurationRepository =
+        new ConfigurationRepository(mockFolioProvider, TestUtils.getUtcFixedClock());
+
+    SessionData sessionData = TestUtils.getMockedSessionData();
+    sessionData.setScLocation("SE10");
+
+    configurationRepository.getACSStatus(sessionData).onComplete(
+        testContext.succeeding(status -> testContext.verify(() -> {
+          assertEquals(false, status.getOnLineStatus());
+          assertEquals(false, status.getCheckoutOk());
+          assertEquals(0, status.getTimeoutPeriod());
+          assertEquals("dikutest", status.getInstitutionId());
+
+          testContext.completeNow();
+        })));
+  }
+}
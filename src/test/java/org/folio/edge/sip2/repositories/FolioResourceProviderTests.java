@@ -1,18 +1,29 @@
 package org.folio.edge.sip2.repositories;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import io.vertx.core.Future;
 import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
 import java.io.IOException;
 import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.folio.edge.sip2.session.RequestTrace;
 import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.session.TokenSource;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -21,6 +32,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 @ExtendWith(VertxExtension.class)
 public class FolioResourceProviderTests {
   private static final int port = getRandomPort();
+  private static final AtomicInteger unavailableRequests = new AtomicInteger();
 
   @BeforeAll
   static void setup(Vertx vertx, VertxTestContext testContext) throws Throwable {
@@ -32,6 +44,47 @@ public class FolioResourceProviderTests {
               .putHeader("content-type", "application/json")
               .putHeader("x-okapi-token", "token-value")
               .end("{\"test\":\"value\"}");
+        } else if (req.path().equals("/test_compression")
+            && req.getHeader("accept-encoding") != null) {
+          req.response()
+              .setStatusCode(200)
+              .putHeader("content-type", "application/json")
+              .end("{\"test\":\"compressed\"}");
+        } else if (req.path().equals("/test_unauthorized")
+            && !"fresh-token".equals(req.getHeader("x-okapi-token"))) {
+          req.response()
+              .setStatusCode(401)
+              .end("Invalid token");
+        } else if (req.path().equals("/test_unauthorized")) {
+          req.response()
+              .setStatusCode(200)
+              .putHeader("content-type", "application/json")
+              .end("{\"test\":\"authorized\"}");
+        } else if (req.path().equals("/test_projection")) {
+          req.response()
+              .setStatusCode(200)
+              .putHeader("content-type", "application/json")
+              .end("{\"loans\":[{\"id\":\"1\",\"borrower\":{\"barcode\":\"123\"},"
+                  + "\"item\":{\"barcode\":\"456\",\"contributors\":[{\"name\":\"A\"}]}}],"
+                  + "\"totalRecords\":1}");
+        } else if (req.path().equals("/test_hang")) {
+          // never answered
+        } else if (req.path().equals("/test_unavailable")
+            && unavailableRequests.getAndIncrement() == 0) {
+          req.response()
+              .setStatusCode(503)
+              .end("Service Unavailable");
+        } else if (req.path().equals("/test_unavailable")) {
+          req.response()
+              .setStatusCode(200)
+              .putHeader("content-type", "application/json")
+              .end("{\"test\":\"available\"}");
+        } else if (req.path().equals("/test_request_id")) {
+          req.response()
+              .setStatusCode(200)
+              .putHeader("content-type", "application/json")
+              .end(new JsonObject()
+                  .put("requestId", req.getHeader("x-okapi-request-id")).encode());
         } else if (req.path().equals("/test_create")) {
           req.response()
               .setStatusCode(201)
@@ -88,6 +141,21 @@ public class FolioResourceProviderTests {
         })));
   }
 
+  @Test
+  public void canRetrieveWithClientOptions(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, vertx,
+            new WebClientOptions().setTryUseCompression(true).setMaxPoolSize(2));
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_compression")
+        .setHandler(testContext.succeeding(resource -> testContext.verify(() -> {
+          assertEquals("compressed", resource.getResource().getString("test"));
+
+          testContext.completeNow();
+        })));
+  }
+
   @Test
   public void canRetrieveFail(
       Vertx vertx,
@@ -138,6 +206,143 @@ public class FolioResourceProviderTests {
         })));
   }
 
+  @Test
+  public void canRetryWithNewToken(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final List<String> rejectedTokens = new ArrayList<>();
+    final SessionData sessionData = SessionData.createSession("diku", '|', true, "IBM850");
+    sessionData.setTokenSource(new TokenSource() {
+      @Override
+      public Future<String> getToken() {
+        return Future.succeededFuture("expired-token");
+      }
+
+      @Override
+      public Future<String> refreshToken(String rejectedToken) {
+        rejectedTokens.add(rejectedToken);
+        return Future.succeededFuture("fresh-token");
+      }
+    });
+
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, vertx);
+    folioResourceProvider.retrieveResource(new IRequestData() {
+      @Override
+      public String getPath() {
+        return "/test_unauthorized";
+      }
+
+      @Override
+      public SessionData getSessionData() {
+        return sessionData;
+      }
+    }).setHandler(testContext.succeeding(resource -> testContext.verify(() -> {
+      assertEquals("authorized", resource.getResource().getString("test"));
+      assertEquals(Arrays.asList("expired-token"), rejectedTokens);
+      assertEquals("fresh-token", sessionData.getAuthenticationToken());
+
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  public void canFailWithUnauthorized(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, vertx);
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_unauthorized")
+        .setHandler(testContext.failing(throwable -> testContext.verify(() -> {
+          assertEquals(401, ((FolioRequestThrowable) throwable).getStatusCode());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canRetrieveProjection(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, vertx);
+    folioResourceProvider.retrieveResource(new FolioRequestData() {
+      @Override
+      public String getPath() {
+        return "/test_projection";
+      }
+
+      @Override
+      public JsonProjection getProjection() {
+        return JsonProjection.of("totalRecords", "loans.item.barcode");
+      }
+    }).setHandler(testContext.succeeding(resource -> testContext.verify(() -> {
+      assertEquals(new JsonObject()
+          .put("loans", new JsonArray().add(new JsonObject()
+              .put("item", new JsonObject().put("barcode", "456"))))
+          .put("totalRecords", 1), resource.getResource());
+
+      testContext.completeNow();
+    })));
+  }
+
+  @Test
+  public void canTimeOut(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, vertx, new WebClientOptions(),
+            new JsonObject()
+                .put("retries", 0)
+                .put("timeouts", new JsonObject().put("/test_hang", 100)));
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_hang")
+        .setHandler(testContext.failing(throwable -> testContext.verify(() -> {
+          assertTrue(throwable instanceof TimeoutException);
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canRetryUnavailable(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, vertx, new WebClientOptions(),
+            new JsonObject().put("retryDelay", 10));
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_unavailable")
+        .setHandler(testContext.succeeding(resource -> testContext.verify(() -> {
+          assertEquals("available", resource.getResource().getString("test"));
+          assertEquals(2, unavailableRequests.get());
+
+          testContext.completeNow();
+        })));
+  }
+
+  @Test
+  public void canOpenCircuitBreaker(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, vertx, new WebClientOptions(),
+            new JsonObject()
+                .put("retries", 0)
+                .put("failureThreshold", 2));
+    folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_retrieve_bad")
+        .recover(t -> folioResourceProvider.retrieveResource(
+            (FolioRequestData)() -> "/test_retrieve_bad"))
+        .recover(t -> {
+          assertTrue(folioResourceProvider.isUnavailable("diku"));
+          return folioResourceProvider.retrieveResource((FolioRequestData)() -> "/test_retrieve");
+        })
+        .setHandler(testContext.failing(throwable -> testContext.verify(() -> {
+          assertTrue(throwable instanceof CircuitOpenThrowable);
+          assertFalse(folioResourceProvider.isUnavailable("other"));
+
+          testContext.completeNow();
+        })));
+  }
+
   private static int getRandomPort() {
     int port = -1;
     do {
@@ -155,6 +360,33 @@ public class FolioResourceProviderTests {
     return port;
   }
 
+  @Test
+  public void canSendRequestId(
+      Vertx vertx,
+      VertxTestContext testContext) {
+    final SessionData sessionData = SessionData.createSession("diku", '|', true, "IBM850")
+        .forRequest(RequestTrace.start("diku"));
+
+    final FolioResourceProvider folioResourceProvider =
+        new FolioResourceProvider("http://localhost:" + port, vertx);
+    folioResourceProvider.retrieveResource(new IRequestData() {
+      @Override
+      public String getPath() {
+        return "/test_request_id";
+      }
+
+      @Override
+      public SessionData getSessionData() {
+        return sessionData;
+      }
+    }).setHandler(testContext.succeeding(resource -> testContext.verify(() -> {
+      assertEquals(sessionData.getRequestTrace().getRequestId(),
+          resource.getResource().getString("requestId"));
+
+      testContext.completeNow();
+    })));
+  }
+
   private interface FolioRequestData extends IRequestData {
     @Override
     default SessionData getSessionData() {
@@ -0,0 +1,131 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.time.Clock;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.cache.AsyncCache;
+import org.folio.edge.sip2.domain.messages.enumerations.CirculationStatus;
+import org.folio.edge.sip2.domain.messages.requests.ItemInformation;
+import org.folio.edge.sip2.domain.messages.responses.ItemInformationResponse;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class ItemRepositoryTests {
+  private final List<String> paths = new ArrayList<>();
+  private final Promise<IResource> instance = Promise.promise();
+
+  @Test
+  void canPerformItemInformationConcurrently(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation ->
+        retrieve(invocation.getArgument(0)));
+
+    final ItemRepository itemRepository =
+        new ItemRepository(mockFolioProvider, TestUtils.getUtcFixedClock());
+    final Future<ItemInformationResponse> result = itemRepository.performItemInformationCommand(
+        itemInformation("1234"), TestUtils.getMockedSessionData());
+
+    // the loan and the next hold do not wait for the instance
+    assertEquals(5, paths.size());
+    assertTrue(paths.get(2).startsWith("/inventory/instances"));
+    assertTrue(paths.get(3).startsWith("/circulation/loans"));
+    assertTrue(paths.get(4).startsWith("/circulation/requests"));
+    assertFalse(result.isComplete());
+
+    completeInstance();
+    final ItemInformationResponse response = result.result();
+    assertEquals(CirculationStatus.CHARGED, response.getCirculationStatus());
+    assertEquals(OffsetDateTime.parse("2020-06-22T04:00:00Z"), response.getDueDate());
+    assertEquals("Pratchett, Terry", response.getAuthor());
+    assertEquals("6666", response.getHoldPatronId());
+    assertEquals("Circ Desk 2", response.getDestinationInstitutionId());
+    // the loan of a checked out item is not retrieved again
+    assertEquals(5, paths.size());
+  }
+
+  @Test
+  void canCacheHoldingsAndInstances(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation ->
+        retrieve(invocation.getArgument(0)));
+    completeInstance();
+
+    final ItemRepository itemRepository = new ItemRepository(mockFolioProvider,
+        TestUtils.getUtcFixedClock(),
+        AsyncCache.<String, JsonObject>builder(Clock.systemUTC()).ttl(60_000).build());
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    itemRepository.performItemInformationCommand(itemInformation("1234"), sessionData);
+    itemRepository.performItemInformationCommand(itemInformation("5678"), sessionData);
+
+    assertEquals(1, paths.stream().filter(p -> p.startsWith("/holdings-storage")).count());
+    assertEquals(1, paths.stream().filter(p -> p.startsWith("/inventory/instances")).count());
+    assertEquals(2, paths.stream().filter(p -> p.startsWith("/inventory/items")).count());
+  }
+
+  private Future<IResource> retrieve(IRequestData requestData) {
+    final String path = requestData.getPath();
+    paths.add(path);
+
+    if (path.startsWith("/inventory/items")) {
+      return resource(new JsonObject().put("items", new JsonArray().add(new JsonObject()
+          .put("id", "item-" + path.substring(path.lastIndexOf('=') + 1))
+          .put("holdingsRecordId", "holdings-1")
+          .put("title", "Interesting Times")
+          .put("status", new JsonObject().put("name", "Checked out"))
+          .put("effectiveLocation", new JsonObject().put("name", "Main Library")))));
+    } else if (path.startsWith("/holdings-storage")) {
+      return resource(new JsonObject().put("instanceId", "instance-1"));
+    } else if (path.startsWith("/inventory/instances")) {
+      return instance.future();
+    } else if (path.startsWith("/circulation/loans")) {
+      return resource(new JsonObject().put("loans", new JsonArray()
+          .add(new JsonObject().put("dueDate", "2020-06-22T04:00:00.000+0000"))));
+    } else {
+      return resource(new JsonObject().put("requests", new JsonArray().add(new JsonObject()
+          .put("requester", new JsonObject()
+              .put("barcode", "6666")
+              .put("firstName", "Sam")
+              .put("lastName", "Vimes"))
+          .put("pickupServicePoint", new JsonObject().put("name", "Circ Desk 2")))));
+    }
+  }
+
+  private void completeInstance() {
+    instance.complete(new FolioResource(new JsonObject()
+        .put("identifiers", new JsonArray())
+        .put("contributors", new JsonArray().add(new JsonObject()
+            .put("name", "Pratchett, Terry")
+            .put("primary", true)))
+        .put("notes", new JsonArray()), MultiMap.caseInsensitiveMultiMap()));
+  }
+
+  private static Future<IResource> resource(JsonObject json) {
+    return Future.succeededFuture(new FolioResource(json, MultiMap.caseInsensitiveMultiMap()));
+  }
+
+  private static ItemInformation itemInformation(String itemIdentifier) {
+    return ItemInformation.builder()
+        .transactionDate(OffsetDateTime.now())
+        .institutionId("diku")
+        .itemIdentifier(itemIdentifier)
+        .terminalPassword("1234")
+        .build();
+  }
+}
@@ -0,0 +1,57 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.folio.edge.sip2.api.support.TestUtils.getJsonFromFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+class JsonProjectionTests {
+  @Test
+  void canProjectFieldsOfArrayElements() {
+    final String loansJson = getJsonFromFile("json/open_loans_response.json");
+    final JsonObject loans = new JsonObject(loansJson);
+
+    final JsonObject projected = JsonProjection.of("totalRecords", "loans.item.barcode")
+        .decode(Buffer.buffer(loansJson));
+
+    assertEquals(loans.getInteger("totalRecords"), projected.getInteger("totalRecords"));
+    assertEquals(2, projected.size());
+    final JsonArray projectedLoans = projected.getJsonArray("loans");
+    assertEquals(loans.getJsonArray("loans").size(), projectedLoans.size());
+    for (int i = 0; i < projectedLoans.size(); i++) {
+      assertEquals(new JsonObject().put("item", new JsonObject().put("barcode",
+          loans.getJsonArray("loans").getJsonObject(i).getJsonObject("item")
+              .getString("barcode"))),
+          projectedLoans.getJsonObject(i));
+    }
+  }
+
+  @Test
+  void canKeepAllOfField() {
+    final JsonObject json = new JsonObject()
+        .put("item", new JsonObject()
+            .put("title", "Interesting Times")
+            .put("copies", 2)
+            .put("price", 9.99)
+            .put("available", false)
+            .put("notes", new JsonArray().add("signed").addNull()))
+        .put("borrower", new JsonObject().put("barcode", "123"));
+
+    assertEquals(new JsonObject().put("item", json.getJsonObject("item")),
+        JsonProjection.of("item").decode(json.toBuffer()));
+    assertEquals(json, JsonProjection.of().decode(json.toBuffer()));
+  }
+
+  @Test
+  void cannotDecodeInvalidJson() {
+    assertThrows(DecodeException.class,
+        () -> JsonProjection.of("loans").decode(Buffer.buffer("[]")));
+    assertThrows(DecodeException.class,
+        () -> JsonProjection.of("loans").decode(Buffer.buffer("{\"loans\":")));
+  }
+}
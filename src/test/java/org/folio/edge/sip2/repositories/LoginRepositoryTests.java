@@ -7,6 +7,8 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.vertx.core.Future;
@@ -16,11 +18,15 @@ import io.vertx.core.impl.NoStackTraceThrowable;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.time.Clock;
 import java.util.Collections;
+import org.folio.edge.sip2.cache.AsyncCache;
 import org.folio.edge.sip2.domain.messages.enumerations.PWDAlgorithm;
 import org.folio.edge.sip2.domain.messages.enumerations.UIDAlgorithm;
 import org.folio.edge.sip2.domain.messages.requests.Login;
+import org.folio.edge.sip2.repositories.domain.LoginToken;
 import org.folio.edge.sip2.session.SessionData;
+import org.folio.edge.sip2.session.TokenSources;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -147,4 +153,103 @@ public class LoginRepositoryTests {
           testContext.completeNow();
         })));
   }
+
+  @Test
+  public void canReuseCachedToken(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock Clock mockClock) {
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))));
+
+    final LoginRepository loginRepository = new LoginRepository(mockFolioProvider,
+        AsyncCache.<String, LoginToken>builder(mockClock).ttl(600_000).build());
+
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+    assertTrue(loginRepository.login(login("xyzzy"), sessionData).result().getOk());
+
+    // the kiosk reconnected
+    final SessionData reconnected = SessionData.createSession("diku", '|', false, "IBM850");
+    assertTrue(loginRepository.login(login("xyzzy"), reconnected).result().getOk());
+    assertEquals("1234", reconnected.getAuthenticationToken());
+    assertEquals("test", reconnected.getUsername());
+    assertEquals("library", reconnected.getScLocation());
+    assertEquals("1234", reconnected.getTokenSource().getToken().result());
+    verify(mockFolioProvider, times(1)).createResource(any());
+  }
+
+  @Test
+  public void canKeepTokenSourceOfLogin(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock Clock mockClock) {
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "5678"))));
+
+    final TokenSources tokenSources = new TokenSources();
+    final LoginRepository loginRepository = new LoginRepository(mockFolioProvider,
+        AsyncCache.<String, LoginToken>builder(mockClock).build(), tokenSources);
+
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+    assertTrue(loginRepository.login(login("xyzzy"), sessionData).result().getOk());
+    assertNull(tokenSources.get("diku", "other"));
+    // the tokens are not cached, so a new one is got by logging in again
+    assertEquals("5678", tokenSources.get("diku", "test").getToken().result());
+  }
+
+  @Test
+  public void cannotReuseCachedTokenWithOtherPassword(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock Clock mockClock) {
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))))
+        .thenReturn(Future.failedFuture(new FolioRequestThrowable("Bad password", 422)));
+
+    final LoginRepository loginRepository = new LoginRepository(mockFolioProvider,
+        AsyncCache.<String, LoginToken>builder(mockClock).ttl(600_000).build());
+
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+    assertTrue(loginRepository.login(login("xyzzy"), sessionData).result().getOk());
+
+    final SessionData other = SessionData.createSession("diku", '|', false, "IBM850");
+    assertFalse(loginRepository.login(login("plugh"), other).result().getOk());
+    assertNull(other.getAuthenticationToken());
+    assertNull(other.getTokenSource());
+    verify(mockFolioProvider, times(2)).createResource(any());
+  }
+
+  @Test
+  public void canRefreshRejectedToken(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock Clock mockClock) {
+    when(mockFolioProvider.createResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))))
+        .thenReturn(Future.succeededFuture(new FolioResource(new JsonObject(),
+            MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "5678"))));
+
+    final LoginRepository loginRepository = new LoginRepository(mockFolioProvider,
+        AsyncCache.<String, LoginToken>builder(mockClock).ttl(600_000).build());
+
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+    loginRepository.login(login("xyzzy"), sessionData);
+
+    assertEquals("5678", sessionData.getTokenSource().refreshToken("1234").result());
+    // another session rejecting the old token does not log in again
+    assertEquals("5678", sessionData.getTokenSource().refreshToken("1234").result());
+    verify(mockFolioProvider, times(2)).createResource(any());
+  }
+
+  private static Login login(String password) {
+    return Login.builder()
+        .uidAlgorithm(UIDAlgorithm.NO_ENCRYPTION)
+        .pwdAlgorithm(PWDAlgorithm.NO_ENCRYPTION)
+        .loginUserId("test")
+        .loginPassword(password)
+        .locationCode("library")
+        .build();
+  }
 }
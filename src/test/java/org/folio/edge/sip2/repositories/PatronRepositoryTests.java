@@ -20,6 +20,8 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.vertx.core.Future;
@@ -37,7 +39,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.folio.edge.sip2.api.support.TestUtils;
@@ -161,18 +165,23 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(overdueResponse));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
         any(), eq("Hold"), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(holdsResponse));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(openLoansResponse));
-    when(mockCirculationRepository.getRequestsByItemId(
-        any(), eq("Recall"), any(), any(), any()))
-        .thenReturn(Future.succeededFuture(recallsResponse),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(overdueResponse)));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(holdsResponse)));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(openLoansResponse)));
+    when(mockCirculationRepository.getRequestsByItemIds(any(), any()))
+        .thenReturn(Future.succeededFuture(firstRequestByItemId(recallsResponse)));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords
         .builder().user(userResponse).build()));
@@ -266,18 +275,23 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(overdueResponse));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
       any(), eq("Hold"), eq(emptyRequestStatus), any(), any(), any()))
         .thenReturn(Future.succeededFuture(holdsResponse));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(openLoansResponse));
-    when(mockCirculationRepository.getRequestsByItemId(
-        any(), eq("Recall"), any(), any(), any()))
-          .thenReturn(Future.succeededFuture(recallsResponse),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(overdueResponse)));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(holdsResponse)));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(openLoansResponse)));
+    when(mockCirculationRepository.getRequestsByItemIds(any(), any()))
+        .thenReturn(Future.succeededFuture(firstRequestByItemId(recallsResponse)));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
         .user(userResponse).build()));
@@ -371,18 +385,23 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(overdueResponse));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
       any(), eq("Hold"), eq(emptyRequestStatus), any(), any(), any()))
         .thenReturn(Future.succeededFuture(holdsResponse));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(openLoansResponse));
-    when(mockCirculationRepository.getRequestsByItemId(
-        any(), eq("Recall"), any(), any(), any()))
-          .thenReturn(Future.succeededFuture(recallsResponse),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(overdueResponse)));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(holdsResponse)));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(openLoansResponse)));
+    when(mockCirculationRepository.getRequestsByItemIds(any(), any()))
+        .thenReturn(Future.succeededFuture(firstRequestByItemId(recallsResponse)));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
         .user(userResponse).build()));
@@ -474,18 +493,23 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(overdueResponse));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
         any(), eq("Hold"), eq(emptyRequestStatus), any(), any(), any()))
         .thenReturn(Future.succeededFuture(holdsResponse));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(openLoansResponse));
-    when(mockCirculationRepository.getRequestsByItemId(
-        any(), eq("Recall"), any(), any(), any()))
-        .thenReturn(Future.succeededFuture(recallsResponse),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(overdueResponse)));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(holdsResponse)));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(openLoansResponse)));
+    when(mockCirculationRepository.getRequestsByItemIds(any(), any()))
+        .thenReturn(Future.succeededFuture(firstRequestByItemId(recallsResponse)));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
         .thenReturn(Future.succeededFuture(
             PatronPasswordVerificationRecords.builder()
@@ -611,18 +635,23 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(overdueResponse));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
         any(), eq("Hold"), eq(emptyRequestStatus), any(), any(), any()))
         .thenReturn(Future.succeededFuture(holdsResponse));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(openLoansResponse));
-    when(mockCirculationRepository.getRequestsByItemId(
-        any(), eq("Recall"), any(), any(), any()))
-        .thenReturn(Future.succeededFuture(recallsResponse),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())),
-            Future.succeededFuture(new JsonObject().put("requests", new JsonArray())));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(overdueResponse)));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(holdsResponse)));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(openLoansResponse)));
+    when(mockCirculationRepository.getRequestsByItemIds(any(), any()))
+        .thenReturn(Future.succeededFuture(firstRequestByItemId(recallsResponse)));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
         .user(userResponse).build()));
@@ -680,6 +709,75 @@ public class PatronRepositoryTests {
         })));
   }
 
+  @Test
+  void canPatronInformationWithCountsOnly(Vertx vertx, VertxTestContext testContext,
+      @Mock UsersRepository mockUsersRepository,
+      @Mock CirculationRepository mockCirculationRepository,
+      @Mock FeeFinesRepository mockFeeFinesRepository,
+      @Mock PasswordVerifier mockPasswordVerifier) {
+    final Clock clock = Clock.fixed(Instant.now(), ZoneOffset.UTC);
+    final String patronIdentifier = "1234567890";
+    final PatronInformation patronInformation = PatronInformation.builder()
+        .language(ENGLISH)
+        .transactionDate(OffsetDateTime.now())
+        .summary(null)
+        .institutionId("diku")
+        .patronIdentifier(patronIdentifier)
+        .terminalPassword("1234")
+        .patronPassword("0989")
+        .build();
+
+    final User userResponse = Json.decodeValue(getJsonFromFile("json/user_response.json"),
+        User.class);
+    final JsonObject manualBlocksResponse =
+        new JsonObject(getJsonFromFile("json/no_manual_blocks_response.json"));
+    final JsonObject openLoansResponse =
+        new JsonObject(getJsonFromFile("json/open_loans_response.json"));
+
+    when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(manualBlocksResponse));
+    when(mockFeeFinesRepository.getFeeAmountByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(new JsonObject().put("accounts", new JsonArray())));
+    when(mockCirculationRepository.countRequestsByUserId(any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(2), Future.succeededFuture(null));
+    when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(12000));
+    when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(3));
+    when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
+        .thenReturn(Future.succeededFuture(openLoansResponse));
+    when(mockCirculationRepository.getRequestsByItemIds(any(), any()))
+        .thenReturn(Future.succeededFuture(Collections.emptyMap()));
+    when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
+        .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
+        .user(userResponse).build()));
+
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+
+    final PatronRepository patronRepository = new PatronRepository(mockUsersRepository,
+        mockCirculationRepository, mockFeeFinesRepository, mockPasswordVerifier, clock);
+    patronRepository.performPatronInformationCommand(patronInformation, sessionData).onComplete(
+        testContext.succeeding(patronInformationResponse -> testContext.verify(() -> {
+          assertEquals(2, patronInformationResponse.getHoldItemsCount());
+          assertEquals(0, patronInformationResponse.getUnavailableHoldsCount());
+          assertEquals(9999, patronInformationResponse.getOverdueItemsCount());
+          assertEquals(3, patronInformationResponse.getChargedItemsCount());
+          assertEquals(0, patronInformationResponse.getRecallItemsCount());
+          assertTrue(patronInformationResponse.getHoldItems().isEmpty());
+          assertTrue(patronInformationResponse.getUnavailableHoldItems().isEmpty());
+          assertTrue(patronInformationResponse.getOverdueItems().isEmpty());
+          assertTrue(patronInformationResponse.getChargedItems().isEmpty());
+          assertTrue(patronInformationResponse.getValidPatron());
+
+          verify(mockCirculationRepository, never()).getRequestsByUserId(
+              any(), any(), any(), any(), any(), any());
+          verify(mockCirculationRepository, never()).getOverdueLoansByUserId(
+              any(), any(), any(), any(), any());
+
+          testContext.completeNow();
+        })));
+  }
+
   @Test
   public void canPatronInformationWithRecallsPaged(Vertx vertx, VertxTestContext testContext,
       @Mock UsersRepository mockUsersRepository,
@@ -721,22 +819,26 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(overdueResponse));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
         any(), eq("Hold"), eq(emptyRequestStatus), any(), any(), any()))
         .thenReturn(Future.succeededFuture(holdsResponse));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(openLoansResponse));
-    when(mockCirculationRepository.getRequestsByItemId(
-        eq("4593bdb8-f056-4a75-9c75-7b04c3a1dd64"), eq("Recall"), any(), any(), any()))
-        .thenReturn(Future.succeededFuture(recallsResponse));
-    when(mockCirculationRepository.getRequestsByItemId(
-        eq("02114831-1c8f-4594-beb9-1bf23f65054c"), eq("Recall"), any(), any(), any()))
-        .thenReturn(Future.succeededFuture(recallsResponse1));
-    when(mockCirculationRepository.getRequestsByItemId(
-        eq("c70f966b-435f-4879-a7d1-3f66e6699191"), eq("Recall"), any(), any(), any()))
-        .thenReturn(Future.succeededFuture(recallsResponse2));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(overdueResponse)));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(holdsResponse)));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(totalRecords(openLoansResponse)));
+    when(mockCirculationRepository.getRequestsByItemIds(eq(Arrays.asList(
+        "4593bdb8-f056-4a75-9c75-7b04c3a1dd64", "c70f966b-435f-4879-a7d1-3f66e6699191",
+        "02114831-1c8f-4594-beb9-1bf23f65054c")), any()))
+        .thenReturn(Future.succeededFuture(firstRequestByItemId(recallsResponse,
+            recallsResponse1, recallsResponse2)));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
         .user(userResponse).build()));
@@ -1039,11 +1141,19 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(null));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
         any(), eq("Hold"), eq(emptyRequestStatus), any(), any(), any()))
         .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(null));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(null));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
@@ -1129,17 +1239,24 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(null));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
         any(), eq("Hold"), eq(emptyRequestStatus), any(), any(), any()))
         .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(null));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(new JsonObject().put("loans",
             new JsonArray().add(new JsonObject().put("itemId", "1234")))));
-    when(mockCirculationRepository.getRequestsByItemId(
-        any(), eq("Recall"), any(), any(), any()))
-        .thenReturn(Future.succeededFuture(null));
+    when(mockCirculationRepository.getRequestsByItemIds(any(), any()))
+        .thenReturn(Future.succeededFuture(Collections.emptyMap()));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
         .thenReturn(Future.succeededFuture(PatronPasswordVerificationRecords.builder()
         .user(userResponse).build()));
@@ -1224,11 +1341,19 @@ public class PatronRepositoryTests {
 
     when(mockFeeFinesRepository.getManualBlocksByUserId(any(), any()))
         .thenReturn(Future.succeededFuture(manualBlocksResponse));
-    when(mockCirculationRepository.getOverdueLoansByUserId(any(), any(), any(), any(), any()))
+    lenient().when(mockCirculationRepository.getOverdueLoansByUserId(
+        any(), any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(null));
-    when(mockCirculationRepository.getRequestsByUserId(
+    lenient().when(mockCirculationRepository.getRequestsByUserId(
       any(), eq("Hold"), eq(emptyRequestStatus), any(), any(), any()))
         .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countOverdueLoansByUserId(any(), any(), any()))
+        .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countRequestsByUserId(
+        any(), eq("Hold"), any(), any()))
+        .thenReturn(Future.succeededFuture(null));
+    lenient().when(mockCirculationRepository.countLoansByUserId(any(), any()))
+        .thenReturn(Future.succeededFuture(null));
     when(mockCirculationRepository.getLoansByUserId(any(), any(), any(), any()))
         .thenReturn(Future.succeededFuture(null));
     when(mockPasswordVerifier.verifyPatronPassword(eq(patronIdentifier), eq("0989"), any()))
@@ -1408,6 +1533,19 @@ public class PatronRepositoryTests {
         })));
   }
 
+  private static Integer totalRecords(JsonObject response) {
+    return response.getInteger("totalRecords");
+  }
+
+  private static Map<String, JsonObject> firstRequestByItemId(JsonObject... responses) {
+    final Map<String, JsonObject> requests = new HashMap<>();
+    for (JsonObject response : responses) {
+      final JsonObject request = response.getJsonArray("requests").getJsonObject(0);
+      requests.put(request.getString("itemId"), request);
+    }
+    return requests;
+  }
+
   private static JsonObject getManualBlockJsonObject(boolean borrowing, boolean renewals,
       boolean requests) {
     return new JsonObject("{\n"
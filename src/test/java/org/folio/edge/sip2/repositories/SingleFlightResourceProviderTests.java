@@ -0,0 +1,148 @@
+package org.folio.edge.sip2.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.folio.edge.sip2.api.support.TestUtils;
+import org.folio.edge.sip2.session.SessionData;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightResourceProviderTests {
+  private final List<Promise<IResource>> sent = new ArrayList<>();
+
+  @Test
+  void canMergeIdenticalRequests(@Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> send());
+
+    final SingleFlightResourceProvider provider =
+        new SingleFlightResourceProvider(mockFolioProvider);
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final Future<IResource> first = provider.retrieveResource(get("/users", sessionData));
+    final Future<IResource> second = provider.retrieveResource(get("/users", sessionData));
+
+    assertEquals(1, sent.size());
+    final JsonObject json = new JsonObject().put("totalRecords", 1);
+    sent.get(0).complete(new FolioResource(json, MultiMap.caseInsensitiveMultiMap()));
+    assertSame(json, first.result().getResource());
+    assertEquals(json, second.result().getResource());
+    // each caller gets its own copy
+    assertNotSame(json, second.result().getResource());
+    assertEquals(2, provider.requestsCount());
+    assertEquals(1, provider.coalescedCount());
+    assertEquals(0.5, provider.coalescedRatio());
+
+    // the response is not kept
+    provider.retrieveResource(get("/users", sessionData));
+    assertEquals(2, sent.size());
+  }
+
+  @Test
+  void cannotMergeRequestsOfOtherTenantsOrTokens(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> send());
+
+    final SingleFlightResourceProvider provider =
+        new SingleFlightResourceProvider(mockFolioProvider);
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final SessionData otherTenant = SessionData.createSession("fs00000001", '|', false, "IBM850");
+    final SessionData otherToken = TestUtils.getMockedSessionData();
+    otherToken.setAuthenticationToken("other-token");
+    provider.retrieveResource(get("/users", sessionData));
+    provider.retrieveResource(get("/users", otherTenant));
+    provider.retrieveResource(get("/users", otherToken));
+    provider.retrieveResource(get("/groups", sessionData));
+
+    assertEquals(4, sent.size());
+    assertEquals(0, provider.coalescedCount());
+  }
+
+  @Test
+  void canShareFailure(@Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.retrieveResource(any())).thenAnswer(invocation -> send());
+
+    final SingleFlightResourceProvider provider =
+        new SingleFlightResourceProvider(mockFolioProvider);
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    final Future<IResource> first = provider.retrieveResource(get("/users", sessionData));
+    final Future<IResource> second = provider.retrieveResource(get("/users", sessionData));
+
+    sent.get(0).fail(new FolioRequestThrowable("Internal Server Error", 500));
+    assertTrue(first.failed());
+    assertTrue(second.failed());
+
+    // the failure is not kept
+    provider.retrieveResource(get("/users", sessionData));
+    assertEquals(2, sent.size());
+  }
+
+  @Test
+  void canPassOnOtherRequests(@Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    when(mockFolioProvider.createResource(any())).thenAnswer(invocation -> send());
+
+    final SingleFlightResourceProvider provider =
+        new SingleFlightResourceProvider(mockFolioProvider);
+    final SessionData sessionData = TestUtils.getMockedSessionData();
+    provider.createResource(get("/users", sessionData));
+    provider.createResource(get("/users", sessionData));
+
+    verify(mockFolioProvider, times(2)).createResource(any());
+    assertEquals(0, provider.requestsCount());
+  }
+
+  private Future<IResource> send() {
+    final Promise<IResource> promise = Promise.promise();
+    sent.add(promise);
+    return promise.future();
+  }
+
+  @Test
+  void canRemoveGaugeWhenClosed(@Mock IResourceProvider<IRequestData> mockFolioProvider) {
+    final SingleFlightResourceProvider provider =
+        new SingleFlightResourceProvider(mockFolioProvider);
+    final String ratio = "org.folio.edge.sip2.okapi.get.coalesced.ratio";
+    assertNotNull(provider.registry().find(ratio).gauge());
+
+    provider.close();
+    assertNull(provider.registry().find(ratio).gauge());
+    verify(mockFolioProvider).close();
+  }
+
+  private static IRequestData get(String path, SessionData sessionData) {
+    return new IRequestData() {
+      @Override
+      public String getPath() {
+        return path;
+      }
+
+      @Override
+      public Map<String, String> getHeaders() {
+        return Collections.singletonMap("accept", "application/json");
+      }
+
+      @Override
+      public SessionData getSessionData() {
+        return sessionData;
+      }
+    };
+  }
+}
@@ -4,9 +4,13 @@ import static org.folio.edge.sip2.api.support.TestUtils.getJsonFromFile;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import io.vertx.core.Future;
@@ -16,6 +20,10 @@ import io.vertx.core.impl.NoStackTraceThrowable;
 import io.vertx.core.json.JsonObject;
 import io.vertx.junit5.VertxExtension;
 import io.vertx.junit5.VertxTestContext;
+import java.time.Clock;
+import java.util.Optional;
+import org.folio.edge.sip2.cache.AsyncCache;
+import org.folio.edge.sip2.repositories.domain.User;
 import org.folio.edge.sip2.session.SessionData;
 import org.folio.edge.sip2.utils.Utils;
 import org.junit.jupiter.api.Test;
@@ -146,4 +154,73 @@ public class UsersRepositoryTests {
           testContext.completeNow();
         })));
   }
+
+  @Test
+  public void canCacheUserUnderAllIdentifiers(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock Clock mockClock) {
+    final JsonObject userResponse = new JsonObject(getJsonFromFile("json/users_response.json"));
+
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(userResponse,
+            MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))));
+
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+
+    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider,
+        AsyncCache.<String, Optional<User>>builder(mockClock).ttl(30_000).build());
+    final User user = usersRepository.getUserById("997383903573496", sessionData).result();
+    assertNotNull(user);
+    assertSame(user, usersRepository.getUserById("997383903573496", sessionData).result());
+    assertSame(user, usersRepository.getUserById("leslie", sessionData).result());
+    verify(mockFolioProvider, times(1)).retrieveResource(any());
+
+    // another tenant does not see the user
+    usersRepository.getUserById("leslie",
+        SessionData.createSession("fs00000001", '|', false, "IBM850"));
+    verify(mockFolioProvider, times(2)).retrieveResource(any());
+  }
+
+  @Test
+  public void canCacheUnknownUser(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock Clock mockClock) {
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.succeededFuture(new FolioResource(
+            new JsonObject().put("totalRecords", 0),
+            MultiMap.caseInsensitiveMultiMap().add("x-okapi-token", "1234"))));
+    when(mockClock.millis()).thenReturn(0L);
+
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+
+    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider,
+        AsyncCache.<String, Optional<User>>builder(mockClock)
+            .ttl(user -> user.isPresent() ? 30_000 : 5_000)
+            .build());
+    assertNull(usersRepository.getUserById("1234667", sessionData).result());
+    assertNull(usersRepository.getUserById("1234667", sessionData).result());
+    verify(mockFolioProvider, times(1)).retrieveResource(any());
+
+    when(mockClock.millis()).thenReturn(5_000L);
+    assertNull(usersRepository.getUserById("1234667", sessionData).result());
+    verify(mockFolioProvider, times(2)).retrieveResource(any());
+  }
+
+  @Test
+  public void cannotCacheFailure(
+      @Mock IResourceProvider<IRequestData> mockFolioProvider,
+      @Mock Clock mockClock) {
+    when(mockFolioProvider.retrieveResource(any()))
+        .thenReturn(Future.failedFuture(new NoStackTraceThrowable("Test failure")));
+
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+
+    final UsersRepository usersRepository = new UsersRepository(mockFolioProvider,
+        AsyncCache.<String, Optional<User>>builder(mockClock).ttl(30_000).build());
+    final Future<User> failed = usersRepository.getUserById("1234667", sessionData);
+    assertTrue(failed.succeeded());
+    assertNull(failed.result());
+    usersRepository.getUserById("1234667", sessionData);
+    verify(mockFolioProvider, times(2)).retrieveResource(any());
+  }
 }
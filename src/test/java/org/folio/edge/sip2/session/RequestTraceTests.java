@@ -0,0 +1,71 @@
+package org.folio.edge.sip2.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+class RequestTraceTests {
+  @Test
+  void canRecordStages() {
+    final RequestTrace trace = RequestTrace.start("diku", true);
+    trace.setCommand("PATRON_INFORMATION");
+
+    trace.startStage("parse").end();
+    final RequestTrace.Stage get = trace.startStage("GET /circulation/loans");
+    trace.startStage("write");
+    get.end("200");
+    get.end("500");
+    trace.end("ok");
+
+    final JsonObject json = trace.toJson(2_500_000L);
+    assertTrue(trace.getRequestId().matches("\\d{6}"));
+    assertEquals(trace.getRequestId(), json.getString("requestId"));
+    assertEquals("diku", json.getString("tenant"));
+    assertEquals("PATRON_INFORMATION", json.getString("command"));
+    assertEquals("ok", json.getString("outcome"));
+    assertEquals(2.5, json.getDouble("durationMs"));
+
+    final JsonArray stages = json.getJsonArray("stages");
+    assertEquals(3, stages.size());
+    assertEquals("parse", stages.getJsonObject(0).getString("name"));
+    assertEquals("GET /circulation/loans", stages.getJsonObject(1).getString("name"));
+    assertEquals("200", stages.getJsonObject(1).getString("status"));
+    assertTrue(stages.getJsonObject(1).getDouble("durationMs") >= 0.0);
+    // a stage that has not ended yet
+    assertNull(stages.getJsonObject(2).getDouble("durationMs"));
+  }
+
+  @Test
+  void cannotRecordWithoutRequest() {
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+    final RequestTrace trace = RequestTrace.of(sessionData);
+
+    assertSame(trace, RequestTrace.of(null));
+    assertNull(trace.getRequestId());
+    trace.startStage("parse").end();
+    assertEquals(0, trace.toJson(0L).getJsonArray("stages").size());
+  }
+
+  @Test
+  void canGetTraceOfRequest() {
+    final SessionData sessionData = SessionData.createSession("diku", '|', false, "IBM850");
+    final RequestTrace trace = RequestTrace.start("diku");
+    final RequestTrace pipelined = RequestTrace.start("diku");
+    final SessionData requestSession = sessionData.forRequest(trace);
+    final SessionData pipelinedSession = sessionData.forRequest(pipelined);
+
+    assertSame(trace, RequestTrace.of(requestSession));
+    assertSame(pipelined, RequestTrace.of(pipelinedSession));
+    assertNull(RequestTrace.of(sessionData).getRequestId());
+
+    // the requests share the state of the session
+    requestSession.setScLocation("circdesk");
+    assertEquals("circdesk", sessionData.getScLocation());
+    assertEquals("circdesk", pipelinedSession.getScLocation());
+  }
+}
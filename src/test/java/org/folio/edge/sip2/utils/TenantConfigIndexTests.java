@@ -0,0 +1,83 @@
+package org.folio.edge.sip2.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TenantConfigIndexTests {
+  private static final TenantConfigIndex index = TenantConfigIndex.of(config(
+      "10.0.0.0/8", "wide",
+      "10.1.0.0/16", "narrow",
+      "10.1.2.3/32", "host",
+      "10.1.0.0/16", "duplicate",
+      "192.168.1.0/24", "branch",
+      "2001:db8::/32", "ipv6wide",
+      "2001:db8:1::/48", "ipv6narrow"));
+
+  @ParameterizedTest
+  @CsvSource({
+      "10.200.0.1, wide",
+      "10.1.200.1, narrow",
+      "10.1.2.3, host",
+      "10.1.2.4, narrow",
+      "192.168.1.255, branch",
+      "192.168.2.1, default",
+      "11.0.0.1, default",
+      "::ffff:10.1.2.3, host",
+      "2001:db8:2::1, ipv6wide",
+      "2001:db8:1:0:0:0:0:1, ipv6narrow",
+      "2001:db8:1::1%eth0, ipv6narrow",
+      "2001:db9::1, default"
+  })
+  void canLookupMostSpecificSubnet(String clientIP, String tenant) {
+    assertEquals(tenant, index.lookup(clientIP).getString("tenant"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "localhost", "abcd.ef", "zz:1", "10.1.2.3.4"})
+  void canLookupInvalidAddress(String clientIP) {
+    assertSame(index.getSip2config(), index.lookup(clientIP));
+  }
+
+  @Test
+  void canLookupWithoutTenants() {
+    final JsonObject sip2config = new JsonObject().put("tenant", "default");
+
+    assertSame(sip2config, TenantConfigIndex.of(sip2config).lookup("10.1.2.3"));
+  }
+
+  @Test
+  void canMatchEveryAddress() {
+    final TenantConfigIndex all = TenantConfigIndex.of(config("0.0.0.0/0", "all"));
+
+    assertEquals("all", all.lookup("255.255.255.255").getString("tenant"));
+    assertEquals("default", all.lookup("::1").getString("tenant"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"10.0.0.0", "10.0.0.0/33", "10.0.0.0/x", "host/8", "::/129"})
+  void cannotIndexInvalidSubnet(String subnet) {
+    final JsonObject sip2config = config(subnet, "invalid");
+
+    assertThrows(IllegalArgumentException.class, () -> TenantConfigIndex.of(sip2config));
+  }
+
+  private static JsonObject config(String... subnetsAndTenants) {
+    final JsonArray tenants = new JsonArray();
+    for (int i = 0; i < subnetsAndTenants.length; i += 2) {
+      tenants.add(new JsonObject()
+          .put("scSubnet", subnetsAndTenants[i])
+          .put("tenant", subnetsAndTenants[i + 1]));
+    }
+    return new JsonObject()
+        .put("tenant", "default")
+        .put("scTenants", tenants);
+  }
+}